@@ -0,0 +1,59 @@
+package com.wanli.academy.backend.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+/**
+ * BCrypt成本因子校准器
+ * 启动时在当前硬件上测量基准成本的哈希耗时，按"成本每加1耗时翻倍"推算不超过目标耗时的最大成本因子，
+ * 结果限制在[min, max]之间
+ */
+public class BCryptCostCalibrator {
+
+    private static final Logger logger = LoggerFactory.getLogger(BCryptCostCalibrator.class);
+
+    // 基准测量使用的成本因子，足够快又能反映硬件速度
+    static final int BASE_STRENGTH = 8;
+
+    private static final int SAMPLES = 3;
+
+    private BCryptCostCalibrator() {
+    }
+
+    /**
+     * 校准成本因子
+     * @param targetMillis 单次哈希的目标耗时
+     * @param minStrength 最小成本因子
+     * @param maxStrength 最大成本因子
+     * @return 成本因子
+     */
+    public static int calibrate(long targetMillis, int minStrength, int maxStrength) {
+        BCryptPasswordEncoder encoder = new BCryptPasswordEncoder(BASE_STRENGTH);
+        // 首次调用包含类加载和JIT预热，不计入
+        encoder.encode("calibration");
+        long bestNanos = Long.MAX_VALUE;
+        for (int i = 0; i < SAMPLES; i++) {
+            long start = System.nanoTime();
+            encoder.encode("calibration");
+            bestNanos = Math.min(bestNanos, System.nanoTime() - start);
+        }
+        int strength = strengthFor(bestNanos / 1_000_000.0, targetMillis, minStrength, maxStrength);
+        logger.info("Calibrated BCrypt strength {} (cost {} took {} ms, target {} ms)",
+                strength, BASE_STRENGTH, String.format("%.1f", bestNanos / 1_000_000.0), targetMillis);
+        return strength;
+    }
+
+    /**
+     * 由基准耗时推算成本因子：每加1耗时翻倍
+     */
+    static int strengthFor(double baseMillis, long targetMillis, int minStrength, int maxStrength) {
+        int strength = BASE_STRENGTH;
+        double millis = Math.max(baseMillis, 0.01);
+        while (strength < maxStrength && millis * 2 <= targetMillis) {
+            millis *= 2;
+            strength++;
+        }
+        return Math.max(minStrength, Math.min(strength, maxStrength));
+    }
+}
@@ -0,0 +1,80 @@
+package com.wanli.academy.backend.config;
+
+import com.wanli.academy.backend.service.Coalesced;
+import com.wanli.academy.backend.service.RequestCoalescer;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.expression.MethodBasedEvaluationContext;
+import org.springframework.core.DefaultParameterNameDiscoverer;
+import org.springframework.core.Ordered;
+import org.springframework.core.ParameterNameDiscoverer;
+import org.springframework.core.annotation.Order;
+import org.springframework.expression.Expression;
+import org.springframework.expression.spel.standard.SpelExpressionParser;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 请求合并切面
+ * 拦截@Coalesced方法并交给RequestCoalescer执行；优先级高于事务切面，
+ * 等待共享结果的调用不会各自开启事务和占用数据库连接
+ */
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class CoalescingAspect {
+
+    private final SpelExpressionParser parser = new SpelExpressionParser();
+    private final ParameterNameDiscoverer parameterNameDiscoverer = new DefaultParameterNameDiscoverer();
+    private final Map<String, Expression> expressions = new ConcurrentHashMap<>();
+
+    @Autowired
+    private RequestCoalescer requestCoalescer;
+
+    @Around("@annotation(coalesced)")
+    public Object coalesce(ProceedingJoinPoint joinPoint, Coalesced coalesced) throws Throwable {
+        Method method = ((MethodSignature) joinPoint.getSignature()).getMethod();
+        String name = method.getDeclaringClass().getSimpleName() + "." + method.getName();
+        Object key = key(coalesced, method, joinPoint);
+
+        try {
+            return requestCoalescer.execute(name, key, () -> {
+                try {
+                    return joinPoint.proceed();
+                } catch (RuntimeException | Error e) {
+                    throw e;
+                } catch (Throwable t) {
+                    throw new CheckedLoadException(t);
+                }
+            });
+        } catch (CheckedLoadException e) {
+            throw e.getCause();
+        }
+    }
+
+    private Object key(Coalesced coalesced, Method method, ProceedingJoinPoint joinPoint) {
+        if (coalesced.key().isEmpty()) {
+            return Arrays.asList(joinPoint.getArgs());
+        }
+        Expression expression = expressions.computeIfAbsent(coalesced.key(), parser::parseExpression);
+        MethodBasedEvaluationContext context = new MethodBasedEvaluationContext(
+                joinPoint.getTarget(), method, joinPoint.getArgs(), parameterNameDiscoverer);
+        return expression.getValue(context);
+    }
+
+    /**
+     * 在Supplier中传递受检异常
+     */
+    private static class CheckedLoadException extends RuntimeException {
+        CheckedLoadException(Throwable cause) {
+            super(cause);
+        }
+    }
+}
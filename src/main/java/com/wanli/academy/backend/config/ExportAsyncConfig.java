@@ -0,0 +1,37 @@
+package com.wanli.academy.backend.config;
+
+import com.wanli.academy.backend.service.ExportService;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.async.AsyncWebRequest;
+import org.springframework.web.context.request.async.CallableProcessingInterceptor;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.concurrent.Callable;
+
+/**
+ * 导出响应异步超时配置类
+ * 流式导出需要较长的异步超时，但该超时不应作用于其他异步响应。
+ * 导出服务在请求属性中记录超时，这里在开始异步处理前将其应用到本次请求
+ */
+@Configuration
+public class ExportAsyncConfig implements WebMvcConfigurer {
+
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.registerCallableInterceptors(new ExportTimeoutInterceptor());
+    }
+
+    static class ExportTimeoutInterceptor implements CallableProcessingInterceptor {
+
+        @Override
+        public <T> void beforeConcurrentHandling(NativeWebRequest request, Callable<T> task) {
+            Object timeout = request.getAttribute(ExportService.TIMEOUT_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+            if (timeout instanceof Long millis && request instanceof AsyncWebRequest asyncRequest) {
+                asyncRequest.setTimeout(millis);
+            }
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.wanli.academy.backend.config;
+
+import com.wanli.academy.backend.service.FileStoreReconciler;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 文件存储对账Actuator端点
+ * GET /actuator/filestore 返回最近一次对账报告
+ */
+@Component
+@Endpoint(id = "filestore")
+public class FileStoreEndpoint {
+
+    @Autowired
+    private FileStoreReconciler fileStoreReconciler;
+
+    @ReadOperation
+    public Map<String, Object> lastReport() {
+        Map<String, Object> response = new HashMap<>();
+        FileStoreReconciler.ReconcileReport report = fileStoreReconciler.getLastReport();
+        response.put("status", report == null ? "NOT_RUN" : (report.getError() == null ? "COMPLETED" : "FAILED"));
+        response.put("report", report);
+        return response;
+    }
+}
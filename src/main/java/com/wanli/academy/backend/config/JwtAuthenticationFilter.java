@@ -1,6 +1,8 @@
 package com.wanli.academy.backend.config;
 
+import com.wanli.academy.backend.service.CustomUserDetailsService;
 import com.wanli.academy.backend.service.JwtService;
+import com.wanli.academy.backend.service.UserActivityRecorder;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -33,6 +35,9 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     @Autowired
     private UserDetailsService userDetailsService;
 
+    @Autowired
+    private UserActivityRecorder activityRecorder;
+
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
             throws ServletException, IOException {
@@ -64,6 +69,10 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
                             new WebAuthenticationDetailsSource().buildDetails(request)
                     );
                     SecurityContextHolder.getContext().setAuthentication(authToken);
+                    // 最近访问时间在内存中合并，定时批量写回
+                    if (userDetails instanceof CustomUserDetailsService.AuthenticatedUser authenticatedUser) {
+                        activityRecorder.recordSeen(authenticatedUser.getUserId());
+                    }
                     logger.debug("JWT authentication successful for user: {}", username);
                 } else {
                     logger.warn("Invalid JWT token for user: {}", username);
@@ -0,0 +1,13 @@
+package com.wanli.academy.backend.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * 定时任务配置类
+ * 启用@Scheduled注解，用于后台对账、清理等周期性任务
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
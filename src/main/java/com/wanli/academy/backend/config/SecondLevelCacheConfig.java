@@ -0,0 +1,163 @@
+package com.wanli.academy.backend.config;
+
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Hibernate二级缓存配置类
+ * 通过JCache/Caffeine为角色、用户、课程、作业和题目等读多写少的实体提供进程内缓存，
+ * 每个区域单独配置TTL与容量（jpa.cache.regions.<区域>.ttl-seconds / max-entries），
+ * 并把各区域的命中率注册到Micrometer
+ */
+@Configuration
+public class SecondLevelCacheConfig {
+
+    private static final Logger logger = LoggerFactory.getLogger(SecondLevelCacheConfig.class);
+
+    public static final String QUERY_RESULTS_REGION = "default-query-results-region";
+    public static final String UPDATE_TIMESTAMPS_REGION = "default-update-timestamps-region";
+
+    /**
+     * 实体与集合区域及其默认的{TTL秒数, 最大条目数}
+     */
+    static final Map<String, long[]> DOMAIN_REGIONS = new LinkedHashMap<>();
+
+    /**
+     * 查询缓存区域及其默认的{TTL秒数, 最大条目数}
+     */
+    static final Map<String, long[]> QUERY_REGIONS = new LinkedHashMap<>();
+
+    static {
+        DOMAIN_REGIONS.put("roles", new long[] {3600, 100});
+        DOMAIN_REGIONS.put("users", new long[] {300, 10000});
+        DOMAIN_REGIONS.put("user-roles", new long[] {300, 10000});
+        DOMAIN_REGIONS.put("courses", new long[] {900, 5000});
+        DOMAIN_REGIONS.put("homeworks", new long[] {900, 5000});
+        DOMAIN_REGIONS.put("questions", new long[] {900, 50000});
+
+        QUERY_REGIONS.put("role-by-name", new long[] {3600, 100});
+        QUERY_REGIONS.put("question-by-homework", new long[] {900, 5000});
+        QUERY_REGIONS.put(QUERY_RESULTS_REGION, new long[] {300, 1000});
+    }
+
+    /**
+     * 二级缓存使用的JCache管理器，预先按配置创建全部区域
+     */
+    @Bean(destroyMethod = "close")
+    public CacheManager hibernateCacheManager(Environment environment) {
+        CaffeineCachingProvider provider = (CaffeineCachingProvider)
+                Caching.getCachingProvider(CaffeineCachingProvider.class.getName());
+        CacheManager cacheManager = provider.getCacheManager(provider.getDefaultURI(), getClass().getClassLoader());
+
+        Map<String, long[]> regions = new LinkedHashMap<>(DOMAIN_REGIONS);
+        regions.putAll(QUERY_REGIONS);
+        regions.forEach((region, defaults) -> {
+            long ttlSeconds = environment.getProperty("jpa.cache.regions." + region + ".ttl-seconds", Long.class, defaults[0]);
+            long maxEntries = environment.getProperty("jpa.cache.regions." + region + ".max-entries", Long.class, defaults[1]);
+            createRegion(cacheManager, region, ttlSeconds, maxEntries);
+        });
+        // 更新时间戳区域决定查询缓存是否失效，不能早于查询结果被淘汰
+        createRegion(cacheManager, UPDATE_TIMESTAMPS_REGION, 0, 0);
+
+        return cacheManager;
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer secondLevelCacheCustomizer(CacheManager hibernateCacheManager) {
+        return properties -> properties.put(ConfigSettings.CACHE_MANAGER, hibernateCacheManager);
+    }
+
+    /**
+     * 按区域注册命中、未命中计数与命中率
+     */
+    @Bean
+    public MeterBinder secondLevelCacheMetrics(EntityManagerFactory entityManagerFactory) {
+        return registry -> {
+            Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+            DOMAIN_REGIONS.keySet().forEach(region ->
+                    bindRegion(registry, region, () -> statistics.getDomainDataRegionStatistics(region)));
+            QUERY_REGIONS.keySet().forEach(region ->
+                    bindRegion(registry, region, () -> statistics.getQueryRegionStatistics(region)));
+        };
+    }
+
+    private void createRegion(CacheManager cacheManager, String region, long ttlSeconds, long maxEntries) {
+        CaffeineConfiguration<Object, Object> configuration = new CaffeineConfiguration<>();
+        if (ttlSeconds > 0) {
+            configuration.setExpireAfterWrite(OptionalLong.of(TimeUnit.SECONDS.toNanos(ttlSeconds)));
+        }
+        if (maxEntries > 0) {
+            configuration.setMaximumSize(OptionalLong.of(maxEntries));
+        }
+        cacheManager.createCache(region, configuration);
+        logger.info("Created second-level cache region {} (ttl {}s, max {} entries)", region, ttlSeconds, maxEntries);
+    }
+
+    private void bindRegion(MeterRegistry registry, String region,
+                            Supplier<CacheRegionStatistics> statistics) {
+        FunctionCounter.builder("jpa.cache.gets", statistics, hits(true))
+                .tags("region", region, "result", "hit")
+                .description("Second-level cache lookups")
+                .register(registry);
+        FunctionCounter.builder("jpa.cache.gets", statistics, hits(false))
+                .tags("region", region, "result", "miss")
+                .description("Second-level cache lookups")
+                .register(registry);
+        Gauge.builder("jpa.cache.hit.ratio", statistics, supplier -> {
+                    CacheRegionStatistics stats = lookup(supplier);
+                    if (stats == null) {
+                        return Double.NaN;
+                    }
+                    long total = stats.getHitCount() + stats.getMissCount();
+                    return total == 0 ? Double.NaN : (double) stats.getHitCount() / total;
+                })
+                .tag("region", region)
+                .description("Second-level cache hit ratio")
+                .register(registry);
+    }
+
+    private ToDoubleFunction<Supplier<CacheRegionStatistics>> hits(boolean hit) {
+        return supplier -> {
+            CacheRegionStatistics stats = lookup(supplier);
+            if (stats == null) {
+                return 0;
+            }
+            return hit ? stats.getHitCount() : stats.getMissCount();
+        };
+    }
+
+    /**
+     * 区域在首次使用前可能尚未被Hibernate注册，此时没有统计数据
+     */
+    private CacheRegionStatistics lookup(Supplier<CacheRegionStatistics> supplier) {
+        try {
+            return supplier.get();
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
@@ -2,6 +2,7 @@ package com.wanli.academy.backend.config;
 
 import com.wanli.academy.backend.service.CustomUserDetailsService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -13,6 +14,7 @@ import org.springframework.security.config.annotation.web.configuration.EnableWe
 import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
 import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
@@ -21,7 +23,9 @@ import org.springframework.web.cors.CorsConfigurationSource;
 import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
 
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Spring Security Configuration Class
@@ -44,13 +48,37 @@ public class SecurityConfig {
         this.customUserDetailsService = customUserDetailsService;
     }
 
+    // Fixed BCrypt strength; 0 means calibrate against the target latency at startup
+    @Value("${security.password.bcrypt-strength:0}")
+    private int bcryptStrength;
+
+    @Value("${security.password.bcrypt-target-millis:250}")
+    private long bcryptTargetMillis;
+
+    @Value("${security.password.bcrypt-min-strength:10}")
+    private int bcryptMinStrength;
+
+    @Value("${security.password.bcrypt-max-strength:14}")
+    private int bcryptMaxStrength;
+
     /**
      * Password Encoder Bean
-     * Uses BCrypt algorithm for password encryption
+     * New hashes are stored as {bcrypt} with a strength calibrated for this node; legacy hashes without
+     * an id prefix are still matched as BCrypt, and upgradeEncoding reports both them and hashes below
+     * the current strength so they are rehashed on the next successful login
      */
     @Bean
     public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+        int strength = bcryptStrength > 0
+            ? bcryptStrength
+            : BCryptCostCalibrator.calibrate(bcryptTargetMillis, bcryptMinStrength, bcryptMaxStrength);
+        BCryptPasswordEncoder bcrypt = new BCryptPasswordEncoder(strength);
+
+        Map<String, PasswordEncoder> encoders = new HashMap<>();
+        encoders.put("bcrypt", bcrypt);
+        DelegatingPasswordEncoder encoder = new DelegatingPasswordEncoder("bcrypt", encoders);
+        encoder.setDefaultPasswordEncoderForMatches(bcrypt);
+        return encoder;
     }
 
     /**
@@ -121,6 +149,9 @@ public class SecurityConfig {
                 // Allow access to health check endpoints
                 .requestMatchers("/actuator/health").permitAll()
                 
+                // File store reconciliation report exposes storage paths, admin only
+                .requestMatchers("/actuator/filestore").hasAuthority("ROLE_ADMIN")
+                
                 // Allow access to Actuator monitoring endpoints (for diagnostics)
                 .requestMatchers("/actuator/**").permitAll()
                 
@@ -140,14 +171,27 @@ public class SecurityConfig {
                 // Assignment related permissions - let @PreAuthorize annotation handle specific permission control
                 .requestMatchers("/api/assignments/**").hasAnyAuthority("ROLE_ADMIN", "ROLE_HQ_TEACHER", "ROLE_FRANCHISE_TEACHER", "ROLE_STUDENT")
                 
+                .requestMatchers("/api/submissions/grade-batch").hasAnyAuthority("ROLE_ADMIN", "ROLE_HQ_TEACHER", "ROLE_FRANCHISE_TEACHER")
                 .requestMatchers("/api/submissions/*/grade").hasAnyAuthority("ROLE_ADMIN", "ROLE_HQ_TEACHER", "ROLE_FRANCHISE_TEACHER")
                 .requestMatchers("/api/submissions/assignment/*").hasAnyAuthority("ROLE_ADMIN", "ROLE_HQ_TEACHER", "ROLE_FRANCHISE_TEACHER")
                 .requestMatchers("/api/submissions/create").hasAnyAuthority("ROLE_ADMIN", "ROLE_HQ_TEACHER", "ROLE_FRANCHISE_TEACHER", "ROLE_STUDENT")
                 .requestMatchers("/api/submissions/my").hasAnyAuthority("ROLE_ADMIN", "ROLE_HQ_TEACHER", "ROLE_FRANCHISE_TEACHER", "ROLE_STUDENT")
                 .requestMatchers("/api/submissions/my-submissions").hasAnyAuthority("ROLE_ADMIN", "ROLE_HQ_TEACHER", "ROLE_FRANCHISE_TEACHER", "ROLE_STUDENT")
                 .requestMatchers("/api/submissions/*/result").hasAnyAuthority("ROLE_ADMIN", "ROLE_HQ_TEACHER", "ROLE_FRANCHISE_TEACHER", "ROLE_STUDENT")
+                .requestMatchers("/api/submissions/grading-queue/**").hasAnyAuthority("ROLE_ADMIN", "ROLE_HQ_TEACHER", "ROLE_FRANCHISE_TEACHER")
+                .requestMatchers("/api/submissions/*/claim").hasAnyAuthority("ROLE_ADMIN", "ROLE_HQ_TEACHER", "ROLE_FRANCHISE_TEACHER")
+                .requestMatchers("/api/submissions/export").hasAnyAuthority("ROLE_ADMIN", "ROLE_HQ_TEACHER", "ROLE_FRANCHISE_TEACHER")
+                .requestMatchers("/api/submissions/events").hasAnyAuthority("ROLE_ADMIN", "ROLE_HQ_TEACHER", "ROLE_FRANCHISE_TEACHER", "ROLE_STUDENT")
+                
+                // Gradebook matrix and import - assignment ownership is checked in the services
+                .requestMatchers("/api/gradebook/**").hasAnyAuthority("ROLE_ADMIN", "ROLE_HQ_TEACHER", "ROLE_FRANCHISE_TEACHER")
+                
+                // Delta sync feed - change rows are filtered per user in SyncService
+                .requestMatchers("/api/sync").hasAnyAuthority("ROLE_ADMIN", "ROLE_HQ_TEACHER", "ROLE_FRANCHISE_TEACHER", "ROLE_STUDENT")
                 
                 // File management permissions
+                // Signed download URLs carry their own HMAC authorization
+                .requestMatchers("/api/files/signed/**").permitAll()
                 .requestMatchers("/api/files/upload").hasAnyAuthority("ROLE_ADMIN", "ROLE_HQ_TEACHER", "ROLE_FRANCHISE_TEACHER", "ROLE_STUDENT")
                 .requestMatchers("/api/files/download/**").hasAnyAuthority("ROLE_ADMIN", "ROLE_HQ_TEACHER", "ROLE_FRANCHISE_TEACHER", "ROLE_STUDENT")
                 .requestMatchers("/api/files/delete/**").hasAnyAuthority("ROLE_ADMIN", "ROLE_HQ_TEACHER", "ROLE_FRANCHISE_TEACHER", "ROLE_STUDENT")
@@ -157,6 +201,7 @@ public class SecurityConfig {
                 .requestMatchers("/api/users/me").hasAnyAuthority("ROLE_ADMIN", "ROLE_HQ_TEACHER", "ROLE_FRANCHISE_TEACHER", "ROLE_STUDENT")
                 .requestMatchers("/api/users/profile").hasAnyAuthority("ROLE_ADMIN", "ROLE_HQ_TEACHER", "ROLE_FRANCHISE_TEACHER", "ROLE_STUDENT")
                 .requestMatchers("/api/users/auth-status").hasAnyAuthority("ROLE_ADMIN", "ROLE_HQ_TEACHER", "ROLE_FRANCHISE_TEACHER", "ROLE_STUDENT")
+                .requestMatchers("/api/users/export").hasAnyAuthority("ROLE_ADMIN", "ROLE_HQ_TEACHER")
                 .requestMatchers("/api/users").hasAnyAuthority("ROLE_ADMIN", "ROLE_HQ_TEACHER")
                 .requestMatchers("/api/users/**").hasAuthority("ROLE_ADMIN")
                 
@@ -0,0 +1,280 @@
+package com.wanli.academy.backend.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.wanli.academy.backend.service.CacheInvalidationBus;
+import com.wanli.academy.backend.service.SharedCacheStore;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cache.support.AbstractValueAdaptingCache;
+import org.springframework.core.serializer.support.DeserializingConverter;
+import org.springframework.core.serializer.support.SerializationFailedException;
+import org.springframework.core.serializer.support.SerializingConverter;
+import org.springframework.dao.DataAccessException;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 两级缓存
+ * L1为节点内的Caffeine缓存，L2为所有节点共享的PostgreSQL表；L1未命中时先读L2，
+ * L2也未命中时通过租约保证集群内同一键只有一个节点在计算，其他节点等待其写入结果。
+ * 驱逐同时删除L2并经失效总线通知各节点清除L1
+ */
+public class TwoLevelCache extends AbstractValueAdaptingCache implements CacheInvalidationBus.Handler {
+
+    private static final Logger logger = LoggerFactory.getLogger(TwoLevelCache.class);
+
+    // 等待其他节点计算结果时的轮询间隔上限
+    private static final long MAX_POLL_MILLIS = 500;
+
+    private final String name;
+    private final Cache<String, Object> localCache;
+    private final SharedCacheStore sharedStore;
+    private final CacheInvalidationBus invalidationBus;
+    private final long ttlSeconds;
+    private final long leaseSeconds;
+    private final long leaseWaitMillis;
+
+    private final SerializingConverter serializer = new SerializingConverter();
+    private final DeserializingConverter deserializer = new DeserializingConverter(getClass().getClassLoader());
+
+    // 本节点正在加载的键，同一键的并发请求等待同一次加载；等待发生在Caffeine的compute之外，不阻塞其他键
+    private final ConcurrentHashMap<String, CompletableFuture<Object>> loading = new ConcurrentHashMap<>();
+
+    private final Counter localHits;
+    private final Counter sharedHits;
+    private final Counter misses;
+
+    public TwoLevelCache(String name, Cache<String, Object> localCache, SharedCacheStore sharedStore,
+                         CacheInvalidationBus invalidationBus, long ttlSeconds, long leaseSeconds,
+                         long leaseWaitMillis, MeterRegistry meterRegistry) {
+        super(true);
+        this.name = name;
+        this.localCache = localCache;
+        this.sharedStore = sharedStore;
+        this.invalidationBus = invalidationBus;
+        this.ttlSeconds = ttlSeconds;
+        this.leaseSeconds = leaseSeconds;
+        this.leaseWaitMillis = leaseWaitMillis;
+        this.localHits = requests(meterRegistry, "l1_hit");
+        this.sharedHits = requests(meterRegistry, "l2_hit");
+        this.misses = requests(meterRegistry, "miss");
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return localCache;
+    }
+
+    @Override
+    protected Object lookup(Object key) {
+        String cacheKey = cacheKey(key);
+        Object value = localCache.getIfPresent(cacheKey);
+        if (value != null) {
+            localHits.increment();
+            return value;
+        }
+        value = readShared(cacheKey);
+        if (value != null) {
+            sharedHits.increment();
+            localCache.put(cacheKey, value);
+            return value;
+        }
+        misses.increment();
+        return null;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        String cacheKey = cacheKey(key);
+        Object value = localCache.getIfPresent(cacheKey);
+        if (value != null) {
+            localHits.increment();
+        } else {
+            value = loadOnce(cacheKey, key, valueLoader);
+        }
+        return (T) fromStoreValue(value);
+    }
+
+    /**
+     * 同一节点内同一键只加载一次，其他请求线程等待该次加载的结果
+     */
+    private Object loadOnce(String cacheKey, Object key, Callable<?> valueLoader) {
+        CompletableFuture<Object> mine = new CompletableFuture<>();
+        CompletableFuture<Object> inFlight = loading.putIfAbsent(cacheKey, mine);
+        if (inFlight != null) {
+            try {
+                return inFlight.join();
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException cause ? cause : e;
+            }
+        }
+        try {
+            // 上一次加载可能刚好在本次登记前完成
+            Object value = localCache.getIfPresent(cacheKey);
+            if (value == null) {
+                value = loadThrough(cacheKey, key, valueLoader);
+                localCache.put(cacheKey, value);
+            }
+            mine.complete(value);
+            return value;
+        } catch (RuntimeException e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            loading.remove(cacheKey, mine);
+        }
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        String cacheKey = cacheKey(key);
+        Object storeValue = toStoreValue(value);
+        localCache.put(cacheKey, storeValue);
+        writeShared(cacheKey, storeValue);
+    }
+
+    @Override
+    public void evict(Object key) {
+        String cacheKey = cacheKey(key);
+        sharedStore.evict(name, cacheKey);
+        localCache.invalidate(cacheKey);
+        // 提交后再次清除本节点L1，并通知其他节点
+        invalidationBus.publish(name, cacheKey, System.currentTimeMillis());
+    }
+
+    @Override
+    public void clear() {
+        sharedStore.clear(name);
+        localCache.invalidateAll();
+        invalidationBus.publishClear(name);
+    }
+
+    @Override
+    public void evict(String cache, String key, long version) {
+        localCache.invalidate(key);
+    }
+
+    @Override
+    public void evictAll(String cache) {
+        localCache.invalidateAll();
+    }
+
+    /**
+     * L1未命中：读L2，未命中则争取租约计算；租约被其他节点持有时等待其结果，超时后本地计算
+     */
+    private Object loadThrough(String cacheKey, Object key, Callable<?> valueLoader) {
+        long deadline = System.currentTimeMillis() + leaseWaitMillis;
+        long pollMillis = 20;
+        try {
+            while (true) {
+                byte[] bytes = sharedStore.get(name, cacheKey);
+                if (bytes != null) {
+                    Object value = deserialize(bytes);
+                    if (value == null) {
+                        // 无法反序列化（如类结构已变更），重新计算并覆盖
+                        return compute(cacheKey, key, valueLoader, false);
+                    }
+                    sharedHits.increment();
+                    return value;
+                }
+                if (sharedStore.tryAcquireLease(name, cacheKey, leaseSeconds)) {
+                    return compute(cacheKey, key, valueLoader, true);
+                }
+                if (System.currentTimeMillis() >= deadline) {
+                    logger.debug("Timed out waiting for {}:{} to be computed by another node", name, cacheKey);
+                    return compute(cacheKey, key, valueLoader, false);
+                }
+                Thread.sleep(pollMillis);
+                pollMillis = Math.min(pollMillis * 2, MAX_POLL_MILLIS);
+            }
+        } catch (DataAccessException e) {
+            logger.warn("Shared cache unavailable for {}:{}, computing locally: {}", name, cacheKey, e.getMessage());
+            return compute(cacheKey, key, valueLoader, false);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return compute(cacheKey, key, valueLoader, false);
+        }
+    }
+
+    private Object compute(String cacheKey, Object key, Callable<?> valueLoader, boolean leased) {
+        misses.increment();
+        Object value;
+        try {
+            value = toStoreValue(valueLoader.call());
+        } catch (Exception e) {
+            if (leased) {
+                releaseLease(cacheKey);
+            }
+            throw new ValueRetrievalException(key, valueLoader, e);
+        }
+        if (!writeShared(cacheKey, value) && leased) {
+            releaseLease(cacheKey);
+        }
+        return value;
+    }
+
+    private void releaseLease(String cacheKey) {
+        try {
+            sharedStore.releaseLease(name, cacheKey);
+        } catch (DataAccessException e) {
+            // 租约到期后自动失效
+            logger.warn("Failed to release shared cache lease {}:{}: {}", name, cacheKey, e.getMessage());
+        }
+    }
+
+    private Object readShared(String cacheKey) {
+        try {
+            byte[] bytes = sharedStore.get(name, cacheKey);
+            return bytes != null ? deserialize(bytes) : null;
+        } catch (DataAccessException e) {
+            logger.warn("Failed to read shared cache {}:{}: {}", name, cacheKey, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * 写入L2，值不可序列化或数据库不可用时只保留在L1
+     */
+    private boolean writeShared(String cacheKey, Object storeValue) {
+        try {
+            sharedStore.put(name, cacheKey, serializer.convert(storeValue), ttlSeconds);
+            return true;
+        } catch (SerializationFailedException e) {
+            logger.debug("Value for {}:{} is not serializable, keeping it in the local cache only", name, cacheKey);
+        } catch (DataAccessException e) {
+            logger.warn("Failed to write shared cache {}:{}: {}", name, cacheKey, e.getMessage());
+        }
+        return false;
+    }
+
+    private Object deserialize(byte[] bytes) {
+        try {
+            return deserializer.convert(bytes);
+        } catch (SerializationFailedException e) {
+            logger.debug("Discarding unreadable shared cache entry in {}: {}", name, e.getMessage());
+            return null;
+        }
+    }
+
+    private String cacheKey(Object key) {
+        return String.valueOf(key);
+    }
+
+    private Counter requests(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("cache.two-level.requests")
+                .tags("cache", name, "result", result)
+                .description("Two-level cache lookups by the level that served them")
+                .register(meterRegistry);
+    }
+}
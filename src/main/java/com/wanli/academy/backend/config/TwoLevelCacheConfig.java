@@ -0,0 +1,28 @@
+package com.wanli.academy.backend.config;
+
+import com.wanli.academy.backend.service.CacheInvalidationBus;
+import com.wanli.academy.backend.service.SharedCacheStore;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+/**
+ * 应用缓存配置类
+ * 计算代价高的结果（如作业统计）使用两级缓存：节点内Caffeine + 共享的PostgreSQL UNLOGGED表
+ */
+@Configuration
+@EnableCaching
+public class TwoLevelCacheConfig {
+
+    public static final String ASSIGNMENT_STATISTICS = "assignment-statistics";
+    public static final String SUBMISSION_STATISTICS = "submission-statistics";
+
+    @Bean
+    public CacheManager cacheManager(SharedCacheStore sharedCacheStore, CacheInvalidationBus cacheInvalidationBus,
+                                     MeterRegistry meterRegistry, Environment environment) {
+        return new TwoLevelCacheManager(sharedCacheStore, cacheInvalidationBus, meterRegistry, environment);
+    }
+}
@@ -0,0 +1,83 @@
+package com.wanli.academy.backend.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.wanli.academy.backend.service.CacheInvalidationBus;
+import com.wanli.academy.backend.service.SharedCacheStore;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.core.env.Environment;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * 两级缓存管理器
+ * 按名称懒创建TwoLevelCache，每个缓存可单独配置（cache.two-level.caches.<名称>.*），
+ * 并在失效总线上注册，以便其他节点的驱逐能清除本节点的L1
+ */
+public class TwoLevelCacheManager implements CacheManager {
+
+    private static final Logger logger = LoggerFactory.getLogger(TwoLevelCacheManager.class);
+
+    private static final String PREFIX = "cache.two-level.";
+
+    private final ConcurrentMap<String, TwoLevelCache> caches = new ConcurrentHashMap<>();
+
+    private final SharedCacheStore sharedStore;
+    private final CacheInvalidationBus invalidationBus;
+    private final MeterRegistry meterRegistry;
+    private final Environment environment;
+
+    public TwoLevelCacheManager(SharedCacheStore sharedStore, CacheInvalidationBus invalidationBus,
+                                MeterRegistry meterRegistry, Environment environment) {
+        this.sharedStore = sharedStore;
+        this.invalidationBus = invalidationBus;
+        this.meterRegistry = meterRegistry;
+        this.environment = environment;
+    }
+
+    @Override
+    public Cache getCache(String name) {
+        return caches.computeIfAbsent(name, this::createCache);
+    }
+
+    @Override
+    public Collection<String> getCacheNames() {
+        return Collections.unmodifiableSet(caches.keySet());
+    }
+
+    private TwoLevelCache createCache(String name) {
+        long ttlSeconds = property(name, "ttl-seconds", 600);
+        // L1只保留较短时间，限制丢失失效通知时的陈旧窗口
+        long localTtlSeconds = Math.min(property(name, "local-ttl-seconds", 60), ttlSeconds);
+        long localMaxEntries = property(name, "local-max-entries", 10000);
+        long leaseSeconds = property(name, "lease-seconds", 30);
+        long leaseWaitMillis = property(name, "lease-wait-millis", 5000);
+
+        com.github.benmanes.caffeine.cache.Cache<String, Object> localCache = Caffeine.newBuilder()
+                .expireAfterWrite(Duration.ofSeconds(localTtlSeconds))
+                .maximumSize(localMaxEntries)
+                .build();
+        TwoLevelCache cache = new TwoLevelCache(name, localCache, sharedStore, invalidationBus,
+                ttlSeconds, leaseSeconds, leaseWaitMillis, meterRegistry);
+        invalidationBus.register(name, cache);
+
+        logger.info("Created two-level cache {} (ttl {}s, local ttl {}s, local max {} entries)",
+                name, ttlSeconds, localTtlSeconds, localMaxEntries);
+        return cache;
+    }
+
+    /**
+     * 先取缓存自身的配置，再取全局默认值
+     */
+    private long property(String name, String key, long defaultValue) {
+        Long global = environment.getProperty(PREFIX + key, Long.class, defaultValue);
+        return environment.getProperty(PREFIX + "caches." + name + "." + key, Long.class, global);
+    }
+}
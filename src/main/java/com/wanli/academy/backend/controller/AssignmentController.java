@@ -6,6 +6,7 @@ import com.wanli.academy.backend.dto.AssignmentSubmissionRequest;
 import com.wanli.academy.backend.dto.AssignmentSubmissionResponse;
 import com.wanli.academy.backend.entity.Assignment;
 import com.wanli.academy.backend.entity.AssignmentSubmission;
+import com.wanli.academy.backend.exception.VersionConflictException;
 import com.wanli.academy.backend.service.AssignmentService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -19,15 +20,18 @@ import jakarta.validation.Valid;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.validation.BindingResult;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
@@ -138,7 +142,8 @@ public class AssignmentController {
      * @param sortDir sort direction (asc/desc)
      * @param courseId course ID filter (optional)
      * @param status assignment status filter (optional)
-     * @return assignment list
+     * @param webRequest current request, used for If-None-Match
+     * @return assignment list, or 304 when the page has not changed
      */
     @Operation(
         summary = "Get Assignment List",
@@ -153,6 +158,10 @@ public class AssignmentController {
                 schema = @Schema(implementation = Object.class)
             )
         ),
+        @ApiResponse(
+            responseCode = "304",
+            description = "Assignment list not modified"
+        ),
         @ApiResponse(
             responseCode = "401",
             description = "Unauthorized access"
@@ -166,7 +175,8 @@ public class AssignmentController {
             @Parameter(description = "Sort direction (asc/desc)") @RequestParam(defaultValue = "desc") String sortDir,
             @Parameter(description = "Course ID filter") @RequestParam(required = false) Long courseId,
             @Parameter(description = "Assignment status filter") @RequestParam(required = false) String status,
-            Authentication authentication) {
+            Authentication authentication,
+            WebRequest webRequest) {
         
         logger.info("Received assignment list request, page: {}, size: {}", page, size);
         
@@ -176,6 +186,13 @@ public class AssignmentController {
             Pageable pageable = PageRequest.of(page, size, sort);
             
             String username = authentication.getName();
+            
+            // Version-based ETag is computed before the DTO mapping; unchanged pages short-circuit to 304
+            String eTag = assignmentService.getAssignmentsETag(pageable, courseId, status, username);
+            if (webRequest.checkNotModified(eTag)) {
+                return null;
+            }
+            
             Page<AssignmentResponse> assignmentPage = assignmentService.getAssignments(pageable, courseId, status, username);
             
             Map<String, Object> response = new HashMap<>();
@@ -193,7 +210,7 @@ public class AssignmentController {
             response.put("timestamp", LocalDateTime.now());
             
             logger.info("Assignment list retrieved successfully, total: {}", assignmentPage.getTotalElements());
-            return ResponseEntity.ok(response);
+            return ResponseEntity.ok().cacheControl(CacheControl.noCache().cachePrivate()).body(response);
             
         } catch (RuntimeException e) {
             logger.error("Failed to retrieve assignment list: {}", e.getMessage());
@@ -213,7 +230,8 @@ public class AssignmentController {
      * 
      * @param id assignment ID
      * @param authentication authentication information
-     * @return assignment details
+     * @param webRequest current request, used for If-None-Match
+     * @return assignment details, or 304 when the assignment has not changed
      */
     @Operation(
         summary = "Get Assignment Details",
@@ -228,6 +246,10 @@ public class AssignmentController {
                 schema = @Schema(implementation = AssignmentResponse.class)
             )
         ),
+        @ApiResponse(
+            responseCode = "304",
+            description = "Assignment not modified"
+        ),
         @ApiResponse(
             responseCode = "401",
             description = "Unauthorized access"
@@ -240,13 +262,21 @@ public class AssignmentController {
     @GetMapping("/{id}")
     public ResponseEntity<?> getAssignmentById(
             @Parameter(description = "Assignment ID", required = true) @PathVariable Long id,
-            Authentication authentication) {
+            Authentication authentication,
+            WebRequest webRequest) {
         
         logger.info("Received assignment details request, ID: {}", id);
         
         try {
             String username = authentication.getName();
-            AssignmentResponse assignmentResponse = assignmentService.getAssignmentById(id, username);
+            
+            // Checks the caller's permission; the details load below is shared by concurrent readers
+            String eTag = assignmentService.getAssignmentETag(id, username);
+            if (webRequest.checkNotModified(eTag)) {
+                return null;
+            }
+            
+            AssignmentResponse assignmentResponse = assignmentService.getAssignmentDetails(id);
             
             Map<String, Object> response = new HashMap<>();
             response.put("success", true);
@@ -255,7 +285,7 @@ public class AssignmentController {
             response.put("timestamp", LocalDateTime.now());
             
             logger.info("Assignment details retrieved successfully, ID: {}", id);
-            return ResponseEntity.ok(response);
+            return ResponseEntity.ok().cacheControl(CacheControl.noCache().cachePrivate()).body(response);
             
         } catch (RuntimeException e) {
             logger.error("Failed to retrieve assignment details: {}", e.getMessage());
@@ -308,6 +338,10 @@ public class AssignmentController {
         @ApiResponse(
             responseCode = "404",
             description = "Assignment not found"
+        ),
+        @ApiResponse(
+            responseCode = "409",
+            description = "Assignment was modified concurrently; response contains the current state"
         )
     })
     @PutMapping("/{id}")
@@ -340,6 +374,20 @@ public class AssignmentController {
             logger.info("Assignment updated successfully, ID: {}", id);
             return ResponseEntity.ok(response);
             
+        } catch (VersionConflictException e) {
+            logger.warn("Assignment update conflict, ID: {}", id);
+            
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("success", false);
+            errorResponse.put("message", e.getMessage());
+            errorResponse.put("data", e.getCurrent());
+            errorResponse.put("timestamp", LocalDateTime.now());
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(errorResponse);
+            
+        } catch (OptimisticLockingFailureException e) {
+            // Concurrent edit detected at commit; GlobalExceptionHandler answers 409
+            throw e;
+            
         } catch (RuntimeException e) {
             logger.error("Assignment update failed: {}", e.getMessage());
             
@@ -4,7 +4,9 @@ import com.wanli.academy.backend.dto.AuthResponse;
 import com.wanli.academy.backend.dto.LoginRequest;
 import com.wanli.academy.backend.dto.RegisterRequest;
 import com.wanli.academy.backend.dto.RefreshTokenRequest;
+import com.wanli.academy.backend.exception.ServiceOverloadedException;
 import com.wanli.academy.backend.service.AuthService;
+import com.wanli.academy.backend.service.LoginExecutor;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -25,6 +27,8 @@ import org.springframework.web.bind.annotation.*;
 import java.time.LocalDateTime;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.stream.Collectors;
 
 /**
@@ -41,6 +45,9 @@ public class AuthController {
     @Autowired
     private AuthService authService;
     
+    @Autowired
+    private LoginExecutor loginExecutor;
+    
     /**
      * User Registration
      * POST /api/auth/register
@@ -135,10 +142,14 @@ public class AuthController {
         @ApiResponse(
             responseCode = "401",
             description = "Incorrect username or password"
+        ),
+        @ApiResponse(
+            responseCode = "503",
+            description = "Too many concurrent logins, retry after the Retry-After seconds"
         )
     })
     @PostMapping("/login")
-    public ResponseEntity<?> login(
+    public CompletableFuture<ResponseEntity<?>> login(
             @Parameter(description = "User login request information", required = true)
             @Valid @RequestBody LoginRequest loginRequest,
                                  BindingResult bindingResult,
@@ -152,31 +163,41 @@ public class AuthController {
         // Check request parameter validation results
         if (bindingResult.hasErrors()) {
             Map<String, Object> errorResponse = createValidationErrorResponse(bindingResult);
-            return ResponseEntity.badRequest().body(errorResponse);
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().body(errorResponse));
         }
         
-        try {
-            AuthResponse authResponse = authService.login(loginRequest);
-            
-            Map<String, Object> response = new HashMap<>();
-            response.put("success", true);
-            response.put("message", "Login successful");
-            response.put("data", authResponse);
-            response.put("timestamp", LocalDateTime.now());
-            
-            logger.info("User login successful, username or email: {}", loginRequest.getUsernameOrEmail());
-            return ResponseEntity.ok(response);
-            
-        } catch (RuntimeException e) {
-            logger.error("User login failed: {}", e.getMessage());
-            
-            Map<String, Object> errorResponse = new HashMap<>();
-            errorResponse.put("success", false);
-            errorResponse.put("message", e.getMessage());
-            errorResponse.put("timestamp", LocalDateTime.now());
-            
-            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(errorResponse);
-        }
+        // Password verification runs on the bounded login executor; the request thread is released meanwhile
+        return loginExecutor.submit(() -> authService.login(loginRequest))
+            .<ResponseEntity<?>>handle((authResponse, error) -> {
+                if (error == null) {
+                    Map<String, Object> response = new HashMap<>();
+                    response.put("success", true);
+                    response.put("message", "Login successful");
+                    response.put("data", authResponse);
+                    response.put("timestamp", LocalDateTime.now());
+                    
+                    logger.info("User login successful, username or email: {}", loginRequest.getUsernameOrEmail());
+                    return ResponseEntity.ok(response);
+                }
+                
+                Throwable cause = error instanceof CompletionException && error.getCause() != null
+                    ? error.getCause() : error;
+                if (cause instanceof ServiceOverloadedException overloaded) {
+                    // Handled by GlobalExceptionHandler as 503 with Retry-After
+                    throw overloaded;
+                }
+                if (!(cause instanceof RuntimeException)) {
+                    throw new CompletionException(cause);
+                }
+                logger.error("User login failed: {}", cause.getMessage());
+                
+                Map<String, Object> errorResponse = new HashMap<>();
+                errorResponse.put("success", false);
+                errorResponse.put("message", cause.getMessage());
+                errorResponse.put("timestamp", LocalDateTime.now());
+                
+                return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(errorResponse);
+            });
     }
     
     /**
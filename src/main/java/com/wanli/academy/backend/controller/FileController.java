@@ -1,7 +1,9 @@
 package com.wanli.academy.backend.controller;
 
 import com.wanli.academy.backend.dto.FileResponse;
+import com.wanli.academy.backend.service.DownloadUrlSigner;
 import com.wanli.academy.backend.service.FileService;
+import com.wanli.academy.backend.service.PermissionService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
@@ -11,6 +13,8 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ContentDisposition;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
@@ -19,10 +23,16 @@ import org.springframework.security.access.AccessDeniedException;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
 import jakarta.validation.constraints.NotNull;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 
 /**
  * File Management Controller
@@ -38,6 +48,12 @@ public class FileController {
     @Autowired
     private FileService fileService;
     
+    @Autowired
+    private DownloadUrlSigner downloadUrlSigner;
+    
+    @Autowired
+    private PermissionService permissionService;
+    
     /**
      * Upload file
      */
@@ -86,21 +102,19 @@ public class FileController {
     })
     public ResponseEntity<Resource> downloadFile(
             @Parameter(description = "File ID", required = true)
-            @PathVariable @NotNull UUID fileId) {
+            @PathVariable @NotNull UUID fileId,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
         
         try {
             logger.info("Downloading file: {}", fileId);
             
-            Resource resource = fileService.downloadFile(fileId);
-            
-            // Get file information for setting response headers
-            FileResponse fileInfo = fileService.getFileInfo(fileId);
+            FileService.FileDownload download = fileService.openDownload(fileId, acceptsGzip(acceptEncoding));
             
-            return ResponseEntity.ok()
-                    .contentType(MediaType.parseMediaType(fileInfo.getMimeType()))
-                    .header(HttpHeaders.CONTENT_DISPOSITION, 
-                            "attachment; filename=\"" + fileInfo.getOriginalFileName() + "\"")
-                    .body(resource);
+            return withContentEncoding(ResponseEntity.ok(), download)
+                    .contentType(MediaType.parseMediaType(download.getMimeType()))
+                    .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                            .filename(download.getOriginalFileName(), StandardCharsets.UTF_8).build().toString())
+                    .body(download.getResource());
                     
         } catch (IllegalArgumentException e) {
             logger.error("File not found: {}", e.getMessage());
@@ -114,6 +128,80 @@ public class FileController {
         }
     }
     
+    /**
+     * Issue signed download URL
+     */
+    @GetMapping("/{fileId}/download-url")
+    @PreAuthorize("@permissionService.canAccessFile(#fileId)")
+    @Operation(summary = "Issue signed download URL", 
+               description = "Issue a short-lived signed URL; downloads through it skip per-request permission queries")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "URL issued"),
+            @ApiResponse(responseCode = "403", description = "No permission to access")
+    })
+    public ResponseEntity<Map<String, Object>> issueDownloadUrl(
+            @Parameter(description = "File ID", required = true)
+            @PathVariable @NotNull UUID fileId) {
+        
+        DownloadUrlSigner.SignedDownload signed = downloadUrlSigner.sign(fileId, permissionService.getCurrentUserId());
+        String url = ServletUriComponentsBuilder.fromCurrentContextPath()
+                .path("/api/files/signed/{fileId}")
+                .queryParam("uid", signed.getUserId())
+                .queryParam("exp", signed.getExpiresAt())
+                .queryParam("sig", signed.getSignature())
+                .buildAndExpand(fileId)
+                .toUriString();
+        
+        Map<String, Object> response = new HashMap<>();
+        response.put("url", url);
+        response.put("expiresAt", signed.getExpiresAt());
+        return ResponseEntity.ok(response);
+    }
+    
+    /**
+     * Download file through signed URL
+     */
+    @GetMapping("/signed/{fileId}")
+    @Operation(summary = "Download file through signed URL", 
+               description = "Serve a file after verifying the URL signature in memory; supports Range requests")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Download successful"),
+            @ApiResponse(responseCode = "206", description = "Partial content"),
+            @ApiResponse(responseCode = "403", description = "Invalid or expired signature"),
+            @ApiResponse(responseCode = "404", description = "File not found")
+    })
+    public ResponseEntity<Resource> downloadSignedFile(
+            @PathVariable @NotNull UUID fileId,
+            @RequestParam("uid") Long userId,
+            @RequestParam("exp") long expiresAt,
+            @RequestParam("sig") String signature,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        
+        if (!downloadUrlSigner.verify(fileId, userId, expiresAt, signature)) {
+            logger.warn("Rejected signed download for file {}: invalid or expired signature", fileId);
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        
+        try {
+            FileService.FileDownload download = fileService.openSignedDownload(fileId, acceptsGzip(acceptEncoding));
+            long maxAge = Math.max(0, expiresAt - Instant.now().getEpochSecond());
+            
+            return withContentEncoding(ResponseEntity.ok(), download)
+                    .contentType(MediaType.parseMediaType(download.getMimeType()))
+                    .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.inline()
+                            .filename(download.getOriginalFileName(), StandardCharsets.UTF_8).build().toString())
+                    .cacheControl(CacheControl.maxAge(maxAge, TimeUnit.SECONDS).cachePrivate())
+                    .body(download.getResource());
+                    
+        } catch (IllegalArgumentException e) {
+            logger.error("File not found: {}", e.getMessage());
+            return ResponseEntity.notFound().build();
+        } catch (RuntimeException e) {
+            logger.error("Signed file download failed: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+    
     /**
      * Delete file
      */
@@ -270,4 +358,35 @@ public class FileController {
                     .body("Cleanup operation failed: " + e.getMessage());
         }
     }
-}
\ No newline at end of file
+    
+    /**
+     * Check whether the Accept-Encoding header allows gzip
+     */
+    private boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.trim().split(";");
+            String name = parts[0].trim();
+            if (!"gzip".equalsIgnoreCase(name) && !"*".equals(name)) {
+                continue;
+            }
+            // "gzip;q=0" explicitly refuses the coding
+            return parts.length < 2 || !parts[1].trim().matches("q=0(\\.0*)?");
+        }
+        return false;
+    }
+    
+    /**
+     * Add Content-Encoding and Vary headers when the file is served in its stored encoding
+     */
+    private ResponseEntity.BodyBuilder withContentEncoding(ResponseEntity.BodyBuilder builder,
+                                                           FileService.FileDownload download) {
+        builder.header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (download.getContentEncoding() != null) {
+            builder.header(HttpHeaders.CONTENT_ENCODING, download.getContentEncoding());
+        }
+        return builder;
+    }
+}
@@ -0,0 +1,197 @@
+package com.wanli.academy.backend.controller;
+
+import com.wanli.academy.backend.dto.GradebookImportResult;
+import com.wanli.academy.backend.dto.GradebookMatrix;
+import com.wanli.academy.backend.service.GradebookImportService;
+import com.wanli.academy.backend.service.GradebookService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+
+/**
+ * 成绩册控制器
+ * 教师查看学生×作业的成绩矩阵，或从CSV/XLSX成绩表批量导入成绩
+ */
+@Tag(name = "成绩册", description = "成绩矩阵与成绩表导入相关的API端点")
+@RestController
+@RequestMapping("/api/gradebook")
+@SecurityRequirement(name = "Bearer Authentication")
+public class GradebookController {
+
+    private static final Logger logger = LoggerFactory.getLogger(GradebookController.class);
+
+    @Autowired
+    private GradebookService gradebookService;
+
+    @Autowired
+    private GradebookImportService gradebookImportService;
+
+    /**
+     * 获取成绩册矩阵
+     * GET /api/gradebook?courseId={courseId}&after={cursor}&limit={limit}
+     *
+     * @param courseId 课程ID（可选）
+     * @param after 上一页返回的游标
+     * @param limit 每页学生数
+     * @return 列式编码的成绩矩阵
+     */
+    @Operation(
+        summary = "获取成绩册矩阵",
+        description = "返回学生×作业的成绩矩阵。教师只看到自己创建的作业，管理员看到全部作业，可按课程过滤。"
+            + "单元格以studentIndex/assignmentIndex/scores/statuses等长数组表示；学生按ID分页，"
+            + "nextCursor不为空时用它作为after请求下一页。"
+    )
+    @ApiResponses(value = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "获取成功",
+            content = @Content(
+                mediaType = "application/json",
+                schema = @Schema(implementation = GradebookMatrix.class)
+            )
+        ),
+        @ApiResponse(
+            responseCode = "401",
+            description = "未授权访问"
+        ),
+        @ApiResponse(
+            responseCode = "403",
+            description = "权限不足，需要教师角色"
+        )
+    })
+    @GetMapping
+    @PreAuthorize("@permissionService.isTeacher()")
+    public ResponseEntity<GradebookMatrix> getGradebook(
+            @Parameter(description = "课程ID", example = "1")
+            @RequestParam(required = false) Long courseId,
+            @Parameter(description = "上一页返回的游标（学生ID）", example = "1024")
+            @RequestParam(required = false) Long after,
+            @Parameter(description = "每页学生数", example = "100")
+            @RequestParam(required = false) Integer limit) {
+        logger.debug("Gradebook request for course {} after {}", courseId, after);
+
+        GradebookMatrix matrix = gradebookService.getGradebook(courseId, after, limit);
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noCache().cachePrivate())
+                .body(matrix);
+    }
+
+    /**
+     * 导入成绩表
+     * POST /api/gradebook/import?assignmentId={assignmentId}&dryRun={dryRun}
+     *
+     * @param assignmentId 作业ID
+     * @param file 成绩表文件
+     * @param dryRun 是否只校验不写入
+     * @return 导入结果
+     */
+    @Operation(
+        summary = "导入成绩表",
+        description = "上传CSV或XLSX成绩表批改作业。表头需包含username（用户名）和score（分数）列，feedback（反馈）列可选。"
+            + "文件逐行读取并分块处理，每块单独提交；dryRun=true时只校验不写入。失败行可通过errorReportUrl下载。"
+    )
+    @ApiResponses(value = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "导入完成，逐行错误见结果",
+            content = @Content(
+                mediaType = "application/json",
+                schema = @Schema(implementation = GradebookImportResult.class)
+            )
+        ),
+        @ApiResponse(
+            responseCode = "400",
+            description = "文件格式不支持、表头缺少必需列或作业不存在"
+        ),
+        @ApiResponse(
+            responseCode = "401",
+            description = "未授权访问"
+        ),
+        @ApiResponse(
+            responseCode = "403",
+            description = "权限不足，只能导入自己创建的作业的成绩"
+        )
+    })
+    @PostMapping(value = "/import", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    @PreAuthorize("@permissionService.isTeacher()")
+    public ResponseEntity<GradebookImportResult> importGrades(
+            @Parameter(description = "作业的唯一标识符", required = true, example = "123e4567-e89b-12d3-a456-426614174000")
+            @RequestParam UUID assignmentId,
+            @Parameter(description = "成绩表文件（.csv或.xlsx）", required = true)
+            @RequestParam("file") MultipartFile file,
+            @Parameter(description = "是否只校验不写入", example = "false")
+            @RequestParam(defaultValue = "false") boolean dryRun) throws IOException {
+        logger.info("Received gradebook import for assignment {}: {} ({} bytes, dry run: {})",
+                assignmentId, file.getOriginalFilename(), file.getSize(), dryRun);
+
+        GradebookImportResult result = gradebookImportService.importGrades(assignmentId, file, dryRun);
+        return ResponseEntity.ok(result);
+    }
+
+    /**
+     * 下载导入错误报告
+     * GET /api/gradebook/imports/{importId}/errors
+     *
+     * @param importId 导入批次ID
+     * @return CSV错误报告
+     */
+    @Operation(
+        summary = "下载导入错误报告",
+        description = "以CSV格式下载导入失败的行及原因，只能下载自己发起的导入。报告在保留期后自动清理。"
+    )
+    @ApiResponses(value = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "错误报告",
+            content = @Content(mediaType = "text/csv")
+        ),
+        @ApiResponse(
+            responseCode = "400",
+            description = "报告不存在或已过期"
+        ),
+        @ApiResponse(
+            responseCode = "401",
+            description = "未授权访问"
+        )
+    })
+    @GetMapping("/imports/{importId}/errors")
+    @PreAuthorize("@permissionService.isTeacher()")
+    public ResponseEntity<byte[]> downloadErrorReport(
+            @Parameter(description = "导入批次ID", required = true)
+            @PathVariable UUID importId) {
+        String csv = gradebookImportService.exportErrorReport(importId);
+        // 带BOM以便Excel按UTF-8打开
+        byte[] body = ("\uFEFF" + csv).getBytes(StandardCharsets.UTF_8);
+        return ResponseEntity.ok()
+                .contentType(new MediaType("text", "csv", StandardCharsets.UTF_8))
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename("gradebook-import-" + importId + "-errors.csv").build().toString())
+                .cacheControl(CacheControl.noStore())
+                .body(body);
+    }
+}
@@ -1,7 +1,11 @@
 package com.wanli.academy.backend.controller;
 
+import com.wanli.academy.backend.dto.BulkGradeRequest;
+import com.wanli.academy.backend.dto.BulkGradeResponse;
 import com.wanli.academy.backend.dto.SubmissionResponse;
 import com.wanli.academy.backend.dto.SubmissionResultDTO;
+import com.wanli.academy.backend.service.ExportService;
+import com.wanli.academy.backend.service.SubmissionEventStream;
 import com.wanli.academy.backend.service.SubmissionService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -19,10 +23,17 @@ import jakarta.validation.constraints.Size;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 import java.util.UUID;
@@ -42,6 +53,12 @@ public class SubmissionController {
     @Autowired
     private SubmissionService submissionService;
     
+    @Autowired
+    private SubmissionEventStream submissionEventStream;
+    
+    @Autowired
+    private ExportService exportService;
+    
     /**
      * 提交作业请求DTO
      */
@@ -53,6 +70,9 @@ public class SubmissionController {
         @Size(max = 500, message = "文件路径长度不能超过500个字符")
         private String filePath;
         
+        // 修改时回传读取到的版本号，为空时不做版本校验
+        private Long version;
+        
         public String getContent() {
             return content;
         }
@@ -68,6 +88,14 @@ public class SubmissionController {
         public void setFilePath(String filePath) {
             this.filePath = filePath;
         }
+        
+        public Long getVersion() {
+            return version;
+        }
+        
+        public void setVersion(Long version) {
+            this.version = version;
+        }
     }
     
     /**
@@ -81,6 +109,9 @@ public class SubmissionController {
         @Size(max = 2000, message = "反馈内容长度不能超过2000个字符")
         private String feedback;
         
+        // 批改时回传读取到的版本号，为空时不做版本校验
+        private Long version;
+        
         public Integer getScore() {
             return score;
         }
@@ -96,6 +127,14 @@ public class SubmissionController {
         public void setFeedback(String feedback) {
             this.feedback = feedback;
         }
+        
+        public Long getVersion() {
+            return version;
+        }
+        
+        public void setVersion(Long version) {
+            this.version = version;
+        }
     }
     
     /**
@@ -187,6 +226,10 @@ public class SubmissionController {
             responseCode = "400",
             description = "请求参数无效或提交已批改"
         ),
+        @ApiResponse(
+            responseCode = "409",
+            description = "版本冲突，提交已被他人修改，响应中包含当前数据"
+        ),
         @ApiResponse(
             responseCode = "404",
             description = "提交不存在"
@@ -212,7 +255,7 @@ public class SubmissionController {
         
         try {
             SubmissionResponse response = submissionService.updateSubmission(
-                submissionId, request.getContent(), request.getFilePath());
+                submissionId, request.getContent(), request.getFilePath(), request.getVersion());
             
             logger.info("Submission updated successfully: {}", submissionId);
             return new ResponseEntity<>(response, HttpStatus.OK);
@@ -247,6 +290,10 @@ public class SubmissionController {
             responseCode = "400",
             description = "请求参数无效或分数超出范围"
         ),
+        @ApiResponse(
+            responseCode = "409",
+            description = "版本冲突，提交已被他人修改，响应中包含当前数据"
+        ),
         @ApiResponse(
             responseCode = "404",
             description = "提交不存在"
@@ -272,7 +319,7 @@ public class SubmissionController {
         
         try {
             SubmissionResponse response = submissionService.gradeSubmission(
-                submissionId, request.getScore(), request.getFeedback());
+                submissionId, request.getScore(), request.getFeedback(), request.getVersion());
             
             logger.info("Submission graded successfully: {}", submissionId);
             return new ResponseEntity<>(response, HttpStatus.OK);
@@ -282,11 +329,64 @@ public class SubmissionController {
         }
     }
     
+    /**
+     * 批量批改作业
+     * POST /api/submissions/grade-batch
+     * 
+     * @param request 批量批改请求
+     * @return 每项的批改结果
+     */
+    @Operation(
+        summary = "批量批改作业",
+        description = "教师一次提交多份作业的分数和反馈。每项独立校验（只能批改自己创建的作业、只能批改已提交状态、"
+            + "分数不超过作业满分、未被其他批改人领取、版本号一致），通过校验的提交一次性更新，失败项在结果中说明原因。"
+    )
+    @ApiResponses(value = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "批改完成，逐项结果见results",
+            content = @Content(
+                mediaType = "application/json",
+                schema = @Schema(implementation = BulkGradeResponse.class)
+            )
+        ),
+        @ApiResponse(
+            responseCode = "400",
+            description = "请求参数无效或批改项超过上限"
+        ),
+        @ApiResponse(
+            responseCode = "401",
+            description = "未授权访问"
+        ),
+        @ApiResponse(
+            responseCode = "403",
+            description = "权限不足，需要教师角色"
+        )
+    })
+    @PostMapping("/grade-batch")
+    @PreAuthorize("@permissionService.isTeacher()")
+    public ResponseEntity<BulkGradeResponse> gradeSubmissions(
+            @Parameter(description = "批量批改请求信息", required = true)
+            @Valid @RequestBody BulkGradeRequest request) {
+        
+        logger.info("Received request to grade {} submissions", request.getItems().size());
+        
+        try {
+            BulkGradeResponse response = submissionService.gradeSubmissions(request.getItems());
+            logger.info("Bulk grading finished: {} graded, {} failed", response.getGraded(), response.getFailed());
+            return new ResponseEntity<>(response, HttpStatus.OK);
+        } catch (Exception e) {
+            logger.error("Error bulk grading submissions: {}", e.getMessage(), e);
+            throw e;
+        }
+    }
+    
     /**
      * 获取学生的提交记录
      * GET /api/submissions/my-submissions
      * 
-     * @return 学生的提交记录列表
+     * @param webRequest 当前请求，用于If-None-Match比较
+     * @return 学生的提交记录列表，未变化时返回304
      */
     @Operation(
         summary = "获取我的提交记录",
@@ -301,6 +401,10 @@ public class SubmissionController {
                 schema = @Schema(implementation = SubmissionResponse.class)
             )
         ),
+        @ApiResponse(
+            responseCode = "304",
+            description = "提交记录未变化"
+        ),
         @ApiResponse(
             responseCode = "401",
             description = "未授权访问"
@@ -312,13 +416,17 @@ public class SubmissionController {
     })
     @GetMapping("/my-submissions")
     @PreAuthorize("hasRole('STUDENT')")
-    public ResponseEntity<List<SubmissionResponse>> getMySubmissions() {
+    public ResponseEntity<List<SubmissionResponse>> getMySubmissions(WebRequest webRequest) {
         logger.info("Received request to get my submissions");
         
         try {
+            // 客户端轮询时提交记录未变化则直接返回304，不加载完整列表
+            if (webRequest.checkNotModified(submissionService.getStudentSubmissionsETag())) {
+                return null;
+            }
             List<SubmissionResponse> submissions = submissionService.getStudentSubmissions();
             logger.info("Successfully retrieved {} submissions", submissions.size());
-            return new ResponseEntity<>(submissions, HttpStatus.OK);
+            return ResponseEntity.ok().cacheControl(CacheControl.noCache().cachePrivate()).body(submissions);
         } catch (Exception e) {
             logger.error("Error retrieving my submissions: {}", e.getMessage(), e);
             throw e;
@@ -368,6 +476,180 @@ public class SubmissionController {
         }
     }
     
+    /**
+     * 领取待批改的提交
+     * POST /api/submissions/grading-queue/claim
+     * 
+     * @param assignmentId 作业ID（可选）
+     * @param limit 领取数量
+     * @return 领取到的提交列表
+     */
+    @Operation(
+        summary = "领取待批改的提交",
+        description = "教师从批改队列领取最早提交的待批改作业。领取的提交在租约期内不会分配给其他批改人，"
+            + "租约到期未批改的提交自动回到队列；再次领取会为自己已领取的提交续期。"
+    )
+    @ApiResponses(value = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "成功领取，队列为空时返回空列表",
+            content = @Content(
+                mediaType = "application/json",
+                schema = @Schema(implementation = SubmissionResponse.class)
+            )
+        ),
+        @ApiResponse(
+            responseCode = "401",
+            description = "未授权访问"
+        ),
+        @ApiResponse(
+            responseCode = "403",
+            description = "权限不足，需要教师角色"
+        )
+    })
+    @PostMapping("/grading-queue/claim")
+    @PreAuthorize("@permissionService.isTeacher()")
+    public ResponseEntity<List<SubmissionResponse>> claimSubmissionsToGrade(
+            @Parameter(description = "只领取该作业的提交", example = "123e4567-e89b-12d3-a456-426614174000")
+            @RequestParam(required = false) UUID assignmentId,
+            @Parameter(description = "领取数量", example = "10")
+            @RequestParam(defaultValue = "10") int limit) {
+        
+        logger.info("Received request to claim submissions to grade, assignment: {}, limit: {}", assignmentId, limit);
+        
+        try {
+            List<SubmissionResponse> submissions = submissionService.claimSubmissionsToGrade(assignmentId, limit);
+            logger.info("Successfully claimed {} submissions to grade", submissions.size());
+            return new ResponseEntity<>(submissions, HttpStatus.OK);
+        } catch (Exception e) {
+            logger.error("Error claiming submissions to grade: {}", e.getMessage(), e);
+            throw e;
+        }
+    }
+    
+    /**
+     * 归还领取的提交
+     * DELETE /api/submissions/{submissionId}/claim
+     * 
+     * @param submissionId 提交ID
+     * @return 无内容
+     */
+    @Operation(
+        summary = "归还领取的提交",
+        description = "教师放弃批改已领取的提交，使其立即回到批改队列。提交未被本人领取时不做任何修改。"
+    )
+    @ApiResponses(value = {
+        @ApiResponse(
+            responseCode = "204",
+            description = "已归还"
+        ),
+        @ApiResponse(
+            responseCode = "401",
+            description = "未授权访问"
+        ),
+        @ApiResponse(
+            responseCode = "403",
+            description = "权限不足，需要教师角色"
+        )
+    })
+    @DeleteMapping("/{submissionId}/claim")
+    @PreAuthorize("@permissionService.isTeacher()")
+    public ResponseEntity<Void> releaseGradingClaim(
+            @Parameter(description = "提交的唯一标识符", required = true, example = "123e4567-e89b-12d3-a456-426614174000")
+            @PathVariable UUID submissionId) {
+        
+        logger.info("Received request to release grading claim: {}", submissionId);
+        
+        submissionService.releaseGradingClaim(submissionId);
+        return ResponseEntity.noContent().build();
+    }
+    
+    /**
+     * 订阅提交事件
+     * GET /api/submissions/events
+     * 
+     * @return SSE事件流
+     */
+    @Operation(
+        summary = "订阅提交事件",
+        description = "以Server-Sent Events推送事件：教师收到自己作业的新提交（submission.created），"
+            + "学生收到自己提交的成绩发布（submission.graded）。收到sync.reset或重连后应调用/api/sync补齐变更。"
+    )
+    @ApiResponses(value = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "事件流已建立",
+            content = @Content(mediaType = "text/event-stream")
+        ),
+        @ApiResponse(
+            responseCode = "401",
+            description = "未授权访问"
+        )
+    })
+    @GetMapping(value = "/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamEvents() {
+        logger.debug("Opening submission event stream");
+        return submissionEventStream.connect();
+    }
+    
+    /**
+     * 导出提交记录
+     * GET /api/submissions/export?format={format}&assignmentId={assignmentId}
+     * 
+     * @param format 导出格式：ndjson或csv
+     * @param assignmentId 作业ID（可选）
+     * @return 流式导出内容
+     */
+    @Operation(
+        summary = "导出提交记录",
+        description = "以NDJSON（每行一个JSON对象）或CSV格式流式导出提交记录，不含提交正文。"
+            + "教师只导出自己创建的作业的提交，管理员导出全部，可按作业过滤。"
+    )
+    @ApiResponses(value = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "导出内容",
+            content = {
+                @Content(mediaType = "application/x-ndjson"),
+                @Content(mediaType = "text/csv")
+            }
+        ),
+        @ApiResponse(
+            responseCode = "400",
+            description = "不支持的导出格式"
+        ),
+        @ApiResponse(
+            responseCode = "401",
+            description = "未授权访问"
+        ),
+        @ApiResponse(
+            responseCode = "403",
+            description = "权限不足，需要教师角色"
+        ),
+        @ApiResponse(
+            responseCode = "503",
+            description = "同时进行的导出过多，请按Retry-After稍后重试"
+        )
+    })
+    @GetMapping("/export")
+    @PreAuthorize("@permissionService.isTeacher()")
+    public ResponseEntity<StreamingResponseBody> exportSubmissions(
+            @Parameter(description = "导出格式：ndjson或csv", example = "csv")
+            @RequestParam(defaultValue = "ndjson") String format,
+            @Parameter(description = "作业的唯一标识符", example = "123e4567-e89b-12d3-a456-426614174000")
+            @RequestParam(required = false) UUID assignmentId) {
+        
+        ExportService.Format exportFormat = ExportService.Format.of(format);
+        logger.info("Received submission export request for assignment {}, format: {}", assignmentId, exportFormat);
+        
+        return ResponseEntity.ok()
+                .contentType(exportFormat.getMediaType())
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename("submissions." + exportFormat.getExtension()).build().toString())
+                .cacheControl(CacheControl.noStore())
+                .body(exportService.exportSubmissions(assignmentId, exportFormat));
+    }
+    
     /**
      * 根据ID获取提交详情
      * GET /api/submissions/{submissionId}
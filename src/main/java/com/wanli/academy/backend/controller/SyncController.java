@@ -0,0 +1,82 @@
+package com.wanli.academy.backend.controller;
+
+import com.wanli.academy.backend.dto.SyncResponse;
+import com.wanli.academy.backend.service.SyncService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * 增量同步控制器
+ * 客户端保存本地副本，只拉取上次同步之后的作业、提交和成绩变更
+ */
+@Tag(name = "增量同步", description = "按游标拉取作业与提交变更的API端点")
+@RestController
+@RequestMapping("/api/sync")
+@SecurityRequirement(name = "Bearer Authentication")
+public class SyncController {
+
+    private static final Logger logger = LoggerFactory.getLogger(SyncController.class);
+
+    @Autowired
+    private SyncService syncService;
+
+    /**
+     * 获取游标之后的变更
+     * GET /api/sync?since={cursor}
+     *
+     * @param since 上次返回的游标
+     * @param limit 本次最多读取的变更数
+     * @return 同步结果
+     */
+    @Operation(
+        summary = "增量同步",
+        description = "返回游标之后新增、修改和删除的作业与提交（含成绩）。不带游标或游标已过期时返回resetRequired=true"
+            + "和新的游标，客户端应全量拉取列表后使用该游标继续同步；hasMore=true时应立即用新游标继续请求。"
+    )
+    @ApiResponses(value = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "获取变更成功",
+            content = @Content(
+                mediaType = "application/json",
+                schema = @Schema(implementation = SyncResponse.class)
+            )
+        ),
+        @ApiResponse(
+            responseCode = "400",
+            description = "游标格式无效"
+        ),
+        @ApiResponse(
+            responseCode = "401",
+            description = "未授权访问"
+        )
+    })
+    @GetMapping
+    public ResponseEntity<SyncResponse> getChanges(
+            @Parameter(description = "上次同步返回的游标", example = "1024.57")
+            @RequestParam(required = false) String since,
+            @Parameter(description = "本次最多读取的变更数", example = "500")
+            @RequestParam(required = false) Integer limit) {
+        logger.debug("Sync request since {}", since);
+
+        SyncResponse response = syncService.getChanges(since, limit);
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noStore())
+                .body(response);
+    }
+}
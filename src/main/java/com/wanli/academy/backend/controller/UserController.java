@@ -1,18 +1,27 @@
 package com.wanli.academy.backend.controller;
 
+import com.wanli.academy.backend.dto.UserPage;
 import com.wanli.academy.backend.dto.UserResponse;
 import com.wanli.academy.backend.entity.Role;
 import com.wanli.academy.backend.entity.User;
 import com.wanli.academy.backend.service.AuthService;
+import com.wanli.academy.backend.service.ExportService;
+import com.wanli.academy.backend.service.UserQueryService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.HashMap;
 import java.util.Map;
@@ -34,6 +43,12 @@ public class UserController {
     @Autowired
     private AuthService authService;
     
+    @Autowired
+    private ExportService exportService;
+    
+    @Autowired
+    private UserQueryService userQueryService;
+    
     /**
      * Get current logged-in user information
      * @return Current user information
@@ -121,12 +136,27 @@ public class UserController {
     }
     
     /**
-     * Get all users list (admin only)
-     * @return User list
+     * Get paginated user list (admin and headquarters teacher only)
+     * Users are ordered by ID descending; pass nextCursor from the previous page as after
+     * @param q Prefix search on username, email, first name or last name
+     * @param role Role name filter, e.g. STUDENT
+     * @param active Active flag filter
+     * @param createdFrom Created date lower bound (inclusive)
+     * @param createdTo Created date upper bound (inclusive)
+     * @param after Cursor returned by the previous page
+     * @param limit Page size
+     * @return User page
      */
     @GetMapping
-    public ResponseEntity<?> getAllUsers() {
-        logger.info("Received get user list request");
+    public ResponseEntity<?> getAllUsers(
+            @RequestParam(required = false) String q,
+            @RequestParam(required = false) String role,
+            @RequestParam(required = false) Boolean active,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate createdFrom,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate createdTo,
+            @RequestParam(required = false) Long after,
+            @RequestParam(required = false) Integer limit) {
+        logger.info("Received get user list request, after: {}, limit: {}", after, limit);
         
         try {
             // Get current authentication information from security context
@@ -157,19 +187,17 @@ public class UserController {
                 return ResponseEntity.status(HttpStatus.FORBIDDEN).body(errorResponse);
             }
             
-            // Get all users
-            var users = authService.getAllUsers();
-            var userResponses = users.stream()
-                .map(this::convertToUserResponse)
-                .collect(Collectors.toList());
+            // Get one page of users
+            UserPage page = userQueryService.listUsers(q, role, active, createdFrom, createdTo, after, limit);
             
             Map<String, Object> response = new HashMap<>();
             response.put("success", true);
             response.put("message", "Get user list successful");
-            response.put("data", userResponses);
+            response.put("data", page.getUsers());
+            response.put("nextCursor", page.getNextCursor());
             response.put("timestamp", LocalDateTime.now());
             
-            logger.info("Successfully returned user list, total {} users", userResponses.size());
+            logger.info("Successfully returned user list page, {} users", page.getUsers().size());
             return ResponseEntity.ok(response);
             
         } catch (Exception e) {
@@ -184,6 +212,26 @@ public class UserController {
         }
     }
     
+    /**
+     * Export all users as NDJSON or CSV (admin and headquarters teacher only)
+     * Rows are streamed from a database cursor, so memory use does not grow with the user count
+     * Returns 503 with Retry-After when the concurrent export limit is reached
+     * @param format Export format: ndjson or csv
+     * @return Streaming export body
+     */
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportUsers(@RequestParam(defaultValue = "ndjson") String format) {
+        ExportService.Format exportFormat = ExportService.Format.of(format);
+        logger.info("Received user export request, format: {}", exportFormat);
+        
+        return ResponseEntity.ok()
+            .contentType(exportFormat.getMediaType())
+            .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                .filename("users." + exportFormat.getExtension()).build().toString())
+            .cacheControl(CacheControl.noStore())
+            .body(exportService.exportUsers(exportFormat));
+    }
+    
     /**
      * Check user authentication status
      * @return Authentication status information
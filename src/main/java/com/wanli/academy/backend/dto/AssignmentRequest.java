@@ -29,6 +29,9 @@ public class AssignmentRequest {
     
     private Boolean isActive = true;
     
+    // 客户端读取时的版本号，为空时不做版本校验
+    private Long version;
+    
     // 构造函数
     public AssignmentRequest() {}
     
@@ -89,6 +92,14 @@ public class AssignmentRequest {
         this.isActive = isActive;
     }
     
+    public Long getVersion() {
+        return version;
+    }
+    
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+    
     @Override
     public String toString() {
         return "AssignmentRequest{" +
@@ -41,6 +41,9 @@ public class AssignmentResponse {
     @Schema(description = "更新时间", example = "2024-01-15T10:30:00")
     private LocalDateTime updatedAt;
     
+    @Schema(description = "版本号，修改时回传用于并发冲突检测", example = "3")
+    private Long version;
+    
     @Schema(description = "作业提交列表")
     private List<SubmissionResponse> submissions;
     
@@ -147,6 +150,14 @@ public class AssignmentResponse {
         this.updatedAt = updatedAt;
     }
     
+    public Long getVersion() {
+        return version;
+    }
+    
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+    
     public List<SubmissionResponse> getSubmissions() {
         return submissions;
     }
@@ -0,0 +1,104 @@
+package com.wanli.academy.backend.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * 批量批改请求DTO
+ * 一次请求批改多份提交，每项独立校验并返回结果
+ */
+@Schema(description = "批量批改请求")
+public class BulkGradeRequest {
+    
+    @Schema(description = "批改项列表")
+    @NotEmpty(message = "批改项不能为空")
+    @Size(max = 500, message = "单次最多批改500份提交")
+    @Valid
+    private List<Item> items;
+    
+    public BulkGradeRequest() {}
+    
+    public BulkGradeRequest(List<Item> items) {
+        this.items = items;
+    }
+    
+    public List<Item> getItems() {
+        return items;
+    }
+    
+    public void setItems(List<Item> items) {
+        this.items = items;
+    }
+    
+    /**
+     * 单份提交的批改内容
+     */
+    @Schema(description = "批改项")
+    public static class Item {
+        
+        @Schema(description = "提交ID", example = "123e4567-e89b-12d3-a456-426614174000")
+        @NotNull(message = "提交ID不能为空")
+        private UUID submissionId;
+        
+        @Schema(description = "分数，另按作业满分校验", example = "85")
+        @NotNull(message = "分数不能为空")
+        @Min(value = 0, message = "分数不能小于0")
+        @Max(value = 100, message = "分数不能大于100")
+        private Integer score;
+        
+        @Schema(description = "反馈", example = "做得很好！")
+        @Size(max = 2000, message = "反馈内容长度不能超过2000个字符")
+        private String feedback;
+        
+        @Schema(description = "读取时的版本号，为空时不做版本校验", example = "3")
+        private Long version;
+        
+        public Item() {}
+        
+        public Item(UUID submissionId, Integer score, String feedback) {
+            this.submissionId = submissionId;
+            this.score = score;
+            this.feedback = feedback;
+        }
+        
+        public UUID getSubmissionId() {
+            return submissionId;
+        }
+        
+        public void setSubmissionId(UUID submissionId) {
+            this.submissionId = submissionId;
+        }
+        
+        public Integer getScore() {
+            return score;
+        }
+        
+        public void setScore(Integer score) {
+            this.score = score;
+        }
+        
+        public String getFeedback() {
+            return feedback;
+        }
+        
+        public void setFeedback(String feedback) {
+            this.feedback = feedback;
+        }
+        
+        public Long getVersion() {
+            return version;
+        }
+        
+        public void setVersion(Long version) {
+            this.version = version;
+        }
+    }
+}
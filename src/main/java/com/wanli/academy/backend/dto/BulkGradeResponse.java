@@ -0,0 +1,135 @@
+package com.wanli.academy.backend.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * 批量批改响应DTO
+ * 按请求顺序返回每项的批改结果，失败项不影响其他项
+ */
+@Schema(description = "批量批改响应")
+public class BulkGradeResponse {
+    
+    @Schema(description = "批改成功的数量", example = "198")
+    private int graded;
+    
+    @Schema(description = "批改失败的数量", example = "2")
+    private int failed;
+    
+    @Schema(description = "每项的批改结果，与请求顺序一致")
+    private List<ItemResult> results;
+    
+    public BulkGradeResponse() {}
+    
+    public BulkGradeResponse(List<ItemResult> results) {
+        this.results = results;
+        this.graded = (int) results.stream().filter(ItemResult::isSuccess).count();
+        this.failed = results.size() - graded;
+    }
+    
+    public int getGraded() {
+        return graded;
+    }
+    
+    public void setGraded(int graded) {
+        this.graded = graded;
+    }
+    
+    public int getFailed() {
+        return failed;
+    }
+    
+    public void setFailed(int failed) {
+        this.failed = failed;
+    }
+    
+    public List<ItemResult> getResults() {
+        return results;
+    }
+    
+    public void setResults(List<ItemResult> results) {
+        this.results = results;
+    }
+    
+    /**
+     * 单项批改结果
+     */
+    @Schema(description = "单项批改结果")
+    public static class ItemResult {
+        
+        @Schema(description = "提交ID")
+        private UUID submissionId;
+        
+        @Schema(description = "是否批改成功")
+        private boolean success;
+        
+        @Schema(description = "批改后的版本号，失败时为空", example = "4")
+        private Long version;
+        
+        @Schema(description = "失败原因代码：NOT_FOUND、FORBIDDEN、INVALID_STATE、INVALID_SCORE、DUPLICATE、CLAIMED、VERSION_CONFLICT")
+        private String code;
+        
+        @Schema(description = "失败原因")
+        private String message;
+        
+        public ItemResult() {}
+        
+        private ItemResult(UUID submissionId, boolean success, Long version, String code, String message) {
+            this.submissionId = submissionId;
+            this.success = success;
+            this.version = version;
+            this.code = code;
+            this.message = message;
+        }
+        
+        public static ItemResult graded(UUID submissionId, Long version) {
+            return new ItemResult(submissionId, true, version, null, null);
+        }
+        
+        public static ItemResult failed(UUID submissionId, String code, String message) {
+            return new ItemResult(submissionId, false, null, code, message);
+        }
+        
+        public UUID getSubmissionId() {
+            return submissionId;
+        }
+        
+        public void setSubmissionId(UUID submissionId) {
+            this.submissionId = submissionId;
+        }
+        
+        public boolean isSuccess() {
+            return success;
+        }
+        
+        public void setSuccess(boolean success) {
+            this.success = success;
+        }
+        
+        public Long getVersion() {
+            return version;
+        }
+        
+        public void setVersion(Long version) {
+            this.version = version;
+        }
+        
+        public String getCode() {
+            return code;
+        }
+        
+        public void setCode(String code) {
+            this.code = code;
+        }
+        
+        public String getMessage() {
+            return message;
+        }
+        
+        public void setMessage(String message) {
+            this.message = message;
+        }
+    }
+}
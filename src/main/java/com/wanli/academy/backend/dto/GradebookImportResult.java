@@ -0,0 +1,164 @@
+package com.wanli.academy.backend.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * 成绩表导入结果DTO
+ * 汇总导入行数与成功/失败数量，附带前若干条错误，完整错误报告通过errorReportUrl下载
+ */
+@Schema(description = "成绩表导入结果")
+public class GradebookImportResult {
+    
+    @Schema(description = "导入批次ID")
+    private UUID importId;
+    
+    @Schema(description = "是否为试运行（只校验不写入）")
+    private boolean dryRun;
+    
+    @Schema(description = "读取的数据行数（不含表头和空行）", example = "200")
+    private int totalRows;
+    
+    @Schema(description = "批改成功的行数，试运行时为通过校验的行数", example = "195")
+    private int graded;
+    
+    @Schema(description = "失败的行数", example = "5")
+    private int failed;
+    
+    @Schema(description = "错误预览（最多前20条）")
+    private List<RowError> errors;
+    
+    @Schema(description = "完整错误报告的下载地址，没有错误时为空", example = "/api/gradebook/imports/123e4567-e89b-12d3-a456-426614174000/errors")
+    private String errorReportUrl;
+    
+    public GradebookImportResult() {}
+    
+    public GradebookImportResult(UUID importId, boolean dryRun, int totalRows, int graded, int failed,
+                                 List<RowError> errors, String errorReportUrl) {
+        this.importId = importId;
+        this.dryRun = dryRun;
+        this.totalRows = totalRows;
+        this.graded = graded;
+        this.failed = failed;
+        this.errors = errors;
+        this.errorReportUrl = errorReportUrl;
+    }
+    
+    public UUID getImportId() {
+        return importId;
+    }
+    
+    public void setImportId(UUID importId) {
+        this.importId = importId;
+    }
+    
+    public boolean isDryRun() {
+        return dryRun;
+    }
+    
+    public void setDryRun(boolean dryRun) {
+        this.dryRun = dryRun;
+    }
+    
+    public int getTotalRows() {
+        return totalRows;
+    }
+    
+    public void setTotalRows(int totalRows) {
+        this.totalRows = totalRows;
+    }
+    
+    public int getGraded() {
+        return graded;
+    }
+    
+    public void setGraded(int graded) {
+        this.graded = graded;
+    }
+    
+    public int getFailed() {
+        return failed;
+    }
+    
+    public void setFailed(int failed) {
+        this.failed = failed;
+    }
+    
+    public List<RowError> getErrors() {
+        return errors;
+    }
+    
+    public void setErrors(List<RowError> errors) {
+        this.errors = errors;
+    }
+    
+    public String getErrorReportUrl() {
+        return errorReportUrl;
+    }
+    
+    public void setErrorReportUrl(String errorReportUrl) {
+        this.errorReportUrl = errorReportUrl;
+    }
+    
+    /**
+     * 单行错误
+     */
+    @Schema(description = "导入错误")
+    public static class RowError {
+        
+        @Schema(description = "文件中的行号（表头为第1行）", example = "12")
+        private int rowNumber;
+        
+        @Schema(description = "学生用户名", example = "student01")
+        private String username;
+        
+        @Schema(description = "原始分数文本", example = "105")
+        private String score;
+        
+        @Schema(description = "错误原因", example = "分数必须在0到100之间")
+        private String message;
+        
+        public RowError() {}
+        
+        public RowError(int rowNumber, String username, String score, String message) {
+            this.rowNumber = rowNumber;
+            this.username = username;
+            this.score = score;
+            this.message = message;
+        }
+        
+        public int getRowNumber() {
+            return rowNumber;
+        }
+        
+        public void setRowNumber(int rowNumber) {
+            this.rowNumber = rowNumber;
+        }
+        
+        public String getUsername() {
+            return username;
+        }
+        
+        public void setUsername(String username) {
+            this.username = username;
+        }
+        
+        public String getScore() {
+            return score;
+        }
+        
+        public void setScore(String score) {
+            this.score = score;
+        }
+        
+        public String getMessage() {
+            return message;
+        }
+        
+        public void setMessage(String message) {
+            this.message = message;
+        }
+    }
+}
@@ -0,0 +1,180 @@
+package com.wanli.academy.backend.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * 成绩册矩阵DTO（列式编码）
+ * 行为学生、列为作业；单元格以三个等长数组表示：第k个单元格位于学生studentIndex[k]、作业assignmentIndex[k]，
+ * 分数为scores[k]、状态为statuses[k]。没有提交的单元格不出现
+ */
+@Schema(description = "成绩册矩阵（列式编码）")
+public class GradebookMatrix {
+    
+    @Schema(description = "作业列，按截止时间排序")
+    private List<AssignmentColumn> assignments;
+    
+    @Schema(description = "本页学生ID，按ID升序")
+    private List<Long> studentIds;
+    
+    @Schema(description = "本页学生用户名，与studentIds一一对应")
+    private List<String> studentUsernames;
+    
+    @Schema(description = "单元格所在学生的下标（studentIds中的位置）")
+    private int[] studentIndex;
+    
+    @Schema(description = "单元格所在作业的下标（assignments中的位置）")
+    private int[] assignmentIndex;
+    
+    @Schema(description = "单元格分数，未批改时为null")
+    private BigDecimal[] scores;
+    
+    @Schema(description = "单元格提交状态：SUBMITTED、GRADED、RETURNED")
+    private String[] statuses;
+    
+    @Schema(description = "下一页游标（本页最后一个学生ID），没有更多时为null", example = "1024")
+    private Long nextCursor;
+    
+    public GradebookMatrix() {}
+    
+    public GradebookMatrix(List<AssignmentColumn> assignments, List<Long> studentIds, List<String> studentUsernames,
+                           int[] studentIndex, int[] assignmentIndex, BigDecimal[] scores, String[] statuses,
+                           Long nextCursor) {
+        this.assignments = assignments;
+        this.studentIds = studentIds;
+        this.studentUsernames = studentUsernames;
+        this.studentIndex = studentIndex;
+        this.assignmentIndex = assignmentIndex;
+        this.scores = scores;
+        this.statuses = statuses;
+        this.nextCursor = nextCursor;
+    }
+    
+    public List<AssignmentColumn> getAssignments() {
+        return assignments;
+    }
+    
+    public void setAssignments(List<AssignmentColumn> assignments) {
+        this.assignments = assignments;
+    }
+    
+    public List<Long> getStudentIds() {
+        return studentIds;
+    }
+    
+    public void setStudentIds(List<Long> studentIds) {
+        this.studentIds = studentIds;
+    }
+    
+    public List<String> getStudentUsernames() {
+        return studentUsernames;
+    }
+    
+    public void setStudentUsernames(List<String> studentUsernames) {
+        this.studentUsernames = studentUsernames;
+    }
+    
+    public int[] getStudentIndex() {
+        return studentIndex;
+    }
+    
+    public void setStudentIndex(int[] studentIndex) {
+        this.studentIndex = studentIndex;
+    }
+    
+    public int[] getAssignmentIndex() {
+        return assignmentIndex;
+    }
+    
+    public void setAssignmentIndex(int[] assignmentIndex) {
+        this.assignmentIndex = assignmentIndex;
+    }
+    
+    public BigDecimal[] getScores() {
+        return scores;
+    }
+    
+    public void setScores(BigDecimal[] scores) {
+        this.scores = scores;
+    }
+    
+    public String[] getStatuses() {
+        return statuses;
+    }
+    
+    public void setStatuses(String[] statuses) {
+        this.statuses = statuses;
+    }
+    
+    public Long getNextCursor() {
+        return nextCursor;
+    }
+    
+    public void setNextCursor(Long nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+    
+    /**
+     * 作业列
+     */
+    @Schema(description = "作业列")
+    public static class AssignmentColumn {
+        
+        @Schema(description = "作业ID")
+        private UUID id;
+        
+        @Schema(description = "作业标题")
+        private String title;
+        
+        @Schema(description = "满分", example = "100")
+        private BigDecimal maxScore;
+        
+        @Schema(description = "截止时间")
+        private LocalDateTime dueDate;
+        
+        public AssignmentColumn() {}
+        
+        public AssignmentColumn(UUID id, String title, BigDecimal maxScore, LocalDateTime dueDate) {
+            this.id = id;
+            this.title = title;
+            this.maxScore = maxScore;
+            this.dueDate = dueDate;
+        }
+        
+        public UUID getId() {
+            return id;
+        }
+        
+        public void setId(UUID id) {
+            this.id = id;
+        }
+        
+        public String getTitle() {
+            return title;
+        }
+        
+        public void setTitle(String title) {
+            this.title = title;
+        }
+        
+        public BigDecimal getMaxScore() {
+            return maxScore;
+        }
+        
+        public void setMaxScore(BigDecimal maxScore) {
+            this.maxScore = maxScore;
+        }
+        
+        public LocalDateTime getDueDate() {
+            return dueDate;
+        }
+        
+        public void setDueDate(LocalDateTime dueDate) {
+            this.dueDate = dueDate;
+        }
+    }
+}
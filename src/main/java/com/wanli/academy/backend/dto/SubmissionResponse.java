@@ -52,6 +52,9 @@ public class SubmissionResponse {
     @Schema(description = "更新时间", example = "2024-01-16T14:20:00")
     private LocalDateTime updatedAt;
     
+    @Schema(description = "版本号，修改时回传用于并发冲突检测", example = "3")
+    private Long version;
+    
     // 默认构造函数
     public SubmissionResponse() {}
     
@@ -189,6 +192,14 @@ public class SubmissionResponse {
         this.updatedAt = updatedAt;
     }
     
+    public Long getVersion() {
+        return version;
+    }
+    
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+    
     @Override
     public String toString() {
         return "SubmissionResponse{" +
@@ -0,0 +1,98 @@
+package com.wanli.academy.backend.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * 增量同步响应DTO
+ * 返回游标之后新增、修改和删除的作业与提交（提交中包含批改成绩）
+ */
+@Schema(description = "增量同步结果")
+public class SyncResponse {
+
+    @Schema(description = "下次请求使用的游标", example = "1024.57")
+    private String cursor;
+
+    @Schema(description = "是否还有更多变更，为true时应立即使用新游标继续拉取", example = "false")
+    private boolean hasMore;
+
+    @Schema(description = "游标已过期或未提供，客户端需要重新全量拉取后再使用返回的游标", example = "false")
+    private boolean resetRequired;
+
+    @Schema(description = "作业变更")
+    private Changes<AssignmentResponse> assignments = new Changes<>();
+
+    @Schema(description = "提交与成绩变更")
+    private Changes<SubmissionResponse> submissions = new Changes<>();
+
+    /**
+     * 单个资源的变更：upserted为最新内容，deleted为已删除（或已停用）的ID
+     */
+    public static class Changes<T> {
+
+        @Schema(description = "新增或修改后的记录")
+        private List<T> upserted = new ArrayList<>();
+
+        @Schema(description = "已删除记录的ID")
+        private List<UUID> deleted = new ArrayList<>();
+
+        public List<T> getUpserted() {
+            return upserted;
+        }
+
+        public void setUpserted(List<T> upserted) {
+            this.upserted = upserted;
+        }
+
+        public List<UUID> getDeleted() {
+            return deleted;
+        }
+
+        public void setDeleted(List<UUID> deleted) {
+            this.deleted = deleted;
+        }
+    }
+
+    public String getCursor() {
+        return cursor;
+    }
+
+    public void setCursor(String cursor) {
+        this.cursor = cursor;
+    }
+
+    public boolean isHasMore() {
+        return hasMore;
+    }
+
+    public void setHasMore(boolean hasMore) {
+        this.hasMore = hasMore;
+    }
+
+    public boolean isResetRequired() {
+        return resetRequired;
+    }
+
+    public void setResetRequired(boolean resetRequired) {
+        this.resetRequired = resetRequired;
+    }
+
+    public Changes<AssignmentResponse> getAssignments() {
+        return assignments;
+    }
+
+    public void setAssignments(Changes<AssignmentResponse> assignments) {
+        this.assignments = assignments;
+    }
+
+    public Changes<SubmissionResponse> getSubmissions() {
+        return submissions;
+    }
+
+    public void setSubmissions(Changes<SubmissionResponse> submissions) {
+        this.submissions = submissions;
+    }
+}
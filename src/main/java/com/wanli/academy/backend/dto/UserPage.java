@@ -0,0 +1,43 @@
+package com.wanli.academy.backend.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.util.List;
+
+/**
+ * 用户分页结果DTO
+ * 按用户ID倒序的键集分页，nextCursor为空表示没有下一页
+ */
+@Schema(description = "用户分页结果")
+public class UserPage {
+
+    @Schema(description = "当前页用户")
+    private List<UserResponse> users;
+
+    @Schema(description = "下一页游标，作为after参数传入；为空表示没有更多数据", example = "1024")
+    private Long nextCursor;
+
+    public UserPage() {
+    }
+
+    public UserPage(List<UserResponse> users, Long nextCursor) {
+        this.users = users;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<UserResponse> getUsers() {
+        return users;
+    }
+
+    public void setUsers(List<UserResponse> users) {
+        this.users = users;
+    }
+
+    public Long getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(Long nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+}
@@ -1,6 +1,7 @@
 package com.wanli.academy.backend.entity;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import org.hibernate.annotations.DynamicUpdate;
 import org.hibernate.annotations.GenericGenerator;
 
 import javax.persistence.*;
@@ -11,9 +12,10 @@ import java.util.UUID;
 
 /**
  * 作业实体类
- * 表示系统中的作业信息
+ * 表示系统中的作业信息，使用版本号乐观锁并只更新变更的列
  */
 @Entity
+@DynamicUpdate
 @Table(name = "assignments")
 public class Assignment {
     
@@ -50,6 +52,10 @@ public class Assignment {
     @Column(name = "is_active")
     private Boolean isActive = true;
     
+    @Version
+    @Column(name = "version", nullable = false)
+    private Long version;
+    
     // 关联关系
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "creator_id", insertable = false, updatable = false)
@@ -88,6 +94,7 @@ public class Assignment {
     @PrePersist
     protected void onCreate() {
         createdAt = LocalDateTime.now();
+        updatedAt = createdAt;
     }
     
     @PreUpdate
@@ -168,6 +175,14 @@ public class Assignment {
         this.updatedAt = updatedAt;
     }
     
+    public Long getVersion() {
+        return version;
+    }
+    
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+    
     public Boolean getIsActive() {
         return isActive;
     }
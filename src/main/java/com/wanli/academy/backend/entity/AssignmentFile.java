@@ -17,6 +17,9 @@ import java.util.UUID;
 @Table(name = "assignment_files")
 public class AssignmentFile {
     
+    public static final String CODEC_IDENTITY = "identity";
+    public static final String CODEC_GZIP = "gzip";
+    
     @Id
     @GeneratedValue(generator = "UUID")
     @GenericGenerator(name = "UUID", strategy = "org.hibernate.id.UUIDGenerator")
@@ -58,6 +61,30 @@ public class AssignmentFile {
     @Column(name = "uploaded_by")
     private Long uploadedBy;
     
+    /**
+     * 存储根目录名称（多磁盘存储），为空表示旧记录，直接使用filePath
+     */
+    @Column(name = "storage_root", length = 50)
+    private String storageRoot;
+    
+    /**
+     * 相对于存储根目录的路径，读取时由存储根目录解析
+     */
+    @Column(name = "storage_key", length = 500)
+    private String storageKey;
+    
+    /**
+     * 存储编码：为空表示尚未评估的原始文件，identity表示评估后保持原样，gzip表示已压缩存入冷存储层
+     */
+    @Column(name = "storage_codec", length = 20)
+    private String storageCodec;
+    
+    /**
+     * 磁盘上实际占用的字节数（压缩后大小），fileSize始终为原始大小
+     */
+    @Column(name = "stored_size")
+    private Long storedSize;
+    
     @Column(name = "created_at")
     private LocalDateTime createdAt;
     
@@ -167,6 +194,38 @@ public class AssignmentFile {
         this.originalFileName = originalFileName;
     }
     
+    public String getStorageRoot() {
+        return storageRoot;
+    }
+    
+    public void setStorageRoot(String storageRoot) {
+        this.storageRoot = storageRoot;
+    }
+    
+    public String getStorageKey() {
+        return storageKey;
+    }
+    
+    public void setStorageKey(String storageKey) {
+        this.storageKey = storageKey;
+    }
+    
+    public String getStorageCodec() {
+        return storageCodec;
+    }
+    
+    public void setStorageCodec(String storageCodec) {
+        this.storageCodec = storageCodec;
+    }
+    
+    public Long getStoredSize() {
+        return storedSize;
+    }
+    
+    public void setStoredSize(Long storedSize) {
+        this.storedSize = storedSize;
+    }
+    
     public String getMimeType() {
         return mimeType;
     }
@@ -0,0 +1,102 @@
+package com.wanli.academy.backend.entity;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * 存储用量计数实体类
+ * 按范围（用户/作业/全局）维护已用字节数和文件数，上传和删除时增量更新，
+ * 由定时对账任务周期性地与assignment_files表重新校准
+ */
+@Entity
+@Table(name = "storage_usage",
+       uniqueConstraints = @UniqueConstraint(name = "uk_storage_usage_scope_key", columnNames = {"scope", "scope_key"}))
+public class StorageUsage {
+    
+    public static final String SCOPE_USER = "USER";
+    public static final String SCOPE_ASSIGNMENT = "ASSIGNMENT";
+    public static final String SCOPE_GLOBAL = "GLOBAL";
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Column(name = "scope", nullable = false, length = 20)
+    private String scope;
+    
+    @Column(name = "scope_key", nullable = false, length = 64)
+    private String scopeKey;
+    
+    @Column(name = "used_bytes", nullable = false)
+    private Long usedBytes = 0L;
+    
+    @Column(name = "file_count", nullable = false)
+    private Long fileCount = 0L;
+    
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+    
+    // 构造函数
+    public StorageUsage() {}
+    
+    // Getter和Setter方法
+    public Long getId() {
+        return id;
+    }
+    
+    public void setId(Long id) {
+        this.id = id;
+    }
+    
+    public String getScope() {
+        return scope;
+    }
+    
+    public void setScope(String scope) {
+        this.scope = scope;
+    }
+    
+    public String getScopeKey() {
+        return scopeKey;
+    }
+    
+    public void setScopeKey(String scopeKey) {
+        this.scopeKey = scopeKey;
+    }
+    
+    public Long getUsedBytes() {
+        return usedBytes;
+    }
+    
+    public void setUsedBytes(Long usedBytes) {
+        this.usedBytes = usedBytes;
+    }
+    
+    public Long getFileCount() {
+        return fileCount;
+    }
+    
+    public void setFileCount(Long fileCount) {
+        this.fileCount = fileCount;
+    }
+    
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+    
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+    
+    @Override
+    public String toString() {
+        return "StorageUsage{" +
+                "scope='" + scope + '\'' +
+                ", scopeKey='" + scopeKey + '\'' +
+                ", usedBytes=" + usedBytes +
+                ", fileCount=" + fileCount +
+                ", updatedAt=" + updatedAt +
+                '}';
+    }
+}
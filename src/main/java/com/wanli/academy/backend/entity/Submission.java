@@ -2,6 +2,7 @@ package com.wanli.academy.backend.entity;
 
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotNull;
+import org.hibernate.annotations.DynamicUpdate;
 import org.hibernate.annotations.GenericGenerator;
 
 import java.time.LocalDateTime;
@@ -10,8 +11,10 @@ import java.util.UUID;
 /**
  * 作业提交实体类
  * 包含学生提交作业的基本信息和关联关系
+ * 使用版本号乐观锁：更新语句只写入变更的列并带上WHERE version = ?，并发修改时后提交者失败
  */
 @Entity
+@DynamicUpdate
 @Table(name = "submissions")
 public class Submission {
     
@@ -59,6 +62,10 @@ public class Submission {
     @Column(name = "updated_at")
     private LocalDateTime updatedAt;
     
+    @Version
+    @Column(name = "version", nullable = false)
+    private Long version;
+    
     /**
      * 与Assignment实体的多对一关系
      * 一个提交记录只能属于一个作业
@@ -212,6 +219,14 @@ public class Submission {
         this.updatedAt = updatedAt;
     }
     
+    public Long getVersion() {
+        return version;
+    }
+    
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+    
     public Assignment getAssignment() {
         return assignment;
     }
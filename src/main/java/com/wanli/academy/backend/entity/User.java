@@ -1,6 +1,9 @@
 package com.wanli.academy.backend.entity;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+
 import java.time.LocalDateTime;
 import java.util.HashSet;
 import java.util.Set;
@@ -10,6 +13,8 @@ import java.util.Set;
  * 包含用户基本信息和与角色的多对多关系
  */
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "users")
 @Table(name = "users")
 public class User {
     
@@ -44,11 +49,20 @@ public class User {
     @Column(name = "updated_at")
     private LocalDateTime updatedAt;
     
+    // 由UserActivityRecorder用JDBC批量写入，实体保存时不覆盖。映射只用于生成表结构，不提供访问方法：
+    // 写入不经过Hibernate，实体（含二级缓存）中的值会过时，读取必须用JDBC直接查询users表
+    @Column(name = "last_login_at", insertable = false, updatable = false)
+    private LocalDateTime lastLoginAt;
+    
+    @Column(name = "last_seen_at", insertable = false, updatable = false)
+    private LocalDateTime lastSeenAt;
+    
     /**
      * 与Role实体的多对多关系
      * 一个用户可以有多个角色，一个角色可以被多个用户拥有
      */
     @ManyToMany(fetch = FetchType.LAZY)
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "user-roles")
     @JoinTable(
         name = "user_roles",
         joinColumns = @JoinColumn(name = "user_id"),
@@ -0,0 +1,25 @@
+package com.wanli.academy.backend.exception;
+
+/**
+ * 冲突错误响应DTO
+ * 在统一错误信息之外返回服务端的当前数据
+ */
+public class ConflictResponse extends ErrorResponse {
+    private Object current;
+    
+    public ConflictResponse() {
+    }
+    
+    public ConflictResponse(String code, String message, long timestamp, Object current) {
+        super(code, message, timestamp);
+        this.current = current;
+    }
+    
+    public Object getCurrent() {
+        return current;
+    }
+    
+    public void setCurrent(Object current) {
+        this.current = current;
+    }
+}
@@ -3,6 +3,8 @@ package com.wanli.academy.backend.exception;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.http.HttpStatus;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.validation.BindException;
@@ -45,6 +47,63 @@ public class GlobalExceptionHandler {
         return new ResponseEntity<>(errorResponse, HttpStatus.BAD_REQUEST);
     }
     
+    /**
+     * 处理版本冲突异常，返回当前数据
+     */
+    @ExceptionHandler(VersionConflictException.class)
+    public ResponseEntity<ErrorResponse> handleVersionConflictException(
+            VersionConflictException e, WebRequest request) {
+        
+        logger.warn("Version conflict: {}", e.getMessage());
+        
+        ConflictResponse errorResponse = new ConflictResponse(
+            "VERSION_CONFLICT",
+            e.getMessage(),
+            System.currentTimeMillis(),
+            e.getCurrent()
+        );
+        
+        return new ResponseEntity<>(errorResponse, HttpStatus.CONFLICT);
+    }
+    
+    /**
+     * 处理服务过载异常，返回503和Retry-After
+     */
+    @ExceptionHandler(ServiceOverloadedException.class)
+    public ResponseEntity<ErrorResponse> handleServiceOverloadedException(
+            ServiceOverloadedException e, WebRequest request) {
+        
+        logger.warn("Service overloaded: {}", e.getMessage());
+        
+        ErrorResponse errorResponse = new ErrorResponse(
+            "SERVICE_OVERLOADED",
+            e.getMessage(),
+            System.currentTimeMillis()
+        );
+        
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+            .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+            .body(errorResponse);
+    }
+    
+    /**
+     * 处理乐观锁更新失败（读取与写入之间被并发修改）
+     */
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public ResponseEntity<ErrorResponse> handleOptimisticLockingFailureException(
+            OptimisticLockingFailureException e, WebRequest request) {
+        
+        logger.warn("Optimistic locking failure: {}", e.getMessage());
+        
+        ErrorResponse errorResponse = new ErrorResponse(
+            "VERSION_CONFLICT",
+            "数据已被他人修改，请刷新后重试",
+            System.currentTimeMillis()
+        );
+        
+        return new ResponseEntity<>(errorResponse, HttpStatus.CONFLICT);
+    }
+    
     /**
      * 处理访问拒绝异常
      */
@@ -0,0 +1,21 @@
+package com.wanli.academy.backend.exception;
+
+/**
+ * 服务过载异常
+ * 有界执行队列已满或排队超时时抛出，返回503并通过Retry-After提示客户端稍后重试
+ */
+public class ServiceOverloadedException extends RuntimeException {
+    
+    private static final long serialVersionUID = 1L;
+    
+    private final long retryAfterSeconds;
+    
+    public ServiceOverloadedException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+    
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
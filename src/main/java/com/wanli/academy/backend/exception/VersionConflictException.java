@@ -0,0 +1,21 @@
+package com.wanli.academy.backend.exception;
+
+/**
+ * 版本冲突异常
+ * 客户端提交的版本号与当前数据不一致时抛出，携带当前数据供客户端合并后重试
+ */
+public class VersionConflictException extends RuntimeException {
+    
+    private static final long serialVersionUID = 1L;
+    
+    private final transient Object current;
+    
+    public VersionConflictException(String message, Object current) {
+        super(message);
+        this.current = current;
+    }
+    
+    public Object getCurrent() {
+        return current;
+    }
+}
@@ -2,11 +2,13 @@ package com.wanli.academy.backend.repository;
 
 import com.wanli.academy.backend.entity.AssignmentFile;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -149,6 +151,135 @@ public interface AssignmentFileRepository extends JpaRepository<AssignmentFile,
      */
     List<AssignmentFile> findByCreatedAtBeforeAndFileType(LocalDateTime createdAt, String fileType);
     
+    /**
+     * 按(创建时间, ID)键集分页查询过期文件，供清理任务逐页处理
+     * @param fileType 文件类型
+     * @param cutoff 过期时间点
+     * @param afterCreatedAt 上一页最后一条记录的创建时间
+     * @param afterId 上一页最后一条记录的ID
+     * @param limit 页大小
+     * @return 过期文件列表
+     */
+    @Query(value = "SELECT * FROM assignment_files WHERE file_type = :fileType AND created_at < :cutoff " +
+                   "AND (created_at, id) > (:afterCreatedAt, :afterId) ORDER BY created_at, id LIMIT :limit",
+           nativeQuery = true)
+    List<AssignmentFile> findExpiredPage(@Param("fileType") String fileType,
+                                         @Param("cutoff") LocalDateTime cutoff,
+                                         @Param("afterCreatedAt") LocalDateTime afterCreatedAt,
+                                         @Param("afterId") UUID afterId,
+                                         @Param("limit") int limit);
+    
+    /**
+     * 查询给定路径中存在对应记录的路径（供文件存储对账批量比对）
+     * @param filePaths 文件路径集合
+     * @return 存在记录的文件路径列表
+     */
+    @Query("SELECT af.filePath FROM AssignmentFile af WHERE af.filePath IN :filePaths")
+    List<String> findExistingFilePaths(@Param("filePaths") Collection<String> filePaths);
+    
+    /**
+     * 查询指定存储根目录下存在对应记录的相对路径（供文件存储对账批量比对）
+     * @param storageRoot 存储根目录名称
+     * @param storageKeys 相对路径集合
+     * @return 存在记录的相对路径列表
+     */
+    @Query("SELECT af.storageKey FROM AssignmentFile af WHERE af.storageRoot = :storageRoot AND af.storageKey IN :storageKeys")
+    List<String> findExistingStorageKeys(@Param("storageRoot") String storageRoot,
+                                         @Param("storageKeys") Collection<String> storageKeys);
+    
+    /**
+     * 按ID键集分页查询文件记录
+     * @param afterId 上一页最后一条记录的ID
+     * @param limit 页大小
+     * @return 文件列表
+     */
+    @Query(value = "SELECT * FROM assignment_files WHERE id > :afterId ORDER BY id LIMIT :limit", nativeQuery = true)
+    List<AssignmentFile> findPageAfterId(@Param("afterId") UUID afterId, @Param("limit") int limit);
+    
+    /**
+     * 按ID键集分页查询指定存储根目录下的文件记录
+     * @param storageRoot 存储根目录名称
+     * @param afterId 上一页最后一条记录的ID
+     * @param limit 页大小
+     * @return 文件列表
+     */
+    @Query(value = "SELECT * FROM assignment_files WHERE storage_root = :storageRoot AND id > :afterId ORDER BY id LIMIT :limit",
+           nativeQuery = true)
+    List<AssignmentFile> findPageByStorageRoot(@Param("storageRoot") String storageRoot,
+                                               @Param("afterId") UUID afterId,
+                                               @Param("limit") int limit);
+    
+    /**
+     * 将文件记录切换到新的存储根目录（仅当记录仍位于源根目录时生效）
+     * @param id 文件ID
+     * @param sourceRoot 源根目录名称
+     * @param targetRoot 目标根目录名称
+     * @param filePath 新的完整路径
+     * @return 影响行数
+     */
+    @Modifying
+    @Query("UPDATE AssignmentFile af SET af.storageRoot = :targetRoot, af.filePath = :filePath " +
+           "WHERE af.id = :id AND af.storageRoot = :sourceRoot")
+    int moveToStorageRoot(@Param("id") UUID id, @Param("sourceRoot") String sourceRoot,
+                          @Param("targetRoot") String targetRoot, @Param("filePath") String filePath);
+    
+    /**
+     * 按ID键集分页查询可转入冷存储层的文件：所属作业已关闭或截止超过指定时间，
+     * 尚未评估过存储编码，且扩展名属于可压缩类型
+     * @param dueBefore 截止时间上限
+     * @param extensions 可压缩扩展名（小写）
+     * @param afterId 上一页最后一条记录的ID
+     * @param limit 页大小
+     * @return 文件列表
+     */
+    @Query(value = "SELECT af.* FROM assignment_files af JOIN assignments a ON a.id = af.assignment_id " +
+                   "WHERE af.storage_codec IS NULL AND (a.status = 'CLOSED' OR a.due_date < :dueBefore) " +
+                   "AND lower(substring(af.file_name from '\\.([^.]+)$')) IN (:extensions) " +
+                   "AND af.id > :afterId ORDER BY af.id LIMIT :limit",
+           nativeQuery = true)
+    List<AssignmentFile> findColdTierCandidates(@Param("dueBefore") LocalDateTime dueBefore,
+                                                @Param("extensions") Collection<String> extensions,
+                                                @Param("afterId") UUID afterId,
+                                                @Param("limit") int limit);
+    
+    /**
+     * 将文件记录切换到冷存储层（仅当记录仍指向原路径且未评估过编码时生效）
+     * @return 影响行数
+     */
+    @Modifying
+    @Query("UPDATE AssignmentFile af SET af.storageRoot = :storageRoot, af.storageKey = :storageKey, " +
+           "af.filePath = :filePath, af.storageCodec = :codec, af.storedSize = :storedSize " +
+           "WHERE af.id = :id AND af.filePath = :previousPath AND af.storageCodec IS NULL")
+    int moveToColdTier(@Param("id") UUID id, @Param("previousPath") String previousPath,
+                       @Param("storageRoot") String storageRoot, @Param("storageKey") String storageKey,
+                       @Param("filePath") String filePath, @Param("codec") String codec,
+                       @Param("storedSize") Long storedSize);
+    
+    /**
+     * 记录文件的存储编码（用于标记压缩收益不足、保持原样的文件）
+     * @return 影响行数
+     */
+    @Modifying
+    @Query("UPDATE AssignmentFile af SET af.storageCodec = :codec WHERE af.id = :id AND af.storageCodec IS NULL")
+    int markStorageCodec(@Param("id") UUID id, @Param("codec") String codec);
+    
+    /**
+     * 统计指定类型在指定时间之前创建的文件数量
+     * @param fileType 文件类型
+     * @param createdAt 创建时间
+     * @return 文件数量
+     */
+    long countByFileTypeAndCreatedAtBefore(String fileType, LocalDateTime createdAt);
+    
+    /**
+     * 按ID批量删除文件记录
+     * @param ids 文件ID集合
+     * @return 删除行数
+     */
+    @Modifying
+    @Query("DELETE FROM AssignmentFile af WHERE af.id IN :ids")
+    int deleteByIdIn(@Param("ids") Collection<UUID> ids);
+    
     /**
      * 检查指定作业是否存在指定文件名的文件
      * @param assignmentId 作业ID
@@ -222,6 +353,35 @@ public interface AssignmentFileRepository extends JpaRepository<AssignmentFile,
     @Query("SELECT SUM(af.fileSize) FROM AssignmentFile af WHERE af.uploadedBy = :uploadedBy")
     Long findTotalFileSizeByUploadedBy(@Param("uploadedBy") Long uploadedBy);
     
+    /**
+     * 按上传者分批聚合存储用量（键集分页，供配额对账使用）
+     * @param afterUploadedBy 上一批最后一个上传者ID
+     * @param limit 批大小
+     * @return [上传者ID, 总字节数, 文件数]列表
+     */
+    @Query(value = "SELECT uploaded_by, COALESCE(SUM(file_size), 0), COUNT(*) FROM assignment_files " +
+                   "WHERE uploaded_by > :afterUploadedBy GROUP BY uploaded_by ORDER BY uploaded_by LIMIT :limit",
+           nativeQuery = true)
+    List<Object[]> aggregateUsageByUploader(@Param("afterUploadedBy") long afterUploadedBy, @Param("limit") int limit);
+    
+    /**
+     * 按作业分批聚合存储用量（键集分页，供配额对账使用）
+     * @param afterAssignmentId 上一批最后一个作业ID
+     * @param limit 批大小
+     * @return [作业ID, 总字节数, 文件数]列表
+     */
+    @Query(value = "SELECT assignment_id, COALESCE(SUM(file_size), 0), COUNT(*) FROM assignment_files " +
+                   "WHERE assignment_id > :afterAssignmentId GROUP BY assignment_id ORDER BY assignment_id LIMIT :limit",
+           nativeQuery = true)
+    List<Object[]> aggregateUsageByAssignment(@Param("afterAssignmentId") UUID afterAssignmentId, @Param("limit") int limit);
+    
+    /**
+     * 聚合全部文件的存储用量
+     * @return [总字节数, 文件数]
+     */
+    @Query("SELECT COALESCE(SUM(af.fileSize), 0), COUNT(af) FROM AssignmentFile af")
+    List<Object[]> aggregateTotalUsage();
+    
     /**
      * 查询指定作业的附件文件列表
      * @param assignmentId 作业ID
@@ -1,8 +1,11 @@
 package com.wanli.academy.backend.repository;
 
 import com.wanli.academy.backend.entity.Question;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.AvailableHints;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
@@ -19,9 +22,14 @@ public interface QuestionRepository extends JpaRepository<Question, UUID> {
     
     /**
      * 根据作业ID查询题目列表，按顺序排列
+     * 结果进入查询缓存，questions表有写入时自动失效
      * @param homeworkId 作业ID
      * @return 题目列表
      */
+    @QueryHints({
+        @QueryHint(name = AvailableHints.HINT_CACHEABLE, value = "true"),
+        @QueryHint(name = AvailableHints.HINT_CACHE_REGION, value = "question-by-homework")
+    })
     List<Question> findByHomeworkIdOrderByOrderIndexAsc(UUID homeworkId);
     
     /**
@@ -1,8 +1,11 @@
 package com.wanli.academy.backend.repository;
 
 import com.wanli.academy.backend.entity.Role;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.AvailableHints;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
@@ -19,9 +22,14 @@ public interface RoleRepository extends JpaRepository<Role, Long> {
     
     /**
      * 根据角色名称查找角色
+     * 结果进入查询缓存，roles表有写入时自动失效
      * @param name 角色名称
      * @return 角色对象的Optional包装
      */
+    @QueryHints({
+        @QueryHint(name = AvailableHints.HINT_CACHEABLE, value = "true"),
+        @QueryHint(name = AvailableHints.HINT_CACHE_REGION, value = "role-by-name")
+    })
     Optional<Role> findByName(String name);
     
     /**
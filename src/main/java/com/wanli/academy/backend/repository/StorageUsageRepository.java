@@ -0,0 +1,91 @@
+package com.wanli.academy.backend.repository;
+
+import com.wanli.academy.backend.entity.StorageUsage;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 存储用量计数数据访问接口
+ * 计数行通过INSERT ... ON CONFLICT原子地增量或覆盖更新，避免读-改-写竞争
+ */
+@Repository
+public interface StorageUsageRepository extends JpaRepository<StorageUsage, Long> {
+    
+    /**
+     * 原子地累加计数（行不存在时插入）
+     * @param scope 范围
+     * @param scopeKey 范围键
+     * @param bytesDelta 字节增量（可为负）
+     * @param filesDelta 文件数增量（可为负）
+     * @return 影响行数
+     */
+    @Modifying
+    @Query(value = "INSERT INTO storage_usage (scope, scope_key, used_bytes, file_count, updated_at) " +
+                   "VALUES (:scope, :scopeKey, :bytesDelta, :filesDelta, clock_timestamp()) " +
+                   "ON CONFLICT (scope, scope_key) DO UPDATE SET " +
+                   "used_bytes = storage_usage.used_bytes + EXCLUDED.used_bytes, " +
+                   "file_count = storage_usage.file_count + EXCLUDED.file_count, " +
+                   "updated_at = EXCLUDED.updated_at", nativeQuery = true)
+    int increment(@Param("scope") String scope, @Param("scopeKey") String scopeKey,
+                  @Param("bytesDelta") long bytesDelta, @Param("filesDelta") long filesDelta);
+    
+    /**
+     * 用对账结果覆盖计数（行不存在时插入）
+     * @param scope 范围
+     * @param scopeKey 范围键
+     * @param usedBytes 已用字节数
+     * @param fileCount 文件数
+     * @return 影响行数
+     */
+    @Modifying
+    @Query(value = "INSERT INTO storage_usage (scope, scope_key, used_bytes, file_count, updated_at) " +
+                   "VALUES (:scope, :scopeKey, :usedBytes, :fileCount, clock_timestamp()) " +
+                   "ON CONFLICT (scope, scope_key) DO UPDATE SET " +
+                   "used_bytes = EXCLUDED.used_bytes, " +
+                   "file_count = EXCLUDED.file_count, " +
+                   "updated_at = EXCLUDED.updated_at", nativeQuery = true)
+    int overwrite(@Param("scope") String scope, @Param("scopeKey") String scopeKey,
+                  @Param("usedBytes") long usedBytes, @Param("fileCount") long fileCount);
+    
+    /**
+     * 一次性读取上传检查所需的全部计数行（用户、作业、全局分片）
+     * @param userKey 用户范围键
+     * @param assignmentKey 作业范围键（可为空）
+     * @return 计数行列表
+     */
+    @Query("SELECT su FROM StorageUsage su WHERE (su.scope = 'USER' AND su.scopeKey = :userKey) " +
+           "OR (su.scope = 'ASSIGNMENT' AND su.scopeKey = :assignmentKey) OR su.scope = 'GLOBAL'")
+    List<StorageUsage> findQuotaRows(@Param("userKey") String userKey, @Param("assignmentKey") String assignmentKey);
+    
+    /**
+     * 查询全局计数分片
+     * @return 全局计数行列表
+     */
+    @Query("SELECT su FROM StorageUsage su WHERE su.scope = 'GLOBAL'")
+    List<StorageUsage> findGlobalRows();
+    
+    /**
+     * 将本轮对账未触及的用户/作业计数清零（对应文件已全部删除）
+     * @param scope 范围
+     * @param reconcileStart 本轮对账开始时间（数据库时钟）
+     * @return 影响行数
+     */
+    @Modifying
+    @Query(value = "UPDATE storage_usage SET used_bytes = 0, file_count = 0, updated_at = clock_timestamp() " +
+                   "WHERE scope = :scope AND updated_at < :reconcileStart AND (used_bytes <> 0 OR file_count <> 0)",
+           nativeQuery = true)
+    int resetUntouched(@Param("scope") String scope, @Param("reconcileStart") LocalDateTime reconcileStart);
+    
+    /**
+     * 获取数据库当前时钟，作为对账轮次的起点
+     * @return 数据库当前时间
+     */
+    @Query(value = "SELECT CAST(clock_timestamp() AS timestamp)", nativeQuery = true)
+    LocalDateTime currentDatabaseTime();
+}
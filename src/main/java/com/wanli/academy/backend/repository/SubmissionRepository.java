@@ -84,6 +84,14 @@ public interface SubmissionRepository extends JpaRepository<Submission, UUID> {
      */
     List<Submission> findByStudentIdOrderBySubmittedAtDesc(Long studentId);
     
+    /**
+     * 查询学生提交记录的版本（条目数与最近更新时间），用于ETag
+     * @param studentId 学生ID
+     * @return 版本投影
+     */
+    @Query("SELECT COUNT(s) AS count, MAX(s.updatedAt) AS lastModified FROM Submission s WHERE s.studentId = :studentId")
+    VersionStamp findVersionStampByStudentId(@Param("studentId") Long studentId);
+    
     /**
      * 根据学生ID查询提交记录列表，预加载关联数据，按提交时间倒序排列
      * @param studentId 学生ID
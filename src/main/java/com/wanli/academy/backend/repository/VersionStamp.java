@@ -0,0 +1,13 @@
+package com.wanli.academy.backend.repository;
+
+import java.time.LocalDateTime;
+
+/**
+ * 集合版本投影：条目数与最近更新时间，用于廉价地生成ETag
+ */
+public interface VersionStamp {
+
+    long getCount();
+
+    LocalDateTime getLastModified();
+}
@@ -0,0 +1,57 @@
+package com.wanli.academy.backend.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * PostgreSQL advisory锁服务类
+ * 为定时任务提供跨节点互斥：锁绑定在一条专用连接的会话上，任务结束或连接断开时自动释放
+ */
+@Service
+public class AdvisoryLockService {
+
+    private static final Logger logger = LoggerFactory.getLogger(AdvisoryLockService.class);
+
+    @Autowired
+    private DataSource dataSource;
+
+    /**
+     * 尝试获取锁并执行任务，锁已被其他节点持有时立即返回
+     * @param lockName 锁名称（经hashtext映射为锁键）
+     * @param task 要执行的任务
+     * @return 是否获得锁并执行了任务
+     */
+    public boolean runExclusively(String lockName, Runnable task) {
+        try (Connection connection = dataSource.getConnection()) {
+            if (!execute(connection, "SELECT pg_try_advisory_lock(hashtext(?))", lockName)) {
+                logger.debug("Advisory lock {} is held by another node, skipping", lockName);
+                return false;
+            }
+            try {
+                task.run();
+                return true;
+            } finally {
+                execute(connection, "SELECT pg_advisory_unlock(hashtext(?))", lockName);
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("Advisory lock operation failed: " + lockName, e);
+        }
+    }
+
+    private boolean execute(Connection connection, String sql, String lockName) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.setString(1, lockName);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                return resultSet.next() && resultSet.getBoolean(1);
+            }
+        }
+    }
+}
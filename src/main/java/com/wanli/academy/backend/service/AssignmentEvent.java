@@ -0,0 +1,75 @@
+package com.wanli.academy.backend.service;
+
+import com.wanli.academy.backend.entity.Assignment;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * 作业领域事件
+ * 作业发布后在同一事务中写入outbox
+ */
+public class AssignmentEvent implements DomainEvent {
+
+    public static final String PUBLISHED = "assignment.published";
+
+    private final String type;
+    private final UUID assignmentId;
+    private final Long creatorId;
+    private final String title;
+    private final LocalDateTime dueDate;
+    private final LocalDateTime occurredAt;
+
+    public AssignmentEvent(String type, UUID assignmentId, Long creatorId, String title,
+                           LocalDateTime dueDate, LocalDateTime occurredAt) {
+        this.type = type;
+        this.assignmentId = assignmentId;
+        this.creatorId = creatorId;
+        this.title = title;
+        this.dueDate = dueDate;
+        this.occurredAt = occurredAt;
+    }
+
+    /**
+     * 作业已发布
+     */
+    public static AssignmentEvent published(Assignment assignment) {
+        return new AssignmentEvent(PUBLISHED, assignment.getId(), assignment.getCreatorId(), assignment.getTitle(),
+                assignment.getDueDate(), LocalDateTime.now());
+    }
+
+    @Override
+    public String getType() {
+        return type;
+    }
+
+    @Override
+    public String aggregateType() {
+        return "assignment";
+    }
+
+    @Override
+    public String aggregateId() {
+        return assignmentId.toString();
+    }
+
+    public UUID getAssignmentId() {
+        return assignmentId;
+    }
+
+    public Long getCreatorId() {
+        return creatorId;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public LocalDateTime getDueDate() {
+        return dueDate;
+    }
+
+    public LocalDateTime getOccurredAt() {
+        return occurredAt;
+    }
+}
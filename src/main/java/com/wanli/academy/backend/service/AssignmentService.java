@@ -8,6 +8,7 @@ import com.wanli.academy.backend.entity.Assignment;
 import com.wanli.academy.backend.entity.AssignmentSubmission;
 import com.wanli.academy.backend.entity.Course;
 import com.wanli.academy.backend.entity.User;
+import com.wanli.academy.backend.exception.VersionConflictException;
 import com.wanli.academy.backend.repository.AssignmentRepository;
 import com.wanli.academy.backend.repository.AssignmentSubmissionRepository;
 import com.wanli.academy.backend.repository.CourseRepository;
@@ -15,8 +16,10 @@ import com.wanli.academy.backend.repository.UserRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -56,6 +59,9 @@ public class AssignmentService {
     @Autowired
     private FileStorageService fileStorageService;
     
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+    
     /**
      * Create assignment
      * @param assignmentRequest assignment creation request
@@ -95,6 +101,7 @@ public class AssignmentService {
         
         // Save assignment
         Assignment savedAssignment = assignmentRepository.save(assignment);
+        eventPublisher.publishEvent(AssignmentEvent.published(savedAssignment));
         logger.info("Assignment created successfully, ID: {}", savedAssignment.getId());
         
         return convertToAssignmentResponse(savedAssignment);
@@ -116,8 +123,46 @@ public class AssignmentService {
         User currentUser = userRepository.findByUsername(username)
             .orElseThrow(() -> new RuntimeException("User not found"));
         
-        // Build query conditions
-        Specification<Assignment> spec = (root, query, criteriaBuilder) -> {
+        Page<Assignment> assignmentPage = assignmentRepository.findAll(buildListSpecification(courseId, status, currentUser), pageable);
+        
+        return assignmentPage.map(this::convertToAssignmentResponse);
+    }
+    
+    /**
+     * Get the ETag of an assignment list page
+     * Computed from a count and the most recently updated row of the filtered set, so a 304 costs two cheap
+     * queries and a changed list does not load the page twice. Any insert, update or delete in the filtered
+     * set changes either the count or the latest (id, updatedAt); updatedAt is set on insert as well
+     * @param pageable pagination information
+     * @param courseId course ID filter (optional)
+     * @param status assignment status filter (optional)
+     * @param username current user username
+     * @return weak ETag
+     */
+    @Transactional(readOnly = true)
+    public String getAssignmentsETag(Pageable pageable, Long courseId, String status, String username) {
+        User currentUser = userRepository.findByUsername(username)
+            .orElseThrow(() -> new RuntimeException("User not found"));
+        
+        Specification<Assignment> specification = buildListSpecification(courseId, status, currentUser);
+        long total = assignmentRepository.count(specification);
+        // Rows created before updatedAt was set on insert have no updatedAt; DESC would sort them first
+        Specification<Assignment> updated = specification.and((root, query, criteriaBuilder) ->
+            criteriaBuilder.isNotNull(root.get("updatedAt")));
+        Optional<Assignment> latest = assignmentRepository.findBy(updated,
+            query -> query.sortBy(Sort.by(Sort.Direction.DESC, "updatedAt")).first());
+        
+        return VersionTags.weak(total,
+            latest.map(Assignment::getId).orElse(null),
+            latest.map(Assignment::getUpdatedAt).orElse(null),
+            pageable.getPageNumber(), pageable.getPageSize(), pageable.getSort());
+    }
+    
+    /**
+     * Build assignment list query conditions
+     */
+    private Specification<Assignment> buildListSpecification(Long courseId, String status, User currentUser) {
+        return (root, query, criteriaBuilder) -> {
             List<Predicate> predicates = new ArrayList<>();
             
             // Only show active assignments
@@ -149,37 +194,50 @@ public class AssignmentService {
             
             return criteriaBuilder.and(predicates.toArray(new Predicate[0]));
         };
+    }
+    
+    /**
+     * Get assignment details by ID
+     * Concurrent reads of the same assignment share one load; the aspect runs before the transaction,
+     * so waiting callers hold no connection. Permission is not checked here: callers check it per user
+     * with getAssignmentETag first
+     * @param id assignment ID
+     * @return assignment response
+     * @throws RuntimeException when assignment not found
+     */
+    @Coalesced(key = "#id")
+    @Transactional(readOnly = true)
+    public AssignmentResponse getAssignmentDetails(Long id) {
+        logger.info("Loading assignment details, ID: {}", id);
         
-        Page<Assignment> assignmentPage = assignmentRepository.findAll(spec, pageable);
+        Assignment assignment = assignmentRepository.findById(id)
+            .orElseThrow(() -> new RuntimeException("Assignment not found"));
         
-        return assignmentPage.map(this::convertToAssignmentResponse);
+        return convertToAssignmentResponse(assignment);
     }
     
     /**
-     * Get assignment details by ID
+     * Get the ETag of assignment details; this is the per-caller permission check for getAssignmentDetails
      * @param id assignment ID
      * @param username current user username
-     * @return assignment response
+     * @return weak ETag
      * @throws RuntimeException when assignment not found or user has no permission
      */
     @Transactional(readOnly = true)
-    public AssignmentResponse getAssignmentById(Long id, String username) {
-        logger.info("Getting assignment details, ID: {}, user: {}", id, username);
-        
+    public String getAssignmentETag(Long id, String username) {
         Assignment assignment = assignmentRepository.findById(id)
             .orElseThrow(() -> new RuntimeException("Assignment not found"));
         
-        // Get current user information
         User currentUser = userRepository.findByUsername(username)
             .orElseThrow(() -> new RuntimeException("User not found"));
         
-        // Check if user has permission to view this assignment
         if (!hasPermissionToViewAssignment(currentUser, assignment)) {
-            logger.warn("User {} does not have permission to view assignment {}", username, id);
             throw new RuntimeException("No permission to view this assignment");
         }
         
-        return convertToAssignmentResponse(assignment);
+        // The response also carries the course name and the creator's username, so their versions are part of the tag
+        return VersionTags.weak(assignment.getId(), assignment.getUpdatedAt(),
+            assignment.getCourse().getUpdatedAt(), assignment.getCreator().getUpdatedAt());
     }
     
     /**
@@ -207,6 +265,14 @@ public class AssignmentService {
             throw new RuntimeException("No permission to update this assignment");
         }
         
+        // Reject stale edits: the client must re-read and merge
+        if (assignmentRequest.getVersion() != null && !assignmentRequest.getVersion().equals(assignment.getVersion())) {
+            logger.info("Assignment {} version conflict: expected {}, current {}",
+                id, assignmentRequest.getVersion(), assignment.getVersion());
+            throw new VersionConflictException("Assignment was modified by another user",
+                convertToAssignmentResponse(assignment));
+        }
+        
         // Update assignment information
         assignment.setTitle(assignmentRequest.getTitle());
         assignment.setDescription(assignmentRequest.getDescription());
@@ -488,6 +554,7 @@ public class AssignmentService {
         response.setCreatedBy(assignment.getCreatedBy().getUsername());
         response.setCreatedAt(assignment.getCreatedAt());
         response.setUpdatedAt(assignment.getUpdatedAt());
+        response.setVersion(assignment.getVersion());
         
         return response;
     }
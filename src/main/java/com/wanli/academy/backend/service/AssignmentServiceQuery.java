@@ -23,6 +23,8 @@ import org.springframework.transaction.annotation.Transactional;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
 import java.util.stream.Collectors;
@@ -210,6 +212,25 @@ public class AssignmentServiceQuery {
         return convertToAssignmentResponse(assignment);
     }
     
+    /**
+     * 按ID批量获取作业（增量同步用），不存在的ID直接跳过
+     * 不附带提交列表，提交通过同步接口的submissions部分单独下发
+     * @param assignmentIds 作业ID
+     * @return 作业列表
+     */
+    public List<AssignmentResponse> getAssignmentsByIds(Collection<UUID> assignmentIds) {
+        if (assignmentIds.isEmpty()) {
+            return new ArrayList<>();
+        }
+        return assignmentRepository.findAllById(assignmentIds).stream()
+                .map(assignment -> {
+                    AssignmentResponse response = convertToAssignmentResponse(assignment);
+                    response.setSubmissions(null);
+                    return response;
+                })
+                .collect(Collectors.toList());
+    }
+    
     /**
      * 获取作业的提交列表
      * @param assignmentId 作业ID
@@ -327,6 +348,7 @@ public class AssignmentServiceQuery {
         response.setStatus(assignment.getStatus());
         response.setCreatedAt(assignment.getCreatedAt());
         response.setUpdatedAt(assignment.getUpdatedAt());
+        response.setVersion(assignment.getVersion());
         
         // 如果需要包含提交列表，可以在这里添加
         if (assignment.getSubmissions() != null) {
@@ -368,6 +390,7 @@ public class AssignmentServiceQuery {
         response.setGradedAt(submission.getGradedAt());
         response.setCreatedAt(submission.getCreatedAt());
         response.setUpdatedAt(submission.getUpdatedAt());
+        response.setVersion(submission.getVersion());
         
         return response;
     }
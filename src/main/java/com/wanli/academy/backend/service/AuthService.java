@@ -17,6 +17,7 @@ import org.springframework.security.core.AuthenticationException;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
@@ -53,6 +54,12 @@ public class AuthService {
     @Autowired
     private CustomUserDetailsService customUserDetailsService;
     
+    @Autowired
+    private UserAvailabilityIndex availabilityIndex;
+    
+    @Autowired
+    private UserActivityRecorder activityRecorder;
+    
     /**
      * 用户注册
      * @param registerRequest 注册请求
@@ -98,6 +105,7 @@ public class AuthService {
         
         // Save user
         User savedUser = userRepository.save(user);
+        availabilityIndex.recordUser(savedUser.getUsername(), savedUser.getEmail());
         logger.info("User registration successful, user ID: {}", savedUser.getId());
         
         // Generate JWT token
@@ -133,9 +141,15 @@ public class AuthService {
                 throw new RuntimeException("User account is disabled");
             }
             
-            // Update last login time
-            user.setUpdatedAt(LocalDateTime.now());
-            userRepository.save(user);
+            // Rehash passwords stored with an outdated encoding or BCrypt strength now that the raw password is verified
+            if (passwordEncoder.upgradeEncoding(user.getPassword())) {
+                user.setPassword(passwordEncoder.encode(loginRequest.getPassword()));
+                userRepository.save(user);
+                logger.info("Upgraded password hash for user ID: {}", user.getId());
+            }
+            
+            // Last login time is buffered and written in batches instead of updating the user row here
+            activityRecorder.recordLogin(user.getId());
             
             logger.info("User login successful, user ID: {}", user.getId());
             
@@ -224,19 +238,30 @@ public class AuthService {
     
     /**
      * Check if username is available
+     * Only possible hits in the availability filter are checked against the database;
+     * no transaction is opened here so a filtered answer does not borrow a connection
      * @param username username
      * @return whether available
      */
+    @Transactional(propagation = Propagation.SUPPORTS)
     public boolean isUsernameAvailable(String username) {
+        if (availabilityIndex.isUsernameDefinitelyAvailable(username)) {
+            return true;
+        }
         return !userRepository.existsByUsername(username);
     }
     
     /**
      * Check if email is available
+     * Only possible hits in the availability filter are checked against the database
      * @param email email
      * @return whether available
      */
+    @Transactional(propagation = Propagation.SUPPORTS)
     public boolean isEmailAvailable(String email) {
+        if (availabilityIndex.isEmailDefinitelyAvailable(email)) {
+            return true;
+        }
         return !userRepository.existsByEmail(email);
     }
     
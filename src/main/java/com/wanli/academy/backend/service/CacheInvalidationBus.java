@@ -0,0 +1,460 @@
+package com.wanli.academy.backend.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * 集群缓存失效总线
+ * 通过PostgreSQL的pg_notify在事务提交时广播(cache, key, version)失效事件（key为空表示整个缓存），
+ * 每个节点用一条不属于连接池的专用连接LISTEN并在本地驱逐，避免长期占用池中连接；
+ * 连接中断重连后视为可能丢失事件，对所有缓存执行全量驱逐。空闲时定期校验监听连接，
+ * 被NAT或负载均衡静默断开的连接也会走重连和全量驱逐。
+ * 短时间内的大量通知会合并后再分发
+ */
+@Service
+public class CacheInvalidationBus {
+
+    private static final Logger logger = LoggerFactory.getLogger(CacheInvalidationBus.class);
+
+    static final String CHANNEL = "cache_invalidation";
+
+    // 同一批次中某个缓存的失效键超过该数量时改为整体清空
+    static final int MAX_KEYS_PER_CACHE = 500;
+
+    @Value("${cache.invalidation.enabled:true}")
+    private boolean enabled;
+
+    // 收到通知后继续等待合并的时间窗口
+    @Value("${cache.invalidation.coalesce-millis:50}")
+    private int coalesceMillis;
+
+    @Value("${cache.invalidation.poll-millis:1000}")
+    private int pollMillis;
+
+    @Value("${cache.invalidation.reconnect-backoff-millis:5000}")
+    private long reconnectBackoffMillis;
+
+    // 空闲时校验监听连接的间隔：静默断开的连接上getNotifications只会一直返回空
+    @Value("${cache.invalidation.health-check-millis:30000}")
+    private long healthCheckMillis;
+
+    // 监听连接的读超时（秒），须大于poll-millis
+    @Value("${cache.invalidation.socket-timeout-seconds:60}")
+    private int socketTimeoutSeconds;
+
+    @Autowired
+    private DataSourceProperties dataSourceProperties;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final String nodeId = UUID.randomUUID().toString();
+
+    // 本节点提交后与收到其他节点通知时都会调用的处理器
+    private final Map<String, List<Handler>> handlers = new ConcurrentHashMap<>();
+
+    // 只处理其他节点通知的处理器（本节点的变更已由缓存自身维护，如Hibernate二级缓存）
+    private final Map<String, List<Handler>> remoteHandlers = new ConcurrentHashMap<>();
+
+    private volatile boolean running;
+
+    private Thread listenerThread;
+
+    private Counter publishedCounter;
+    private Counter receivedCounter;
+    private Counter resyncCounter;
+
+    /**
+     * 失效事件处理器
+     */
+    public interface Handler {
+
+        /**
+         * 驱逐单个键
+         */
+        void evict(String cache, String key, long version);
+
+        /**
+         * 清空缓存（批次过大或可能丢失事件时）
+         */
+        void evictAll(String cache);
+    }
+
+    @PostConstruct
+    public void init() {
+        publishedCounter = Counter.builder("cache.invalidation.published")
+                .description("Cache invalidation events published to the cluster")
+                .register(meterRegistry);
+        receivedCounter = Counter.builder("cache.invalidation.received")
+                .description("Cache invalidation events received from other nodes")
+                .register(meterRegistry);
+        resyncCounter = Counter.builder("cache.invalidation.resyncs")
+                .description("Full cache flushes after the listener connection was lost")
+                .register(meterRegistry);
+
+        if (!enabled) {
+            logger.info("Cluster cache invalidation is disabled");
+            return;
+        }
+        running = true;
+        listenerThread = new Thread(this::listenLoop, "cache-invalidation-listener");
+        listenerThread.setDaemon(true);
+        listenerThread.start();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        if (listenerThread != null) {
+            listenerThread.interrupt();
+        }
+    }
+
+    /**
+     * 注册缓存的失效处理器
+     * @param cache 缓存名称
+     * @param handler 处理器
+     */
+    public void register(String cache, Handler handler) {
+        handlers.computeIfAbsent(cache, name -> new CopyOnWriteArrayList<>()).add(handler);
+    }
+
+    /**
+     * 注册只处理其他节点通知的失效处理器
+     * @param cache 缓存名称
+     * @param handler 处理器
+     */
+    public void registerRemote(String cache, Handler handler) {
+        remoteHandlers.computeIfAbsent(cache, name -> new CopyOnWriteArrayList<>()).add(handler);
+    }
+
+    /**
+     * 在当前事务中发布失效事件，事务提交后才会送达其他节点，回滚则丢弃；
+     * 本节点的处理器在提交后直接调用（总线禁用时仍会调用）
+     * @param cache 缓存名称
+     * @param key 缓存键
+     * @param version 数据版本
+     */
+    public void publish(String cache, String key, long version) {
+        if (enabled) {
+            jdbcTemplate.queryForObject("SELECT pg_notify(?, ?)", Object.class, CHANNEL, payload(cache, key, version));
+        }
+        afterCommit(cache, key, version);
+    }
+
+    /**
+     * 在当前事务中发布整个缓存的失效事件
+     * @param cache 缓存名称
+     */
+    public void publishClear(String cache) {
+        publish(cache, null, System.currentTimeMillis());
+    }
+
+    /**
+     * 使用指定连接发布失效事件，供持有事务连接的调用方（如Hibernate事件监听器）使用
+     */
+    void publish(Connection connection, String cache, String key, long version) throws SQLException {
+        if (enabled) {
+            try (PreparedStatement statement = connection.prepareStatement("SELECT pg_notify(?, ?)")) {
+                statement.setString(1, CHANNEL);
+                statement.setString(2, payload(cache, key, version));
+                statement.execute();
+            }
+        }
+        afterCommit(cache, key, version);
+    }
+
+    private void afterCommit(String cache, String key, long version) {
+        publishedCounter.increment();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    dispatch(handlers, cache, key, version);
+                }
+            });
+        } else {
+            dispatch(handlers, cache, key, version);
+        }
+    }
+
+    private String payload(String cache, String key, long version) {
+        try {
+            return objectMapper.writeValueAsString(new Event(nodeId, cache, key, version));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to serialize cache invalidation event", e);
+        }
+    }
+
+    /**
+     * 监听循环：断线后按退避间隔重连，每次重连成功后先全量驱逐再继续增量处理
+     */
+    private void listenLoop() {
+        boolean firstConnection = true;
+        while (running) {
+            try (Connection connection = openListenerConnection()) {
+                if (!connection.isWrapperFor(PGConnection.class)) {
+                    logger.warn("Cache invalidation requires PostgreSQL, listener stopped");
+                    running = false;
+                    return;
+                }
+                connection.setAutoCommit(true);
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("LISTEN " + CHANNEL);
+                }
+                PGConnection pgConnection = connection.unwrap(PGConnection.class);
+                logger.info("Listening for cache invalidation events on channel {}", CHANNEL);
+
+                if (!firstConnection) {
+                    resync();
+                }
+                firstConnection = false;
+
+                try {
+                    receiveLoop(connection, pgConnection);
+                } finally {
+                    unlisten(connection);
+                }
+            } catch (SQLException | RuntimeException e) {
+                if (!running) {
+                    break;
+                }
+                logger.warn("Cache invalidation listener disconnected: {}", e.getMessage());
+                firstConnection = false;
+                sleepBeforeReconnect();
+            }
+        }
+    }
+
+    void receiveLoop(Connection connection, PGConnection pgConnection) throws SQLException {
+        long lastCheckedAt = System.currentTimeMillis();
+        while (running) {
+            PGNotification[] notifications = pgConnection.getNotifications(pollMillis);
+            if (notifications == null || notifications.length == 0) {
+                if (System.currentTimeMillis() - lastCheckedAt >= healthCheckMillis) {
+                    // 抛出后由listenLoop重连，并在重连后全量驱逐
+                    if (!connection.isValid(socketTimeoutSeconds)) {
+                        throw new SQLException("Listener connection failed validation");
+                    }
+                    lastCheckedAt = System.currentTimeMillis();
+                }
+                continue;
+            }
+            lastCheckedAt = System.currentTimeMillis();
+            Batch batch = new Batch();
+            batch.addAll(notifications);
+            // 合并窗口内继续收取，避免突发写入时逐条驱逐
+            PGNotification[] more;
+            while ((more = pgConnection.getNotifications(coalesceMillis)) != null && more.length > 0) {
+                batch.addAll(more);
+            }
+            batch.dispatch();
+        }
+    }
+
+    /**
+     * 直接由驱动建立LISTEN连接，不占用连接池；开启TCP keepalive并设置读超时，使断开的连接能被发现
+     */
+    private Connection openListenerConnection() throws SQLException {
+        Properties properties = new Properties();
+        String username = dataSourceProperties.determineUsername();
+        String password = dataSourceProperties.determinePassword();
+        if (username != null) {
+            properties.setProperty("user", username);
+        }
+        if (password != null) {
+            properties.setProperty("password", password);
+        }
+        properties.setProperty("tcpKeepAlive", "true");
+        properties.setProperty("socketTimeout", String.valueOf(socketTimeoutSeconds));
+        return DriverManager.getConnection(dataSourceProperties.determineUrl(), properties);
+    }
+
+    private void unlisten(Connection connection) {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("UNLISTEN *");
+        } catch (SQLException e) {
+            logger.debug("UNLISTEN failed on closing listener connection: {}", e.getMessage());
+        }
+    }
+
+    private void sleepBeforeReconnect() {
+        try {
+            Thread.sleep(reconnectBackoffMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            running = false;
+        }
+    }
+
+    /**
+     * 断线期间的事件已无法获取，清空全部本地缓存
+     */
+    void resync() {
+        resyncCounter.increment();
+        logger.info("Resynchronizing local caches after listener reconnect");
+        evictAll(handlers);
+        evictAll(remoteHandlers);
+    }
+
+    private void evictAll(Map<String, List<Handler>> registry) {
+        registry.forEach((cache, list) -> list.forEach(handler -> handler.evictAll(cache)));
+    }
+
+    private void dispatch(Map<String, List<Handler>> registry, String cache, String key, long version) {
+        List<Handler> list = registry.get(cache);
+        if (list == null) {
+            return;
+        }
+        if (key == null) {
+            list.forEach(handler -> handler.evictAll(cache));
+        } else {
+            list.forEach(handler -> handler.evict(cache, key, version));
+        }
+    }
+
+    /**
+     * 一批通知：按(cache, key)去重保留最大版本，单个缓存键过多时整体清空
+     */
+    class Batch {
+        private final Map<String, Map<String, Long>> keysByCache = new HashMap<>();
+        private final Set<String> flushAll = new HashSet<>();
+
+        void addAll(PGNotification[] notifications) {
+            for (PGNotification notification : notifications) {
+                Event event = parse(notification.getParameter());
+                if (event == null || nodeId.equals(event.getNode())) {
+                    continue;
+                }
+                receivedCounter.increment();
+                if (flushAll.contains(event.getCache())) {
+                    continue;
+                }
+                if (event.getKey() == null) {
+                    // 整个缓存失效
+                    keysByCache.remove(event.getCache());
+                    flushAll.add(event.getCache());
+                    continue;
+                }
+                Map<String, Long> keys = keysByCache.computeIfAbsent(event.getCache(), cache -> new HashMap<>());
+                keys.merge(event.getKey(), event.getVersion(), Math::max);
+                if (keys.size() > MAX_KEYS_PER_CACHE) {
+                    keysByCache.remove(event.getCache());
+                    flushAll.add(event.getCache());
+                }
+            }
+        }
+
+        void dispatch() {
+            for (String cache : flushAll) {
+                List.of(handlers, remoteHandlers).forEach(registry -> {
+                    List<Handler> list = registry.get(cache);
+                    if (list != null) {
+                        list.forEach(handler -> handler.evictAll(cache));
+                    }
+                });
+            }
+            keysByCache.forEach((cache, keys) -> keys.forEach((key, version) -> {
+                CacheInvalidationBus.this.dispatch(handlers, cache, key, version);
+                CacheInvalidationBus.this.dispatch(remoteHandlers, cache, key, version);
+            }));
+        }
+    }
+
+    private Event parse(String payload) {
+        try {
+            return objectMapper.readValue(payload, Event.class);
+        } catch (JsonProcessingException e) {
+            logger.warn("Ignoring malformed cache invalidation payload: {}", payload);
+            return null;
+        }
+    }
+
+    /**
+     * 失效事件，key为null表示整个缓存失效
+     */
+    public static class Event {
+        private String node;
+        private String cache;
+        private String key;
+        private long version;
+
+        public Event() {
+        }
+
+        public Event(String node, String cache, String key, long version) {
+            this.node = node;
+            this.cache = cache;
+            this.key = key;
+            this.version = version;
+        }
+
+        public String getNode() {
+            return node;
+        }
+
+        public void setNode(String node) {
+            this.node = node;
+        }
+
+        public String getCache() {
+            return cache;
+        }
+
+        public void setCache(String cache) {
+            this.cache = cache;
+        }
+
+        public String getKey() {
+            return key;
+        }
+
+        public void setKey(String key) {
+            this.key = key;
+        }
+
+        public long getVersion() {
+            return version;
+        }
+
+        public void setVersion(long version) {
+            this.version = version;
+        }
+    }
+}
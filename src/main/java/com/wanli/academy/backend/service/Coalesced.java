@@ -0,0 +1,22 @@
+package com.wanli.academy.backend.service;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 标记可合并的服务方法：并发的相同调用共享同一次执行（见RequestCoalescer）
+ * 仅用于结果不依赖当前用户的方法，按用户的权限校验需放在被标记方法之外
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface Coalesced {
+
+    /**
+     * 合并键的SpEL表达式，可引用方法参数（如"#assignmentId"）；为空时使用全部参数
+     */
+    String key() default "";
+}
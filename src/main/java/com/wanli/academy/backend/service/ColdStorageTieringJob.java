@@ -0,0 +1,219 @@
+package com.wanli.academy.backend.service;
+
+import com.wanli.academy.backend.entity.AssignmentFile;
+import com.wanli.academy.backend.repository.AssignmentFileRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 冷存储分层任务
+ * 将已关闭或截止已久的作业中可压缩的附件（txt/doc/rtf/bmp/wav等）用gzip压缩后迁入冷存储层，
+ * 并在文件记录上登记编码；已压缩格式（pdf、docx、图片、音视频、压缩包）不在候选范围内
+ */
+@Service
+public class ColdStorageTieringJob {
+
+    private static final Logger logger = LoggerFactory.getLogger(ColdStorageTieringJob.class);
+
+    static final String LOCK_NAME = "cold-storage-tiering";
+    static final String GZIP_SUFFIX = ".gz";
+
+    // 压缩收益明显的未压缩格式
+    static final Set<String> COMPRESSIBLE_EXTENSIONS = Set.of("txt", "doc", "rtf", "bmp", "wav", "xls", "ppt");
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    // 作业截止超过该天数后其附件视为冷数据
+    @Value("${file.tiering.min-age-days:30}")
+    private int minAgeDays;
+
+    // 压缩后节省比例低于该值时保持原样
+    @Value("${file.tiering.min-savings-ratio:0.10}")
+    private double minSavingsRatio;
+
+    @Value("${file.tiering.gzip-level:6}")
+    private int gzipLevel;
+
+    @Value("${file.tiering.batch-size:200}")
+    private int batchSize;
+
+    @Autowired
+    private AssignmentFileRepository assignmentFileRepository;
+
+    @Autowired
+    private StoragePlacementService storagePlacementService;
+
+    @Autowired
+    private AdvisoryLockService advisoryLockService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private Counter bytesSavedCounter;
+    private Counter compressedCounter;
+    private Counter skippedCounter;
+
+    @PostConstruct
+    public void init() {
+        bytesSavedCounter = Counter.builder("file.tiering.bytes.saved")
+                .description("Disk bytes saved by compressing cold attachments")
+                .register(meterRegistry);
+        compressedCounter = Counter.builder("file.tiering.files")
+                .tag("result", "compressed")
+                .description("Cold attachments evaluated by the tiering job")
+                .register(meterRegistry);
+        skippedCounter = Counter.builder("file.tiering.files")
+                .tag("result", "skipped")
+                .description("Cold attachments evaluated by the tiering job")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 定时执行分层，集群中同一时间只有一个节点执行
+     */
+    @Scheduled(cron = "${file.tiering.cron:0 0 5 * * *}")
+    public void scheduledTiering() {
+        if (storagePlacementService.getRoot(StoragePlacementService.COLD_ROOT) == null) {
+            return;
+        }
+        if (!advisoryLockService.runExclusively(LOCK_NAME, this::runTiering)) {
+            logger.info("Cold storage tiering is already running on another node, skipping");
+        }
+    }
+
+    /**
+     * 执行一轮分层
+     * @return 本轮节省的字节数
+     */
+    public long runTiering() {
+        StoragePlacementService.StorageRoot coldRoot = storagePlacementService.getRoot(StoragePlacementService.COLD_ROOT);
+        if (coldRoot == null) {
+            throw new IllegalStateException("Cold storage root is not configured");
+        }
+
+        LocalDateTime dueBefore = LocalDateTime.now().minusDays(minAgeDays);
+        long bytesSaved = 0;
+        int compressed = 0;
+        int skipped = 0;
+        UUID afterId = KeysetCursors.MIN_UUID;
+
+        while (true) {
+            List<AssignmentFile> page = assignmentFileRepository.findColdTierCandidates(
+                    dueBefore, COMPRESSIBLE_EXTENSIONS, afterId, batchSize);
+            if (page.isEmpty()) {
+                break;
+            }
+            for (AssignmentFile file : page) {
+                long saved = tierFile(file, coldRoot);
+                if (saved > 0) {
+                    bytesSaved += saved;
+                    compressed++;
+                } else if (saved == 0) {
+                    skipped++;
+                }
+            }
+            afterId = page.get(page.size() - 1).getId();
+            if (page.size() < batchSize) {
+                break;
+            }
+        }
+
+        logger.info("Cold storage tiering finished: {} files compressed, {} kept as is, {} bytes saved",
+                compressed, skipped, bytesSaved);
+        return bytesSaved;
+    }
+
+    /**
+     * 压缩单个文件并迁入冷存储层
+     * @return 节省的字节数；收益不足保持原样时为0；失败或被并发修改时为-1
+     */
+    long tierFile(AssignmentFile file, StoragePlacementService.StorageRoot coldRoot) {
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        Path source;
+        try {
+            source = storagePlacementService.resolve(file);
+        } catch (IllegalStateException e) {
+            logger.warn("Skipping {} during tiering: {}", file.getId(), e.getMessage());
+            return -1;
+        }
+
+        String storageKey = (file.getStorageKey() != null ? file.getStorageKey() : "legacy/" + file.getFileName())
+                + GZIP_SUFFIX;
+        Path target = coldRoot.resolve(storageKey);
+        Path temp = target.resolveSibling(target.getFileName() + ".tiering");
+
+        try {
+            long originalSize = Files.size(source);
+            Files.createDirectories(target.getParent());
+            long compressedSize = compress(source, temp);
+
+            if (compressedSize > originalSize * (1 - minSavingsRatio)) {
+                Files.deleteIfExists(temp);
+                tx.executeWithoutResult(status ->
+                        assignmentFileRepository.markStorageCodec(file.getId(), AssignmentFile.CODEC_IDENTITY));
+                skippedCounter.increment();
+                return 0;
+            }
+
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            Integer updated = tx.execute(status -> assignmentFileRepository.moveToColdTier(
+                    file.getId(), file.getFilePath(), coldRoot.getName(), storageKey, target.toString(),
+                    AssignmentFile.CODEC_GZIP, compressedSize));
+            if (updated == null || updated == 0) {
+                // 文件在压缩期间被删除或迁移，丢弃压缩副本
+                Files.deleteIfExists(target);
+                return -1;
+            }
+
+            Files.deleteIfExists(source);
+            long saved = originalSize - compressedSize;
+            bytesSavedCounter.increment(saved);
+            compressedCounter.increment();
+            return saved;
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Failed to move {} to cold storage: {}", file.getId(), e.getMessage());
+            try {
+                Files.deleteIfExists(temp);
+            } catch (IOException ignored) {
+                // 残留的临时文件由文件存储对账任务识别为孤儿
+            }
+            return -1;
+        }
+    }
+
+    private long compress(Path source, Path target) throws IOException {
+        try (InputStream in = Files.newInputStream(source);
+             OutputStream out = new GZIPOutputStream(Files.newOutputStream(target), BUFFER_SIZE) {
+                 {
+                     def.setLevel(gzipLevel);
+                 }
+             }) {
+            in.transferTo(out);
+        }
+        return Files.size(target);
+    }
+}
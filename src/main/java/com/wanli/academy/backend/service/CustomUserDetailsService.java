@@ -84,15 +84,7 @@ public class CustomUserDetailsService implements UserDetailsService {
         // Get user authorities (roles)
         Collection<GrantedAuthority> authorities = getUserAuthorities(user);
         
-        return org.springframework.security.core.userdetails.User.builder()
-                .username(user.getUsername())
-                .password(user.getPassword())
-                .authorities(authorities)
-                .accountExpired(false)
-                .accountLocked(false)
-                .credentialsExpired(false)
-                .disabled(!isActive)
-                .build();
+        return new AuthenticatedUser(user.getId(), user.getUsername(), user.getPassword(), isActive, authorities);
     }
     
     /**
@@ -117,4 +109,22 @@ public class CustomUserDetailsService implements UserDetailsService {
             return Collections.singletonList(new SimpleGrantedAuthority("ROLE_STUDENT"));
         }
     }
-}
\ No newline at end of file
+    
+    /**
+     * UserDetails carrying the user ID, so per-request bookkeeping does not need another lookup
+     */
+    public static class AuthenticatedUser extends org.springframework.security.core.userdetails.User {
+        
+        private final Long userId;
+        
+        public AuthenticatedUser(Long userId, String username, String password, boolean enabled,
+                                 Collection<? extends GrantedAuthority> authorities) {
+            super(username, password, enabled, true, true, true, authorities);
+            this.userId = userId;
+        }
+        
+        public Long getUserId() {
+            return userId;
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package com.wanli.academy.backend.service;
+
+/**
+ * 领域事件
+ * 通过ApplicationEventPublisher发布：进程内监听器直接接收，同时由OutboxWriter在同一事务中写入outbox表，
+ * 再由OutboxRelay异步投递给DomainEventSubscriber
+ */
+public interface DomainEvent {
+
+    /**
+     * 事件类型，如submission.graded
+     */
+    String getType();
+
+    /**
+     * 聚合类型，如submission
+     */
+    String aggregateType();
+
+    /**
+     * 聚合ID
+     */
+    String aggregateId();
+}
@@ -0,0 +1,28 @@
+package com.wanli.academy.backend.service;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * outbox事件订阅者
+ * 事件至少投递一次：处理失败时整批按退避间隔重试，处理逻辑必须幂等
+ */
+public interface DomainEventSubscriber {
+
+    /**
+     * 订阅者名称，作为投递偏移量的键；改名相当于新订阅者，会从保留的最早事件开始投递
+     */
+    String getName();
+
+    /**
+     * 订阅的事件类型，为空表示全部
+     */
+    default Set<String> getEventTypes() {
+        return Set.of();
+    }
+
+    /**
+     * 处理一批按提交顺序排列的事件，抛出异常表示整批失败
+     */
+    void handle(List<OutboxEvent> events) throws Exception;
+}
@@ -0,0 +1,145 @@
+package com.wanli.academy.backend.service;
+
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.Clock;
+import java.util.Base64;
+import java.util.UUID;
+
+/**
+ * 下载链接签名服务类
+ * 使用HMAC-SHA256对(文件ID, 用户ID, 过期时间)签名，校验完全在内存中完成，
+ * 使签名链接的每次下载（包括视频播放器的大量Range请求）都无需再查询权限。
+ * 签名密钥与JWT密钥相互独立：未单独配置时按HKDF（RFC 5869）从JWT密钥派生专用子密钥，不直接复用JWT密钥
+ */
+@Service
+public class DownloadUrlSigner {
+
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
+
+    // 派生下载签名子密钥时使用的盐和用途标识，修改会使已签发的链接全部失效
+    private static final byte[] DERIVATION_SALT = "wanli-academy".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] DERIVATION_INFO = "file-download-url/v1".getBytes(StandardCharsets.UTF_8);
+
+    // 专用签名密钥，为空时从JWT密钥派生
+    @Value("${file.download.signing-secret:}")
+    private String signingSecret;
+
+    @Value("${jwt.secret}")
+    private String jwtSecret;
+
+    // 签名链接有效期（秒）
+    @Value("${file.download.url-ttl-seconds:900}")
+    private long urlTtlSeconds;
+
+    private Clock clock = Clock.systemUTC();
+
+    private SecretKeySpec signingKey;
+
+    @PostConstruct
+    public void init() {
+        byte[] key = signingSecret == null || signingSecret.isBlank()
+                ? deriveKey(jwtSecret.getBytes(StandardCharsets.UTF_8))
+                : signingSecret.getBytes(StandardCharsets.UTF_8);
+        signingKey = new SecretKeySpec(key, HMAC_ALGORITHM);
+    }
+
+    /**
+     * 为指定用户签发文件下载签名
+     * @param fileId 文件ID
+     * @param userId 用户ID
+     * @return 签名结果
+     */
+    public SignedDownload sign(UUID fileId, Long userId) {
+        long expiresAt = clock.instant().getEpochSecond() + urlTtlSeconds;
+        return new SignedDownload(fileId, userId, expiresAt, computeSignature(fileId, userId, expiresAt));
+    }
+
+    /**
+     * 校验签名是否有效且未过期
+     * @param fileId 文件ID
+     * @param userId 用户ID
+     * @param expiresAt 过期时间（epoch秒）
+     * @param signature 签名
+     * @return 是否有效
+     */
+    public boolean verify(UUID fileId, Long userId, long expiresAt, String signature) {
+        if (signature == null || expiresAt < clock.instant().getEpochSecond()) {
+            return false;
+        }
+        byte[] expected = computeSignature(fileId, userId, expiresAt).getBytes(StandardCharsets.US_ASCII);
+        return MessageDigest.isEqual(expected, signature.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private String computeSignature(UUID fileId, Long userId, long expiresAt) {
+        try {
+            Mac mac = Mac.getInstance(HMAC_ALGORITHM);
+            mac.init(signingKey);
+            byte[] digest = mac.doFinal((fileId + ":" + userId + ":" + expiresAt).getBytes(StandardCharsets.UTF_8));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(digest);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Failed to sign download URL", e);
+        }
+    }
+
+    /**
+     * HKDF-SHA256：先以固定盐提取伪随机密钥，再按用途标识扩展出一个32字节的子密钥
+     */
+    static byte[] deriveKey(byte[] inputKey) {
+        try {
+            Mac mac = Mac.getInstance(HMAC_ALGORITHM);
+            mac.init(new SecretKeySpec(DERIVATION_SALT, HMAC_ALGORITHM));
+            byte[] pseudoRandomKey = mac.doFinal(inputKey);
+            mac.init(new SecretKeySpec(pseudoRandomKey, HMAC_ALGORITHM));
+            mac.update(DERIVATION_INFO);
+            mac.update((byte) 1);
+            return mac.doFinal();
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Failed to derive download URL signing key", e);
+        }
+    }
+
+    void setClock(Clock clock) {
+        this.clock = clock;
+    }
+
+    /**
+     * 签名结果
+     */
+    public static class SignedDownload {
+        private final UUID fileId;
+        private final Long userId;
+        private final long expiresAt;
+        private final String signature;
+
+        public SignedDownload(UUID fileId, Long userId, long expiresAt, String signature) {
+            this.fileId = fileId;
+            this.userId = userId;
+            this.expiresAt = expiresAt;
+            this.signature = signature;
+        }
+
+        public UUID getFileId() {
+            return fileId;
+        }
+
+        public Long getUserId() {
+            return userId;
+        }
+
+        public long getExpiresAt() {
+            return expiresAt;
+        }
+
+        public String getSignature() {
+            return signature;
+        }
+    }
+}
@@ -0,0 +1,226 @@
+package com.wanli.academy.backend.service;
+
+import com.wanli.academy.backend.entity.AssignmentFile;
+import com.wanli.academy.backend.repository.AssignmentFileRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 过期临时文件清理任务
+ * 按(创建时间, ID)键集分页遍历过期TEMP文件，在小型I/O线程池中并行删除物理文件，
+ * 再以批量DELETE删除记录并逐页提交；通过advisory锁保证集群中只有一个节点执行
+ */
+@Service
+public class ExpiredFileCleanupJob {
+
+    private static final Logger logger = LoggerFactory.getLogger(ExpiredFileCleanupJob.class);
+
+    static final String LOCK_NAME = "expired-file-cleanup";
+    static final String TEMP_FILE_TYPE = "TEMP";
+
+    private static final LocalDateTime KEYSET_START = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+    // 临时文件保留天数
+    @Value("${file.cleanup.temp-retention-days:30}")
+    private int retentionDays;
+
+    // 每页处理的记录数
+    @Value("${file.cleanup.page-size:500}")
+    private int pageSize;
+
+    // 删除物理文件的I/O线程数
+    @Value("${file.cleanup.io-threads:4}")
+    private int ioThreads;
+
+    @Autowired
+    private AssignmentFileRepository assignmentFileRepository;
+
+    @Autowired
+    private StorageQuotaService storageQuotaService;
+
+    @Autowired
+    private AdvisoryLockService advisoryLockService;
+
+    @Autowired
+    private StoragePlacementService storagePlacementService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private ExecutorService ioPool;
+
+    private Counter deletedCounter;
+    private Counter failedCounter;
+    private Timer pageTimer;
+
+    // 待清理的过期文件数量（每轮开始时统计，随删除递减）
+    private final AtomicLong backlog = new AtomicLong();
+
+    @PostConstruct
+    public void init() {
+        AtomicInteger threadIndex = new AtomicInteger();
+        ioPool = Executors.newFixedThreadPool(Math.max(ioThreads, 1), runnable -> {
+            Thread thread = new Thread(runnable, "file-cleanup-io-" + threadIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        deletedCounter = Counter.builder("file.cleanup.deleted")
+                .description("Expired files removed by the cleanup job")
+                .register(meterRegistry);
+        failedCounter = Counter.builder("file.cleanup.failed")
+                .description("Expired files whose blob could not be deleted")
+                .register(meterRegistry);
+        pageTimer = Timer.builder("file.cleanup.page")
+                .description("Time taken to clean up one page of expired files")
+                .register(meterRegistry);
+        Gauge.builder("file.cleanup.backlog", backlog, AtomicLong::get)
+                .description("Expired files still waiting for cleanup")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        ioPool.shutdown();
+    }
+
+    /**
+     * 定时触发清理
+     */
+    @Scheduled(cron = "${file.cleanup.cron:0 15 * * * *}")
+    public void scheduledCleanup() {
+        runCleanup();
+    }
+
+    /**
+     * 执行一轮清理，其他节点正在执行时直接跳过
+     * @return 本轮删除的文件数
+     */
+    public int runCleanup() {
+        AtomicInteger deleted = new AtomicInteger();
+        boolean ran = advisoryLockService.runExclusively(LOCK_NAME, () -> deleted.set(cleanupExpiredPages()));
+        if (!ran) {
+            logger.info("Expired file cleanup is already running on another node, skipping");
+        }
+        return deleted.get();
+    }
+
+    private int cleanupExpiredPages() {
+        LocalDateTime cutoff = LocalDateTime.now().minusDays(retentionDays);
+        backlog.set(assignmentFileRepository.countByFileTypeAndCreatedAtBefore(TEMP_FILE_TYPE, cutoff));
+        logger.info("Starting cleanup of expired files created before {}, backlog {}", cutoff, backlog.get());
+
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        LocalDateTime afterCreatedAt = KEYSET_START;
+        UUID afterId = KeysetCursors.MIN_UUID;
+        int totalDeleted = 0;
+
+        while (true) {
+            List<AssignmentFile> page = assignmentFileRepository.findExpiredPage(
+                    TEMP_FILE_TYPE, cutoff, afterCreatedAt, afterId, pageSize);
+            if (page.isEmpty()) {
+                break;
+            }
+
+            Timer.Sample sample = Timer.start(meterRegistry);
+            List<AssignmentFile> blobsDeleted = deleteBlobs(page);
+            if (!blobsDeleted.isEmpty()) {
+                tx.executeWithoutResult(status -> deleteRows(blobsDeleted));
+            }
+            sample.stop(pageTimer);
+
+            int failed = page.size() - blobsDeleted.size();
+            deletedCounter.increment(blobsDeleted.size());
+            failedCounter.increment(failed);
+            backlog.updateAndGet(value -> Math.max(0, value - blobsDeleted.size()));
+            totalDeleted += blobsDeleted.size();
+
+            // 删除失败的记录保留到下一轮重试，游标越过整页避免原地打转
+            AssignmentFile last = page.get(page.size() - 1);
+            afterCreatedAt = last.getCreatedAt();
+            afterId = last.getId();
+
+            if (page.size() < pageSize) {
+                break;
+            }
+        }
+
+        logger.info("Cleanup completed. Deleted {} expired files", totalDeleted);
+        return totalDeleted;
+    }
+
+    /**
+     * 并行删除一页物理文件
+     * @param page 过期文件页
+     * @return 物理文件已删除（或本就不存在）的记录
+     */
+    private List<AssignmentFile> deleteBlobs(List<AssignmentFile> page) {
+        List<CompletableFuture<AssignmentFile>> futures = new ArrayList<>(page.size());
+        for (AssignmentFile file : page) {
+            futures.add(CompletableFuture.supplyAsync(() -> deleteBlob(file) ? file : null, ioPool));
+        }
+        return futures.stream()
+                .map(CompletableFuture::join)
+                .filter(Objects::nonNull)
+                .toList();
+    }
+
+    private boolean deleteBlob(AssignmentFile file) {
+        try {
+            Files.deleteIfExists(storagePlacementService.resolve(file));
+            return true;
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Failed to delete expired file blob {}: {}", file.getFilePath(), e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * 在一个事务内批量删除记录并扣减存储计数
+     * @param files 物理文件已删除的记录
+     */
+    private void deleteRows(List<AssignmentFile> files) {
+        assignmentFileRepository.deleteByIdIn(files.stream().map(AssignmentFile::getId).toList());
+
+        Map<List<Object>, long[]> totals = new HashMap<>();
+        for (AssignmentFile file : files) {
+            long[] total = totals.computeIfAbsent(
+                    Arrays.asList(file.getUploadedBy(), file.getAssignmentId()), key -> new long[2]);
+            total[0] += file.getFileSize() != null ? file.getFileSize() : 0L;
+            total[1]++;
+        }
+        totals.forEach((key, total) -> storageQuotaService.recordDeletes(
+                (Long) key.get(0), (UUID) key.get(1), total[0], total[1]));
+    }
+}
@@ -0,0 +1,307 @@
+package com.wanli.academy.backend.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.wanli.academy.backend.exception.ServiceOverloadedException;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.ArgumentPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.UUID;
+import java.util.concurrent.Semaphore;
+
+/**
+ * 数据导出服务
+ * 在只读事务中用前向只读游标按fetch-size分批读取，逐行写出NDJSON或CSV，内存占用与导出行数无关。
+ * PostgreSQL驱动只在关闭自动提交且设置了fetch size时使用服务端游标，因此查询必须在事务内执行。
+ * 每个导出在写出期间占用一个连接池连接，因此同时进行的导出数有上限，超出时返回503；
+ * 异步超时只作用于导出响应，见{@link #TIMEOUT_ATTRIBUTE}
+ */
+@Service
+public class ExportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ExportService.class);
+
+    /**
+     * 请求属性：本次导出响应的异步超时（毫秒），由ExportAsyncConfig在开始异步处理前应用
+     */
+    public static final String TIMEOUT_ATTRIBUTE = ExportService.class.getName() + ".timeout";
+
+    private static final String OVERLOADED_MESSAGE = "当前导出任务过多，请稍后重试";
+
+    private static final long RETRY_AFTER_SECONDS = 30;
+
+    private static final String[] USER_COLUMNS = {
+            "id", "username", "email", "first_name", "last_name", "phone_number", "is_active", "created_at", "roles"};
+
+    private static final String[] SUBMISSION_COLUMNS = {
+            "id", "assignment_id", "assignment_title", "student_id", "student_username", "status", "score",
+            "feedback", "submitted_at", "graded_at", "graded_by"};
+
+    @Value("${export.fetch-size:500}")
+    private int fetchSize;
+
+    @Value("${export.max-concurrent:2}")
+    private int maxConcurrent;
+
+    @Value("${export.timeout-millis:600000}")
+    private long timeoutMillis;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private PermissionService permissionService;
+
+    private Semaphore permits;
+
+    @PostConstruct
+    public void init() {
+        permits = new Semaphore(maxConcurrent);
+    }
+
+    /**
+     * 导出格式
+     */
+    public enum Format {
+        NDJSON("application/x-ndjson", "ndjson"),
+        CSV("text/csv", "csv");
+
+        private final String mediaType;
+        private final String extension;
+
+        Format(String mediaType, String extension) {
+            this.mediaType = mediaType;
+            this.extension = extension;
+        }
+
+        public static Format of(String value) {
+            try {
+                return valueOf(value.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("不支持的导出格式: " + value + "，可选ndjson或csv");
+            }
+        }
+
+        public MediaType getMediaType() {
+            return new MediaType(MediaType.parseMediaType(mediaType), StandardCharsets.UTF_8);
+        }
+
+        public String getExtension() {
+            return extension;
+        }
+    }
+
+    /**
+     * 导出全部用户，角色以逗号分隔
+     */
+    public StreamingResponseBody exportUsers(Format format) {
+        String sql = "SELECT u.id, u.username, u.email, u.first_name, u.last_name, u.phone_number, u.is_active, "
+                + "u.created_at, (SELECT string_agg(r.name, ',' ORDER BY r.name) FROM user_roles ur "
+                + "JOIN roles r ON r.id = ur.role_id WHERE ur.user_id = u.id) AS roles "
+                + "FROM users u ORDER BY u.id";
+        return admit("users", sql, new Object[0], USER_COLUMNS, format);
+    }
+
+    /**
+     * 导出提交记录（不含提交正文）。教师只导出自己创建的作业的提交，管理员导出全部
+     * 权限范围在请求线程中确定，写出在异步线程中进行
+     * @param assignmentId 作业ID，为空表示范围内的全部作业
+     */
+    public StreamingResponseBody exportSubmissions(UUID assignmentId, Format format) {
+        List<Object> args = new ArrayList<>();
+        StringBuilder filter = new StringBuilder("WHERE 1 = 1");
+        if (!permissionService.isAdmin()) {
+            filter.append(" AND a.creator_id = ?");
+            args.add(permissionService.getCurrentUserId());
+        }
+        if (assignmentId != null) {
+            filter.append(" AND s.assignment_id = ?");
+            args.add(assignmentId);
+        }
+        String sql = "SELECT s.id, s.assignment_id, a.title AS assignment_title, s.student_id, "
+                + "u.username AS student_username, s.status, s.score, s.feedback, s.submitted_at, s.graded_at, "
+                + "s.graded_by FROM submissions s JOIN assignments a ON a.id = s.assignment_id "
+                + "JOIN users u ON u.id = s.student_id " + filter + " ORDER BY s.assignment_id, s.id";
+        return admit("submissions", sql, args.toArray(), SUBMISSION_COLUMNS, format);
+    }
+
+    /**
+     * 在请求线程中占用导出许可，没有空闲许可时直接返回503，响应尚未开始写出
+     * 许可在写出结束（包括失败和客户端断开）后释放
+     */
+    private StreamingResponseBody admit(String name, String sql, Object[] args, String[] columns, Format format) {
+        if (!permits.tryAcquire()) {
+            logger.warn("Rejected export of {}: {} exports already running", name, maxConcurrent);
+            throw new ServiceOverloadedException(OVERLOADED_MESSAGE, RETRY_AFTER_SECONDS);
+        }
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes != null) {
+            attributes.setAttribute(TIMEOUT_ATTRIBUTE, timeoutMillis, RequestAttributes.SCOPE_REQUEST);
+        }
+        return out -> {
+            try {
+                stream(name, sql, args, columns, format, out);
+            } finally {
+                permits.release();
+            }
+        };
+    }
+
+    /**
+     * 在只读事务中执行查询并逐行写出
+     * @return 写出的行数
+     */
+    long stream(String name, String sql, Object[] args, String[] columns, Format format, OutputStream out)
+            throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        RowSink sink = format == Format.CSV ? new CsvSink(writer, columns) : new NdjsonSink(writer, columns);
+        long[] count = {0};
+
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        tx.setReadOnly(true);
+        try {
+            tx.executeWithoutResult(status -> jdbcTemplate.query(con -> {
+                PreparedStatement ps = con.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                ps.setFetchSize(fetchSize);
+                new ArgumentPreparedStatementSetter(args).setValues(ps);
+                return ps;
+            }, rs -> {
+                try {
+                    sink.row(rs);
+                } catch (IOException e) {
+                    // 客户端断开时中止查询，事务回滚并关闭游标
+                    throw new UncheckedIOException(e);
+                }
+                count[0]++;
+            }));
+            sink.finish();
+        } catch (UncheckedIOException e) {
+            logger.warn("Export of {} aborted after {} rows: {}", name, count[0], e.getCause().getMessage());
+            throw e.getCause();
+        }
+        logger.info("Exported {} {} rows as {}", count[0], name, format);
+        return count[0];
+    }
+
+    /**
+     * 单元格取值：时间戳按ISO格式输出，UUID输出字符串
+     */
+    static Object cellValue(Object value) {
+        if (value instanceof Timestamp timestamp) {
+            return timestamp.toLocalDateTime().toString();
+        }
+        if (value instanceof UUID) {
+            return value.toString();
+        }
+        return value;
+    }
+
+    /**
+     * 逐行写出的目标格式
+     */
+    private interface RowSink {
+        void row(ResultSet rs) throws SQLException, IOException;
+
+        void finish() throws IOException;
+    }
+
+    /**
+     * CSV：带BOM以便Excel按UTF-8打开，首行为列名；文本单元格以公式字符开头时加单引号，防止CSV注入
+     */
+    private static class CsvSink implements RowSink {
+        private final Writer writer;
+        private final int columnCount;
+
+        CsvSink(Writer writer, String[] columns) throws IOException {
+            this.writer = writer;
+            this.columnCount = columns.length;
+            writer.write('\uFEFF');
+            writer.write(String.join(",", columns));
+            writer.write('\n');
+        }
+
+        @Override
+        public void row(ResultSet rs) throws SQLException, IOException {
+            for (int i = 1; i <= columnCount; i++) {
+                if (i > 1) {
+                    writer.write(',');
+                }
+                Object value = cellValue(rs.getObject(i));
+                if (value instanceof Number) {
+                    // 数值列不会被当作公式，负数原样写出
+                    writer.write(value.toString());
+                } else {
+                    writer.write(GradebookImportService.csvCell(value == null ? null : String.valueOf(value)));
+                }
+            }
+            writer.write('\n');
+        }
+
+        @Override
+        public void finish() throws IOException {
+            writer.flush();
+        }
+    }
+
+    /**
+     * NDJSON：每行一个JSON对象，字段名与列名一致
+     */
+    private class NdjsonSink implements RowSink {
+        private final JsonGenerator generator;
+        private final String[] columns;
+
+        NdjsonSink(Writer writer, String[] columns) throws IOException {
+            this.generator = objectMapper.getFactory().createGenerator(writer);
+            // 行之间只用换行分隔，不使用默认的空格分隔符
+            this.generator.setRootValueSeparator(null);
+            this.columns = columns;
+        }
+
+        @Override
+        public void row(ResultSet rs) throws SQLException, IOException {
+            generator.writeStartObject();
+            for (int i = 1; i <= columns.length; i++) {
+                generator.writeObjectField(columns[i - 1], cellValue(rs.getObject(i)));
+            }
+            generator.writeEndObject();
+            generator.writeRaw('\n');
+        }
+
+        @Override
+        public void finish() throws IOException {
+            generator.flush();
+        }
+    }
+}
@@ -8,26 +8,30 @@ import com.wanli.academy.backend.repository.UserRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.FileSystemResource;
 import org.springframework.core.io.Resource;
-import org.springframework.core.io.UrlResource;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.StringUtils;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
-import java.net.MalformedURLException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
 import java.time.LocalDateTime;
 import java.util.*;
 import java.util.regex.Pattern;
+import java.util.zip.GZIPInputStream;
 
 /**
  * File management service class
@@ -39,10 +43,6 @@ public class FileService {
     
     private static final Logger logger = LoggerFactory.getLogger(FileService.class);
     
-    // File storage root path
-    @Value("${file.upload.dir:./uploads}")
-    private String uploadDir;
-    
     // Maximum file size (default 10MB)
     @Value("${file.upload.max-size:10485760}")
     private long maxFileSize;
@@ -72,6 +72,18 @@ public class FileService {
     @Autowired
     private UserRepository userRepository;
     
+    @Autowired
+    private StorageQuotaService storageQuotaService;
+    
+    @Autowired
+    private ExpiredFileCleanupJob expiredFileCleanupJob;
+    
+    @Autowired
+    private StoragePlacementService storagePlacementService;
+    
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+    
     /**
      * Upload file
      * @param file uploaded file
@@ -82,21 +94,24 @@ public class FileService {
     public FileResponse uploadFile(MultipartFile file, UUID assignmentId, String fileType) {
         logger.info("Processing file upload: {}", file.getOriginalFilename());
         
-        // File security check
-        validateFile(file);
+        Long currentUserId = getCurrentUserId();
+        
+        // File security and quota check
+        validateFile(file, currentUserId, assignmentId);
         
         // Generate safe filename
         String safeFileName = generateSafeFileName(file.getOriginalFilename());
         
-        // Create storage path
-        Path uploadPath = createUploadPath(fileType);
+        // Choose storage root by free space and weight
+        StoragePlacementService.StorageRoot storageRoot = storagePlacementService.selectRoot(file.getSize());
+        String storageKey = resolveSubDirectory(fileType) + "/" + safeFileName;
         
         try {
             // Ensure directory exists
-            Files.createDirectories(uploadPath);
+            Path filePath = storageRoot.resolve(storageKey);
+            Files.createDirectories(filePath.getParent());
             
             // Save file
-            Path filePath = uploadPath.resolve(safeFileName);
             Files.copy(file.getInputStream(), filePath, StandardCopyOption.REPLACE_EXISTING);
             
             // Create file record
@@ -105,14 +120,18 @@ public class FileService {
             assignmentFile.setFileName(safeFileName);
             assignmentFile.setOriginalFileName(file.getOriginalFilename());
             assignmentFile.setFilePath(filePath.toString());
+            assignmentFile.setStorageRoot(storageRoot.getName());
+            assignmentFile.setStorageKey(storageKey);
             assignmentFile.setFileSize(file.getSize());
             assignmentFile.setFileType(fileType);
             assignmentFile.setMimeType(file.getContentType());
-            assignmentFile.setUploadedBy(getCurrentUserId());
+            assignmentFile.setUploadedBy(currentUserId);
             assignmentFile.setCreatedAt(LocalDateTime.now());
             assignmentFile.setUpdatedAt(LocalDateTime.now());
             
             AssignmentFile savedFile = assignmentFileRepository.save(assignmentFile);
+            storageQuotaService.recordUpload(currentUserId, assignmentId, file.getSize());
+            eventPublisher.publishEvent(FileUploadedEvent.of(savedFile));
             
             logger.info("File uploaded successfully: {} -> {}", file.getOriginalFilename(), safeFileName);
             
@@ -127,9 +146,21 @@ public class FileService {
     /**
      * Download file
      * @param fileId file ID
-     * @return file resource
+     * @return file resource (decompressed if stored in the cold tier)
      */
     public Resource downloadFile(UUID fileId) {
+        return openDownload(fileId, false).getResource();
+    }
+    
+    /**
+     * Open file for download
+     * Cold-tier files are served as stored with a gzip content encoding when the client
+     * accepts it, otherwise they are decompressed while streaming
+     * @param fileId file ID
+     * @param acceptGzip whether the client accepts gzip content encoding
+     * @return file download
+     */
+    public FileDownload openDownload(UUID fileId, boolean acceptGzip) {
         logger.info("Processing file download: {}", fileId);
         
         AssignmentFile assignmentFile = assignmentFileRepository.findById(fileId)
@@ -138,21 +169,49 @@ public class FileService {
         // Permission check
         validateFileAccess(assignmentFile);
         
-        try {
-            Path filePath = Paths.get(assignmentFile.getFilePath());
-            Resource resource = new UrlResource(filePath.toUri());
-            
-            if (resource.exists() && resource.isReadable()) {
-                logger.info("File download successful: {}", assignmentFile.getFileName());
-                return resource;
-            } else {
-                throw new RuntimeException("File does not exist or cannot be read");
-            }
-            
-        } catch (MalformedURLException e) {
-            logger.error("Failed to download file: {}", fileId, e);
-            throw new RuntimeException("File download failed: " + e.getMessage());
+        FileDownload download = openStoredFile(assignmentFile, acceptGzip);
+        logger.info("File download successful: {}", assignmentFile.getFileName());
+        return download;
+    }
+    
+    /**
+     * Open file for a signed-URL download
+     * Performs a single primary key lookup and no permission queries;
+     * the caller must have verified the download signature beforehand
+     * @param fileId file ID
+     * @param acceptGzip whether the client accepts gzip content encoding
+     * @return file download
+     */
+    @Transactional(readOnly = true)
+    public FileDownload openSignedDownload(UUID fileId, boolean acceptGzip) {
+        AssignmentFile assignmentFile = assignmentFileRepository.findById(fileId)
+                .orElseThrow(() -> new IllegalArgumentException("File does not exist"));
+        
+        return openStoredFile(assignmentFile, acceptGzip);
+    }
+    
+    /**
+     * Open the stored blob of a file record according to its storage codec
+     * @param assignmentFile file information
+     * @param acceptGzip whether the client accepts gzip content encoding
+     * @return file download
+     */
+    private FileDownload openStoredFile(AssignmentFile assignmentFile, boolean acceptGzip) {
+        Path filePath = storagePlacementService.resolve(assignmentFile);
+        if (!Files.isReadable(filePath)) {
+            throw new RuntimeException("File does not exist or cannot be read");
+        }
+        
+        if (!AssignmentFile.CODEC_GZIP.equals(assignmentFile.getStorageCodec())) {
+            return new FileDownload(new FileSystemResource(filePath),
+                    assignmentFile.getMimeType(), assignmentFile.getOriginalFileName());
+        }
+        if (acceptGzip) {
+            return new FileDownload(new FileSystemResource(filePath),
+                    assignmentFile.getMimeType(), assignmentFile.getOriginalFileName(), AssignmentFile.CODEC_GZIP);
         }
+        return new FileDownload(new GzipFileResource(filePath, fileSizeOf(assignmentFile)),
+                assignmentFile.getMimeType(), assignmentFile.getOriginalFileName());
     }
     
     /**
@@ -172,11 +231,13 @@ public class FileService {
         
         try {
             // 删除物理文件
-            Path filePath = Paths.get(assignmentFile.getFilePath());
+            Path filePath = storagePlacementService.resolve(assignmentFile);
             Files.deleteIfExists(filePath);
             
             // 删除数据库记录
             assignmentFileRepository.delete(assignmentFile);
+            storageQuotaService.recordDelete(assignmentFile.getUploadedBy(), assignmentFile.getAssignmentId(),
+                    fileSizeOf(assignmentFile));
             
             logger.info("File deleted successfully: {}", assignmentFile.getFileName());
             
@@ -222,10 +283,12 @@ public class FileService {
     }
     
     /**
-     * Validate file security
+     * Validate file security and storage quota
      * @param file uploaded file
+     * @param uploaderId uploader ID
+     * @param assignmentId assignment ID (optional)
      */
-    private void validateFile(MultipartFile file) {
+    private void validateFile(MultipartFile file, Long uploaderId, UUID assignmentId) {
         // Check if file is empty
         if (file.isEmpty()) {
             throw new IllegalArgumentException("File cannot be empty");
@@ -261,6 +324,9 @@ public class FileService {
         
         // Check MIME type
         validateMimeType(file, fileExtension);
+        
+        // Check storage quota against maintained usage counters
+        storageQuotaService.checkQuota(uploaderId, assignmentId, file.getSize());
     }
     
     /**
@@ -315,18 +381,16 @@ public class FileService {
     }
     
     /**
-     * Create upload path
+     * Resolve sub directory for file type
      * @param fileType file type
-     * @return upload path
+     * @return sub directory under the storage root
      */
-    private Path createUploadPath(String fileType) {
-        String subDir = switch (fileType) {
+    private String resolveSubDirectory(String fileType) {
+        return switch (fileType) {
             case "ASSIGNMENT_ATTACHMENT" -> "assignments";
             case "SUBMISSION_FILE" -> "submissions";
             default -> "others";
         };
-        
-        return Paths.get(uploadDir, subDir);
     }
     
     /**
@@ -351,6 +415,15 @@ public class FileService {
         throw new AccessDeniedException("You do not have permission to access this file");
     }
     
+    /**
+     * Stored size of a file record, treating missing sizes as empty
+     * @param assignmentFile file information
+     * @return size in bytes
+     */
+    private long fileSizeOf(AssignmentFile assignmentFile) {
+        return assignmentFile.getFileSize() != null ? assignmentFile.getFileSize() : 0L;
+    }
+    
     /**
      * Get file extension
      * @param filename filename
@@ -399,33 +472,13 @@ public class FileService {
     
     /**
      * Clean up expired temporary files
-     * Can be called by scheduled tasks
+     * Delegates to the paged cleanup job, which manages its own per-page transactions
      */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public void cleanupExpiredTempFiles() {
-        logger.info("Starting cleanup of expired files");
-        
-        try {
-            // Find temporary files older than 30 days
-            LocalDateTime cutoffDate = LocalDateTime.now().minusDays(30);
-            List<AssignmentFile> expiredFiles = assignmentFileRepository.findByCreatedAtBeforeAndFileType(
-                cutoffDate, "TEMP");
-            
-            for (AssignmentFile file : expiredFiles) {
-                try {
-                    Path filePath = Paths.get(file.getFilePath());
-                    Files.deleteIfExists(filePath);
-                    assignmentFileRepository.delete(file);
-                    logger.info("Deleted expired file: {}", file.getFileName());
-                } catch (Exception e) {
-                    logger.error("Failed to delete expired file: {}", file.getFileName(), e);
-                }
-            }
-            
-            logger.info("Cleanup completed. Deleted {} expired files", expiredFiles.size());
-            
-        } catch (Exception e) {
-            logger.error("Error during file cleanup", e);
-        }
+        logger.info("Triggering cleanup of expired files");
+        int deleted = expiredFileCleanupJob.runCleanup();
+        logger.info("Cleanup completed. Deleted {} expired files", deleted);
     }
     
     /**
@@ -455,4 +508,79 @@ public class FileService {
          
          return response;
      }
-}
\ No newline at end of file
+
+    /**
+     * Downloadable file content with the metadata needed for response headers
+     */
+    public static class FileDownload {
+        private final Resource resource;
+        private final String mimeType;
+        private final String originalFileName;
+        private final String contentEncoding;
+        
+        public FileDownload(Resource resource, String mimeType, String originalFileName) {
+            this(resource, mimeType, originalFileName, null);
+        }
+        
+        public FileDownload(Resource resource, String mimeType, String originalFileName, String contentEncoding) {
+            this.resource = resource;
+            this.mimeType = mimeType;
+            this.originalFileName = originalFileName;
+            this.contentEncoding = contentEncoding;
+        }
+        
+        public Resource getResource() {
+            return resource;
+        }
+        
+        public String getMimeType() {
+            return mimeType;
+        }
+        
+        public String getOriginalFileName() {
+            return originalFileName;
+        }
+        
+        /**
+         * Content encoding of the resource bytes, null when they are the original content
+         */
+        public String getContentEncoding() {
+            return contentEncoding;
+        }
+    }
+    
+    /**
+     * Gzip-compressed file exposed as its decompressed content
+     * Reports the original length so Content-Length and Range requests refer to decompressed bytes
+     */
+    static class GzipFileResource extends FileSystemResource {
+        private final long originalSize;
+        
+        GzipFileResource(Path path, long originalSize) {
+            super(path);
+            this.originalSize = originalSize;
+        }
+        
+        @Override
+        public InputStream getInputStream() throws IOException {
+            return new GZIPInputStream(super.getInputStream());
+        }
+        
+        @Override
+        public ReadableByteChannel readableChannel() throws IOException {
+            return Channels.newChannel(getInputStream());
+        }
+        
+        @Override
+        public byte[] getContentAsByteArray() throws IOException {
+            try (InputStream in = getInputStream()) {
+                return in.readAllBytes();
+            }
+        }
+        
+        @Override
+        public long contentLength() {
+            return originalSize;
+        }
+    }
+}
@@ -0,0 +1,321 @@
+package com.wanli.academy.backend.service;
+
+import com.wanli.academy.backend.entity.AssignmentFile;
+import com.wanli.academy.backend.repository.AssignmentFileRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * 文件存储对账服务类
+ * 检测磁盘上没有对应记录的孤儿文件，以及记录存在但物理文件缺失的悬空记录。
+ * 目录遍历与记录扫描都按固定批次进行并限速，内存占用与文件总数无关
+ */
+@Service
+public class FileStoreReconciler {
+
+    private static final Logger logger = LoggerFactory.getLogger(FileStoreReconciler.class);
+
+    static final String LOCK_NAME = "file-store-reconcile";
+    static final String QUARANTINE_DIR = ".quarantine";
+
+    // 报告中保留的样例数量上限
+    private static final int MAX_SAMPLES = 100;
+
+    /**
+     * 对账模式：REPORT只报告，QUARANTINE将孤儿文件移入隔离目录
+     */
+    public enum Mode { REPORT, QUARANTINE }
+
+    @Value("${file.reconcile.mode:REPORT}")
+    private Mode mode;
+
+    @Value("${file.reconcile.batch-size:500}")
+    private int batchSize;
+
+    // 每秒最多检查的文件/记录数，避免与在线请求争抢磁盘和数据库
+    @Value("${file.reconcile.max-files-per-second:1000}")
+    private int maxFilesPerSecond;
+
+    // 宽限期：最近修改的文件和最近创建的记录可能属于进行中的上传，不参与判定
+    @Value("${file.reconcile.grace-minutes:60}")
+    private long graceMinutes;
+
+    @Autowired
+    private AssignmentFileRepository assignmentFileRepository;
+
+    @Autowired
+    private AdvisoryLockService advisoryLockService;
+
+    @Autowired
+    private StoragePlacementService storagePlacementService;
+
+    private volatile ReconcileReport lastReport;
+
+    /**
+     * 定时执行对账，集群中同一时间只有一个节点执行
+     */
+    @Scheduled(cron = "${file.reconcile.cron:0 0 4 * * *}")
+    public void scheduledReconcile() {
+        if (!advisoryLockService.runExclusively(LOCK_NAME, this::reconcile)) {
+            logger.info("File store reconciliation is already running on another node, skipping");
+        }
+    }
+
+    /**
+     * 执行一轮对账
+     * @return 对账报告
+     */
+    public ReconcileReport reconcile() {
+        ReconcileReport report = new ReconcileReport(mode);
+        RatePacer pacer = new RatePacer(maxFilesPerSecond);
+        logger.info("Starting file store reconciliation in {} mode", mode);
+
+        try {
+            for (StoragePlacementService.StorageRoot root : storagePlacementService.getRoots()) {
+                if (Files.isDirectory(root.getPath())) {
+                    scanBlobs(root, report, pacer);
+                }
+            }
+            scanRows(report, pacer);
+        } catch (IOException | RuntimeException e) {
+            logger.error("File store reconciliation failed", e);
+            report.setError(e.getMessage());
+        }
+
+        report.setFinishedAt(LocalDateTime.now());
+        lastReport = report;
+        logger.info("File store reconciliation finished: {} blobs scanned, {} orphans, {} rows scanned, {} missing blobs",
+                report.getBlobsScanned(), report.getOrphanBlobs(), report.getRowsScanned(), report.getMissingBlobs());
+        return report;
+    }
+
+    /**
+     * 获取最近一次对账报告
+     * @return 对账报告，尚未执行过时为null
+     */
+    public ReconcileReport getLastReport() {
+        return lastReport;
+    }
+
+    /**
+     * 遍历存储根目录，按批检查路径是否存在对应记录
+     */
+    private void scanBlobs(StoragePlacementService.StorageRoot root, ReconcileReport report, RatePacer pacer) throws IOException {
+        Path quarantineRoot = root.getPath().resolve(QUARANTINE_DIR);
+        Instant graceCutoff = Instant.now().minus(graceMinutes, ChronoUnit.MINUTES);
+        List<Path> batch = new ArrayList<>(batchSize);
+
+        Files.walkFileTree(root.getPath(), new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+                return dir.equals(quarantineRoot) ? FileVisitResult.SKIP_SUBTREE : FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                if (attrs.isRegularFile() && attrs.lastModifiedTime().toInstant().isBefore(graceCutoff)) {
+                    batch.add(file);
+                    if (batch.size() >= batchSize) {
+                        checkBlobBatch(root, batch, report);
+                        pacer.acquire(batch.size());
+                        batch.clear();
+                    }
+                }
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFileFailed(Path file, IOException exc) {
+                logger.warn("Cannot read {} during reconciliation: {}", file, exc.getMessage());
+                return FileVisitResult.CONTINUE;
+            }
+        });
+
+        if (!batch.isEmpty()) {
+            checkBlobBatch(root, batch, report);
+        }
+    }
+
+    /**
+     * 一批路径用两次IN查询比对：按(根目录, 相对路径)匹配新记录，按完整路径匹配旧记录
+     */
+    private void checkBlobBatch(StoragePlacementService.StorageRoot root, List<Path> batch, ReconcileReport report) throws IOException {
+        Path rootPath = root.getPath();
+        List<String> keys = batch.stream().map(file -> storageKey(rootPath, file)).toList();
+        List<String> paths = batch.stream().map(Path::toString).toList();
+        Set<String> knownKeys = new HashSet<>(assignmentFileRepository.findExistingStorageKeys(root.getName(), keys));
+        Set<String> knownPaths = new HashSet<>(assignmentFileRepository.findExistingFilePaths(paths));
+        report.addBlobsScanned(batch.size());
+
+        for (Path file : batch) {
+            if (knownKeys.contains(storageKey(rootPath, file)) || knownPaths.contains(file.toString())) {
+                continue;
+            }
+            report.addOrphanBlob(file.toString(), Files.size(file));
+            if (mode == Mode.QUARANTINE) {
+                Path target = rootPath.resolve(QUARANTINE_DIR).resolve(rootPath.relativize(file));
+                Files.createDirectories(target.getParent());
+                Files.move(file, target, StandardCopyOption.REPLACE_EXISTING);
+                logger.info("Quarantined orphan blob {}", file);
+            }
+        }
+    }
+
+    /**
+     * 按ID键集扫描文件记录，检查物理文件是否存在；悬空记录只报告，不自动删除
+     */
+    private void scanRows(ReconcileReport report, RatePacer pacer) {
+        LocalDateTime graceCutoff = LocalDateTime.now().minusMinutes(graceMinutes);
+        UUID afterId = KeysetCursors.MIN_UUID;
+
+        while (true) {
+            List<AssignmentFile> page = assignmentFileRepository.findPageAfterId(afterId, batchSize);
+            if (page.isEmpty()) {
+                break;
+            }
+            for (AssignmentFile file : page) {
+                if (file.getCreatedAt() != null && file.getCreatedAt().isAfter(graceCutoff)) {
+                    continue;
+                }
+                if (!blobExists(file)) {
+                    report.addMissingBlob(file.getId() + " -> " + file.getFilePath());
+                }
+            }
+            report.addRowsScanned(page.size());
+            pacer.acquire(page.size());
+            afterId = page.get(page.size() - 1).getId();
+            if (page.size() < batchSize) {
+                break;
+            }
+        }
+    }
+
+    private boolean blobExists(AssignmentFile file) {
+        try {
+            return Files.exists(storagePlacementService.resolve(file));
+        } catch (IllegalStateException e) {
+            // 记录引用了未配置的存储根目录
+            return false;
+        }
+    }
+
+    private String storageKey(Path rootPath, Path file) {
+        return rootPath.relativize(file).toString().replace('\\', '/');
+    }
+
+    /**
+     * 对账报告
+     */
+    public static class ReconcileReport {
+        private final Mode mode;
+        private final LocalDateTime startedAt = LocalDateTime.now();
+        private LocalDateTime finishedAt;
+        private long blobsScanned;
+        private long rowsScanned;
+        private long orphanBlobs;
+        private long orphanBytes;
+        private long missingBlobs;
+        private final List<String> orphanSamples = new ArrayList<>();
+        private final List<String> missingSamples = new ArrayList<>();
+        private String error;
+
+        public ReconcileReport(Mode mode) {
+            this.mode = mode;
+        }
+
+        void addBlobsScanned(long count) {
+            blobsScanned += count;
+        }
+
+        void addRowsScanned(long count) {
+            rowsScanned += count;
+        }
+
+        void addOrphanBlob(String path, long size) {
+            orphanBlobs++;
+            orphanBytes += size;
+            if (orphanSamples.size() < MAX_SAMPLES) {
+                orphanSamples.add(path);
+            }
+        }
+
+        void addMissingBlob(String description) {
+            missingBlobs++;
+            if (missingSamples.size() < MAX_SAMPLES) {
+                missingSamples.add(description);
+            }
+        }
+
+        public Mode getMode() {
+            return mode;
+        }
+
+        public LocalDateTime getStartedAt() {
+            return startedAt;
+        }
+
+        public LocalDateTime getFinishedAt() {
+            return finishedAt;
+        }
+
+        void setFinishedAt(LocalDateTime finishedAt) {
+            this.finishedAt = finishedAt;
+        }
+
+        public long getBlobsScanned() {
+            return blobsScanned;
+        }
+
+        public long getRowsScanned() {
+            return rowsScanned;
+        }
+
+        public long getOrphanBlobs() {
+            return orphanBlobs;
+        }
+
+        public long getOrphanBytes() {
+            return orphanBytes;
+        }
+
+        public long getMissingBlobs() {
+            return missingBlobs;
+        }
+
+        public List<String> getOrphanSamples() {
+            return orphanSamples;
+        }
+
+        public List<String> getMissingSamples() {
+            return missingSamples;
+        }
+
+        public String getError() {
+            return error;
+        }
+
+        void setError(String error) {
+            this.error = error;
+        }
+    }
+}
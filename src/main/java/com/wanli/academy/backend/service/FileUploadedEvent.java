@@ -0,0 +1,76 @@
+package com.wanli.academy.backend.service;
+
+import com.wanli.academy.backend.entity.AssignmentFile;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * 文件上传领域事件
+ * 文件记录保存后在同一事务中写入outbox
+ */
+public class FileUploadedEvent implements DomainEvent {
+
+    public static final String TYPE = "file.uploaded";
+
+    private final UUID fileId;
+    private final UUID assignmentId;
+    private final Long uploadedBy;
+    private final String fileType;
+    private final Long fileSize;
+    private final LocalDateTime occurredAt;
+
+    public FileUploadedEvent(UUID fileId, UUID assignmentId, Long uploadedBy, String fileType, Long fileSize,
+                             LocalDateTime occurredAt) {
+        this.fileId = fileId;
+        this.assignmentId = assignmentId;
+        this.uploadedBy = uploadedBy;
+        this.fileType = fileType;
+        this.fileSize = fileSize;
+        this.occurredAt = occurredAt;
+    }
+
+    public static FileUploadedEvent of(AssignmentFile file) {
+        return new FileUploadedEvent(file.getId(), file.getAssignmentId(), file.getUploadedBy(), file.getFileType(),
+                file.getFileSize(), LocalDateTime.now());
+    }
+
+    @Override
+    public String getType() {
+        return TYPE;
+    }
+
+    @Override
+    public String aggregateType() {
+        return "file";
+    }
+
+    @Override
+    public String aggregateId() {
+        return fileId.toString();
+    }
+
+    public UUID getFileId() {
+        return fileId;
+    }
+
+    public UUID getAssignmentId() {
+        return assignmentId;
+    }
+
+    public Long getUploadedBy() {
+        return uploadedBy;
+    }
+
+    public String getFileType() {
+        return fileType;
+    }
+
+    public Long getFileSize() {
+        return fileSize;
+    }
+
+    public LocalDateTime getOccurredAt() {
+        return occurredAt;
+    }
+}
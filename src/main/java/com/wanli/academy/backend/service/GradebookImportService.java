@@ -0,0 +1,364 @@
+package com.wanli.academy.backend.service;
+
+import com.wanli.academy.backend.dto.BulkGradeRequest;
+import com.wanli.academy.backend.dto.BulkGradeResponse;
+import com.wanli.academy.backend.dto.GradebookImportResult;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * 成绩表导入服务
+ * 逐行读取CSV/XLSX成绩表，按块处理：每块用一次查询把学生用户名匹配到提交，再交给批量批改校验并以JDBC批次写入，
+ * 每块单独提交事务。试运行只校验不写入；错误行写入gradebook_import_errors，可下载为CSV报告
+ */
+@Service
+public class GradebookImportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(GradebookImportService.class);
+
+    static final String PURGE_LOCK_NAME = "gradebook-import-purge";
+
+    private static final int ERROR_PREVIEW_SIZE = 20;
+    private static final int MAX_FEEDBACK_LENGTH = 2000;
+
+    private static final Set<String> USERNAME_HEADERS = Set.of("username", "用户名", "学生用户名");
+    private static final Set<String> SCORE_HEADERS = Set.of("score", "分数", "成绩");
+    private static final Set<String> FEEDBACK_HEADERS = Set.of("feedback", "反馈", "评语");
+
+    @Value("${gradebook.import.chunk-size:500}")
+    private int chunkSize;
+
+    @Value("${gradebook.import.max-rows:20000}")
+    private int maxRows;
+
+    @Value("${gradebook.import.report-retention-hours:72}")
+    private int reportRetentionHours;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private SubmissionService submissionService;
+
+    @Autowired
+    private PermissionService permissionService;
+
+    @Autowired
+    private AdvisoryLockService advisoryLockService;
+
+    /**
+     * 导入成绩表
+     * @param assignmentId 作业ID，只能是当前教师创建的作业
+     * @param file CSV或XLSX文件，表头需包含用户名和分数列，反馈列可选
+     * @param dryRun 为true时只校验不写入
+     * @return 导入结果
+     */
+    public GradebookImportResult importGrades(UUID assignmentId, MultipartFile file, boolean dryRun) throws IOException {
+        Long currentUserId = permissionService.getCurrentUserId();
+        List<Long> creators = jdbcTemplate.queryForList(
+                "SELECT creator_id FROM assignments WHERE id = ?", Long.class, assignmentId);
+        if (creators.isEmpty()) {
+            throw new IllegalArgumentException("作业不存在");
+        }
+        if (!creators.get(0).equals(currentUserId)) {
+            throw new AccessDeniedException("您只能批改自己创建的作业");
+        }
+
+        String filename = file.getOriginalFilename();
+        Path temp = Files.createTempFile("gradebook-", ".upload");
+        try {
+            file.transferTo(temp);
+            try (GradebookReader reader = GradebookReader.open(filename, temp)) {
+                return importRows(reader, assignmentId, currentUserId, dryRun);
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    GradebookImportResult importRows(GradebookReader reader, UUID assignmentId, Long teacherId, boolean dryRun)
+            throws IOException {
+        UUID importId = UUID.randomUUID();
+        Columns columns = Columns.of(reader.nextRow());
+        ImportProgress progress = new ImportProgress();
+
+        List<ImportRow> chunk = new ArrayList<>(chunkSize);
+        List<String> cells;
+        while ((cells = reader.nextRow()) != null) {
+            ImportRow row = columns.read(reader.rowNumber(), cells);
+            if (row == null) {
+                continue;
+            }
+            if (progress.totalRows >= maxRows) {
+                progress.fail(row, "超过单次导入上限" + maxRows + "行，之后的行未处理");
+                break;
+            }
+            progress.totalRows++;
+            chunk.add(row);
+            if (chunk.size() >= chunkSize) {
+                processChunk(importId, assignmentId, teacherId, chunk, dryRun, progress);
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            processChunk(importId, assignmentId, teacherId, chunk, dryRun, progress);
+        }
+        saveErrors(importId, teacherId, progress.errors);
+
+        logger.info("Gradebook import {} for assignment {} (dry run: {}): {} rows, {} graded, {} failed",
+                importId, assignmentId, dryRun, progress.totalRows, progress.graded, progress.failed);
+        return new GradebookImportResult(importId, dryRun, progress.totalRows, progress.graded, progress.failed,
+                progress.preview,
+                progress.failed > 0 ? "/api/gradebook/imports/" + importId + "/errors" : null);
+    }
+
+    /**
+     * 处理一块数据：一次查询匹配用户名到提交，批量批改并在该块的事务中提交
+     */
+    private void processChunk(UUID importId, UUID assignmentId, Long teacherId, List<ImportRow> rows,
+                              boolean dryRun, ImportProgress progress) {
+        Map<String, UUID> submissionsByUsername = findSubmissions(assignmentId, rows);
+
+        List<ImportRow> matched = new ArrayList<>();
+        List<BulkGradeRequest.Item> items = new ArrayList<>();
+        for (ImportRow row : rows) {
+            if (row.error() != null) {
+                progress.fail(row, row.error());
+                continue;
+            }
+            UUID submissionId = submissionsByUsername.get(row.username());
+            if (submissionId == null) {
+                progress.fail(row, "该学生没有提交此作业");
+                continue;
+            }
+            matched.add(row);
+            items.add(new BulkGradeRequest.Item(submissionId, row.score(), row.feedback()));
+        }
+        if (items.isEmpty()) {
+            return;
+        }
+
+        BulkGradeResponse response = submissionService.gradeSubmissions(items, dryRun);
+        for (int i = 0; i < matched.size(); i++) {
+            BulkGradeResponse.ItemResult result = response.getResults().get(i);
+            if (result.isSuccess()) {
+                progress.graded++;
+            } else {
+                progress.fail(matched.get(i), result.getMessage());
+            }
+        }
+        // 错误行随块写入，内存中只保留预览
+        if (progress.errors.size() >= chunkSize) {
+            saveErrors(importId, teacherId, progress.errors);
+            progress.errors.clear();
+        }
+    }
+
+    /**
+     * 按用户名查找学生在该作业下的提交，同一学生有多份提交时取最后提交的一份
+     */
+    private Map<String, UUID> findSubmissions(UUID assignmentId, List<ImportRow> rows) {
+        List<Object> args = new ArrayList<>();
+        args.add(assignmentId);
+        rows.stream().filter(row -> row.error() == null).map(ImportRow::username).distinct().forEach(args::add);
+        Map<String, UUID> submissions = new HashMap<>();
+        if (args.size() == 1) {
+            return submissions;
+        }
+        jdbcTemplate.query(
+                "SELECT u.username, s.id FROM submissions s JOIN users u ON u.id = s.student_id "
+                        + "WHERE s.assignment_id = ? AND u.username IN ("
+                        + String.join(", ", Collections.nCopies(args.size() - 1, "?")) + ") "
+                        + "ORDER BY s.submitted_at NULLS FIRST",
+                rs -> {
+                    submissions.put(rs.getString("username"), rs.getObject("id", UUID.class));
+                },
+                args.toArray());
+        return submissions;
+    }
+
+    private void saveErrors(UUID importId, Long teacherId, List<GradebookImportResult.RowError> errors) {
+        if (errors.isEmpty()) {
+            return;
+        }
+        List<Object[]> batch = new ArrayList<>(errors.size());
+        for (GradebookImportResult.RowError error : errors) {
+            batch.add(new Object[] { importId, teacherId, error.getRowNumber(), error.getUsername(),
+                    error.getScore(), error.getMessage() });
+        }
+        jdbcTemplate.batchUpdate(
+                "INSERT INTO gradebook_import_errors (import_id, teacher_id, row_number, username, score, message) "
+                        + "VALUES (?, ?, ?, ?, ?, ?)",
+                batch);
+    }
+
+    /**
+     * 导出错误报告CSV，只能下载自己发起的导入
+     * @param importId 导入批次ID
+     * @return CSV文本
+     */
+    public String exportErrorReport(UUID importId) {
+        Long currentUserId = permissionService.getCurrentUserId();
+        StringBuilder csv = new StringBuilder("row_number,username,score,message\n");
+        int[] count = { 0 };
+        jdbcTemplate.query(
+                "SELECT row_number, username, score, message FROM gradebook_import_errors "
+                        + "WHERE import_id = ? AND teacher_id = ? ORDER BY row_number",
+                rs -> {
+                    csv.append(rs.getInt("row_number")).append(',')
+                            .append(csvCell(rs.getString("username"))).append(',')
+                            .append(csvCell(rs.getString("score"))).append(',')
+                            .append(csvCell(rs.getString("message"))).append('\n');
+                    count[0]++;
+                },
+                importId, currentUserId);
+        if (count[0] == 0) {
+            throw new IllegalArgumentException("导入错误报告不存在或已过期");
+        }
+        return csv.toString();
+    }
+
+    static String csvCell(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (!value.isEmpty() && "=+-@\t\r".indexOf(value.charAt(0)) >= 0) {
+            // 以公式字符开头的单元格加单引号，防止Excel等表格软件将其作为公式执行
+            value = "'" + value;
+        }
+        if (value.indexOf(',') >= 0 || value.indexOf('"') >= 0 || value.indexOf('\n') >= 0 || value.indexOf('\r') >= 0) {
+            return '"' + value.replace("\"", "\"\"") + '"';
+        }
+        return value;
+    }
+
+    /**
+     * 定时清理过期的错误报告
+     */
+    @Scheduled(fixedDelayString = "${gradebook.import.purge-interval-millis:3600000}",
+            initialDelayString = "${gradebook.import.purge-interval-millis:3600000}")
+    public void scheduledPurge() {
+        if (!advisoryLockService.runExclusively(PURGE_LOCK_NAME, this::purgeExpiredReports)) {
+            logger.debug("Gradebook import report purge is already running on another node, skipping");
+        }
+    }
+
+    public void purgeExpiredReports() {
+        int deleted = jdbcTemplate.update(
+                "DELETE FROM gradebook_import_errors WHERE created_at < now() - make_interval(hours => ?)",
+                reportRetentionHours);
+        if (deleted > 0) {
+            logger.info("Purged {} gradebook import errors older than {} hours", deleted, reportRetentionHours);
+        }
+    }
+
+    /**
+     * 解析后的数据行；error不为空表示该行格式错误
+     */
+    record ImportRow(int rowNumber, String username, String scoreText, Integer score, String feedback, String error) {
+    }
+
+    /**
+     * 表头中用户名、分数、反馈列的位置
+     */
+    private record Columns(int username, int score, int feedback) {
+
+        static Columns of(List<String> header) {
+            if (header == null) {
+                throw new IllegalArgumentException("成绩表为空");
+            }
+            int username = -1;
+            int score = -1;
+            int feedback = -1;
+            for (int i = 0; i < header.size(); i++) {
+                String name = header.get(i).trim().toLowerCase(Locale.ROOT);
+                if (USERNAME_HEADERS.contains(name)) {
+                    username = i;
+                } else if (SCORE_HEADERS.contains(name)) {
+                    score = i;
+                } else if (FEEDBACK_HEADERS.contains(name)) {
+                    feedback = i;
+                }
+            }
+            if (username < 0 || score < 0) {
+                throw new IllegalArgumentException("成绩表表头必须包含用户名（username）和分数（score）列");
+            }
+            return new Columns(username, score, feedback);
+        }
+
+        /**
+         * 解析一行，空行返回null
+         */
+        ImportRow read(int rowNumber, List<String> cells) {
+            String username = cell(cells, username()).trim();
+            String scoreText = cell(cells, score()).trim();
+            String feedback = feedback() < 0 ? "" : cell(cells, feedback()).trim();
+            if (username.isEmpty() && scoreText.isEmpty() && feedback.isEmpty()) {
+                return null;
+            }
+            String note = feedback.isEmpty() ? null : feedback;
+            if (username.isEmpty()) {
+                return new ImportRow(rowNumber, username, scoreText, null, note, "用户名不能为空");
+            }
+            if (note != null && note.length() > MAX_FEEDBACK_LENGTH) {
+                return new ImportRow(rowNumber, username, scoreText, null, null,
+                        "反馈内容长度不能超过" + MAX_FEEDBACK_LENGTH + "个字符");
+            }
+            if (scoreText.isEmpty()) {
+                return new ImportRow(rowNumber, username, scoreText, null, note, "分数不能为空");
+            }
+            try {
+                // XLSX中的数字可能带小数位，如"85.0"
+                int score = new BigDecimal(scoreText).stripTrailingZeros().intValueExact();
+                return new ImportRow(rowNumber, username, scoreText, score, note, null);
+            } catch (ArithmeticException | NumberFormatException e) {
+                return new ImportRow(rowNumber, username, scoreText, null, note, "分数必须是整数");
+            }
+        }
+
+        private static String cell(List<String> cells, int index) {
+            return index < cells.size() && cells.get(index) != null ? cells.get(index) : "";
+        }
+    }
+
+    /**
+     * 导入进度：计数、待写入的错误行和错误预览
+     */
+    private static class ImportProgress {
+        private int totalRows;
+        private int graded;
+        private int failed;
+        private final List<GradebookImportResult.RowError> errors = new ArrayList<>();
+        private final List<GradebookImportResult.RowError> preview = new ArrayList<>();
+
+        void fail(ImportRow row, String message) {
+            GradebookImportResult.RowError error =
+                    new GradebookImportResult.RowError(row.rowNumber(), row.username(), row.scoreText(), message);
+            failed++;
+            errors.add(error);
+            if (preview.size() < ERROR_PREVIEW_SIZE) {
+                preview.add(error);
+            }
+        }
+    }
+}
@@ -0,0 +1,354 @@
+package com.wanli.academy.backend.service;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * 成绩表逐行读取器
+ * CSV按字符流解析，XLSX直接用StAX流式读取工作表XML，内存占用与文件行数无关（XLSX的共享字符串表除外）
+ */
+abstract class GradebookReader implements Closeable {
+
+    /**
+     * 上一次读到的行在源文件中的行号，从1开始
+     */
+    protected int rowNumber;
+
+    /**
+     * 读取下一行
+     * @return 单元格文本，文件结束时返回null
+     */
+    abstract List<String> nextRow() throws IOException;
+
+    /**
+     * 上一次nextRow返回的行在源文件中的行号：CSV为该行起始的物理行，XLSX为row元素的r属性，
+     * 跨行单元格和XLSX省略的空行不会让行号错位
+     */
+    int rowNumber() {
+        return rowNumber;
+    }
+
+    /**
+     * 按文件扩展名打开读取器，XLSX需要随机访问压缩包，因此读取落盘后的文件
+     */
+    static GradebookReader open(String filename, Path file) throws IOException {
+        String name = filename == null ? "" : filename.toLowerCase();
+        if (name.endsWith(".xlsx")) {
+            return new Xlsx(file);
+        }
+        if (name.endsWith(".csv") || name.endsWith(".txt")) {
+            return new Csv(Files.newInputStream(file));
+        }
+        throw new IllegalArgumentException("仅支持CSV或XLSX格式的成绩表");
+    }
+
+    /**
+     * RFC 4180 CSV：支持引号包裹、双引号转义和单元格内换行，忽略UTF-8 BOM
+     */
+    static class Csv extends GradebookReader {
+
+        private final Reader reader;
+        private boolean started;
+        private boolean finished;
+        private int line = 1;
+
+        Csv(InputStream input) {
+            this.reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+        }
+
+        @Override
+        List<String> nextRow() throws IOException {
+            if (finished) {
+                return null;
+            }
+            rowNumber = line;
+            List<String> row = new ArrayList<>();
+            StringBuilder cell = new StringBuilder();
+            boolean quoted = false;
+            boolean any = false;
+            int c;
+            while ((c = reader.read()) != -1) {
+                if (!started) {
+                    started = true;
+                    if (c == '\uFEFF') {
+                        continue;
+                    }
+                }
+                any = true;
+                if (c == '\n') {
+                    line++;
+                }
+                if (quoted) {
+                    if (c == '"') {
+                        reader.mark(1);
+                        int next = reader.read();
+                        if (next == '"') {
+                            cell.append('"');
+                        } else {
+                            quoted = false;
+                            if (next != -1) {
+                                reader.reset();
+                            }
+                        }
+                    } else {
+                        cell.append((char) c);
+                    }
+                } else if (c == '"') {
+                    quoted = true;
+                } else if (c == ',') {
+                    row.add(cell.toString());
+                    cell.setLength(0);
+                } else if (c == '\n') {
+                    row.add(cell.toString());
+                    return row;
+                } else if (c != '\r') {
+                    cell.append((char) c);
+                }
+            }
+            finished = true;
+            if (!any) {
+                return null;
+            }
+            row.add(cell.toString());
+            return row;
+        }
+
+        @Override
+        public void close() throws IOException {
+            reader.close();
+        }
+    }
+
+    /**
+     * XLSX：读取工作簿中的第一个工作表
+     */
+    static class Xlsx extends GradebookReader {
+
+        private static final String SHEET_FALLBACK = "xl/worksheets/sheet1.xml";
+
+        private final ZipFile zip;
+        private final List<String> sharedStrings;
+        private final InputStream sheetInput;
+        private final XMLStreamReader sheet;
+
+        Xlsx(Path file) throws IOException {
+            this.zip = new ZipFile(file.toFile());
+            try {
+                this.sharedStrings = readSharedStrings();
+                ZipEntry entry = zip.getEntry(firstSheetPath());
+                if (entry == null) {
+                    throw new IllegalArgumentException("XLSX文件中没有工作表");
+                }
+                this.sheetInput = zip.getInputStream(entry);
+                this.sheet = xmlFactory().createXMLStreamReader(sheetInput, "UTF-8");
+            } catch (XMLStreamException e) {
+                zip.close();
+                throw new IllegalArgumentException("无法解析XLSX文件", e);
+            } catch (IOException | RuntimeException e) {
+                zip.close();
+                throw e;
+            }
+        }
+
+        @Override
+        List<String> nextRow() throws IOException {
+            try {
+                List<String> row = null;
+                int column = 0;
+                String type = null;
+                StringBuilder value = null;
+                while (sheet.hasNext()) {
+                    int event = sheet.next();
+                    if (event == XMLStreamConstants.START_ELEMENT) {
+                        switch (sheet.getLocalName()) {
+                            case "row" -> {
+                                row = new ArrayList<>();
+                                rowNumber = rowIndex(sheet.getAttributeValue(null, "r"), rowNumber + 1);
+                            }
+                            case "c" -> {
+                                String ref = sheet.getAttributeValue(null, "r");
+                                column = ref == null ? (row == null ? 0 : row.size()) : columnIndex(ref);
+                                type = sheet.getAttributeValue(null, "t");
+                                value = new StringBuilder();
+                            }
+                            case "v", "t" -> {
+                                if (value != null) {
+                                    value.append(sheet.getElementText());
+                                }
+                            }
+                            default -> {
+                            }
+                        }
+                    } else if (event == XMLStreamConstants.END_ELEMENT) {
+                        String name = sheet.getLocalName();
+                        if ("c".equals(name) && row != null && value != null) {
+                            // 跳过的空单元格补空字符串，保持列位置
+                            while (row.size() < column) {
+                                row.add("");
+                            }
+                            row.add(cellText(type, value.toString()));
+                            value = null;
+                        } else if ("row".equals(name) && row != null) {
+                            return row;
+                        }
+                    }
+                }
+                return null;
+            } catch (XMLStreamException e) {
+                throw new IOException("XLSX工作表解析失败", e);
+            }
+        }
+
+        private String cellText(String type, String raw) {
+            if ("s".equals(type)) {
+                int index = Integer.parseInt(raw.trim());
+                return index < sharedStrings.size() ? sharedStrings.get(index) : "";
+            }
+            if ("b".equals(type)) {
+                return "1".equals(raw) ? "TRUE" : "FALSE";
+            }
+            return raw;
+        }
+
+        /**
+         * row元素的r属性，缺失或无法解析时按上一行顺延
+         */
+        static int rowIndex(String ref, int fallback) {
+            if (ref == null) {
+                return fallback;
+            }
+            try {
+                return Integer.parseInt(ref.trim());
+            } catch (NumberFormatException e) {
+                return fallback;
+            }
+        }
+
+        /**
+         * 单元格引用（如"AB12"）的列序号，从0开始
+         */
+        static int columnIndex(String ref) {
+            int column = 0;
+            for (int i = 0; i < ref.length() && Character.isLetter(ref.charAt(i)); i++) {
+                column = column * 26 + (Character.toUpperCase(ref.charAt(i)) - 'A' + 1);
+            }
+            return column - 1;
+        }
+
+        private List<String> readSharedStrings() throws IOException, XMLStreamException {
+            List<String> strings = new ArrayList<>();
+            ZipEntry entry = zip.getEntry("xl/sharedStrings.xml");
+            if (entry == null) {
+                return strings;
+            }
+            try (InputStream input = zip.getInputStream(entry)) {
+                XMLStreamReader xml = xmlFactory().createXMLStreamReader(input, "UTF-8");
+                StringBuilder text = null;
+                boolean phonetic = false;
+                while (xml.hasNext()) {
+                    int event = xml.next();
+                    if (event == XMLStreamConstants.START_ELEMENT) {
+                        String name = xml.getLocalName();
+                        if ("si".equals(name)) {
+                            text = new StringBuilder();
+                        } else if ("rPh".equals(name)) {
+                            phonetic = true;
+                        } else if ("t".equals(name) && text != null && !phonetic) {
+                            text.append(xml.getElementText());
+                        }
+                    } else if (event == XMLStreamConstants.END_ELEMENT) {
+                        String name = xml.getLocalName();
+                        if ("si".equals(name) && text != null) {
+                            strings.add(text.toString());
+                            text = null;
+                        } else if ("rPh".equals(name)) {
+                            phonetic = false;
+                        }
+                    }
+                }
+                xml.close();
+            }
+            return strings;
+        }
+
+        /**
+         * 通过workbook.xml及其关系文件找到第一个工作表的路径
+         */
+        private String firstSheetPath() throws IOException, XMLStreamException {
+            String sheetRelationId = null;
+            ZipEntry workbook = zip.getEntry("xl/workbook.xml");
+            if (workbook != null) {
+                try (InputStream input = zip.getInputStream(workbook)) {
+                    XMLStreamReader xml = xmlFactory().createXMLStreamReader(input, "UTF-8");
+                    while (xml.hasNext() && sheetRelationId == null) {
+                        if (xml.next() == XMLStreamConstants.START_ELEMENT && "sheet".equals(xml.getLocalName())) {
+                            for (int i = 0; i < xml.getAttributeCount(); i++) {
+                                if ("id".equals(xml.getAttributeLocalName(i))) {
+                                    sheetRelationId = xml.getAttributeValue(i);
+                                }
+                            }
+                        }
+                    }
+                    xml.close();
+                }
+            }
+            ZipEntry rels = zip.getEntry("xl/_rels/workbook.xml.rels");
+            if (sheetRelationId == null || rels == null) {
+                return SHEET_FALLBACK;
+            }
+            Map<String, String> targets = new HashMap<>();
+            try (InputStream input = zip.getInputStream(rels)) {
+                XMLStreamReader xml = xmlFactory().createXMLStreamReader(input, "UTF-8");
+                while (xml.hasNext()) {
+                    if (xml.next() == XMLStreamConstants.START_ELEMENT && "Relationship".equals(xml.getLocalName())) {
+                        targets.put(xml.getAttributeValue(null, "Id"), xml.getAttributeValue(null, "Target"));
+                    }
+                }
+                xml.close();
+            }
+            String target = targets.get(sheetRelationId);
+            if (target == null) {
+                return SHEET_FALLBACK;
+            }
+            return target.startsWith("/") ? target.substring(1) : "xl/" + target;
+        }
+
+        /**
+         * 禁用DTD和外部实体，防止XXE
+         */
+        private static XMLInputFactory xmlFactory() {
+            XMLInputFactory factory = XMLInputFactory.newInstance();
+            factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+            factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+            return factory;
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                sheet.close();
+            } catch (XMLStreamException e) {
+                // 关闭失败不影响结果
+            }
+            sheetInput.close();
+            zip.close();
+        }
+    }
+}
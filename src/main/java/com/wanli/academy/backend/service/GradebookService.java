@@ -0,0 +1,164 @@
+package com.wanli.academy.backend.service;
+
+import com.wanli.academy.backend.dto.GradebookMatrix;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * 成绩册服务
+ * 一次聚合查询生成学生×作业的成绩矩阵，按学生ID键集分页，结果以列式数组返回
+ */
+@Service
+@Transactional(readOnly = true)
+public class GradebookService {
+
+    private static final Logger logger = LoggerFactory.getLogger(GradebookService.class);
+
+    @Value("${gradebook.matrix.default-page-size:100}")
+    private int defaultPageSize;
+
+    @Value("${gradebook.matrix.max-page-size:500}")
+    private int maxPageSize;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PermissionService permissionService;
+
+    /**
+     * 获取成绩册矩阵
+     * 教师只看到自己创建的作业，管理员看到全部作业；行只包含至少提交过一次的学生
+     * @param courseId 课程ID（可选）
+     * @param after 上一页返回的游标（学生ID），为空表示第一页
+     * @param limit 每页学生数
+     * @return 成绩册矩阵
+     */
+    public GradebookMatrix getGradebook(Long courseId, Long after, Integer limit) {
+        int pageSize = Math.max(1, Math.min(limit == null ? defaultPageSize : limit, maxPageSize));
+        Long currentUserId = permissionService.getCurrentUserId();
+        List<Object> scopeArgs = new ArrayList<>();
+        String scope = scopeFilter(courseId, currentUserId, scopeArgs);
+
+        List<GradebookMatrix.AssignmentColumn> columns = jdbcTemplate.query(
+                "SELECT a.id, a.title, a.max_score, a.due_date FROM assignments a WHERE " + scope
+                        + " ORDER BY a.due_date, a.id",
+                (rs, rowNum) -> {
+                    Timestamp dueDate = rs.getTimestamp("due_date");
+                    return new GradebookMatrix.AssignmentColumn(rs.getObject("id", UUID.class), rs.getString("title"),
+                            rs.getObject("max_score", BigDecimal.class), dueDate == null ? null : dueDate.toLocalDateTime());
+                },
+                scopeArgs.toArray());
+        if (columns.isEmpty()) {
+            return new GradebookMatrix(columns, List.of(), List.of(), new int[0], new int[0],
+                    new BigDecimal[0], new String[0], null);
+        }
+        Map<UUID, Integer> columnIndex = new HashMap<>();
+        for (int i = 0; i < columns.size(); i++) {
+            columnIndex.put(columns.get(i).getId(), i);
+        }
+
+        List<Object> args = new ArrayList<>(scopeArgs);
+        args.add(after == null ? 0L : after);
+        args.add(pageSize + 1);
+        args.addAll(scopeArgs);
+        MatrixBuilder matrix = new MatrixBuilder(pageSize, columnIndex);
+        // 多出的一个学生只用于判断是否还有下一页；同一学生同一作业多份提交时取最后提交的一份
+        jdbcTemplate.query(
+                "WITH page AS (SELECT DISTINCT s.student_id FROM submissions s JOIN assignments a ON a.id = s.assignment_id "
+                        + "WHERE " + scope + " AND s.student_id > ? ORDER BY s.student_id LIMIT ?) "
+                        + "SELECT DISTINCT ON (s.student_id, s.assignment_id) s.student_id, u.username, s.assignment_id, "
+                        + "s.score, s.status FROM page p "
+                        + "JOIN submissions s ON s.student_id = p.student_id "
+                        + "JOIN assignments a ON a.id = s.assignment_id "
+                        + "JOIN users u ON u.id = s.student_id "
+                        + "WHERE " + scope + " "
+                        + "ORDER BY s.student_id, s.assignment_id, s.submitted_at DESC NULLS LAST",
+                rs -> {
+                    matrix.add(rs.getLong("student_id"), rs.getString("username"),
+                            rs.getObject("assignment_id", UUID.class), rs.getObject("score", BigDecimal.class),
+                            rs.getString("status"));
+                },
+                args.toArray());
+
+        GradebookMatrix result = matrix.build(columns);
+        logger.debug("Gradebook for user {} (course {}, after {}): {} students x {} assignments, {} cells",
+                currentUserId, courseId, after, result.getStudentIds().size(), columns.size(), result.getScores().length);
+        return result;
+    }
+
+    private String scopeFilter(Long courseId, Long currentUserId, List<Object> args) {
+        StringBuilder filter = new StringBuilder("a.is_active = TRUE");
+        if (!permissionService.isAdmin()) {
+            filter.append(" AND a.creator_id = ?");
+            args.add(currentUserId);
+        }
+        if (courseId != null) {
+            filter.append(" AND a.course_id = ?");
+            args.add(courseId);
+        }
+        return filter.toString();
+    }
+
+    /**
+     * 按行累积单元格，超过页大小的学生只记录存在，不输出单元格
+     */
+    static class MatrixBuilder {
+        private final int pageSize;
+        private final Map<UUID, Integer> columnIndex;
+        private final List<Long> studentIds = new ArrayList<>();
+        private final List<String> usernames = new ArrayList<>();
+        private final List<int[]> positions = new ArrayList<>();
+        private final List<BigDecimal> scores = new ArrayList<>();
+        private final List<String> statuses = new ArrayList<>();
+        private boolean hasMore;
+
+        MatrixBuilder(int pageSize, Map<UUID, Integer> columnIndex) {
+            this.pageSize = pageSize;
+            this.columnIndex = columnIndex;
+        }
+
+        void add(long studentId, String username, UUID assignmentId, BigDecimal score, String status) {
+            if (studentIds.isEmpty() || studentIds.get(studentIds.size() - 1) != studentId) {
+                if (studentIds.size() >= pageSize) {
+                    hasMore = true;
+                    return;
+                }
+                studentIds.add(studentId);
+                usernames.add(username);
+            }
+            Integer column = columnIndex.get(assignmentId);
+            if (column == null) {
+                return;
+            }
+            positions.add(new int[] { studentIds.size() - 1, column });
+            scores.add(score);
+            statuses.add(status);
+        }
+
+        GradebookMatrix build(List<GradebookMatrix.AssignmentColumn> columns) {
+            int[] studentIndex = new int[positions.size()];
+            int[] assignmentIndex = new int[positions.size()];
+            for (int i = 0; i < positions.size(); i++) {
+                studentIndex[i] = positions.get(i)[0];
+                assignmentIndex[i] = positions.get(i)[1];
+            }
+            Long nextCursor = hasMore ? studentIds.get(studentIds.size() - 1) : null;
+            return new GradebookMatrix(columns, studentIds, usernames, studentIndex, assignmentIndex,
+                    scores.toArray(new BigDecimal[0]), statuses.toArray(new String[0]), nextCursor);
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.wanli.academy.backend.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * 批改队列服务
+ * 教师用SELECT ... FOR UPDATE SKIP LOCKED领取待批改提交并获得限时租约：并发领取的教师互不等待、不会拿到同一提交，
+ * 租约到期的提交在下次领取时自动回到队列。领取只修改claimed_by/claim_expires_at，不影响提交本身的版本
+ */
+@Service
+public class GradingQueueService {
+
+    @Value("${grading.queue.lease-seconds:900}")
+    private long leaseSeconds;
+
+    @Value("${grading.queue.max-claim:50}")
+    private int maxClaim;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /**
+     * 领取教师作业下最早提交的待批改提交，本人未到期的租约会一并续期并计入数量
+     * @param teacherId 教师ID（作业创建者）
+     * @param assignmentId 作业ID，为空表示该教师的全部作业
+     * @param limit 领取数量
+     * @return 领取到的提交ID
+     */
+    public List<UUID> claim(Long teacherId, UUID assignmentId, int limit) {
+        int count = Math.max(1, Math.min(limit, maxClaim));
+        List<Object> args = new ArrayList<>(List.of(teacherId, teacherId));
+        String assignmentFilter = "";
+        if (assignmentId != null) {
+            assignmentFilter = "AND s2.assignment_id = ? ";
+            args.add(assignmentId);
+        }
+        args.add(count);
+        args.add(teacherId);
+        args.add(leaseSeconds);
+        // CTE只求值一次，被其他事务锁住的行直接跳过
+        return jdbcTemplate.queryForList(
+                "WITH next AS (SELECT s2.id FROM submissions s2 JOIN assignments a ON a.id = s2.assignment_id "
+                        + "WHERE s2.status = 'SUBMITTED' AND a.creator_id = ? "
+                        + "AND (s2.claimed_by IS NULL OR s2.claim_expires_at <= now() OR s2.claimed_by = ?) "
+                        + assignmentFilter + "ORDER BY s2.submitted_at, s2.id LIMIT ? FOR UPDATE OF s2 SKIP LOCKED) "
+                        + "UPDATE submissions s SET claimed_by = ?, claim_expires_at = now() + make_interval(secs => ?) "
+                        + "FROM next WHERE s.id = next.id RETURNING s.id",
+                UUID.class, args.toArray());
+    }
+
+    /**
+     * 提交是否被其他人持有未到期的租约
+     */
+    public boolean isClaimedByOther(UUID submissionId, Long userId) {
+        List<Long> holders = jdbcTemplate.queryForList(
+                "SELECT claimed_by FROM submissions WHERE id = ? AND claimed_by IS NOT NULL AND claim_expires_at > now()",
+                Long.class, submissionId);
+        return !holders.isEmpty() && !holders.get(0).equals(userId);
+    }
+
+    /**
+     * 归还本人持有的租约
+     * @return 是否归还成功（提交未被本人领取时返回false）
+     */
+    public boolean release(UUID submissionId, Long userId) {
+        return jdbcTemplate.update(
+                "UPDATE submissions SET claimed_by = NULL, claim_expires_at = NULL WHERE id = ? AND claimed_by = ?",
+                submissionId, userId) > 0;
+    }
+
+    /**
+     * 批改时在当前事务中复查并清除租约：只有未被领取、租约已到期或由本人领取时才成功。
+     * 该更新锁定提交行，在它与事务提交之间其他人的领取会跳过该行，因此isClaimedByOther之后的竞争窗口被关闭
+     * @return 是否可以批改（提交正由其他人领取时返回false，调用方应回滚）
+     */
+    public boolean clearForGrading(UUID submissionId, Long userId) {
+        return jdbcTemplate.update(
+                "UPDATE submissions SET claimed_by = NULL, claim_expires_at = NULL WHERE id = ? "
+                        + "AND (claimed_by IS NULL OR claimed_by = ? OR claim_expires_at <= now())",
+                submissionId, userId) > 0;
+    }
+}
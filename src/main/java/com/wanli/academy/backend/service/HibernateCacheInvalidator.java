@@ -0,0 +1,186 @@
+package com.wanli.academy.backend.service;
+
+import com.wanli.academy.backend.entity.Question;
+import com.wanli.academy.backend.entity.Role;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.Cache;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.AbstractCollectionEvent;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostCollectionRecreateEvent;
+import org.hibernate.event.spi.PostCollectionRecreateEventListener;
+import org.hibernate.event.spi.PostCollectionRemoveEvent;
+import org.hibernate.event.spi.PostCollectionRemoveEventListener;
+import org.hibernate.event.spi.PostCollectionUpdateEvent;
+import org.hibernate.event.spi.PostCollectionUpdateEventListener;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostDeleteEventListener;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostInsertEventListener;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PostUpdateEventListener;
+import org.hibernate.metamodel.MappingMetamodel;
+import org.hibernate.persister.entity.EntityPersister;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Hibernate二级缓存的集群失效
+ * 可缓存实体（及其集合）在本节点写入时经失效总线广播，其他节点收到后只驱逐对应实体的缓存条目、其集合缓存
+ * 以及依赖该实体的命名查询区域（其他节点的更新时间戳区域不会感知本节点的写入）；
+ * 默认查询区域只在整体清空时驱逐，依赖其TTL
+ */
+@Service
+public class HibernateCacheInvalidator implements PostInsertEventListener, PostUpdateEventListener,
+        PostDeleteEventListener, PostCollectionRecreateEventListener, PostCollectionUpdateEventListener,
+        PostCollectionRemoveEventListener, CacheInvalidationBus.Handler {
+
+    private static final Logger logger = LoggerFactory.getLogger(HibernateCacheInvalidator.class);
+
+    // 命名查询缓存区域所依赖的实体，见RoleRepository、QuestionRepository
+    static final Map<String, List<String>> QUERY_REGIONS_BY_ENTITY = Map.of(
+            Role.class.getName(), List.of("role-by-name"),
+            Question.class.getName(), List.of("question-by-homework"));
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private CacheInvalidationBus cacheInvalidationBus;
+
+    private SessionFactoryImplementor sessionFactory;
+
+    @PostConstruct
+    public void init() {
+        sessionFactory = entityManagerFactory.unwrap(SessionFactoryImplementor.class);
+        EventListenerRegistry registry = sessionFactory.getServiceRegistry().getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_INSERT, this);
+        registry.appendListeners(EventType.POST_UPDATE, this);
+        registry.appendListeners(EventType.POST_DELETE, this);
+        registry.appendListeners(EventType.POST_COLLECTION_RECREATE, this);
+        registry.appendListeners(EventType.POST_COLLECTION_UPDATE, this);
+        registry.appendListeners(EventType.POST_COLLECTION_REMOVE, this);
+
+        mappingMetamodel().forEachEntityDescriptor(persister -> {
+            if (persister.canWriteToCache()) {
+                cacheInvalidationBus.registerRemote(persister.getEntityName(), this);
+            }
+        });
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        publish(event.getSession(), event.getPersister(), event.getId());
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        publish(event.getSession(), event.getPersister(), event.getId());
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        publish(event.getSession(), event.getPersister(), event.getId());
+    }
+
+    @Override
+    public void onPostRecreateCollection(PostCollectionRecreateEvent event) {
+        publishOwner(event);
+    }
+
+    @Override
+    public void onPostUpdateCollection(PostCollectionUpdateEvent event) {
+        publishOwner(event);
+    }
+
+    @Override
+    public void onPostRemoveCollection(PostCollectionRemoveEvent event) {
+        publishOwner(event);
+    }
+
+    @Override
+    public boolean requiresPostCommitHandling(EntityPersister persister) {
+        return false;
+    }
+
+    /**
+     * 收到其他节点的实体变更：驱逐该实体条目、其集合缓存和依赖该实体的查询区域
+     */
+    @Override
+    public void evict(String cache, String key, long version) {
+        EntityPersister persister = mappingMetamodel().findEntityDescriptor(cache);
+        if (persister == null) {
+            return;
+        }
+        Object id = parseId(persister, key);
+        Cache secondLevelCache = sessionFactory.getCache();
+        secondLevelCache.evictEntityData(cache, id);
+        mappingMetamodel().forEachCollectionDescriptor(collection -> {
+            if (collection.hasCache() && collection.getOwnerEntityPersister().getEntityName().equals(cache)) {
+                secondLevelCache.evictCollectionData(collection.getRole(), id);
+            }
+        });
+        QUERY_REGIONS_BY_ENTITY.getOrDefault(cache, List.of()).forEach(secondLevelCache::evictQueryRegion);
+    }
+
+    @Override
+    public void evictAll(String cache) {
+        Cache secondLevelCache = sessionFactory.getCache();
+        secondLevelCache.evictEntityData(cache);
+        mappingMetamodel().forEachCollectionDescriptor(collection -> {
+            if (collection.hasCache() && collection.getOwnerEntityPersister().getEntityName().equals(cache)) {
+                secondLevelCache.evictCollectionData(collection.getRole());
+            }
+        });
+        secondLevelCache.evictQueryRegions();
+    }
+
+    private void publishOwner(AbstractCollectionEvent event) {
+        if (event.getAffectedOwnerIdOrNull() == null) {
+            return;
+        }
+        EntityPersister owner = mappingMetamodel().getEntityDescriptor(event.getAffectedOwnerEntityName());
+        publish(event.getSession(), owner, event.getAffectedOwnerIdOrNull());
+    }
+
+    private void publish(SharedSessionContractImplementor session, EntityPersister persister, Object id) {
+        if (!persister.canWriteToCache() || id == null) {
+            return;
+        }
+        try {
+            // 使用会话自身的连接，通知随当前事务提交或回滚
+            cacheInvalidationBus.publish(session.getJdbcCoordinator().getLogicalConnection().getPhysicalConnection(),
+                    persister.getEntityName(), id.toString(), System.currentTimeMillis());
+        } catch (SQLException e) {
+            // PostgreSQL中失败的语句已使当前事务中止，提交必然失败，因此直接抛出让业务写入回滚
+            logger.warn("Failed to publish cache invalidation for {}#{}: {}", persister.getEntityName(), id, e.getMessage());
+            throw session.getJdbcServices().getSqlExceptionHelper().convert(e,
+                    "Failed to publish cache invalidation for " + persister.getEntityName());
+        }
+    }
+
+    private Object parseId(EntityPersister persister, String key) {
+        Class<?> idType = persister.getIdentifierType().getReturnedClass();
+        if (Long.class.equals(idType)) {
+            return Long.valueOf(key);
+        }
+        if (UUID.class.equals(idType)) {
+            return UUID.fromString(key);
+        }
+        return key;
+    }
+
+    private MappingMetamodel mappingMetamodel() {
+        return sessionFactory.getRuntimeMetamodels().getMappingMetamodel();
+    }
+}
@@ -0,0 +1,18 @@
+package com.wanli.academy.backend.service;
+
+import java.util.UUID;
+
+/**
+ * 键集分页的起始游标
+ */
+public final class KeysetCursors {
+
+    /**
+     * UUID键集分页的起点（id > MIN_UUID 覆盖全部记录）
+     * PostgreSQL按无符号字节比较uuid，最小值是全0，不能用Java中有符号比较的最小值
+     */
+    public static final UUID MIN_UUID = new UUID(0L, 0L);
+
+    private KeysetCursors() {
+    }
+}
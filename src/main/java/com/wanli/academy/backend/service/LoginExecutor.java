@@ -0,0 +1,154 @@
+package com.wanli.academy.backend.service;
+
+import com.wanli.academy.backend.exception.ServiceOverloadedException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * 登录执行通道
+ * BCrypt校验是CPU密集型操作，登录在按CPU核数设置的专用线程池中执行，请求线程在排队期间被释放，
+ * 不影响其他API。队列有界：队列已满或排队超过上限时直接返回503，并按当前积压估算Retry-After
+ */
+@Service
+public class LoginExecutor {
+
+    private static final Logger logger = LoggerFactory.getLogger(LoginExecutor.class);
+
+    private static final String OVERLOADED_MESSAGE = "Too many login requests, please retry later";
+
+    // 0表示使用CPU核数
+    @Value("${login.executor.threads:0}")
+    private int threads;
+
+    @Value("${login.executor.queue-capacity:200}")
+    private int queueCapacity;
+
+    // 排队超过该时间的登录不再执行（客户端多半已超时），直接返回503
+    @Value("${login.executor.max-queue-wait-millis:10000}")
+    private long maxQueueWaitMillis;
+
+    @Value("${login.executor.min-retry-after-seconds:1}")
+    private long minRetryAfterSeconds;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private ThreadPoolExecutor executor;
+
+    // 单次登录耗时的指数移动平均，用于估算Retry-After
+    private final AtomicLong averageNanos = new AtomicLong(TimeUnit.MILLISECONDS.toNanos(100));
+
+    private Timer waitTimer;
+    private Timer executionTimer;
+    private Counter rejectedCounter;
+
+    @PostConstruct
+    public void init() {
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger threadIndex = new AtomicInteger();
+        executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+                    Thread thread = new Thread(runnable, "login-worker-" + threadIndex.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+
+        Gauge.builder("login.executor.queue.depth", executor, pool -> pool.getQueue().size())
+                .description("Logins waiting for a login worker")
+                .register(meterRegistry);
+        Gauge.builder("login.executor.active", executor, ThreadPoolExecutor::getActiveCount)
+                .description("Logins currently being verified")
+                .register(meterRegistry);
+        waitTimer = Timer.builder("login.executor.wait")
+                .description("Time logins spent queued before a worker picked them up")
+                .register(meterRegistry);
+        executionTimer = Timer.builder("login.executor.execution")
+                .description("Time spent verifying a login on a worker")
+                .register(meterRegistry);
+        rejectedCounter = Counter.builder("login.executor.rejected")
+                .description("Logins rejected with 503 because the queue was full or the wait too long")
+                .register(meterRegistry);
+        logger.info("Login executor started with {} threads and queue capacity {}", poolSize, queueCapacity);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(5, TimeUnit.SECONDS)) {
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * 在登录线程池中执行任务
+     * @param task 登录任务
+     * @return 任务结果；过载时以ServiceOverloadedException失败
+     */
+    public <T> CompletableFuture<T> submit(Supplier<T> task) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        long enqueuedAt = System.nanoTime();
+        try {
+            executor.execute(() -> run(task, future, enqueuedAt));
+        } catch (RejectedExecutionException e) {
+            rejectedCounter.increment();
+            future.completeExceptionally(overloaded());
+        }
+        return future;
+    }
+
+    private <T> void run(Supplier<T> task, CompletableFuture<T> future, long enqueuedAt) {
+        long startedAt = System.nanoTime();
+        long waitedNanos = startedAt - enqueuedAt;
+        waitTimer.record(waitedNanos, TimeUnit.NANOSECONDS);
+        if (waitedNanos > TimeUnit.MILLISECONDS.toNanos(maxQueueWaitMillis)) {
+            rejectedCounter.increment();
+            future.completeExceptionally(overloaded());
+            return;
+        }
+        try {
+            future.complete(task.get());
+        } catch (Throwable e) {
+            future.completeExceptionally(e);
+        } finally {
+            long elapsed = System.nanoTime() - startedAt;
+            executionTimer.record(elapsed, TimeUnit.NANOSECONDS);
+            averageNanos.accumulateAndGet(elapsed, (average, sample) -> average + (sample - average) / 8);
+        }
+    }
+
+    /**
+     * 按积压和平均耗时估算队列清空所需的秒数
+     */
+    long retryAfterSeconds() {
+        double backlog = (double) executor.getQueue().size() / executor.getMaximumPoolSize();
+        long estimate = (long) Math.ceil(backlog * averageNanos.get() / 1_000_000_000.0);
+        return Math.max(minRetryAfterSeconds, estimate);
+    }
+
+    private ServiceOverloadedException overloaded() {
+        return new ServiceOverloadedException(OVERLOADED_MESSAGE, retryAfterSeconds());
+    }
+}
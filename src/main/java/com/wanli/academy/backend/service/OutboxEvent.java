@@ -0,0 +1,56 @@
+package com.wanli.academy.backend.service;
+
+import java.time.LocalDateTime;
+
+/**
+ * outbox表中的一条事件，payload为事件对象的JSON
+ */
+public class OutboxEvent {
+
+    private final long id;
+    private final long txid;
+    private final String type;
+    private final String aggregateType;
+    private final String aggregateId;
+    private final String payload;
+    private final LocalDateTime createdAt;
+
+    public OutboxEvent(long id, long txid, String type, String aggregateType, String aggregateId,
+                       String payload, LocalDateTime createdAt) {
+        this.id = id;
+        this.txid = txid;
+        this.type = type;
+        this.aggregateType = aggregateType;
+        this.aggregateId = aggregateId;
+        this.payload = payload;
+        this.createdAt = createdAt;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public long getTxid() {
+        return txid;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public String getAggregateType() {
+        return aggregateType;
+    }
+
+    public String getAggregateId() {
+        return aggregateId;
+    }
+
+    public String getPayload() {
+        return payload;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+}
@@ -0,0 +1,240 @@
+package com.wanli.academy.backend.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * outbox投递服务
+ * 按(txid, id)顺序把outbox事件分批投递给各订阅者，每个订阅者在outbox_offsets中维护自己的偏移量。
+ * 只投递txid早于当前快照xmin的事件，保证偏移量之前的事务都已提交；
+ * 处理失败时偏移量不前进，按指数退避重试整批（至少一次投递）。集群中同一时间只有一个节点投递
+ */
+@Service
+public class OutboxRelay {
+
+    private static final Logger logger = LoggerFactory.getLogger(OutboxRelay.class);
+
+    static final String RELAY_LOCK_NAME = "outbox-relay";
+    static final String PURGE_LOCK_NAME = "outbox-purge";
+
+    @Value("${outbox.relay.batch-size:200}")
+    private int batchSize;
+
+    // 单次运行中每个订阅者最多投递的批次数，避免积压时长时间占用锁
+    @Value("${outbox.relay.max-batches-per-run:20}")
+    private int maxBatchesPerRun;
+
+    @Value("${outbox.relay.retry-base-millis:1000}")
+    private long retryBaseMillis;
+
+    @Value("${outbox.relay.retry-max-millis:300000}")
+    private long retryMaxMillis;
+
+    @Value("${outbox.retention-hours:72}")
+    private int retentionHours;
+
+    @Value("${outbox.purge-batch-size:5000}")
+    private int purgeBatchSize;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private AdvisoryLockService advisoryLockService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired(required = false)
+    private List<DomainEventSubscriber> subscribers = Collections.emptyList();
+
+    @Scheduled(fixedDelayString = "${outbox.relay.poll-millis:1000}",
+            initialDelayString = "${outbox.relay.poll-millis:1000}")
+    public void scheduledRelay() {
+        if (subscribers.isEmpty()) {
+            return;
+        }
+        if (!advisoryLockService.runExclusively(RELAY_LOCK_NAME, this::relayAll)) {
+            logger.debug("Outbox relay is already running on another node, skipping");
+        }
+    }
+
+    /**
+     * 依次为每个订阅者投递积压事件，单个订阅者失败不影响其他订阅者
+     */
+    public void relayAll() {
+        for (DomainEventSubscriber subscriber : subscribers) {
+            int batches = 0;
+            while (batches < maxBatchesPerRun && relayBatch(subscriber)) {
+                batches++;
+            }
+        }
+    }
+
+    /**
+     * 为订阅者投递一批事件
+     * @return 是否投递了满批（可能还有更多积压）
+     */
+    boolean relayBatch(DomainEventSubscriber subscriber) {
+        String name = subscriber.getName();
+        Offset offset = loadOffset(name);
+        if (offset.waiting()) {
+            return false;
+        }
+
+        long horizon = currentHorizon();
+        List<OutboxEvent> events = findEvents(offset, horizon, subscriber.getEventTypes());
+        if (events.isEmpty()) {
+            // 没有匹配的事件，直接跳过不订阅的事件类型
+            if (horizon > offset.txid()) {
+                advance(name, horizon, 0);
+            }
+            return false;
+        }
+
+        try {
+            subscriber.handle(events);
+        } catch (Exception e) {
+            int attempts = offset.attempts() + 1;
+            long delayMillis = backoffMillis(attempts);
+            logger.warn("Outbox subscriber {} failed on {} events (attempt {}), retrying in {} ms: {}",
+                    name, events.size(), attempts, delayMillis, e.getMessage());
+            jdbcTemplate.update(
+                    "UPDATE outbox_offsets SET attempts = ?, next_attempt_at = now() + make_interval(secs => ?), "
+                            + "last_error = ?, updated_at = now() WHERE subscriber = ?",
+                    attempts, delayMillis / 1000.0, String.valueOf(e.getMessage()), name);
+            meterRegistry.counter("outbox.relay.failures", "subscriber", name).increment();
+            return false;
+        }
+
+        boolean full = events.size() >= batchSize;
+        if (full) {
+            OutboxEvent last = events.get(events.size() - 1);
+            advance(name, last.getTxid(), last.getId());
+        } else {
+            // 不满一批说明horizon之前的匹配事件已全部投递
+            advance(name, horizon, 0);
+        }
+        meterRegistry.counter("outbox.relay.delivered", "subscriber", name).increment(events.size());
+        return full;
+    }
+
+    /**
+     * 第n次失败后的重试间隔：base * 2^(n-1)，不超过上限
+     */
+    long backoffMillis(int attempts) {
+        int exponent = Math.min(Math.max(attempts - 1, 0), 30);
+        return Math.min(retryMaxMillis, retryBaseMillis << exponent);
+    }
+
+    /**
+     * 定时清理超过保留期且已被全部订阅者处理的事件
+     */
+    @Scheduled(fixedDelayString = "${outbox.purge-interval-millis:3600000}",
+            initialDelayString = "${outbox.purge-interval-millis:3600000}")
+    public void scheduledPurge() {
+        if (!advisoryLockService.runExclusively(PURGE_LOCK_NAME, this::purgeDelivered)) {
+            logger.debug("Outbox purge is already running on another node, skipping");
+        }
+    }
+
+    /**
+     * 分批删除已投递的过期事件；没有订阅者时只按保留期删除
+     * @return 删除的事件数
+     */
+    public int purgeDelivered() {
+        Offset slowest = null;
+        for (DomainEventSubscriber subscriber : subscribers) {
+            Offset offset = loadOffset(subscriber.getName());
+            if (slowest == null || offset.txid() < slowest.txid()
+                    || (offset.txid() == slowest.txid() && offset.id() < slowest.id())) {
+                slowest = offset;
+            }
+        }
+
+        String delivered = slowest == null ? "" : "AND (txid, id) <= (?, ?) ";
+        int total = 0;
+        int deleted;
+        do {
+            List<Object> args = new ArrayList<>();
+            args.add(retentionHours);
+            if (slowest != null) {
+                args.add(slowest.txid());
+                args.add(slowest.id());
+            }
+            args.add(purgeBatchSize);
+            deleted = jdbcTemplate.update(
+                    "DELETE FROM outbox_events WHERE id IN (SELECT id FROM outbox_events "
+                            + "WHERE created_at < now() - make_interval(hours => ?) " + delivered
+                            + "ORDER BY id LIMIT ?)",
+                    args.toArray());
+            total += deleted;
+        } while (deleted >= purgeBatchSize);
+
+        if (total > 0) {
+            logger.info("Purged {} delivered outbox events older than {} hours", total, retentionHours);
+        }
+        return total;
+    }
+
+    private Offset loadOffset(String subscriber) {
+        jdbcTemplate.update("INSERT INTO outbox_offsets (subscriber) VALUES (?) ON CONFLICT (subscriber) DO NOTHING",
+                subscriber);
+        return jdbcTemplate.queryForObject(
+                "SELECT last_txid, last_id, attempts, COALESCE(next_attempt_at > now(), FALSE) AS waiting "
+                        + "FROM outbox_offsets WHERE subscriber = ?",
+                (rs, rowNum) -> new Offset(rs.getLong("last_txid"), rs.getLong("last_id"),
+                        rs.getInt("attempts"), rs.getBoolean("waiting")),
+                subscriber);
+    }
+
+    private List<OutboxEvent> findEvents(Offset offset, long horizon, Set<String> eventTypes) {
+        List<Object> args = new ArrayList<>(List.of(offset.txid(), offset.id(), horizon));
+        String typeFilter = "";
+        if (!eventTypes.isEmpty()) {
+            typeFilter = "AND event_type IN (" + String.join(", ", Collections.nCopies(eventTypes.size(), "?")) + ") ";
+            args.addAll(eventTypes);
+        }
+        args.add(batchSize);
+        return jdbcTemplate.query(
+                "SELECT id, txid, event_type, aggregate_type, aggregate_id, payload, created_at FROM outbox_events "
+                        + "WHERE (txid, id) > (?, ?) AND txid < ? " + typeFilter
+                        + "ORDER BY txid, id LIMIT ?",
+                (rs, rowNum) -> new OutboxEvent(rs.getLong("id"), rs.getLong("txid"), rs.getString("event_type"),
+                        rs.getString("aggregate_type"), rs.getString("aggregate_id"), rs.getString("payload"),
+                        rs.getTimestamp("created_at").toLocalDateTime()),
+                args.toArray());
+    }
+
+    private void advance(String subscriber, long txid, long id) {
+        jdbcTemplate.update(
+                "UPDATE outbox_offsets SET last_txid = ?, last_id = ?, attempts = 0, next_attempt_at = NULL, "
+                        + "last_error = NULL, updated_at = now() WHERE subscriber = ?",
+                txid, id, subscriber);
+    }
+
+    /**
+     * 当前快照中最早的未提交事务，txid小于它的事件都已提交
+     */
+    private long currentHorizon() {
+        Long xmin = jdbcTemplate.queryForObject("SELECT txid_snapshot_xmin(txid_current_snapshot())", Long.class);
+        return xmin == null ? 0 : xmin;
+    }
+
+    /**
+     * 订阅者的投递位置；waiting表示仍在失败退避期内
+     */
+    record Offset(long txid, long id, int attempts, boolean waiting) {
+    }
+}
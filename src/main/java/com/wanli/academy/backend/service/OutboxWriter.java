@@ -0,0 +1,67 @@
+package com.wanli.academy.backend.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * outbox写入器
+ * 在发布事件的事务提交前把领域事件写入outbox表，与业务数据一起提交或回滚。
+ * 只写入至少有一个订阅者订阅的事件类型，没有消费者的事件不占用业务事务
+ */
+@Service
+public class OutboxWriter {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired(required = false)
+    private List<DomainEventSubscriber> subscribers = Collections.emptyList();
+
+    // 订阅者关注的事件类型；有订阅全部类型的订阅者时为null
+    private Set<String> subscribedTypes;
+
+    @PostConstruct
+    public void init() {
+        Set<String> types = new HashSet<>();
+        for (DomainEventSubscriber subscriber : subscribers) {
+            if (subscriber.getEventTypes().isEmpty()) {
+                subscribedTypes = null;
+                return;
+            }
+            types.addAll(subscriber.getEventTypes());
+        }
+        subscribedTypes = types;
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT)
+    public void onDomainEvent(DomainEvent event) {
+        if (subscribedTypes != null && !subscribedTypes.contains(event.getType())) {
+            return;
+        }
+        jdbcTemplate.update(
+                "INSERT INTO outbox_events (event_type, aggregate_type, aggregate_id, payload) VALUES (?, ?, ?, CAST(? AS jsonb))",
+                event.getType(), event.aggregateType(), event.aggregateId(), serialize(event));
+    }
+
+    private String serialize(DomainEvent event) {
+        try {
+            return objectMapper.writeValueAsString(event);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to serialize domain event " + event.getType(), e);
+        }
+    }
+}
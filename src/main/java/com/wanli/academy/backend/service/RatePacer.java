@@ -0,0 +1,40 @@
+package com.wanli.academy.backend.service;
+
+/**
+ * 简单的匀速限流器
+ * 累计处理量（文件数或字节数）超出速率允许的进度时休眠补齐，用于后台任务限速
+ */
+class RatePacer {
+
+    private final double permitsPerSecond;
+    private final long startNanos = System.nanoTime();
+    private double permits;
+
+    /**
+     * @param permitsPerSecond 每秒允许的处理量，小于等于0表示不限速
+     */
+    RatePacer(double permitsPerSecond) {
+        this.permitsPerSecond = permitsPerSecond;
+    }
+
+    /**
+     * 记录处理量，必要时阻塞当前线程
+     * @param count 本次处理量
+     */
+    void acquire(long count) {
+        if (permitsPerSecond <= 0) {
+            return;
+        }
+        permits += count;
+        double expectedNanos = permits / permitsPerSecond * 1_000_000_000d;
+        long sleepMillis = (long) ((expectedNanos - (System.nanoTime() - startNanos)) / 1_000_000d);
+        if (sleepMillis > 0) {
+            try {
+                Thread.sleep(sleepMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Background task interrupted", e);
+            }
+        }
+    }
+}
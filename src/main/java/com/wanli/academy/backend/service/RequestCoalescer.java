@@ -0,0 +1,98 @@
+package com.wanli.academy.backend.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * 请求合并服务（single-flight）
+ * 同一时刻对同一键的并发调用只执行一次加载，其余调用等待并共享结果（或异常）。
+ * 加载结果不能依赖当前用户：权限校验应在合并范围之外由每个调用方各自执行
+ */
+@Service
+public class RequestCoalescer {
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final Map<String, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+
+    private final Map<String, Counter[]> counters = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void init() {
+        Gauge.builder("request.coalescing.in.flight", inFlight, Map::size)
+                .description("Coalesced loads currently in flight")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 执行加载，若已有相同键的加载在进行中则等待其结果
+     * @param name 操作名称（用于区分键空间和指标）
+     * @param key 合并键
+     * @param loader 加载逻辑
+     * @return 加载结果
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T execute(String name, Object key, Supplier<T> loader) {
+        String flightKey = name + ":" + key;
+        CompletableFuture<Object> flight = new CompletableFuture<>();
+        CompletableFuture<Object> existing = inFlight.putIfAbsent(flightKey, flight);
+        if (existing != null) {
+            counters(name)[1].increment();
+            return (T) await(existing);
+        }
+
+        counters(name)[0].increment();
+        try {
+            T result = loader.get();
+            flight.complete(result);
+            return result;
+        } catch (RuntimeException | Error e) {
+            flight.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(flightKey, flight);
+        }
+    }
+
+    private Object await(CompletableFuture<Object> flight) {
+        try {
+            return flight.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (cause instanceof Error error) {
+                throw error;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * 每个操作的{执行次数, 合并次数}，合并率 = coalesced / (executed + coalesced)
+     */
+    private Counter[] counters(String name) {
+        return counters.computeIfAbsent(name, n -> new Counter[] {
+                Counter.builder("request.coalescing.calls")
+                        .tags("operation", n, "result", "executed")
+                        .description("Calls that ran the load themselves or shared an in-flight load")
+                        .register(meterRegistry),
+                Counter.builder("request.coalescing.calls")
+                        .tags("operation", n, "result", "coalesced")
+                        .description("Calls that ran the load themselves or shared an in-flight load")
+                        .register(meterRegistry)
+        });
+    }
+}
@@ -0,0 +1,137 @@
+package com.wanli.academy.backend.service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 可扩容布隆过滤器（Scalable Bloom Filter）
+ * 由若干级普通布隆过滤器组成：新元素写入最后一级，写满后追加容量翻倍、误判率减半的新一级，
+ * 总误判率不超过 p0 / (1 - 1/2) = 2 * p0。查询并发安全且无锁，添加使用CAS置位
+ */
+class ScalableBloomFilter {
+
+    private static final double LN2 = Math.log(2);
+
+    private final List<Stage> stages = new CopyOnWriteArrayList<>();
+
+    ScalableBloomFilter(long initialCapacity, double falsePositiveRate) {
+        stages.add(new Stage(Math.max(initialCapacity, 64), falsePositiveRate / 2));
+    }
+
+    /**
+     * 元素可能存在；返回false时一定不存在
+     */
+    boolean mightContain(String value) {
+        long[] hash = hash(value);
+        for (Stage stage : stages) {
+            if (stage.mightContain(hash)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    void add(String value) {
+        long[] hash = hash(value);
+        Stage last = stages.get(stages.size() - 1);
+        if (last.mightContain(hash)) {
+            return;
+        }
+        if (last.count.get() >= last.capacity) {
+            last = grow(last);
+        }
+        last.add(hash);
+    }
+
+    /**
+     * 元素总数（近似，已存在的元素不重复计数）
+     */
+    long size() {
+        return stages.stream().mapToLong(stage -> stage.count.get()).sum();
+    }
+
+    int stageCount() {
+        return stages.size();
+    }
+
+    private synchronized Stage grow(Stage full) {
+        Stage last = stages.get(stages.size() - 1);
+        if (last == full) {
+            last = new Stage(full.capacity * 2, full.falsePositiveRate / 2);
+            stages.add(last);
+        }
+        return last;
+    }
+
+    /**
+     * 64位FNV-1a后分别做两次混淆，得到双重哈希使用的两个值
+     */
+    private static long[] hash(String value) {
+        long h = 0xcbf29ce484222325L;
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            h ^= b;
+            h *= 0x100000001b3L;
+        }
+        return new long[]{mix(h), mix(h ^ 0x9e3779b97f4a7c15L) | 1};
+    }
+
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    /**
+     * 单级布隆过滤器，按容量和误判率计算位数与哈希函数个数
+     */
+    private static class Stage {
+        private final long capacity;
+        private final double falsePositiveRate;
+        private final long bits;
+        private final int hashFunctions;
+        private final AtomicLongArray words;
+        private final AtomicLong count = new AtomicLong();
+
+        Stage(long capacity, double falsePositiveRate) {
+            this.capacity = capacity;
+            this.falsePositiveRate = falsePositiveRate;
+            long optimalBits = (long) Math.ceil(-capacity * Math.log(falsePositiveRate) / (LN2 * LN2));
+            this.bits = Math.max(64, (optimalBits + 63) / 64 * 64);
+            this.hashFunctions = Math.max(1, (int) Math.round((double) bits / capacity * LN2));
+            this.words = new AtomicLongArray((int) (bits / 64));
+        }
+
+        boolean mightContain(long[] hash) {
+            for (int i = 0; i < hashFunctions; i++) {
+                long index = index(hash, i);
+                if ((words.get((int) (index >>> 6)) & (1L << index)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        void add(long[] hash) {
+            for (int i = 0; i < hashFunctions; i++) {
+                long index = index(hash, i);
+                int word = (int) (index >>> 6);
+                long mask = 1L << index;
+                long current;
+                do {
+                    current = words.get(word);
+                } while ((current & mask) == 0 && !words.compareAndSet(word, current, current | mask));
+            }
+            count.incrementAndGet();
+        }
+
+        private long index(long[] hash, int i) {
+            return Math.floorMod(hash[0] + i * hash[1], bits);
+        }
+    }
+}
@@ -0,0 +1,198 @@
+package com.wanli.academy.backend.service;
+
+import com.zaxxer.hikari.HikariDataSource;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * 共享缓存存储（二级缓存的L2）
+ * 序列化后的缓存值保存在PostgreSQL的UNLOGGED表shared_cache中，所有节点共享且在滚动重启后保留。
+ * 过期条目在读取时被忽略，由定时任务分批清理；同一键的计算通过租约行在节点间互斥。
+ * 读取、租约和写入常在业务事务中被调用，因此使用独立于主连接池的小连接池自动提交：写入立即对其他节点可见，
+ * L2出错时不会使业务事务中止（回落本地计算的查询仍可执行），等待其他节点租约时也不在主连接池中多占连接。
+ * 只有驱逐参与业务事务；同一事务中驱逐后的读取在提交前仍可能看到旧值，提交后的再次驱逐会清除
+ */
+@Service
+public class SharedCacheStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(SharedCacheStore.class);
+
+    static final String LOCK_NAME = "shared-cache-sweep";
+
+    @Value("${cache.shared.sweep-batch-size:1000}")
+    private int sweepBatchSize;
+
+    // L2专用连接池的大小和取连接超时，超时按L2不可用处理（本地计算）
+    @Value("${cache.shared.pool-size:4}")
+    private int poolSize;
+
+    @Value("${cache.shared.connection-timeout-millis:2000}")
+    private long connectionTimeoutMillis;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private AdvisoryLockService advisoryLockService;
+
+    @Autowired
+    private DataSourceProperties dataSourceProperties;
+
+    private HikariDataSource cacheDataSource;
+
+    // 自动提交的L2读写模板，不参与业务事务
+    private JdbcTemplate cacheJdbcTemplate;
+
+    // 租约持有者标识，用于只释放本节点获取的租约
+    private final String leaseOwner = UUID.randomUUID().toString();
+
+    @PostConstruct
+    public void init() {
+        cacheDataSource = dataSourceProperties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        cacheDataSource.setPoolName("shared-cache");
+        cacheDataSource.setMaximumPoolSize(poolSize);
+        cacheDataSource.setMinimumIdle(0);
+        cacheDataSource.setConnectionTimeout(connectionTimeoutMillis);
+        cacheJdbcTemplate = new JdbcTemplate(cacheDataSource);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (cacheDataSource != null) {
+            cacheDataSource.close();
+        }
+    }
+
+    /**
+     * 读取未过期的缓存值，在L2专用连接上执行，不参与调用方的事务
+     * @return 序列化后的值，不存在或已过期时返回null
+     */
+    public byte[] get(String cache, String key) {
+        List<byte[]> values = cacheJdbcTemplate.query(
+                "SELECT value FROM shared_cache WHERE cache_name = ? AND cache_key = ? "
+                        + "AND value IS NOT NULL AND expires_at > now()",
+                (rs, rowNum) -> rs.getBytes(1), cache, key);
+        return values.isEmpty() ? null : values.get(0);
+    }
+
+    /**
+     * 写入缓存值并释放该键的租约，自动提交以便其他节点立即可见
+     */
+    public void put(String cache, String key, byte[] value, long ttlSeconds) {
+        cacheJdbcTemplate.update(
+                "INSERT INTO shared_cache (cache_name, cache_key, value, expires_at) "
+                        + "VALUES (?, ?, ?, now() + make_interval(secs => ?)) "
+                        + "ON CONFLICT (cache_name, cache_key) DO UPDATE "
+                        + "SET value = EXCLUDED.value, expires_at = EXCLUDED.expires_at, lease_owner = NULL, lease_until = NULL",
+                cache, key, value, ttlSeconds);
+    }
+
+    /**
+     * 尝试获取计算该键的租约：仅当没有有效值且没有其他节点持有未到期租约时成功
+     */
+    public boolean tryAcquireLease(String cache, String key, long leaseSeconds) {
+        int updated = cacheJdbcTemplate.update(
+                "INSERT INTO shared_cache (cache_name, cache_key, lease_owner, lease_until) "
+                        + "VALUES (?, ?, ?, now() + make_interval(secs => ?)) "
+                        + "ON CONFLICT (cache_name, cache_key) DO UPDATE "
+                        + "SET lease_owner = EXCLUDED.lease_owner, lease_until = EXCLUDED.lease_until "
+                        + "WHERE (shared_cache.value IS NULL OR shared_cache.expires_at <= now()) "
+                        + "AND (shared_cache.lease_until IS NULL OR shared_cache.lease_until <= now())",
+                cache, key, leaseOwner, leaseSeconds);
+        return updated > 0;
+    }
+
+    /**
+     * 计算失败时释放本节点持有的租约，让其他节点可以立即重试
+     */
+    public void releaseLease(String cache, String key) {
+        cacheJdbcTemplate.update(
+                "UPDATE shared_cache SET lease_owner = NULL, lease_until = NULL "
+                        + "WHERE cache_name = ? AND cache_key = ? AND lease_owner = ?",
+                cache, key, leaseOwner);
+    }
+
+    /**
+     * 删除缓存值，参与当前事务（随业务数据一起提交或回滚）；
+     * 提交后再删除一次，清除并发读取者在提交前计算、因等待行锁而在提交后才写入的旧值
+     */
+    public void evict(String cache, String key) {
+        String sql = "DELETE FROM shared_cache WHERE cache_name = ? AND cache_key = ?";
+        jdbcTemplate.update(sql, cache, key);
+        afterCommit(sql, cache, key);
+    }
+
+    /**
+     * 删除某个缓存的全部条目，参与当前事务，提交后再删除一次
+     */
+    public void clear(String cache) {
+        String sql = "DELETE FROM shared_cache WHERE cache_name = ?";
+        jdbcTemplate.update(sql, cache);
+        afterCommit(sql, cache);
+    }
+
+    private void afterCommit(String sql, Object... args) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                try {
+                    cacheJdbcTemplate.update(sql, args);
+                } catch (DataAccessException e) {
+                    // 旧值最迟在TTL到期后失效
+                    logger.warn("Failed to re-evict shared cache entry after commit: {}", e.getMessage());
+                }
+            }
+        });
+    }
+
+    /**
+     * 定时清理过期条目，集群中同一时间只有一个节点执行
+     */
+    @Scheduled(fixedDelayString = "${cache.shared.sweep-interval-millis:300000}",
+            initialDelayString = "${cache.shared.sweep-interval-millis:300000}")
+    public void scheduledSweep() {
+        if (!advisoryLockService.runExclusively(LOCK_NAME, this::sweepExpired)) {
+            logger.debug("Shared cache sweep is already running on another node, skipping");
+        }
+    }
+
+    /**
+     * 分批删除已过期且没有有效租约的条目
+     * @return 删除的条目数
+     */
+    public int sweepExpired() {
+        int total = 0;
+        int deleted;
+        do {
+            deleted = jdbcTemplate.update(
+                    "DELETE FROM shared_cache WHERE ctid IN ("
+                            + "SELECT ctid FROM shared_cache "
+                            + "WHERE (expires_at IS NULL OR expires_at <= now()) "
+                            + "AND (lease_until IS NULL OR lease_until <= now()) LIMIT ?)",
+                    sweepBatchSize);
+            total += deleted;
+        } while (deleted >= sweepBatchSize);
+
+        if (total > 0) {
+            logger.info("Swept {} expired shared cache entries", total);
+        }
+        return total;
+    }
+}
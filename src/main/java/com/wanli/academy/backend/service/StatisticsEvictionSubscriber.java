@@ -0,0 +1,64 @@
+package com.wanli.academy.backend.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.wanli.academy.backend.config.TwoLevelCacheConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Service;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * 作业统计缓存驱逐订阅者
+ * 提交和批改事件经outbox投递后驱逐对应作业的统计缓存，不再在提交/批改事务中同步驱逐；
+ * 统计最多滞后一个投递周期。驱逐是幂等的，重复投递无副作用
+ */
+@Service
+public class StatisticsEvictionSubscriber implements DomainEventSubscriber {
+
+    private static final Logger logger = LoggerFactory.getLogger(StatisticsEvictionSubscriber.class);
+
+    static final String NAME = "statistics-eviction";
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public Set<String> getEventTypes() {
+        return Set.of(SubmissionEvent.CREATED, SubmissionEvent.GRADED);
+    }
+
+    @Override
+    public void handle(List<OutboxEvent> events) throws Exception {
+        // 同一批中同一作业的多条事件只驱逐一次
+        Set<UUID> assignmentIds = new LinkedHashSet<>();
+        for (OutboxEvent event : events) {
+            JsonNode assignmentId = objectMapper.readTree(event.getPayload()).path("assignmentId");
+            if (assignmentId.isTextual()) {
+                assignmentIds.add(UUID.fromString(assignmentId.asText()));
+            }
+        }
+        Cache assignmentStatistics = cacheManager.getCache(TwoLevelCacheConfig.ASSIGNMENT_STATISTICS);
+        Cache submissionStatistics = cacheManager.getCache(TwoLevelCacheConfig.SUBMISSION_STATISTICS);
+        for (UUID assignmentId : assignmentIds) {
+            assignmentStatistics.evict(assignmentId);
+            submissionStatistics.evict(assignmentId);
+        }
+        logger.debug("Evicted statistics for {} assignments from {} events", assignmentIds.size(), events.size());
+    }
+}
@@ -0,0 +1,235 @@
+package com.wanli.academy.backend.service;
+
+import com.wanli.academy.backend.entity.AssignmentFile;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 存储放置服务类
+ * 管理多个上传根目录（通常对应不同磁盘），新文件按剩余空间×权重随机选择根目录，
+ * 读取时根据记录中的根目录名称解析实际路径，因此可以在不停机的情况下增加磁盘
+ */
+@Service
+public class StoragePlacementService {
+
+    private static final Logger logger = LoggerFactory.getLogger(StoragePlacementService.class);
+
+    static final String DEFAULT_ROOT = "default";
+    public static final String COLD_ROOT = "cold";
+
+    // 未配置多根目录时使用的单一上传目录
+    @Value("${file.upload.dir:./uploads}")
+    private String uploadDir;
+
+    // 存储根目录列表，格式：name=path:weight,name=path:weight
+    @Value("${file.storage.roots:}")
+    private String rootsConfig;
+
+    // 每个根目录保留的最小剩余空间（字节），低于该值不再放置新文件
+    @Value("${file.storage.min-free-bytes:1073741824}")
+    private long minFreeBytes;
+    
+    // 冷存储层目录，为空表示不启用；冷存储层只接收分层任务迁入的文件，不参与新文件放置
+    @Value("${file.storage.cold-root:}")
+    private String coldRootDir;
+
+    private final Map<String, StorageRoot> roots = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void init() {
+        roots.clear();
+        if (StringUtils.hasText(rootsConfig)) {
+            for (String entry : rootsConfig.split(",")) {
+                register(parseRoot(entry.trim()));
+            }
+        }
+        // 配置多根目录之前写入的文件记录在default下，始终保留该根目录以便读取；配置了其他根目录时不再放置新文件
+        if (!roots.containsKey(DEFAULT_ROOT)) {
+            register(new StorageRoot(DEFAULT_ROOT, Paths.get(uploadDir), 1, roots.isEmpty()));
+        }
+        if (StringUtils.hasText(coldRootDir)) {
+            register(new StorageRoot(COLD_ROOT, Paths.get(coldRootDir), 1, false));
+        }
+        logger.info("Configured storage roots: {}", roots.values());
+    }
+
+    /**
+     * 注册一个存储根目录（例如冷存储层），重名时覆盖
+     * @param root 存储根目录
+     */
+    public void register(StorageRoot root) {
+        roots.put(root.getName(), root);
+    }
+
+    /**
+     * 为新文件选择存储根目录：只考虑参与放置且剩余空间充足的根目录，按剩余空间×权重加权随机
+     * @param fileSize 文件大小
+     * @return 选中的根目录
+     */
+    public StorageRoot selectRoot(long fileSize) {
+        List<StorageRoot> candidates = new ArrayList<>();
+        List<Double> scores = new ArrayList<>();
+        double totalScore = 0;
+
+        for (StorageRoot root : roots.values()) {
+            if (!root.isPlacement()) {
+                continue;
+            }
+            long usable = root.getUsableSpace();
+            if (usable - fileSize < minFreeBytes) {
+                continue;
+            }
+            double score = (double) usable * root.getWeight();
+            candidates.add(root);
+            scores.add(score);
+            totalScore += score;
+        }
+
+        if (candidates.isEmpty()) {
+            throw new IllegalStateException("No storage root has enough free space");
+        }
+
+        double pick = ThreadLocalRandom.current().nextDouble(totalScore);
+        for (int i = 0; i < candidates.size(); i++) {
+            pick -= scores.get(i);
+            if (pick < 0) {
+                return candidates.get(i);
+            }
+        }
+        return candidates.get(candidates.size() - 1);
+    }
+
+    /**
+     * 解析文件记录对应的物理路径
+     * @param file 文件记录
+     * @return 物理路径
+     */
+    public Path resolve(AssignmentFile file) {
+        if (file.getStorageRoot() != null && file.getStorageKey() != null) {
+            StorageRoot root = roots.get(file.getStorageRoot());
+            if (root == null) {
+                throw new IllegalStateException("Unknown storage root: " + file.getStorageRoot());
+            }
+            return root.resolve(file.getStorageKey());
+        }
+        // 旧记录没有根目录信息，直接使用保存的完整路径
+        return Paths.get(file.getFilePath());
+    }
+
+    /**
+     * 根据名称获取存储根目录
+     * @param name 根目录名称
+     * @return 存储根目录，不存在时为null
+     */
+    public StorageRoot getRoot(String name) {
+        return roots.get(name);
+    }
+
+    /**
+     * 获取全部存储根目录
+     * @return 存储根目录集合
+     */
+    public Collection<StorageRoot> getRoots() {
+        return Collections.unmodifiableCollection(roots.values());
+    }
+
+    private StorageRoot parseRoot(String entry) {
+        int nameSeparator = entry.indexOf('=');
+        int weightSeparator = entry.lastIndexOf(':');
+        if (nameSeparator <= 0 || weightSeparator <= nameSeparator) {
+            throw new IllegalArgumentException("Invalid storage root definition (expected name=path:weight): " + entry);
+        }
+        String name = entry.substring(0, nameSeparator).trim();
+        String path = entry.substring(nameSeparator + 1, weightSeparator).trim();
+        int weight = Integer.parseInt(entry.substring(weightSeparator + 1).trim());
+        return new StorageRoot(name, Paths.get(path), weight, true);
+    }
+
+    /**
+     * 存储根目录
+     */
+    public static class StorageRoot {
+        private final String name;
+        private final Path path;
+        private final int weight;
+        private final boolean placement;
+
+        public StorageRoot(String name, Path path, int weight, boolean placement) {
+            this.name = name;
+            this.path = path;
+            this.weight = weight;
+            this.placement = placement;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public Path getPath() {
+            return path;
+        }
+
+        public int getWeight() {
+            return weight;
+        }
+
+        /**
+         * 是否参与新文件放置（冷存储层等专用根目录不参与）
+         */
+        public boolean isPlacement() {
+            return placement;
+        }
+
+        public Path resolve(String storageKey) {
+            return path.resolve(storageKey);
+        }
+
+        /**
+         * 获取根目录所在卷的可用空间，目录不可访问时视为0
+         */
+        public long getUsableSpace() {
+            try {
+                Files.createDirectories(path);
+                return Files.getFileStore(path).getUsableSpace();
+            } catch (IOException e) {
+                logger.warn("Storage root {} is not accessible: {}", name, e.getMessage());
+                return 0;
+            }
+        }
+
+        /**
+         * 获取根目录所在卷的已用比例
+         */
+        public double getFillRatio() {
+            try {
+                Files.createDirectories(path);
+                var store = Files.getFileStore(path);
+                long total = store.getTotalSpace();
+                return total == 0 ? 1.0 : 1.0 - (double) store.getUsableSpace() / total;
+            } catch (IOException e) {
+                return 1.0;
+            }
+        }
+
+        @Override
+        public String toString() {
+            return name + "=" + path + ":" + weight;
+        }
+    }
+}
@@ -0,0 +1,282 @@
+package com.wanli.academy.backend.service;
+
+import com.wanli.academy.backend.entity.StorageUsage;
+import com.wanli.academy.backend.repository.AssignmentFileRepository;
+import com.wanli.academy.backend.repository.StorageUsageRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 存储配额服务类
+ * 维护按用户、按作业和全局的存储用量计数，上传前以O(1)方式检查配额，
+ * 并由定时任务分批对账，修正计数与实际文件记录之间的偏差
+ */
+@Service
+@Transactional
+public class StorageQuotaService {
+
+    private static final Logger logger = LoggerFactory.getLogger(StorageQuotaService.class);
+
+    // 单个用户配额（字节），0表示不限制，默认1GB
+    @Value("${file.quota.user-max-bytes:1073741824}")
+    private long userMaxBytes;
+
+    // 单个作业配额（字节），0表示不限制，默认5GB
+    @Value("${file.quota.assignment-max-bytes:5368709120}")
+    private long assignmentMaxBytes;
+
+    // 全局配额（字节），0表示不限制
+    @Value("${file.quota.global-max-bytes:0}")
+    private long globalMaxBytes;
+
+    // 全局计数分片数，分散所有上传对同一行的锁竞争
+    @Value("${file.quota.global-stripes:8}")
+    private int globalStripes;
+
+    // 对账批大小
+    @Value("${file.quota.reconcile-batch-size:500}")
+    private int reconcileBatchSize;
+
+    @Autowired
+    private StorageUsageRepository storageUsageRepository;
+
+    @Autowired
+    private AssignmentFileRepository assignmentFileRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    // 全局用量快照，供指标采集读取，避免每次抓取都访问数据库
+    private final AtomicLong globalUsedBytes = new AtomicLong();
+    private final AtomicLong globalFileCount = new AtomicLong();
+
+    private Timer reconcileTimer;
+
+    @PostConstruct
+    public void registerMetrics() {
+        Gauge.builder("file.storage.used.bytes", globalUsedBytes, AtomicLong::get)
+                .description("Total bytes stored across all uploads")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        Gauge.builder("file.storage.files", globalFileCount, AtomicLong::get)
+                .description("Total number of stored files")
+                .register(meterRegistry);
+        Gauge.builder("file.storage.quota.user.max.bytes", () -> userMaxBytes)
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        Gauge.builder("file.storage.quota.assignment.max.bytes", () -> assignmentMaxBytes)
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        reconcileTimer = Timer.builder("file.storage.reconcile")
+                .description("Time taken by a full storage usage reconciliation pass")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 检查上传是否超出配额
+     * 只读取至多 2 + globalStripes 行计数，与用户或作业已有文件数量无关
+     * 注意：检查与计数累加之间没有加锁，并发上传可能使用量短暂超出配额一个文件的大小
+     * @param userId 上传者ID
+     * @param assignmentId 作业ID（可为空）
+     * @param fileSize 待上传文件大小
+     */
+    @Transactional(readOnly = true)
+    public void checkQuota(Long userId, UUID assignmentId, long fileSize) {
+        String userKey = String.valueOf(userId);
+        String assignmentKey = assignmentId != null ? assignmentId.toString() : null;
+
+        long userUsed = 0;
+        long assignmentUsed = 0;
+        long globalUsed = 0;
+        for (StorageUsage usage : storageUsageRepository.findQuotaRows(userKey, assignmentKey)) {
+            switch (usage.getScope()) {
+                case StorageUsage.SCOPE_USER -> userUsed = usage.getUsedBytes();
+                case StorageUsage.SCOPE_ASSIGNMENT -> assignmentUsed = usage.getUsedBytes();
+                case StorageUsage.SCOPE_GLOBAL -> globalUsed += usage.getUsedBytes();
+                default -> { }
+            }
+        }
+
+        if (exceeds(userMaxBytes, userUsed, fileSize)) {
+            reject(StorageUsage.SCOPE_USER);
+            throw new IllegalArgumentException("Storage quota exceeded for user: limit " + toMegabytes(userMaxBytes) + "MB");
+        }
+        if (assignmentId != null && exceeds(assignmentMaxBytes, assignmentUsed, fileSize)) {
+            reject(StorageUsage.SCOPE_ASSIGNMENT);
+            throw new IllegalArgumentException("Storage quota exceeded for assignment: limit " + toMegabytes(assignmentMaxBytes) + "MB");
+        }
+        if (exceeds(globalMaxBytes, globalUsed, fileSize)) {
+            reject(StorageUsage.SCOPE_GLOBAL);
+            throw new IllegalArgumentException("Storage quota exceeded: system storage is full");
+        }
+    }
+
+    /**
+     * 记录上传，在调用方事务内累加计数，与文件记录一同提交或回滚
+     * @param userId 上传者ID
+     * @param assignmentId 作业ID（可为空）
+     * @param fileSize 文件大小
+     */
+    public void recordUpload(Long userId, UUID assignmentId, long fileSize) {
+        applyDelta(userId, assignmentId, fileSize, 1);
+    }
+
+    /**
+     * 记录删除，在调用方事务内扣减计数
+     * @param userId 上传者ID
+     * @param assignmentId 作业ID（可为空）
+     * @param fileSize 文件大小
+     */
+    public void recordDelete(Long userId, UUID assignmentId, long fileSize) {
+        applyDelta(userId, assignmentId, -fileSize, -1);
+    }
+
+    /**
+     * 批量记录删除，同一用户和作业下的多个文件合并为一次扣减
+     * @param userId 上传者ID
+     * @param assignmentId 作业ID（可为空）
+     * @param totalBytes 删除文件的总大小
+     * @param fileCount 删除文件数
+     */
+    public void recordDeletes(Long userId, UUID assignmentId, long totalBytes, long fileCount) {
+        applyDelta(userId, assignmentId, -totalBytes, -fileCount);
+    }
+
+    private void applyDelta(Long userId, UUID assignmentId, long bytesDelta, long filesDelta) {
+        if (userId != null) {
+            storageUsageRepository.increment(StorageUsage.SCOPE_USER, String.valueOf(userId), bytesDelta, filesDelta);
+        }
+        if (assignmentId != null) {
+            storageUsageRepository.increment(StorageUsage.SCOPE_ASSIGNMENT, assignmentId.toString(), bytesDelta, filesDelta);
+        }
+        storageUsageRepository.increment(StorageUsage.SCOPE_GLOBAL, randomGlobalStripe(), bytesDelta, filesDelta);
+    }
+
+    /**
+     * 定时对账：按批重新聚合assignment_files，覆盖计数行
+     * 每批在独立的短事务中执行，不会长时间持有锁；未被本轮触及的计数行（文件已全部删除）最后清零
+     */
+    @Scheduled(cron = "${file.quota.reconcile-cron:0 30 3 * * *}")
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void reconcile() {
+        logger.info("Starting storage usage reconciliation");
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+
+        reconcileTimer.record(() -> {
+            LocalDateTime reconcileStart = storageUsageRepository.currentDatabaseTime();
+
+            long afterUploadedBy = Long.MIN_VALUE;
+            int users = 0;
+            while (true) {
+                final long after = afterUploadedBy;
+                List<Object[]> batch = tx.execute(status -> {
+                    List<Object[]> rows = assignmentFileRepository.aggregateUsageByUploader(after, reconcileBatchSize);
+                    for (Object[] row : rows) {
+                        storageUsageRepository.overwrite(StorageUsage.SCOPE_USER, String.valueOf(row[0]),
+                                toLong(row[1]), toLong(row[2]));
+                    }
+                    return rows;
+                });
+                users += batch.size();
+                if (batch.size() < reconcileBatchSize) {
+                    break;
+                }
+                afterUploadedBy = toLong(batch.get(batch.size() - 1)[0]);
+            }
+
+            UUID afterAssignmentId = KeysetCursors.MIN_UUID;
+            int assignments = 0;
+            while (true) {
+                final UUID after = afterAssignmentId;
+                List<Object[]> batch = tx.execute(status -> {
+                    List<Object[]> rows = assignmentFileRepository.aggregateUsageByAssignment(after, reconcileBatchSize);
+                    for (Object[] row : rows) {
+                        storageUsageRepository.overwrite(StorageUsage.SCOPE_ASSIGNMENT, String.valueOf(row[0]),
+                                toLong(row[1]), toLong(row[2]));
+                    }
+                    return rows;
+                });
+                assignments += batch.size();
+                if (batch.size() < reconcileBatchSize) {
+                    break;
+                }
+                afterAssignmentId = (UUID) batch.get(batch.size() - 1)[0];
+            }
+
+            tx.executeWithoutResult(status -> {
+                Object[] total = assignmentFileRepository.aggregateTotalUsage().get(0);
+                storageUsageRepository.overwrite(StorageUsage.SCOPE_GLOBAL, globalStripeKey(0), toLong(total[0]), toLong(total[1]));
+                for (int stripe = 1; stripe < globalStripes; stripe++) {
+                    storageUsageRepository.overwrite(StorageUsage.SCOPE_GLOBAL, globalStripeKey(stripe), 0, 0);
+                }
+                storageUsageRepository.resetUntouched(StorageUsage.SCOPE_USER, reconcileStart);
+                storageUsageRepository.resetUntouched(StorageUsage.SCOPE_ASSIGNMENT, reconcileStart);
+            });
+
+            logger.info("Storage usage reconciliation finished: {} users, {} assignments", users, assignments);
+        });
+
+        refreshMetrics();
+    }
+
+    /**
+     * 定时刷新全局用量快照
+     */
+    @Scheduled(fixedDelayString = "${file.quota.metrics-refresh-ms:60000}")
+    @Transactional(readOnly = true)
+    public void refreshMetrics() {
+        long bytes = 0;
+        long files = 0;
+        for (StorageUsage usage : storageUsageRepository.findGlobalRows()) {
+            bytes += usage.getUsedBytes();
+            files += usage.getFileCount();
+        }
+        globalUsedBytes.set(bytes);
+        globalFileCount.set(files);
+    }
+
+    private boolean exceeds(long limit, long used, long fileSize) {
+        return limit > 0 && used + fileSize > limit;
+    }
+
+    private void reject(String scope) {
+        meterRegistry.counter("file.storage.quota.rejections", "scope", scope).increment();
+    }
+
+    private String randomGlobalStripe() {
+        return globalStripeKey(ThreadLocalRandom.current().nextInt(Math.max(globalStripes, 1)));
+    }
+
+    private String globalStripeKey(int stripe) {
+        return "stripe-" + stripe;
+    }
+
+    private long toMegabytes(long bytes) {
+        return bytes / 1024 / 1024;
+    }
+
+    private long toLong(Object value) {
+        return value == null ? 0L : ((Number) value).longValue();
+    }
+}
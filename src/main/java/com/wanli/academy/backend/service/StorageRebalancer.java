@@ -0,0 +1,178 @@
+package com.wanli.academy.backend.service;
+
+import com.wanli.academy.backend.entity.AssignmentFile;
+import com.wanli.academy.backend.repository.AssignmentFileRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * 存储再平衡任务
+ * 当各存储根目录的使用率差距超过阈值时，把文件从最满的根目录迁移到最空的根目录。
+ * 迁移顺序为：限速复制到临时文件 → 原子重命名 → 更新记录 → 删除源文件，任一步失败都不会丢失数据
+ */
+@Service
+public class StorageRebalancer {
+
+    private static final Logger logger = LoggerFactory.getLogger(StorageRebalancer.class);
+
+    static final String LOCK_NAME = "storage-rebalance";
+
+    private static final int COPY_BUFFER_SIZE = 64 * 1024;
+
+    // 触发再平衡的使用率差距
+    @Value("${file.storage.rebalance.threshold:0.10}")
+    private double threshold;
+
+    // 迁移带宽上限（字节/秒）
+    @Value("${file.storage.rebalance.bytes-per-second:10485760}")
+    private long bytesPerSecond;
+
+    // 单轮最多迁移的字节数
+    @Value("${file.storage.rebalance.max-bytes-per-run:10737418240}")
+    private long maxBytesPerRun;
+
+    @Value("${file.storage.rebalance.batch-size:100}")
+    private int batchSize;
+
+    @Autowired
+    private StoragePlacementService storagePlacementService;
+
+    @Autowired
+    private AssignmentFileRepository assignmentFileRepository;
+
+    @Autowired
+    private AdvisoryLockService advisoryLockService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    /**
+     * 定时再平衡，集群中同一时间只有一个节点执行
+     */
+    @Scheduled(cron = "${file.storage.rebalance.cron:0 0 2 * * *}")
+    public void scheduledRebalance() {
+        if (!advisoryLockService.runExclusively(LOCK_NAME, this::rebalance)) {
+            logger.info("Storage rebalance is already running on another node, skipping");
+        }
+    }
+
+    /**
+     * 执行一轮再平衡
+     * @return 迁移的字节数
+     */
+    public long rebalance() {
+        List<StoragePlacementService.StorageRoot> roots = storagePlacementService.getRoots().stream()
+                .filter(StoragePlacementService.StorageRoot::isPlacement)
+                .toList();
+        if (roots.size() < 2) {
+            return 0;
+        }
+
+        StoragePlacementService.StorageRoot source = roots.stream()
+                .max(Comparator.comparingDouble(StoragePlacementService.StorageRoot::getFillRatio)).orElseThrow();
+        StoragePlacementService.StorageRoot target = roots.stream()
+                .min(Comparator.comparingDouble(StoragePlacementService.StorageRoot::getFillRatio)).orElseThrow();
+        if (source.getFillRatio() - target.getFillRatio() < threshold) {
+            logger.debug("Storage roots are balanced, nothing to move");
+            return 0;
+        }
+
+        logger.info("Rebalancing storage from {} to {}", source.getName(), target.getName());
+        RatePacer pacer = new RatePacer(bytesPerSecond);
+        long movedBytes = 0;
+        int movedFiles = 0;
+        UUID afterId = KeysetCursors.MIN_UUID;
+
+        while (movedBytes < maxBytesPerRun) {
+            List<AssignmentFile> page = assignmentFileRepository.findPageByStorageRoot(source.getName(), afterId, batchSize);
+            if (page.isEmpty()) {
+                break;
+            }
+            for (AssignmentFile file : page) {
+                if (movedBytes >= maxBytesPerRun) {
+                    break;
+                }
+                long size = moveBlob(file, source, target, pacer);
+                if (size >= 0) {
+                    movedBytes += size;
+                    movedFiles++;
+                }
+            }
+            // 每批之后重新评估，使用率差距缩小到阈值一半以内即停止
+            if (source.getFillRatio() - target.getFillRatio() < threshold / 2) {
+                break;
+            }
+            afterId = page.get(page.size() - 1).getId();
+        }
+
+        logger.info("Storage rebalance moved {} files ({} bytes) from {} to {}",
+                movedFiles, movedBytes, source.getName(), target.getName());
+        return movedBytes;
+    }
+
+    /**
+     * 迁移单个文件
+     * @return 迁移的字节数，失败或已被并发修改时返回-1
+     */
+    long moveBlob(AssignmentFile file, StoragePlacementService.StorageRoot source,
+                  StoragePlacementService.StorageRoot target, RatePacer pacer) {
+        Path from = source.resolve(file.getStorageKey());
+        Path to = target.resolve(file.getStorageKey());
+        Path temp = to.resolveSibling(to.getFileName() + ".moving");
+
+        try {
+            Files.createDirectories(to.getParent());
+            long size = copyThrottled(from, temp, pacer);
+            Files.move(temp, to, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+
+            Integer updated = new TransactionTemplate(transactionManager).execute(status ->
+                    assignmentFileRepository.moveToStorageRoot(file.getId(), source.getName(), target.getName(), to.toString()));
+            if (updated == null || updated == 0) {
+                // 文件在迁移期间被删除或已被移动，丢弃副本
+                Files.deleteIfExists(to);
+                return -1;
+            }
+
+            Files.deleteIfExists(from);
+            return size;
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Failed to move {} from {} to {}: {}", file.getId(), source.getName(), target.getName(), e.getMessage());
+            try {
+                Files.deleteIfExists(temp);
+            } catch (IOException ignored) {
+                // 残留的临时文件由文件存储对账任务识别为孤儿
+            }
+            return -1;
+        }
+    }
+
+    private long copyThrottled(Path from, Path to, RatePacer pacer) throws IOException {
+        long total = 0;
+        byte[] buffer = new byte[COPY_BUFFER_SIZE];
+        try (InputStream in = Files.newInputStream(from); OutputStream out = Files.newOutputStream(to)) {
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
+                total += read;
+                pacer.acquire(read);
+            }
+        }
+        return total;
+    }
+}
@@ -0,0 +1,103 @@
+package com.wanli.academy.backend.service;
+
+import com.wanli.academy.backend.entity.Submission;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * 提交领域事件
+ * 在提交/批改的事务中发布，事务提交后推送给作业教师（新提交）或学生（成绩发布），并写入outbox
+ */
+public class SubmissionEvent implements DomainEvent {
+
+    public static final String CREATED = "submission.created";
+    public static final String GRADED = "submission.graded";
+
+    private final String type;
+    private final UUID submissionId;
+    private final UUID assignmentId;
+    private final Long studentId;
+    private final Long teacherId;
+    private final String status;
+    private final Integer score;
+    private final LocalDateTime occurredAt;
+
+    public SubmissionEvent(String type, UUID submissionId, UUID assignmentId, Long studentId, Long teacherId,
+                           String status, Integer score, LocalDateTime occurredAt) {
+        this.type = type;
+        this.submissionId = submissionId;
+        this.assignmentId = assignmentId;
+        this.studentId = studentId;
+        this.teacherId = teacherId;
+        this.status = status;
+        this.score = score;
+        this.occurredAt = occurredAt;
+    }
+
+    /**
+     * 学生提交作业
+     */
+    public static SubmissionEvent created(Submission submission, Long teacherId) {
+        return new SubmissionEvent(CREATED, submission.getId(), submission.getAssignmentId(),
+                submission.getStudentId(), teacherId, submission.getStatus(), null, LocalDateTime.now());
+    }
+
+    /**
+     * 教师批改完成，成绩对学生可见
+     */
+    public static SubmissionEvent graded(Submission submission, Long teacherId) {
+        return new SubmissionEvent(GRADED, submission.getId(), submission.getAssignmentId(),
+                submission.getStudentId(), teacherId, submission.getStatus(), submission.getScore(), LocalDateTime.now());
+    }
+
+    /**
+     * 事件的接收用户：新提交通知教师，成绩发布通知学生
+     */
+    public Long recipientId() {
+        return CREATED.equals(type) ? teacherId : studentId;
+    }
+
+    @Override
+    public String getType() {
+        return type;
+    }
+
+    @Override
+    public String aggregateType() {
+        return "submission";
+    }
+
+    @Override
+    public String aggregateId() {
+        return submissionId.toString();
+    }
+
+    public UUID getSubmissionId() {
+        return submissionId;
+    }
+
+    public UUID getAssignmentId() {
+        return assignmentId;
+    }
+
+    public Long getStudentId() {
+        return studentId;
+    }
+
+    public Long getTeacherId() {
+        return teacherId;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public Integer getScore() {
+        return score;
+    }
+
+    public LocalDateTime getOccurredAt() {
+        return occurredAt;
+    }
+}
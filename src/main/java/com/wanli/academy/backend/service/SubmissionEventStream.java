@@ -0,0 +1,246 @@
+package com.wanli.academy.backend.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 提交事件推送服务（Server-Sent Events）
+ * 事务提交后把新提交推送给作业教师、把成绩发布推送给学生。
+ * 连接使用Servlet异步请求，空闲连接不占用线程；每个连接有有界缓冲区，由少量共享线程顺序发送，
+ * 缓冲区溢出时丢弃积压事件并发送sync.reset，客户端应通过/api/sync补齐。
+ * 只推送到本节点上的连接，断线重连后客户端同样应通过/api/sync补齐
+ */
+@Service
+public class SubmissionEventStream {
+
+    private static final Logger logger = LoggerFactory.getLogger(SubmissionEventStream.class);
+
+    static final String RESET_EVENT = "sync.reset";
+
+    @Value("${sse.timeout-millis:1800000}")
+    private long timeoutMillis;
+
+    @Value("${sse.buffer-size:32}")
+    private int bufferSize;
+
+    @Value("${sse.max-connections-per-user:5}")
+    private int maxConnectionsPerUser;
+
+    @Value("${sse.sender-threads:4}")
+    private int senderThreads;
+
+    @Value("${sse.reconnect-millis:5000}")
+    private long reconnectMillis;
+
+    @Autowired
+    private PermissionService permissionService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final Map<Long, Set<Connection>> connections = new ConcurrentHashMap<>();
+
+    private final AtomicInteger connectionCount = new AtomicInteger();
+
+    private Executor sender;
+
+    private Counter deliveredCounter;
+    private Counter overflowCounter;
+
+    @PostConstruct
+    public void init() {
+        AtomicInteger threadIndex = new AtomicInteger();
+        sender = Executors.newFixedThreadPool(senderThreads, runnable -> {
+            Thread thread = new Thread(runnable, "sse-sender-" + threadIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        Gauge.builder("sse.connections", connectionCount, AtomicInteger::get)
+                .description("Open server-sent event connections on this node")
+                .register(meterRegistry);
+        deliveredCounter = Counter.builder("sse.events.delivered")
+                .description("Submission events queued to server-sent event connections")
+                .register(meterRegistry);
+        overflowCounter = Counter.builder("sse.events.overflows")
+                .description("Connections whose buffer overflowed and were told to resync")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        connections.values().forEach(set -> set.forEach(Connection::close));
+        if (sender instanceof ExecutorService executorService) {
+            executorService.shutdownNow();
+        }
+    }
+
+    /**
+     * 为当前用户打开事件流
+     * @return SSE发射器
+     */
+    public SseEmitter connect() {
+        Long userId = permissionService.getCurrentUserId();
+        if (userId == null) {
+            throw new AccessDeniedException("用户未登录");
+        }
+        SseEmitter emitter = new SseEmitter(timeoutMillis);
+        Connection connection = register(userId, emitter);
+        connection.enqueue(SseEmitter.event().comment("connected").reconnectTime(reconnectMillis));
+        return emitter;
+    }
+
+    /**
+     * 登记连接；同一用户的连接数超过上限时关闭最早的连接
+     */
+    Connection register(Long userId, SseEmitter emitter) {
+        Connection connection = new Connection(emitter, bufferSize, sender, overflowCounter);
+        Set<Connection> userConnections = connections.computeIfAbsent(userId, id -> new CopyOnWriteArraySet<>());
+        userConnections.add(connection);
+        connectionCount.incrementAndGet();
+
+        Runnable remove = () -> {
+            if (userConnections.remove(connection)) {
+                connectionCount.decrementAndGet();
+            }
+            connections.computeIfPresent(userId, (id, set) -> set.isEmpty() ? null : set);
+        };
+        emitter.onCompletion(remove);
+        emitter.onTimeout(remove);
+        emitter.onError(error -> remove.run());
+
+        while (userConnections.size() > maxConnectionsPerUser) {
+            Connection oldest = userConnections.iterator().next();
+            userConnections.remove(oldest);
+            connectionCount.decrementAndGet();
+            oldest.close();
+        }
+        return connection;
+    }
+
+    /**
+     * 事务提交后推送提交事件，回滚的事务不会推送
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onSubmissionEvent(SubmissionEvent event) {
+        Long recipientId = event.recipientId();
+        if (recipientId == null) {
+            return;
+        }
+        Set<Connection> userConnections = connections.get(recipientId);
+        if (userConnections == null) {
+            return;
+        }
+        for (Connection connection : userConnections) {
+            connection.enqueue(SseEmitter.event()
+                    .name(event.getType())
+                    .id(event.getSubmissionId().toString())
+                    .data(event, MediaType.APPLICATION_JSON));
+            deliveredCounter.increment();
+        }
+    }
+
+    /**
+     * 定期发送注释行，防止代理和负载均衡器关闭空闲连接，同时及早发现已断开的客户端
+     */
+    @Scheduled(fixedRateString = "${sse.heartbeat-millis:15000}", initialDelayString = "${sse.heartbeat-millis:15000}")
+    public void heartbeat() {
+        connections.values().forEach(set -> set.forEach(
+                connection -> connection.enqueue(SseEmitter.event().comment("heartbeat"))));
+    }
+
+    /**
+     * 单个SSE连接：有界缓冲区 + 按需调度到共享发送线程，同一连接同一时间只有一个线程在发送
+     */
+    static class Connection {
+        private final SseEmitter emitter;
+        private final int capacity;
+        private final Executor sender;
+        private final Counter overflowCounter;
+        private final Deque<SseEmitter.SseEventBuilder> buffer = new ArrayDeque<>();
+        private boolean draining;
+        private boolean closed;
+
+        Connection(SseEmitter emitter, int capacity, Executor sender, Counter overflowCounter) {
+            this.emitter = emitter;
+            this.capacity = capacity;
+            this.sender = sender;
+            this.overflowCounter = overflowCounter;
+        }
+
+        void enqueue(SseEmitter.SseEventBuilder event) {
+            synchronized (this) {
+                if (closed) {
+                    return;
+                }
+                if (buffer.size() >= capacity) {
+                    // 客户端跟不上：丢弃积压，通知其重新同步
+                    buffer.clear();
+                    buffer.add(SseEmitter.event().name(RESET_EVENT).data("{}", MediaType.APPLICATION_JSON));
+                    overflowCounter.increment();
+                }
+                buffer.add(event);
+                if (draining) {
+                    return;
+                }
+                draining = true;
+            }
+            sender.execute(this::drain);
+        }
+
+        private void drain() {
+            while (true) {
+                SseEmitter.SseEventBuilder next;
+                synchronized (this) {
+                    next = closed ? null : buffer.poll();
+                    if (next == null) {
+                        draining = false;
+                        return;
+                    }
+                }
+                try {
+                    emitter.send(next);
+                } catch (IOException | IllegalStateException e) {
+                    logger.debug("Closing server-sent event connection: {}", e.getMessage());
+                    close();
+                }
+            }
+        }
+
+        void close() {
+            synchronized (this) {
+                if (closed) {
+                    return;
+                }
+                closed = true;
+                buffer.clear();
+            }
+            emitter.complete();
+        }
+    }
+}
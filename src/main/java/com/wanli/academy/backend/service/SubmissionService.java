@@ -1,5 +1,8 @@
 package com.wanli.academy.backend.service;
 
+import com.wanli.academy.backend.config.TwoLevelCacheConfig;
+import com.wanli.academy.backend.dto.BulkGradeRequest;
+import com.wanli.academy.backend.dto.BulkGradeResponse;
 import com.wanli.academy.backend.dto.SubmissionResponse;
 import com.wanli.academy.backend.dto.SubmissionResultDTO;
 import com.wanli.academy.backend.dto.QuestionResponse;
@@ -8,25 +11,41 @@ import com.wanli.academy.backend.entity.Submission;
 import com.wanli.academy.backend.entity.User;
 import com.wanli.academy.backend.entity.Question;
 import com.wanli.academy.backend.entity.Homework;
+import com.wanli.academy.backend.exception.VersionConflictException;
 import com.wanli.academy.backend.repository.AssignmentRepository;
 import com.wanli.academy.backend.repository.SubmissionRepository;
 import com.wanli.academy.backend.repository.UserRepository;
 import com.wanli.academy.backend.repository.QuestionRepository;
 import com.wanli.academy.backend.repository.HomeworkRepository;
+import com.wanli.academy.backend.repository.VersionStamp;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.Serializable;
+import java.sql.Timestamp;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
 import java.util.stream.Collectors;
 
@@ -54,6 +73,21 @@ public class SubmissionService {
     
     @Autowired
     private HomeworkRepository homeworkRepository;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private RequestCoalescer requestCoalescer;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private GradingQueueService gradingQueueService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
     
     /**
      * 提交作业
@@ -89,6 +123,7 @@ public class SubmissionService {
         submission.setUpdatedAt(LocalDateTime.now());
         
         Submission savedSubmission = submissionRepository.save(submission);
+        eventPublisher.publishEvent(SubmissionEvent.created(savedSubmission, assignment.getCreatorId()));
         
         logger.info("Assignment submitted successfully. Submission ID: {}", savedSubmission.getId());
         
@@ -103,6 +138,18 @@ public class SubmissionService {
      * @return 更新后的提交响应
      */
     public SubmissionResponse updateSubmission(UUID submissionId, String content, String filePath) {
+        return updateSubmission(submissionId, content, filePath, null);
+    }
+    
+    /**
+     * 更新提交内容，校验客户端读取时的版本号
+     * @param submissionId 提交ID
+     * @param content 新的提交内容
+     * @param filePath 新的文件路径（可选）
+     * @param expectedVersion 客户端读取时的版本号，为空时只依赖写入时的乐观锁
+     * @return 更新后的提交响应
+     */
+    public SubmissionResponse updateSubmission(UUID submissionId, String content, String filePath, Long expectedVersion) {
         logger.info("Updating submission: {}", submissionId);
         
         Long currentUserId = getCurrentUserId();
@@ -115,6 +162,8 @@ public class SubmissionService {
             throw new AccessDeniedException("您只能修改自己的提交");
         }
         
+        checkVersion(submission, expectedVersion);
+        
         // 验证状态：只有未批改的提交可以修改
         if ("GRADED".equals(submission.getStatus()) || "RETURNED".equals(submission.getStatus())) {
             throw new IllegalStateException("已批改的提交不能修改");
@@ -147,6 +196,18 @@ public class SubmissionService {
      * @return 批改后的提交响应
      */
     public SubmissionResponse gradeSubmission(UUID submissionId, Integer score, String feedback) {
+        return gradeSubmission(submissionId, score, feedback, null);
+    }
+    
+    /**
+     * 批改作业，校验批改人读取时的版本号
+     * @param submissionId 提交ID
+     * @param score 分数
+     * @param feedback 反馈
+     * @param expectedVersion 批改人读取时的版本号，为空时只依赖写入时的乐观锁
+     * @return 批改后的提交响应
+     */
+    public SubmissionResponse gradeSubmission(UUID submissionId, Integer score, String feedback, Long expectedVersion) {
         logger.info("Grading submission: {}", submissionId);
         
         Long currentUserId = getCurrentUserId();
@@ -162,6 +223,8 @@ public class SubmissionService {
             throw new AccessDeniedException("您只能批改自己创建的作业");
         }
         
+        checkVersion(submission, expectedVersion);
+        
         // 验证状态：只有已提交的作业可以批改
         if (!"SUBMITTED".equals(submission.getStatus())) {
             throw new IllegalStateException("只能批改已提交状态的作业");
@@ -172,6 +235,11 @@ public class SubmissionService {
             throw new IllegalArgumentException("分数必须在0到" + assignment.getMaxScore() + "之间");
         }
         
+        // 验证租约：其他批改人领取中的提交不能批改
+        if (gradingQueueService.isClaimedByOther(submissionId, currentUserId)) {
+            throw new IllegalStateException("该提交正由其他批改人批改");
+        }
+        
         // 更新批改信息
         submission.setScore(score);
         submission.setFeedback(feedback);
@@ -180,13 +248,149 @@ public class SubmissionService {
         submission.setGradedBy(currentUserId);
         submission.setUpdatedAt(LocalDateTime.now());
         
+        // 在更新中复查租约，关闭上面检查之后被他人领取的窗口
+        if (!gradingQueueService.clearForGrading(submissionId, currentUserId)) {
+            throw new IllegalStateException("该提交正由其他批改人批改");
+        }
         Submission gradedSubmission = submissionRepository.save(submission);
+        eventPublisher.publishEvent(SubmissionEvent.graded(gradedSubmission, currentUserId));
         
         logger.info("Submission graded successfully: {}", submissionId);
         
         return convertToSubmissionResponse(gradedSubmission);
     }
     
+    /**
+     * 批量批改作业
+     * 一次查询校验权限、状态、版本和租约，分数按作业满分在内存中校验，通过校验的提交作为一个JDBC批次更新。
+     * 更新语句带版本号、状态和租约条件，校验后被并发修改或被他人领取的提交报告为版本冲突，不影响其他提交
+     * @param items 批改项
+     * @return 每项的批改结果，与请求顺序一致
+     */
+    public BulkGradeResponse gradeSubmissions(List<BulkGradeRequest.Item> items) {
+        return gradeSubmissions(items, false);
+    }
+    
+    /**
+     * 批量批改作业，可只做校验不写入
+     * @param items 批改项
+     * @param dryRun 为true时只校验，通过校验的项返回当前版本号
+     * @return 每项的批改结果，与请求顺序一致
+     */
+    public BulkGradeResponse gradeSubmissions(List<BulkGradeRequest.Item> items, boolean dryRun) {
+        Long currentUserId = getCurrentUserId();
+        logger.info("Bulk grading {} submissions by user {}, dry run: {}", items.size(), currentUserId, dryRun);
+        
+        Map<UUID, GradingTarget> targets = loadGradingTargets(
+                items.stream().map(BulkGradeRequest.Item::getSubmissionId).distinct().collect(Collectors.toList()),
+                currentUserId);
+        
+        BulkGradeResponse.ItemResult[] results = new BulkGradeResponse.ItemResult[items.size()];
+        List<Integer> accepted = new ArrayList<>();
+        Set<UUID> seen = new HashSet<>();
+        for (int i = 0; i < items.size(); i++) {
+            BulkGradeRequest.Item item = items.get(i);
+            if (!seen.add(item.getSubmissionId())) {
+                results[i] = BulkGradeResponse.ItemResult.failed(item.getSubmissionId(), "DUPLICATE", "同一提交在请求中重复出现");
+                continue;
+            }
+            results[i] = rejectGrade(item, targets.get(item.getSubmissionId()), currentUserId);
+            if (results[i] == null) {
+                accepted.add(i);
+            }
+        }
+        
+        if (dryRun) {
+            for (int index : accepted) {
+                UUID submissionId = items.get(index).getSubmissionId();
+                results[index] = BulkGradeResponse.ItemResult.graded(submissionId, targets.get(submissionId).version());
+            }
+        } else if (!accepted.isEmpty()) {
+            LocalDateTime now = LocalDateTime.now();
+            Timestamp gradedAt = Timestamp.valueOf(now);
+            List<Object[]> batch = new ArrayList<>(accepted.size());
+            for (int index : accepted) {
+                BulkGradeRequest.Item item = items.get(index);
+                batch.add(new Object[] { item.getScore(), item.getFeedback(), gradedAt, currentUserId, gradedAt,
+                        item.getSubmissionId(), targets.get(item.getSubmissionId()).version(), currentUserId });
+            }
+            int[] counts = jdbcTemplate.batchUpdate(
+                    "UPDATE submissions SET score = ?, feedback = ?, status = 'GRADED', graded_at = ?, graded_by = ?, "
+                            + "updated_at = ?, version = version + 1, claimed_by = NULL, claim_expires_at = NULL "
+                            + "WHERE id = ? AND version = ? AND status = 'SUBMITTED' "
+                            + "AND (claimed_by IS NULL OR claimed_by = ? OR claim_expires_at <= now())",
+                    batch);
+            
+            for (int k = 0; k < accepted.size(); k++) {
+                int index = accepted.get(k);
+                BulkGradeRequest.Item item = items.get(index);
+                GradingTarget target = targets.get(item.getSubmissionId());
+                if (counts[k] == 0) {
+                    results[index] = BulkGradeResponse.ItemResult.failed(item.getSubmissionId(), "VERSION_CONFLICT",
+                            "提交已被他人修改或领取，请基于最新数据重试");
+                    continue;
+                }
+                results[index] = BulkGradeResponse.ItemResult.graded(item.getSubmissionId(), target.version() + 1);
+                eventPublisher.publishEvent(new SubmissionEvent(SubmissionEvent.GRADED, item.getSubmissionId(),
+                        target.assignmentId(), target.studentId(), currentUserId, "GRADED", item.getScore(), now));
+            }
+        }
+        
+        BulkGradeResponse response = new BulkGradeResponse(Arrays.asList(results));
+        logger.info("Bulk grading finished: {} graded, {} failed", response.getGraded(), response.getFailed());
+        return response;
+    }
+    
+    /**
+     * 校验单个批改项，通过时返回null
+     */
+    private BulkGradeResponse.ItemResult rejectGrade(BulkGradeRequest.Item item, GradingTarget target, Long currentUserId) {
+        UUID submissionId = item.getSubmissionId();
+        if (target == null) {
+            return BulkGradeResponse.ItemResult.failed(submissionId, "NOT_FOUND", "提交记录不存在");
+        }
+        if (!currentUserId.equals(target.creatorId())) {
+            return BulkGradeResponse.ItemResult.failed(submissionId, "FORBIDDEN", "您只能批改自己创建的作业");
+        }
+        if (item.getVersion() != null && item.getVersion() != target.version()) {
+            return BulkGradeResponse.ItemResult.failed(submissionId, "VERSION_CONFLICT", "提交已被他人修改，请基于最新数据重试");
+        }
+        if (!"SUBMITTED".equals(target.status())) {
+            return BulkGradeResponse.ItemResult.failed(submissionId, "INVALID_STATE", "只能批改已提交状态的作业");
+        }
+        if (item.getScore() == null || item.getScore() < 0 || item.getScore() > target.maxScore()) {
+            return BulkGradeResponse.ItemResult.failed(submissionId, "INVALID_SCORE",
+                    "分数必须在0到" + target.maxScore() + "之间");
+        }
+        if (target.claimedByOther()) {
+            return BulkGradeResponse.ItemResult.failed(submissionId, "CLAIMED", "该提交正由其他批改人批改");
+        }
+        return null;
+    }
+    
+    /**
+     * 一次查询加载批改校验所需的提交、作业和租约信息
+     */
+    private Map<UUID, GradingTarget> loadGradingTargets(List<UUID> submissionIds, Long currentUserId) {
+        List<Object> args = new ArrayList<>();
+        args.add(currentUserId);
+        args.addAll(submissionIds);
+        Map<UUID, GradingTarget> targets = new HashMap<>();
+        jdbcTemplate.query(
+                "SELECT s.id, s.assignment_id, s.student_id, s.status, s.version, a.creator_id, a.max_score, "
+                        + "(s.claimed_by IS NOT NULL AND s.claimed_by <> ? AND s.claim_expires_at > now()) AS claimed_by_other "
+                        + "FROM submissions s JOIN assignments a ON a.id = s.assignment_id "
+                        + "WHERE s.id IN (" + String.join(", ", Collections.nCopies(submissionIds.size(), "?")) + ")",
+                rs -> {
+                    targets.put(rs.getObject("id", UUID.class), new GradingTarget(
+                            rs.getObject("assignment_id", UUID.class), rs.getLong("student_id"), rs.getString("status"),
+                            rs.getLong("version"), rs.getLong("creator_id"), rs.getInt("max_score"),
+                            rs.getBoolean("claimed_by_other")));
+                },
+                args.toArray());
+        return targets;
+    }
+    
     /**
      * 获取学生的提交记录
      * @param assignmentId 作业ID
@@ -215,6 +419,33 @@ public class SubmissionService {
                 .collect(Collectors.toList());
     }
     
+    /**
+     * 按ID批量获取提交（增量同步用），不存在的ID直接跳过
+     * 调用方负责确认这些提交对当前用户可见
+     * @param submissionIds 提交ID
+     * @return 提交列表
+     */
+    @Transactional(readOnly = true)
+    public List<SubmissionResponse> getSubmissionsByIds(Collection<UUID> submissionIds) {
+        if (submissionIds.isEmpty()) {
+            return new ArrayList<>();
+        }
+        return submissionRepository.findAllById(submissionIds).stream()
+                .map(this::convertToSubmissionResponse)
+                .collect(Collectors.toList());
+    }
+    
+    /**
+     * 获取学生提交列表的ETag，只执行一次聚合查询
+     * @return 弱ETag
+     */
+    @Transactional(readOnly = true)
+    public String getStudentSubmissionsETag() {
+        Long currentUserId = getCurrentUserId();
+        VersionStamp stamp = submissionRepository.findVersionStampByStudentId(currentUserId);
+        return VersionTags.weak(currentUserId, stamp.getCount(), stamp.getLastModified());
+    }
+    
     /**
      * 获取待批改的提交列表（教师用）
      * @return 待批改提交列表
@@ -229,6 +460,36 @@ public class SubmissionService {
                 .collect(Collectors.toList());
     }
     
+    /**
+     * 从批改队列领取待批改的提交（教师用），领取的提交在租约期内不会分配给其他批改人
+     * @param assignmentId 作业ID（可选）
+     * @param limit 领取数量
+     * @return 领取到的提交，按提交时间排序
+     */
+    public List<SubmissionResponse> claimSubmissionsToGrade(UUID assignmentId, int limit) {
+        Long currentUserId = getCurrentUserId();
+        
+        List<UUID> claimedIds = gradingQueueService.claim(currentUserId, assignmentId, limit);
+        logger.info("Teacher {} claimed {} submissions to grade", currentUserId, claimedIds.size());
+        
+        List<SubmissionResponse> submissions = getSubmissionsByIds(claimedIds);
+        submissions.sort(Comparator.comparing(SubmissionResponse::getSubmittedAt,
+                Comparator.nullsLast(Comparator.naturalOrder())));
+        return submissions;
+    }
+    
+    /**
+     * 归还领取的提交，使其立即回到批改队列
+     * @param submissionId 提交ID
+     */
+    public void releaseGradingClaim(UUID submissionId) {
+        Long currentUserId = getCurrentUserId();
+        
+        if (!gradingQueueService.release(submissionId, currentUserId)) {
+            logger.debug("Submission {} is not claimed by user {}, nothing to release", submissionId, currentUserId);
+        }
+    }
+    
     /**
      * 根据ID获取提交详情
      * @param submissionId 提交ID
@@ -275,7 +536,14 @@ public class SubmissionService {
             throw new AccessDeniedException("您只能查看自己创建的作业统计");
         }
         
-        // 获取统计数据
+        // 统计数据经两级缓存在节点间共享，提交和批改事件经outbox投递后由StatisticsEvictionSubscriber驱逐
+        // 返回副本，避免调用方修改缓存中的对象
+        return new java.util.HashMap<>(cacheManager.getCache(TwoLevelCacheConfig.ASSIGNMENT_STATISTICS)
+                .get(assignmentId, () -> computeAssignmentStatistics(assignment)));
+    }
+
+    private java.util.HashMap<String, Object> computeAssignmentStatistics(Assignment assignment) {
+        UUID assignmentId = assignment.getId();
         long totalSubmissions = submissionRepository.countByAssignmentId(assignmentId);
         long gradedSubmissions = submissionRepository.countByAssignmentIdAndStatus(assignmentId, "GRADED");
         long pendingSubmissions = submissionRepository.countByAssignmentIdAndStatus(assignmentId, "SUBMITTED");
@@ -288,7 +556,7 @@ public class SubmissionService {
                 .average()
                 .orElse(0.0);
         
-        java.util.Map<String, Object> statistics = new java.util.HashMap<>();
+        java.util.HashMap<String, Object> statistics = new java.util.HashMap<>();
         statistics.put("assignmentId", assignmentId);
         statistics.put("assignmentTitle", assignment.getTitle());
         statistics.put("totalSubmissions", totalSubmissions);
@@ -302,9 +570,11 @@ public class SubmissionService {
     
     /**
      * 获取作业提交结果详情（包含题目解析和视频讲解）
+     * 不在类级事务中执行：各查询使用仓库自身的短事务，等待合并结果的调用不占用数据库连接
      * @param submissionId 提交ID
      * @return 提交结果详情
      */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public SubmissionResultDTO getSubmissionResult(UUID submissionId) {
         logger.info("Getting submission result for submission: {}", submissionId);
         
@@ -325,6 +595,12 @@ public class SubmissionService {
             throw new AccessDeniedException("您只能查看自己的提交或自己创建的作业的提交");
         }
         
+        // 权限已按调用方校验，成绩发布后同一提交的并发读取共享一次加载
+        return requestCoalescer.execute("SubmissionService.getSubmissionResult", submissionId,
+                () -> loadSubmissionResult(submission, assignment));
+    }
+
+    private SubmissionResultDTO loadSubmissionResult(Submission submission, Assignment assignment) {
         // 查询学生信息
         User student = userRepository.findById(submission.getStudentId())
                 .orElseThrow(() -> new IllegalArgumentException("学生不存在"));
@@ -381,7 +657,7 @@ public class SubmissionService {
                 questionResponses
         );
         
-        logger.info("Successfully retrieved submission result for submission: {}", submissionId);
+        logger.info("Successfully retrieved submission result for submission: {}", submission.getId());
         return result;
     }
     
@@ -401,6 +677,11 @@ public class SubmissionService {
             throw new AccessDeniedException("您只能查看自己创建的作业统计");
         }
         
+        return cacheManager.getCache(TwoLevelCacheConfig.SUBMISSION_STATISTICS)
+                .get(assignmentId, () -> computeSubmissionStatistics(assignmentId));
+    }
+
+    private SubmissionStatistics computeSubmissionStatistics(UUID assignmentId) {
         long totalSubmissions = submissionRepository.countByAssignmentId(assignmentId);
         long gradedSubmissions = submissionRepository.countByAssignmentIdAndStatus(assignmentId, "GRADED");
         Double averageScore = submissionRepository.findAverageScoreByAssignmentId(assignmentId);
@@ -448,6 +729,18 @@ public class SubmissionService {
         return user.getId();
     }
     
+    /**
+     * 客户端携带的版本号与当前版本不一致时抛出冲突异常，附带当前数据
+     */
+    private void checkVersion(Submission submission, Long expectedVersion) {
+        if (expectedVersion != null && !expectedVersion.equals(submission.getVersion())) {
+            logger.info("Submission {} version conflict: expected {}, current {}",
+                    submission.getId(), expectedVersion, submission.getVersion());
+            throw new VersionConflictException("提交已被他人修改，请基于最新数据重试",
+                    convertToSubmissionResponse(submission));
+        }
+    }
+    
     /**
      * 转换提交实体为响应DTO
      * @param submission 提交实体
@@ -467,6 +760,7 @@ public class SubmissionService {
         response.setGradedAt(submission.getGradedAt());
         response.setCreatedAt(submission.getCreatedAt());
         response.setUpdatedAt(submission.getUpdatedAt());
+        response.setVersion(submission.getVersion());
         
         // 通过Repository查询关联信息，避免懒加载问题
         try {
@@ -517,10 +811,17 @@ public class SubmissionService {
         return response;
     }
     
+    /**
+     * 批量批改时一次加载的校验信息
+     */
+    private record GradingTarget(UUID assignmentId, Long studentId, String status, long version,
+                                 Long creatorId, Integer maxScore, boolean claimedByOther) {
+    }
+    
     /**
      * 提交统计信息内部类
      */
-    public static class SubmissionStatistics {
+    public static class SubmissionStatistics implements Serializable {
         private long totalSubmissions;
         private long gradedSubmissions;
         private Double averageScore;
@@ -0,0 +1,250 @@
+package com.wanli.academy.backend.service;
+
+import com.wanli.academy.backend.dto.AssignmentResponse;
+import com.wanli.academy.backend.dto.SubmissionResponse;
+import com.wanli.academy.backend.dto.SyncResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Function;
+
+/**
+ * 增量同步服务
+ * 读取触发器写入的sync_changes变更日志，返回游标之后对当前用户可见的作业和提交变更。
+ * 游标为(txid, seq)：只返回txid早于当前快照xmin的变更，保证游标之前的事务都已提交，
+ * 不会因为并发事务的提交顺序与序列号顺序不一致而漏掉变更
+ */
+@Service
+public class SyncService {
+
+    private static final Logger logger = LoggerFactory.getLogger(SyncService.class);
+
+    static final String LOCK_NAME = "sync-change-prune";
+
+    static final String ASSIGNMENT = "assignment";
+    static final String SUBMISSION = "submission";
+
+    @Value("${sync.page-size:500}")
+    private int pageSize;
+
+    @Value("${sync.retention-days:30}")
+    private int retentionDays;
+
+    @Value("${sync.prune-batch-size:5000}")
+    private int pruneBatchSize;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PermissionService permissionService;
+
+    @Autowired
+    private AssignmentServiceQuery assignmentServiceQuery;
+
+    @Autowired
+    private SubmissionService submissionService;
+
+    @Autowired
+    private AdvisoryLockService advisoryLockService;
+
+    /**
+     * 获取游标之后的变更
+     * @param since 上次返回的游标，为空表示首次同步
+     * @param limit 本次最多读取的变更行数，为空时使用默认值
+     * @return 同步结果
+     */
+    @Transactional(readOnly = true)
+    public SyncResponse getChanges(String since, Integer limit) {
+        Long currentUserId = permissionService.getCurrentUserId();
+        if (currentUserId == null) {
+            throw new AccessDeniedException("用户未登录");
+        }
+
+        long horizon = currentHorizon();
+        SyncResponse response = new SyncResponse();
+
+        // 首次同步或游标早于已清理的位置：客户端先全量拉取，再从当前位置开始增量同步
+        Cursor cursor = since == null || since.isBlank() ? null : Cursor.parse(since);
+        if (cursor == null || cursor.txid() <= prunedTxid()) {
+            response.setResetRequired(true);
+            response.setCursor(new Cursor(horizon, 0).toString());
+            return response;
+        }
+
+        int pageLimit = limit == null ? pageSize : Math.max(1, Math.min(limit, pageSize));
+        List<Change> changes = findChanges(cursor, horizon, currentUserId, permissionService.isAdmin(), pageLimit);
+
+        if (changes.size() >= pageLimit) {
+            Change last = changes.get(changes.size() - 1);
+            response.setCursor(new Cursor(last.txid(), last.seq()).toString());
+            response.setHasMore(true);
+        } else if (horizon > cursor.txid()) {
+            response.setCursor(new Cursor(horizon, 0).toString());
+        } else {
+            response.setCursor(cursor.toString());
+        }
+
+        response.setAssignments(resolve(collapse(changes, ASSIGNMENT),
+                assignmentServiceQuery::getAssignmentsByIds, AssignmentResponse::getId));
+        response.setSubmissions(resolve(collapse(changes, SUBMISSION),
+                submissionService::getSubmissionsByIds, SubmissionResponse::getId));
+
+        logger.debug("Sync for user {} from {} returned {} change rows", currentUserId, since, changes.size());
+        return response;
+    }
+
+    /**
+     * 定时清理超过保留期的变更日志，集群中同一时间只有一个节点执行
+     */
+    @Scheduled(fixedDelayString = "${sync.prune-interval-millis:3600000}",
+            initialDelayString = "${sync.prune-interval-millis:3600000}")
+    public void scheduledPrune() {
+        if (!advisoryLockService.runExclusively(LOCK_NAME, this::pruneExpired)) {
+            logger.debug("Sync change prune is already running on another node, skipping");
+        }
+    }
+
+    /**
+     * 分批删除超过保留期的变更，同时推进sync_horizon，使更早的游标要求客户端重新全量同步
+     * @return 删除的变更行数
+     */
+    public int pruneExpired() {
+        int total = 0;
+        int deleted;
+        do {
+            Integer count = jdbcTemplate.queryForObject(
+                    "WITH pruned AS (DELETE FROM sync_changes WHERE seq IN ("
+                            + "SELECT seq FROM sync_changes WHERE changed_at < now() - make_interval(days => ?) "
+                            + "ORDER BY seq LIMIT ?) RETURNING txid), "
+                            + "horizon AS (UPDATE sync_horizon SET pruned_txid = GREATEST(pruned_txid, "
+                            + "(SELECT max(txid) FROM pruned)) WHERE id = 1 AND EXISTS (SELECT 1 FROM pruned)) "
+                            + "SELECT count(*) FROM pruned",
+                    Integer.class, retentionDays, pruneBatchSize);
+            deleted = count == null ? 0 : count;
+            total += deleted;
+        } while (deleted >= pruneBatchSize);
+
+        if (total > 0) {
+            logger.info("Pruned {} sync change rows older than {} days", total, retentionDays);
+        }
+        return total;
+    }
+
+    /**
+     * 读取游标之后、已提交事务写入的变更行
+     */
+    private List<Change> findChanges(Cursor cursor, long horizon, Long userId, boolean admin, int limit) {
+        String audience = admin ? "" : "AND (resource = 'assignment' OR student_id = ? OR teacher_id = ?) ";
+        Object[] args = admin
+                ? new Object[] {cursor.txid(), cursor.seq(), horizon, limit}
+                : new Object[] {cursor.txid(), cursor.seq(), horizon, userId, userId, limit};
+        return jdbcTemplate.query(
+                "SELECT seq, txid, resource, resource_id, deleted FROM sync_changes "
+                        + "WHERE (txid, seq) > (?, ?) AND txid < ? " + audience
+                        + "ORDER BY txid, seq LIMIT ?",
+                (rs, rowNum) -> new Change(rs.getLong("seq"), rs.getLong("txid"), rs.getString("resource"),
+                        rs.getObject("resource_id", UUID.class), rs.getBoolean("deleted")),
+                args);
+    }
+
+    /**
+     * 当前快照中最早的未提交事务，txid小于它的变更都已可见
+     */
+    private long currentHorizon() {
+        Long xmin = jdbcTemplate.queryForObject("SELECT txid_snapshot_xmin(txid_current_snapshot())", Long.class);
+        return xmin == null ? 0 : xmin;
+    }
+
+    private long prunedTxid() {
+        List<Long> values = jdbcTemplate.queryForList("SELECT pruned_txid FROM sync_horizon WHERE id = 1", Long.class);
+        return values.isEmpty() || values.get(0) == null ? 0 : values.get(0);
+    }
+
+    /**
+     * 同一记录在本页中的多次变更只保留最后一次
+     * @return 记录ID到是否已删除的映射，保持首次出现的顺序
+     */
+    static Map<UUID, Boolean> collapse(List<Change> changes, String resource) {
+        Map<UUID, Boolean> latest = new LinkedHashMap<>();
+        for (Change change : changes) {
+            if (resource.equals(change.resource())) {
+                latest.put(change.resourceId(), change.deleted());
+            }
+        }
+        return latest;
+    }
+
+    /**
+     * 加载仍存在的记录；变更后又被删除、但删除尚未进入本页的记录也作为已删除返回
+     */
+    private <T> SyncResponse.Changes<T> resolve(Map<UUID, Boolean> latest,
+                                                Function<List<UUID>, List<T>> loader,
+                                                Function<T, UUID> idOf) {
+        SyncResponse.Changes<T> result = new SyncResponse.Changes<>();
+        List<UUID> upsertIds = new ArrayList<>();
+        latest.forEach((id, deleted) -> {
+            if (deleted) {
+                result.getDeleted().add(id);
+            } else {
+                upsertIds.add(id);
+            }
+        });
+
+        List<T> loaded = loader.apply(upsertIds);
+        result.setUpserted(loaded);
+        Set<UUID> found = new HashSet<>();
+        for (T item : loaded) {
+            found.add(idOf.apply(item));
+        }
+        for (UUID id : upsertIds) {
+            if (!found.contains(id)) {
+                result.getDeleted().add(id);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 变更日志中的一行
+     */
+    record Change(long seq, long txid, String resource, UUID resourceId, boolean deleted) {
+    }
+
+    /**
+     * 同步游标，格式为"txid.seq"
+     */
+    record Cursor(long txid, long seq) {
+
+        static Cursor parse(String value) {
+            int dot = value.indexOf('.');
+            try {
+                if (dot > 0) {
+                    return new Cursor(Long.parseLong(value.substring(0, dot)), Long.parseLong(value.substring(dot + 1)));
+                }
+            } catch (NumberFormatException e) {
+                // 落到下面统一抛出
+            }
+            throw new IllegalArgumentException("无效的同步游标: " + value);
+        }
+
+        @Override
+        public String toString() {
+            return txid + "." + seq;
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package com.wanli.academy.backend.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 用户活跃时间延迟写入器
+ * 登录时间和最近访问时间先按用户ID合并到内存中，由定时任务批量写回users表，关闭时再写一次，
+ * 登录事务不再整行更新users。同一用户在一个周期内的多次活动只产生一条UPDATE。
+ * 写回不经过Hibernate，也不驱逐User的二级缓存（每个周期驱逐全部活跃用户会使该缓存失去作用），
+ * 因此User实体不提供这两个字段的访问方法，只能通过JDBC读取
+ */
+@Service
+public class UserActivityRecorder {
+
+    private static final Logger logger = LoggerFactory.getLogger(UserActivityRecorder.class);
+
+    // GREATEST忽略NULL：未记录的字段保持原值，多节点乱序写回时时间也不会倒退
+    private static final String UPDATE_SQL =
+            "UPDATE users SET last_login_at = GREATEST(last_login_at, ?), last_seen_at = GREATEST(last_seen_at, ?) "
+                    + "WHERE id = ?";
+
+    @Value("${user.activity.batch-size:500}")
+    private int batchSize;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final ConcurrentHashMap<Long, Activity> pending = new ConcurrentHashMap<>();
+
+    private Counter flushedCounter;
+    private Counter failedCounter;
+
+    @PostConstruct
+    public void init() {
+        Gauge.builder("user.activity.pending", pending, Map::size)
+                .description("Users with activity timestamps waiting to be written")
+                .register(meterRegistry);
+        flushedCounter = Counter.builder("user.activity.flushed")
+                .description("User rows updated by the activity flusher")
+                .register(meterRegistry);
+        failedCounter = Counter.builder("user.activity.flush.failures")
+                .description("Activity flush batches that failed and were kept for the next run")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 记录登录，登录同时视为一次访问
+     */
+    public void recordLogin(Long userId) {
+        LocalDateTime now = LocalDateTime.now();
+        record(userId, new Activity(now, now));
+    }
+
+    /**
+     * 记录一次已认证的访问
+     */
+    public void recordSeen(Long userId) {
+        record(userId, new Activity(null, LocalDateTime.now()));
+    }
+
+    private void record(Long userId, Activity activity) {
+        if (userId != null) {
+            pending.merge(userId, activity, Activity::merge);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${user.activity.flush-millis:10000}",
+            initialDelayString = "${user.activity.flush-millis:10000}")
+    public void scheduledFlush() {
+        flush();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        int written = flush();
+        logger.info("Flushed {} pending user activity updates on shutdown", written);
+    }
+
+    /**
+     * 将缓冲的活跃时间分批写回数据库
+     * 写入成功后仅移除未被并发更新的条目，写入期间的新活动留到下次；失败的批次保留重试
+     * @return 写入的用户数
+     */
+    public synchronized int flush() {
+        if (pending.isEmpty()) {
+            return 0;
+        }
+        List<Map.Entry<Long, Activity>> snapshot = new ArrayList<>(batchSize);
+        int written = 0;
+        for (Map.Entry<Long, Activity> entry : pending.entrySet()) {
+            snapshot.add(Map.entry(entry.getKey(), entry.getValue()));
+            if (snapshot.size() >= batchSize) {
+                written += writeBatch(snapshot);
+                snapshot.clear();
+            }
+        }
+        if (!snapshot.isEmpty()) {
+            written += writeBatch(snapshot);
+        }
+        return written;
+    }
+
+    private int writeBatch(List<Map.Entry<Long, Activity>> batch) {
+        List<Object[]> args = new ArrayList<>(batch.size());
+        for (Map.Entry<Long, Activity> entry : batch) {
+            Activity activity = entry.getValue();
+            args.add(new Object[] {
+                    timestamp(activity.lastLoginAt()), timestamp(activity.lastSeenAt()), entry.getKey()});
+        }
+        try {
+            jdbcTemplate.batchUpdate(UPDATE_SQL, args);
+        } catch (Exception e) {
+            failedCounter.increment();
+            logger.warn("Failed to flush activity for {} users, will retry: {}", batch.size(), e.getMessage());
+            return 0;
+        }
+        for (Map.Entry<Long, Activity> entry : batch) {
+            pending.remove(entry.getKey(), entry.getValue());
+        }
+        flushedCounter.increment(batch.size());
+        return batch.size();
+    }
+
+    int pendingCount() {
+        return pending.size();
+    }
+
+    private static Timestamp timestamp(LocalDateTime time) {
+        return time != null ? Timestamp.valueOf(time) : null;
+    }
+
+    /**
+     * 单个用户待写入的时间，合并时各字段取较晚值
+     */
+    record Activity(LocalDateTime lastLoginAt, LocalDateTime lastSeenAt) {
+
+        Activity merge(Activity other) {
+            return new Activity(later(lastLoginAt, other.lastLoginAt), later(lastSeenAt, other.lastSeenAt));
+        }
+
+        private static LocalDateTime later(LocalDateTime a, LocalDateTime b) {
+            if (a == null) {
+                return b;
+            }
+            return b == null || a.isAfter(b) ? a : b;
+        }
+    }
+}
@@ -0,0 +1,233 @@
+package com.wanli.academy.backend.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 用户名/邮箱可用性索引
+ * 启动时流式读取全部用户名和邮箱构建可扩容布隆过滤器，注册时追加。过滤器判定不存在时可直接答复"可用"，
+ * 可能存在时才查询数据库。其他节点的注册通过缓存失效总线同步；总线重连（可能丢失事件）后立即停用过滤器，
+ * 并在后台线程中随机延迟后重建，避免阻塞总线监听线程，也避免所有节点同时全表扫描。
+ * 过滤器未就绪或已禁用时所有检查都回落到数据库
+ */
+@Service
+public class UserAvailabilityIndex implements CacheInvalidationBus.Handler {
+
+    private static final Logger logger = LoggerFactory.getLogger(UserAvailabilityIndex.class);
+
+    static final String CACHE_NAME = "user-availability";
+
+    private static final String USERNAME_PREFIX = "username:";
+    private static final String EMAIL_PREFIX = "email:";
+
+    @Value("${auth.availability-filter.enabled:true}")
+    private boolean enabled;
+
+    @Value("${auth.availability-filter.expected-users:100000}")
+    private long expectedUsers;
+
+    @Value("${auth.availability-filter.false-positive-rate:0.01}")
+    private double falsePositiveRate;
+
+    @Value("${auth.availability-filter.fetch-size:1000}")
+    private int fetchSize;
+
+    @Value("${auth.availability-filter.rebuild-jitter-millis:30000}")
+    private long rebuildJitterMillis;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private CacheInvalidationBus invalidationBus;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final Object lock = new Object();
+
+    // 当前使用的过滤器，构建完成前为空
+    private volatile ScalableBloomFilter filter;
+
+    // 重建期间新注册的用户同时写入正在构建的过滤器，避免替换后丢失
+    private ScalableBloomFilter building;
+
+    // 总线触发的重建在此执行，已有待执行的重建时不再重复安排
+    private ScheduledExecutorService rebuilder;
+
+    private final AtomicBoolean rebuildScheduled = new AtomicBoolean();
+
+    @PostConstruct
+    public void init() {
+        rebuilder = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "availability-filter-rebuild");
+            thread.setDaemon(true);
+            return thread;
+        });
+        // 本节点的注册在recordUser中直接写入，只需处理其他节点的通知
+        invalidationBus.registerRemote(CACHE_NAME, this);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        rebuilder.shutdownNow();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        tryRebuild();
+    }
+
+    /**
+     * 定时重建：清除已删除用户留下的位，并恢复重建失败后停用的过滤器
+     */
+    @Scheduled(fixedDelayString = "${auth.availability-filter.rebuild-interval-millis:21600000}",
+            initialDelayString = "${auth.availability-filter.rebuild-interval-millis:21600000}")
+    public void scheduledRebuild() {
+        tryRebuild();
+    }
+
+    /**
+     * 用户名一定未被占用（不需要查询数据库）
+     */
+    public boolean isUsernameDefinitelyAvailable(String username) {
+        return definitelyAbsent(USERNAME_PREFIX + username);
+    }
+
+    /**
+     * 邮箱一定未被占用（不需要查询数据库）
+     */
+    public boolean isEmailDefinitelyAvailable(String email) {
+        return definitelyAbsent(EMAIL_PREFIX + email);
+    }
+
+    /**
+     * 记录新用户：立即写入本节点过滤器，并在当前事务提交后通知其他节点
+     */
+    public void recordUser(String username, String email) {
+        add(USERNAME_PREFIX + username);
+        add(EMAIL_PREFIX + email);
+        if (enabled) {
+            long version = System.currentTimeMillis();
+            invalidationBus.publish(CACHE_NAME, USERNAME_PREFIX + username, version);
+            invalidationBus.publish(CACHE_NAME, EMAIL_PREFIX + email, version);
+        }
+    }
+
+    /**
+     * 从数据库流式读取全部用户名和邮箱重建过滤器，完成后替换当前过滤器
+     * @return 过滤器中的元素数
+     */
+    public synchronized long rebuild() {
+        long startedAt = System.currentTimeMillis();
+        ScalableBloomFilter next = new ScalableBloomFilter(expectedUsers * 2, falsePositiveRate);
+        synchronized (lock) {
+            building = next;
+        }
+        try {
+            TransactionTemplate tx = new TransactionTemplate(transactionManager);
+            tx.setReadOnly(true);
+            // 事务内设置fetch size，PostgreSQL驱动按批读取而不是一次加载全部用户
+            tx.executeWithoutResult(status -> jdbcTemplate.query(con -> {
+                PreparedStatement ps = con.prepareStatement("SELECT username, email FROM users",
+                        ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                ps.setFetchSize(fetchSize);
+                return ps;
+            }, rs -> {
+                next.add(USERNAME_PREFIX + rs.getString("username"));
+                next.add(EMAIL_PREFIX + rs.getString("email"));
+            }));
+            synchronized (lock) {
+                filter = next;
+            }
+        } finally {
+            synchronized (lock) {
+                building = null;
+            }
+        }
+        logger.info("Built user availability filter: {} entries in {} stages, {} ms",
+                next.size(), next.stageCount(), System.currentTimeMillis() - startedAt);
+        return next.size();
+    }
+
+    @Override
+    public void evict(String cache, String key, long version) {
+        if (key != null) {
+            add(key);
+        }
+    }
+
+    /**
+     * 总线重连或溢出后可能丢失了其他节点的注册：先停用过滤器回落到数据库，再在后台重建
+     */
+    @Override
+    public void evictAll(String cache) {
+        if (!enabled) {
+            return;
+        }
+        filter = null;
+        if (rebuildScheduled.compareAndSet(false, true)) {
+            long delay = rebuildJitterMillis > 0 ? ThreadLocalRandom.current().nextLong(rebuildJitterMillis) : 0;
+            rebuilder.schedule(() -> {
+                rebuildScheduled.set(false);
+                tryRebuild();
+            }, delay, TimeUnit.MILLISECONDS);
+            logger.info("User availability filter disabled until rebuild in {} ms", delay);
+        }
+    }
+
+    private void tryRebuild() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            rebuild();
+        } catch (Exception e) {
+            // 重建失败时停用过滤器，检查回落到数据库，直到下次重建成功
+            logger.warn("Failed to rebuild user availability filter, falling back to database checks: {}",
+                    e.getMessage());
+            filter = null;
+        }
+    }
+
+    private boolean definitelyAbsent(String key) {
+        ScalableBloomFilter current = filter;
+        boolean absent = current != null && !current.mightContain(key);
+        meterRegistry.counter("auth.availability.checks", "result", absent ? "filtered" : "database").increment();
+        return absent;
+    }
+
+    private void add(String key) {
+        synchronized (lock) {
+            if (filter != null) {
+                filter.add(key);
+            }
+            if (building != null) {
+                building.add(key);
+            }
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package com.wanli.academy.backend.service;
+
+import com.wanli.academy.backend.dto.UserPage;
+import com.wanli.academy.backend.dto.UserResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * 用户管理查询服务
+ * 管理后台的用户列表：按用户ID倒序键集分页，支持角色、启用状态、创建日期过滤以及用户名/邮箱/姓名前缀搜索。
+ * 角色过滤和角色名都通过user_roles关联在同一条SQL中完成，不加载用户实体的roles集合
+ */
+@Service
+@Transactional(readOnly = true)
+public class UserQueryService {
+
+    private static final Logger logger = LoggerFactory.getLogger(UserQueryService.class);
+
+    @Value("${users.list.default-page-size:50}")
+    private int defaultPageSize;
+
+    @Value("${users.list.max-page-size:200}")
+    private int maxPageSize;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /**
+     * 分页查询用户
+     * @param query 前缀搜索词，匹配用户名、邮箱、名或姓（不区分大小写）
+     * @param role 角色名，如STUDENT或ROLE_STUDENT
+     * @param active 启用状态
+     * @param createdFrom 创建日期下限（含）
+     * @param createdTo 创建日期上限（含）
+     * @param after 上一页返回的游标（用户ID），为空表示第一页
+     * @param limit 每页数量
+     * @return 用户分页结果
+     */
+    public UserPage listUsers(String query, String role, Boolean active, LocalDate createdFrom, LocalDate createdTo,
+                              Long after, Integer limit) {
+        int pageSize = Math.max(1, Math.min(limit == null ? defaultPageSize : limit, maxPageSize));
+        List<Object> args = new ArrayList<>();
+        StringBuilder filter = new StringBuilder("WHERE 1 = 1");
+
+        if (query != null && !query.isBlank()) {
+            // 每个条件都能使用lower(...) text_pattern_ops前缀索引，OR由位图扫描合并
+            String pattern = likePrefix(query.trim());
+            filter.append(" AND (lower(u.username) LIKE ? OR lower(u.email) LIKE ?"
+                    + " OR lower(u.first_name) LIKE ? OR lower(u.last_name) LIKE ?)");
+            args.addAll(Collections.nCopies(4, pattern));
+        }
+        if (role != null && !role.isBlank()) {
+            filter.append(" AND EXISTS (SELECT 1 FROM user_roles ur JOIN roles r ON r.id = ur.role_id"
+                    + " WHERE ur.user_id = u.id AND r.name = ?)");
+            args.add(roleName(role));
+        }
+        if (active != null) {
+            filter.append(" AND u.is_active = ?");
+            args.add(active);
+        }
+        if (createdFrom != null) {
+            filter.append(" AND u.created_at >= ?");
+            args.add(Timestamp.valueOf(createdFrom.atStartOfDay()));
+        }
+        if (createdTo != null) {
+            filter.append(" AND u.created_at < ?");
+            args.add(Timestamp.valueOf(createdTo.plusDays(1).atStartOfDay()));
+        }
+        if (after != null) {
+            filter.append(" AND u.id < ?");
+            args.add(after);
+        }
+        // 多取一行判断是否还有下一页
+        args.add(pageSize + 1);
+
+        List<UserResponse> users = jdbcTemplate.query(
+                "SELECT u.id, u.username, u.email, u.first_name, u.last_name, u.phone_number, u.is_active, "
+                        + "u.created_at, u.updated_at, (SELECT string_agg(r.name, ',' ORDER BY r.name) "
+                        + "FROM user_roles ur JOIN roles r ON r.id = ur.role_id WHERE ur.user_id = u.id) AS roles "
+                        + "FROM users u " + filter + " ORDER BY u.id DESC LIMIT ?",
+                (rs, rowNum) -> new UserResponse(rs.getLong("id"), rs.getString("username"), rs.getString("email"),
+                        rs.getString("first_name"), rs.getString("last_name"), rs.getString("phone_number"),
+                        (Boolean) rs.getObject("is_active"), roles(rs.getString("roles")),
+                        toLocalDateTime(rs.getTimestamp("created_at")), toLocalDateTime(rs.getTimestamp("updated_at"))),
+                args.toArray());
+
+        Long nextCursor = null;
+        if (users.size() > pageSize) {
+            users = new ArrayList<>(users.subList(0, pageSize));
+            nextCursor = users.get(pageSize - 1).getId();
+        }
+        logger.debug("Listed {} users (query: {}, role: {}, active: {}, after: {})",
+                users.size(), query, role, active, after);
+        return new UserPage(users, nextCursor);
+    }
+
+    /**
+     * 转为小写LIKE前缀模式，转义搜索词中的通配符
+     */
+    static String likePrefix(String query) {
+        String escaped = query.toLowerCase(Locale.ROOT)
+                .replace("\\", "\\\\")
+                .replace("%", "\\%")
+                .replace("_", "\\_");
+        return escaped + "%";
+    }
+
+    /**
+     * 角色名统一为ROLE_前缀的大写形式
+     */
+    static String roleName(String role) {
+        String name = role.trim().toUpperCase(Locale.ROOT);
+        return name.startsWith("ROLE_") ? name : "ROLE_" + name;
+    }
+
+    private static Set<String> roles(String names) {
+        if (names == null || names.isEmpty()) {
+            return new LinkedHashSet<>();
+        }
+        return new LinkedHashSet<>(Arrays.asList(names.split(",")));
+    }
+
+    private static LocalDateTime toLocalDateTime(Timestamp timestamp) {
+        return timestamp == null ? null : timestamp.toLocalDateTime();
+    }
+}
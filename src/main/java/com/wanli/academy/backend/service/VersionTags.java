@@ -0,0 +1,28 @@
+package com.wanli.academy.backend.service;
+
+import org.springframework.util.DigestUtils;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 基于数据版本的ETag生成工具
+ * ETag只由主键和updatedAt等版本字段计算，在转换DTO之前即可得到，与响应体中的时间戳等易变字段无关
+ */
+public final class VersionTags {
+
+    private VersionTags() {
+    }
+
+    /**
+     * 由版本组成部分生成弱ETag
+     * @param parts 版本组成部分（如ID、updatedAt、条目数）
+     * @return 形如W/"..."的ETag
+     */
+    public static String weak(Object... parts) {
+        StringBuilder source = new StringBuilder();
+        for (Object part : parts) {
+            source.append(part).append('|');
+        }
+        return "W/\"" + DigestUtils.md5DigestAsHex(source.toString().getBytes(StandardCharsets.UTF_8)) + "\"";
+    }
+}
@@ -0,0 +1,229 @@
+-- 万里书院数据库表结构定义
+-- Sprint 5: 文件存储与性能优化数据库迁移脚本
+
+-- 存储用量计数表：按用户/作业/全局维护已用字节数和文件数
+CREATE TABLE IF NOT EXISTS storage_usage (
+    id BIGSERIAL PRIMARY KEY,
+    scope VARCHAR(20) NOT NULL,
+    scope_key VARCHAR(64) NOT NULL,
+    used_bytes BIGINT NOT NULL DEFAULT 0,
+    file_count BIGINT NOT NULL DEFAULT 0,
+    updated_at TIMESTAMP,
+    CONSTRAINT uk_storage_usage_scope_key UNIQUE (scope, scope_key)
+);
+
+COMMENT ON TABLE storage_usage IS '存储用量计数，上传/删除时增量更新，定时任务对账校准';
+
+-- 对账按上传者和作业分批聚合，需要对应索引支持键集分页
+CREATE INDEX IF NOT EXISTS idx_assignment_files_uploaded_by ON assignment_files(uploaded_by);
+CREATE INDEX IF NOT EXISTS idx_assignment_files_assignment_id ON assignment_files(assignment_id);
+
+-- 过期临时文件清理按(file_type, created_at, id)键集分页
+CREATE INDEX IF NOT EXISTS idx_assignment_files_type_created ON assignment_files(file_type, created_at, id);
+
+-- 文件存储对账按路径批量比对物理文件与记录
+CREATE INDEX IF NOT EXISTS idx_assignment_files_file_path ON assignment_files(file_path);
+
+-- 多磁盘存储：记录文件所在的存储根目录及相对路径，旧记录保持为空并继续使用file_path
+ALTER TABLE assignment_files
+ADD COLUMN IF NOT EXISTS storage_root VARCHAR(50),
+ADD COLUMN IF NOT EXISTS storage_key VARCHAR(500);
+
+COMMENT ON COLUMN assignment_files.storage_root IS '存储根目录名称，对应file.storage.roots中的配置';
+COMMENT ON COLUMN assignment_files.storage_key IS '相对于存储根目录的文件路径';
+
+CREATE INDEX IF NOT EXISTS idx_assignment_files_storage_root ON assignment_files(storage_root, id);
+CREATE INDEX IF NOT EXISTS idx_assignment_files_storage_key ON assignment_files(storage_root, storage_key);
+
+-- 冷存储分层：记录文件的存储编码及压缩后大小
+ALTER TABLE assignment_files
+ADD COLUMN IF NOT EXISTS storage_codec VARCHAR(20),
+ADD COLUMN IF NOT EXISTS stored_size BIGINT;
+
+COMMENT ON COLUMN assignment_files.storage_codec IS '存储编码：NULL未评估，identity原样存储，gzip已压缩存入冷存储层';
+COMMENT ON COLUMN assignment_files.stored_size IS '磁盘上实际占用的字节数';
+
+CREATE INDEX IF NOT EXISTS idx_assignment_files_uncoded ON assignment_files(assignment_id, id) WHERE storage_codec IS NULL;
+
+-- 共享缓存（两级缓存的L2）：UNLOGGED表不写WAL，崩溃后清空，适合可重算的缓存数据
+CREATE UNLOGGED TABLE IF NOT EXISTS shared_cache (
+    cache_name VARCHAR(100) NOT NULL,
+    cache_key VARCHAR(500) NOT NULL,
+    value BYTEA,
+    expires_at TIMESTAMP,
+    lease_owner VARCHAR(64),
+    lease_until TIMESTAMP,
+    PRIMARY KEY (cache_name, cache_key)
+);
+
+COMMENT ON TABLE shared_cache IS '跨节点共享的缓存值，value为空的行表示某节点正在计算（租约）';
+
+CREATE INDEX IF NOT EXISTS idx_shared_cache_expires_at ON shared_cache(expires_at);
+
+-- 增量同步：变更日志由触发器写入，txid用于保证游标之前的事务都已提交，删除记录为墓碑行
+CREATE TABLE IF NOT EXISTS sync_changes (
+    seq BIGSERIAL PRIMARY KEY,
+    txid BIGINT NOT NULL DEFAULT txid_current(),
+    resource VARCHAR(20) NOT NULL,
+    resource_id UUID NOT NULL,
+    student_id BIGINT,
+    teacher_id BIGINT,
+    deleted BOOLEAN NOT NULL DEFAULT FALSE,
+    changed_at TIMESTAMP NOT NULL DEFAULT now()
+);
+
+COMMENT ON TABLE sync_changes IS '作业与提交（含批改成绩）的变更日志，供/api/sync增量拉取';
+COMMENT ON COLUMN sync_changes.student_id IS '提交变更的可见学生，作业变更为空（对所有用户可见）';
+COMMENT ON COLUMN sync_changes.teacher_id IS '提交所属作业的创建教师';
+COMMENT ON COLUMN sync_changes.deleted IS '墓碑标记：记录被删除或作业被停用';
+
+CREATE INDEX IF NOT EXISTS idx_sync_changes_txid_seq ON sync_changes(txid, seq);
+CREATE INDEX IF NOT EXISTS idx_sync_changes_changed_at ON sync_changes(changed_at);
+
+-- 已清理的最大txid，早于该位置的游标必须重新全量同步
+CREATE TABLE IF NOT EXISTS sync_horizon (
+    id INTEGER PRIMARY KEY,
+    pruned_txid BIGINT NOT NULL
+);
+
+INSERT INTO sync_horizon (id, pruned_txid) VALUES (1, 0) ON CONFLICT (id) DO NOTHING;
+
+CREATE OR REPLACE FUNCTION record_submission_change() RETURNS trigger AS $$
+DECLARE
+    changed submissions%ROWTYPE;
+BEGIN
+    IF TG_OP = 'DELETE' THEN
+        changed := OLD;
+    ELSE
+        changed := NEW;
+    END IF;
+    INSERT INTO sync_changes (resource, resource_id, student_id, teacher_id, deleted)
+    VALUES ('submission', changed.id, changed.student_id,
+            (SELECT a.creator_id FROM assignments a WHERE a.id = changed.assignment_id),
+            TG_OP = 'DELETE');
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+DROP TRIGGER IF EXISTS trg_submissions_sync ON submissions;
+CREATE TRIGGER trg_submissions_sync
+AFTER INSERT OR UPDATE OR DELETE ON submissions
+FOR EACH ROW EXECUTE FUNCTION record_submission_change();
+
+CREATE OR REPLACE FUNCTION record_assignment_change() RETURNS trigger AS $$
+BEGIN
+    IF TG_OP = 'DELETE' THEN
+        INSERT INTO sync_changes (resource, resource_id, teacher_id, deleted)
+        VALUES ('assignment', OLD.id, OLD.creator_id, TRUE);
+    ELSE
+        INSERT INTO sync_changes (resource, resource_id, teacher_id, deleted)
+        VALUES ('assignment', NEW.id, NEW.creator_id, NOT COALESCE(NEW.is_active, TRUE));
+    END IF;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+DROP TRIGGER IF EXISTS trg_assignments_sync ON assignments;
+CREATE TRIGGER trg_assignments_sync
+AFTER INSERT OR UPDATE OR DELETE ON assignments
+FOR EACH ROW EXECUTE FUNCTION record_assignment_change();
+
+-- 事务性outbox：领域事件与业务数据在同一事务中写入，由后台按(txid, id)顺序投递给订阅者
+CREATE TABLE IF NOT EXISTS outbox_events (
+    id BIGSERIAL PRIMARY KEY,
+    txid BIGINT NOT NULL DEFAULT txid_current(),
+    event_type VARCHAR(100) NOT NULL,
+    aggregate_type VARCHAR(50) NOT NULL,
+    aggregate_id VARCHAR(100) NOT NULL,
+    payload JSONB NOT NULL,
+    created_at TIMESTAMP NOT NULL DEFAULT now()
+);
+
+COMMENT ON TABLE outbox_events IS '待投递的领域事件，全部订阅者处理完且超过保留期后清理';
+
+CREATE INDEX IF NOT EXISTS idx_outbox_events_txid_id ON outbox_events(txid, id);
+CREATE INDEX IF NOT EXISTS idx_outbox_events_created_at ON outbox_events(created_at);
+
+-- 每个订阅者的投递偏移量与失败重试状态
+CREATE TABLE IF NOT EXISTS outbox_offsets (
+    subscriber VARCHAR(100) PRIMARY KEY,
+    last_txid BIGINT NOT NULL DEFAULT 0,
+    last_id BIGINT NOT NULL DEFAULT 0,
+    attempts INTEGER NOT NULL DEFAULT 0,
+    next_attempt_at TIMESTAMP,
+    last_error TEXT,
+    updated_at TIMESTAMP NOT NULL DEFAULT now()
+);
+
+COMMENT ON COLUMN outbox_offsets.attempts IS '当前批次连续失败次数，成功后清零';
+COMMENT ON COLUMN outbox_offsets.next_attempt_at IS '退避结束时间，之前不再投递';
+
+-- 批改队列：教师通过FOR UPDATE SKIP LOCKED领取待批改提交，租约到期后自动回到队列
+ALTER TABLE submissions
+ADD COLUMN IF NOT EXISTS claimed_by BIGINT,
+ADD COLUMN IF NOT EXISTS claim_expires_at TIMESTAMP;
+
+COMMENT ON COLUMN submissions.claimed_by IS '当前领取该提交进行批改的教师ID';
+COMMENT ON COLUMN submissions.claim_expires_at IS '批改租约到期时间，过期后其他批改人可重新领取';
+
+CREATE INDEX IF NOT EXISTS idx_submissions_grading_queue ON submissions(assignment_id, submitted_at, id) WHERE status = 'SUBMITTED';
+
+-- 只修改领取字段的更新不属于业务变更，不写入同步日志
+CREATE OR REPLACE FUNCTION record_submission_change() RETURNS trigger AS $$
+DECLARE
+    changed submissions%ROWTYPE;
+BEGIN
+    IF TG_OP = 'UPDATE'
+        AND to_jsonb(NEW) - 'claimed_by' - 'claim_expires_at' = to_jsonb(OLD) - 'claimed_by' - 'claim_expires_at' THEN
+        RETURN NULL;
+    END IF;
+    IF TG_OP = 'DELETE' THEN
+        changed := OLD;
+    ELSE
+        changed := NEW;
+    END IF;
+    INSERT INTO sync_changes (resource, resource_id, student_id, teacher_id, deleted)
+    VALUES ('submission', changed.id, changed.student_id,
+            (SELECT a.creator_id FROM assignments a WHERE a.id = changed.assignment_id),
+            TG_OP = 'DELETE');
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+-- 提交和作业的乐观锁版本号：更新语句带WHERE version = ?，并发修改时后提交者失败并返回409
+ALTER TABLE submissions ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE assignments ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
+
+COMMENT ON COLUMN submissions.version IS '乐观锁版本号，每次更新加1';
+COMMENT ON COLUMN assignments.version IS '乐观锁版本号，每次更新加1';
+
+-- 成绩表导入错误报告：按导入批次保存失败行，供教师下载，过期后定时清理
+CREATE TABLE IF NOT EXISTS gradebook_import_errors (
+    id BIGSERIAL PRIMARY KEY,
+    import_id UUID NOT NULL,
+    teacher_id BIGINT NOT NULL,
+    row_number INTEGER NOT NULL,
+    username TEXT,
+    score TEXT,
+    message TEXT NOT NULL,
+    created_at TIMESTAMP NOT NULL DEFAULT now()
+);
+
+CREATE INDEX IF NOT EXISTS idx_gradebook_import_errors_import ON gradebook_import_errors(import_id, row_number);
+CREATE INDEX IF NOT EXISTS idx_gradebook_import_errors_created_at ON gradebook_import_errors(created_at);
+
+-- 成绩册矩阵按学生ID键集分页并按学生关联提交
+CREATE INDEX IF NOT EXISTS idx_submissions_student_assignment ON submissions(student_id, assignment_id);
+
+-- 用户管理列表：用户名/邮箱/姓名不区分大小写的前缀搜索（text_pattern_ops支持非C排序规则下的LIKE前缀匹配），
+-- 按角色过滤时从角色反查用户
+CREATE INDEX IF NOT EXISTS idx_users_username_lower_prefix ON users(lower(username) text_pattern_ops);
+CREATE INDEX IF NOT EXISTS idx_users_email_lower_prefix ON users(lower(email) text_pattern_ops);
+CREATE INDEX IF NOT EXISTS idx_users_first_name_lower_prefix ON users(lower(first_name) text_pattern_ops);
+CREATE INDEX IF NOT EXISTS idx_users_last_name_lower_prefix ON users(lower(last_name) text_pattern_ops);
+CREATE INDEX IF NOT EXISTS idx_users_created_at ON users(created_at);
+CREATE INDEX IF NOT EXISTS idx_user_roles_role_user ON user_roles(role_id, user_id);
+
+-- 用户活跃时间：登录和最近访问时间由应用缓冲后批量写回，不再在登录事务中整行更新users
+ALTER TABLE users ADD COLUMN IF NOT EXISTS last_login_at TIMESTAMP;
+ALTER TABLE users ADD COLUMN IF NOT EXISTS last_seen_at TIMESTAMP;
@@ -20,6 +20,7 @@ import com.wanli.academy.backend.service.AuthService;
 
 import com.wanli.academy.backend.service.CustomUserDetailsService;
 import com.wanli.academy.backend.service.JwtService;
+import com.wanli.academy.backend.service.UserActivityRecorder;
 
 /**
  * Controller测试基类
@@ -52,6 +53,9 @@ public abstract class BaseControllerTest {
     @MockBean
     protected JwtService jwtService;
 
+    @MockBean
+    protected UserActivityRecorder userActivityRecorder;
+
     // 测试用户常量
     protected static final String TEST_USERNAME = "testuser";
     protected static final String TEST_EMAIL = "test@wanli.com";
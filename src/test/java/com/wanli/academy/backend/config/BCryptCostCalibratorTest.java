@@ -0,0 +1,29 @@
+package com.wanli.academy.backend.config;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * BCryptCostCalibrator单元测试
+ * 测试按基准耗时推算成本因子以及上下限约束
+ */
+@DisplayName("BCrypt成本校准测试")
+class BCryptCostCalibratorTest {
+
+    @Test
+    @DisplayName("取耗时不超过目标的最大成本因子")
+    void should_pickHighestStrengthWithinTarget() {
+        // 成本8耗时15ms：9=30ms, 10=60ms, 11=120ms, 12=240ms, 13=480ms
+        assertEquals(12, BCryptCostCalibrator.strengthFor(15, 250, 10, 14));
+        assertEquals(11, BCryptCostCalibrator.strengthFor(15, 200, 10, 14));
+    }
+
+    @Test
+    @DisplayName("慢机器不低于最小成本，快机器不超过最大成本")
+    void should_clampToBounds() {
+        assertEquals(10, BCryptCostCalibrator.strengthFor(400, 250, 10, 14));
+        assertEquals(14, BCryptCostCalibrator.strengthFor(0.5, 250, 10, 14));
+    }
+}
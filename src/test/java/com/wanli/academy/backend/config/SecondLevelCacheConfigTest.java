@@ -0,0 +1,93 @@
+package com.wanli.academy.backend.config;
+
+import com.wanli.academy.backend.entity.Homework;
+import com.wanli.academy.backend.entity.Question;
+import com.wanli.academy.backend.entity.Role;
+import com.wanli.academy.backend.entity.User;
+import com.wanli.academy.backend.repository.HomeworkRepository;
+import com.wanli.academy.backend.repository.QuestionRepository;
+import com.wanli.academy.backend.repository.RoleRepository;
+import com.wanli.academy.backend.repository.UserRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * SecondLevelCacheConfig测试
+ * 验证缓存预热后实体和题目查询直接由二级缓存提供，不再执行SQL
+ */
+@DataJpaTest
+@ActiveProfiles("test")
+@Import(SecondLevelCacheConfig.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@DisplayName("Hibernate二级缓存测试")
+class SecondLevelCacheConfigTest {
+
+    @Autowired
+    private RoleRepository roleRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private HomeworkRepository homeworkRepository;
+
+    @Autowired
+    private QuestionRepository questionRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Test
+    @DisplayName("预热后按ID读取实体不执行SQL")
+    void should_serveEntityFromCache_when_cacheWarm() {
+        Role role = roleRepository.save(new Role("ROLE_CACHE_" + UUID.randomUUID().toString().substring(0, 8), "cache test"));
+        roleRepository.findById(role.getId());
+
+        statistics.clear();
+        Role cached = roleRepository.findById(role.getId()).orElseThrow();
+
+        assertEquals(role.getName(), cached.getName());
+        assertEquals(0, statistics.getPrepareStatementCount());
+        assertTrue(statistics.getDomainDataRegionStatistics("roles").getHitCount() > 0);
+    }
+
+    @Test
+    @DisplayName("预热后按作业查询题目命中查询缓存且不执行SQL")
+    void should_serveQuestionQueryFromCache_when_cacheWarm() {
+        User creator = userRepository.save(new User("cache_" + UUID.randomUUID().toString().substring(0, 8),
+                UUID.randomUUID() + "@example.com", "password"));
+        Homework homework = homeworkRepository.save(new Homework("缓存测试作业", null, creator.getId()));
+        questionRepository.save(new Question(homework.getId(), "SINGLE_CHOICE", null, 1));
+        questionRepository.save(new Question(homework.getId(), "SINGLE_CHOICE", null, 2));
+        questionRepository.findByHomeworkIdOrderByOrderIndexAsc(homework.getId());
+
+        statistics.clear();
+        List<Question> cached = questionRepository.findByHomeworkIdOrderByOrderIndexAsc(homework.getId());
+
+        assertEquals(2, cached.size());
+        assertEquals(0, statistics.getPrepareStatementCount());
+        assertEquals(1, statistics.getQueryRegionStatistics("question-by-homework").getHitCount());
+    }
+}
@@ -0,0 +1,143 @@
+package com.wanli.academy.backend.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.wanli.academy.backend.service.CacheInvalidationBus;
+import com.wanli.academy.backend.service.SharedCacheStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.Cache;
+import org.springframework.core.serializer.support.SerializingConverter;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * TwoLevelCache单元测试
+ * 测试L1/L2读取顺序、租约互斥计算与驱逐
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("两级缓存测试")
+class TwoLevelCacheTest {
+
+    private static final String CACHE = "assignment-statistics";
+
+    @Mock
+    private SharedCacheStore sharedStore;
+
+    @Mock
+    private CacheInvalidationBus invalidationBus;
+
+    private TwoLevelCache cache;
+
+    @BeforeEach
+    void setUp() {
+        cache = new TwoLevelCache(CACHE, Caffeine.newBuilder().build(), sharedStore, invalidationBus,
+                600, 30, 200, new SimpleMeterRegistry());
+    }
+
+    @Test
+    @DisplayName("L2命中时不重新计算并回填L1")
+    void should_useSharedValue_when_presentInL2() {
+        when(sharedStore.get(CACHE, "k1")).thenReturn(new SerializingConverter().convert("shared"));
+        AtomicInteger loads = new AtomicInteger();
+
+        assertEquals("shared", cache.get("k1", () -> "computed-" + loads.incrementAndGet()));
+        assertEquals("shared", cache.get("k1", () -> "computed-" + loads.incrementAndGet()));
+
+        assertEquals(0, loads.get());
+        verify(sharedStore, times(1)).get(CACHE, "k1");
+        verify(sharedStore, never()).tryAcquireLease(any(), any(), anyLong());
+    }
+
+    @Test
+    @DisplayName("L2未命中且获得租约时计算一次并写入L2")
+    void should_computeAndStore_when_leaseAcquired() {
+        when(sharedStore.tryAcquireLease(CACHE, "k1", 30)).thenReturn(true);
+
+        assertEquals(42, cache.get("k1", () -> 42));
+        assertEquals(42, cache.get("k1", () -> 43));
+
+        ArgumentCaptor<byte[]> bytes = ArgumentCaptor.forClass(byte[].class);
+        verify(sharedStore).put(eq(CACHE), eq("k1"), bytes.capture(), eq(600L));
+        assertTrue(bytes.getValue().length > 0);
+        verify(sharedStore, never()).releaseLease(any(), any());
+    }
+
+    @Test
+    @DisplayName("租约被其他节点持有时等待其写入的结果")
+    void should_waitForOtherNode_when_leaseHeldElsewhere() {
+        byte[] value = new SerializingConverter().convert("from-other-node");
+        when(sharedStore.get(CACHE, "k1")).thenReturn(null, null, value);
+        when(sharedStore.tryAcquireLease(CACHE, "k1", 30)).thenReturn(false);
+
+        assertEquals("from-other-node", cache.get("k1", () -> "computed"));
+
+        verify(sharedStore, never()).put(any(), any(), any(), anyLong());
+    }
+
+    @Test
+    @DisplayName("同一键并发请求只计算一次，等待期间其他键不受影响")
+    void should_loadOnce_when_sameKeyRequestedConcurrently() throws Exception {
+        when(sharedStore.tryAcquireLease(eq(CACHE), any(), eq(30L))).thenReturn(true);
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger loads = new AtomicInteger();
+        Callable<String> slowLoader = () -> {
+            loads.incrementAndGet();
+            loading.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return "v1";
+        };
+
+        CompletableFuture<String> first = CompletableFuture.supplyAsync(() -> cache.get("k1", slowLoader));
+        assertTrue(loading.await(5, TimeUnit.SECONDS));
+        CompletableFuture<String> second = CompletableFuture.supplyAsync(() -> cache.get("k1", slowLoader));
+
+        assertEquals("v2", cache.get("k2", () -> "v2"));
+        release.countDown();
+
+        assertEquals("v1", first.get(5, TimeUnit.SECONDS));
+        assertEquals("v1", second.get(5, TimeUnit.SECONDS));
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    @DisplayName("计算失败时释放租约")
+    void should_releaseLease_when_loaderFails() {
+        when(sharedStore.tryAcquireLease(CACHE, "k1", 30)).thenReturn(true);
+
+        assertThrows(Cache.ValueRetrievalException.class, () -> cache.get("k1", () -> {
+            throw new IllegalStateException("boom");
+        }));
+
+        verify(sharedStore).releaseLease(CACHE, "k1");
+    }
+
+    @Test
+    @DisplayName("驱逐时删除L2、清除L1并发布失效事件")
+    void should_evictBothLevels_when_evicted() {
+        when(sharedStore.tryAcquireLease(CACHE, "k1", 30)).thenReturn(true);
+        cache.get("k1", () -> "v1");
+
+        cache.evict("k1");
+
+        verify(sharedStore).evict(CACHE, "k1");
+        verify(invalidationBus).publish(eq(CACHE), eq("k1"), anyLong());
+        assertNull(cache.get("k1"));
+    }
+}
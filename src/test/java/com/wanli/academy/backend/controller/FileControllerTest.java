@@ -2,6 +2,7 @@ package com.wanli.academy.backend.controller;
 
 import com.wanli.academy.backend.base.BaseControllerTest;
 import com.wanli.academy.backend.dto.FileResponse;
+import com.wanli.academy.backend.service.DownloadUrlSigner;
 import com.wanli.academy.backend.service.FileService;
 import com.wanli.academy.backend.service.PermissionService;
 import org.junit.jupiter.api.BeforeEach;
@@ -45,6 +46,9 @@ class FileControllerTest extends BaseControllerTest {
     @MockBean
     private PermissionService permissionService;
 
+    @MockBean
+    private DownloadUrlSigner downloadUrlSigner;
+
     private FileResponse fileResponse;
     private UUID testFileId;
     private UUID testAssignmentId;
@@ -112,18 +116,88 @@ class FileControllerTest extends BaseControllerTest {
     void should_downloadFile_when_fileExists() throws Exception {
         // Given
         Resource resource = new ByteArrayResource("test content".getBytes());
-        when(fileService.downloadFile(testFileId)).thenReturn(resource);
-        when(fileService.getFileInfo(testFileId)).thenReturn(fileResponse);
+        when(fileService.openDownload(testFileId, false)).thenReturn(new FileService.FileDownload(
+            resource, fileResponse.getMimeType(), fileResponse.getOriginalFileName()));
         
         // When & Then
         mockMvc.perform(get("/api/files/download/{fileId}", testFileId)
                         .header("Authorization", VALID_JWT_TOKEN))
                 .andDo(print())
                 .andExpect(status().isOk())
-                .andExpect(header().string("Content-Disposition", containsString("attachment")));
+                .andExpect(header().string("Content-Disposition", containsString("attachment")))
+                .andExpect(header().doesNotExist("Content-Encoding"));
         
-        verify(fileService).downloadFile(testFileId);
-        verify(fileService).getFileInfo(testFileId);
+        verify(fileService).openDownload(testFileId, false);
+    }
+
+    @Test
+    @DisplayName("客户端接受gzip时直接返回冷存储层的压缩内容")
+    void should_serveGzipEncoding_when_clientAcceptsGzip() throws Exception {
+        // Given
+        when(fileService.openDownload(testFileId, true)).thenReturn(new FileService.FileDownload(
+            new ByteArrayResource(new byte[] {0x1f, (byte) 0x8b}), "text/plain", "notes.txt", "gzip"));
+        
+        // When & Then
+        mockMvc.perform(get("/api/files/download/{fileId}", testFileId)
+                        .header("Authorization", VALID_JWT_TOKEN)
+                        .header("Accept-Encoding", "br, gzip;q=0.8"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Encoding", "gzip"))
+                .andExpect(header().string("Vary", containsString("Accept-Encoding")));
+    }
+
+    @Test
+    @DisplayName("签发下载签名链接成功")
+    void should_issueDownloadUrl_when_userCanAccessFile() throws Exception {
+        // Given
+        when(permissionService.getCurrentUserId()).thenReturn(7L);
+        when(downloadUrlSigner.sign(testFileId, 7L))
+            .thenReturn(new DownloadUrlSigner.SignedDownload(testFileId, 7L, 1700000000L, "abc"));
+        
+        // When & Then
+        mockMvc.perform(get("/api/files/{fileId}/download-url", testFileId)
+                        .header("Authorization", VALID_JWT_TOKEN))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.url").value(containsString("/api/files/signed/" + testFileId)))
+                .andExpect(jsonPath("$.url").value(containsString("sig=abc")))
+                .andExpect(jsonPath("$.expiresAt").value(1700000000L));
+    }
+
+    @Test
+    @DisplayName("签名有效时直接下载文件")
+    void should_downloadSignedFile_when_signatureValid() throws Exception {
+        // Given
+        long expiresAt = System.currentTimeMillis() / 1000 + 600;
+        when(downloadUrlSigner.verify(testFileId, 7L, expiresAt, "abc")).thenReturn(true);
+        when(fileService.openSignedDownload(testFileId, false)).thenReturn(new FileService.FileDownload(
+            new ByteArrayResource("test content".getBytes()), "application/pdf", "test.pdf"));
+        
+        // When & Then
+        mockMvc.perform(get("/api/files/signed/{fileId}", testFileId)
+                        .param("uid", "7")
+                        .param("exp", String.valueOf(expiresAt))
+                        .param("sig", "abc"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Disposition", containsString("test.pdf")));
+        
+        verify(fileService, never()).openDownload(any(), anyBoolean());
+        verifyNoInteractions(permissionService);
+    }
+
+    @Test
+    @DisplayName("签名无效时拒绝下载")
+    void should_returnForbidden_when_signatureInvalid() throws Exception {
+        // Given
+        when(downloadUrlSigner.verify(eq(testFileId), eq(7L), anyLong(), eq("forged"))).thenReturn(false);
+        
+        // When & Then
+        mockMvc.perform(get("/api/files/signed/{fileId}", testFileId)
+                        .param("uid", "7")
+                        .param("exp", "1700000000")
+                        .param("sig", "forged"))
+                .andExpect(status().isForbidden());
+        
+        verify(fileService, never()).openSignedDownload(any(), anyBoolean());
     }
 
     @Test
@@ -238,7 +312,7 @@ class FileControllerTest extends BaseControllerTest {
     @DisplayName("下载不存在的文件应返回404")
     void should_returnNotFound_when_downloadingNonExistentFile() throws Exception {
         // Given
-        when(fileService.downloadFile(testFileId))
+        when(fileService.openDownload(testFileId, false))
                 .thenThrow(new RuntimeException("File not found"));
         
         // When & Then
@@ -3,6 +3,8 @@ package com.wanli.academy.backend.controller;
 import com.wanli.academy.backend.base.BaseControllerTest;
 import com.wanli.academy.backend.dto.SubmissionResponse;
 import com.wanli.academy.backend.controller.SubmissionController.GradeSubmissionRequest;
+import com.wanli.academy.backend.service.ExportService;
+import com.wanli.academy.backend.service.SubmissionEventStream;
 import com.wanli.academy.backend.service.SubmissionService;
 import com.wanli.academy.backend.service.PermissionService;
 import org.junit.jupiter.api.BeforeEach;
@@ -39,6 +41,12 @@ class SubmissionControllerGradingTest extends BaseControllerTest {
     @MockBean
     private SubmissionService submissionService;
 
+    @MockBean
+    private SubmissionEventStream submissionEventStream;
+
+    @MockBean
+    private ExportService exportService;
+
     @MockBean
     private PermissionService permissionService;
 
@@ -84,7 +92,7 @@ class SubmissionControllerGradingTest extends BaseControllerTest {
         request.setScore(85);
         request.setFeedback("做得很好！");
         
-        when(submissionService.gradeSubmission(eq(testSubmissionId), eq(85), eq("做得很好！")))
+        when(submissionService.gradeSubmission(eq(testSubmissionId), eq(85), eq("做得很好！"), isNull()))
             .thenReturn(submissionResponse);
 
         // When & Then
@@ -97,7 +105,7 @@ class SubmissionControllerGradingTest extends BaseControllerTest {
                 .andExpect(jsonPath("$.feedback").value("做得很好！"))
                 .andExpect(jsonPath("$.status").value("GRADED"));
 
-        verify(submissionService).gradeSubmission(testSubmissionId, 85, "做得很好！");
+        verify(submissionService).gradeSubmission(testSubmissionId, 85, "做得很好！", null);
     }
 
     @Test
@@ -108,7 +116,7 @@ class SubmissionControllerGradingTest extends BaseControllerTest {
         request.setScore(85);
         request.setFeedback("做得很好！");
         
-        when(submissionService.gradeSubmission(eq(testSubmissionId), eq(85), eq("做得很好！")))
+        when(submissionService.gradeSubmission(eq(testSubmissionId), eq(85), eq("做得很好！"), isNull()))
             .thenReturn(submissionResponse);
 
         // When & Then
@@ -121,7 +129,7 @@ class SubmissionControllerGradingTest extends BaseControllerTest {
                 .andExpect(jsonPath("$.feedback").value("做得很好！"))
                 .andExpect(jsonPath("$.status").value("GRADED"));
 
-        verify(submissionService).gradeSubmission(testSubmissionId, 85, "做得很好！");
+        verify(submissionService).gradeSubmission(testSubmissionId, 85, "做得很好！", null);
     }
 
     @Test
@@ -152,7 +160,7 @@ class SubmissionControllerGradingTest extends BaseControllerTest {
         request.setScore(85);
         request.setFeedback("做得很好！");
         
-        when(submissionService.gradeSubmission(eq(testSubmissionId), eq(85), eq("做得很好！")))
+        when(submissionService.gradeSubmission(eq(testSubmissionId), eq(85), eq("做得很好！"), isNull()))
             .thenThrow(new RuntimeException("无权限批改此提交"));
 
         // When & Then
@@ -161,7 +169,7 @@ class SubmissionControllerGradingTest extends BaseControllerTest {
                 .content(objectMapper.writeValueAsString(request)))
                 .andExpect(status().isBadRequest());
 
-        verify(submissionService).gradeSubmission(testSubmissionId, 85, "做得很好！");
+        verify(submissionService).gradeSubmission(testSubmissionId, 85, "做得很好！", null);
     }
 
     @Test
@@ -172,7 +180,7 @@ class SubmissionControllerGradingTest extends BaseControllerTest {
         request.setScore(85);
         request.setFeedback("做得很好！");
         
-        when(submissionService.gradeSubmission(eq(testSubmissionId), eq(85), eq("做得很好！")))
+        when(submissionService.gradeSubmission(eq(testSubmissionId), eq(85), eq("做得很好！"), isNull()))
             .thenThrow(new IllegalArgumentException("提交记录不存在"));
 
         // When & Then
@@ -181,7 +189,7 @@ class SubmissionControllerGradingTest extends BaseControllerTest {
                 .content(objectMapper.writeValueAsString(request)))
                 .andExpect(status().isBadRequest());
 
-        verify(submissionService).gradeSubmission(testSubmissionId, 85, "做得很好！");
+        verify(submissionService).gradeSubmission(testSubmissionId, 85, "做得很好！", null);
     }
 
     @Test
@@ -192,7 +200,7 @@ class SubmissionControllerGradingTest extends BaseControllerTest {
         request.setScore(-10); // 无效分数
         request.setFeedback("分数无效");
         
-        when(submissionService.gradeSubmission(eq(testSubmissionId), eq(-10), eq("分数无效")))
+        when(submissionService.gradeSubmission(eq(testSubmissionId), eq(-10), eq("分数无效"), isNull()))
             .thenThrow(new IllegalArgumentException("分数必须在0到100之间"));
 
         // When & Then
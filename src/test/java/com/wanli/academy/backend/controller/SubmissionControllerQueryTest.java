@@ -2,6 +2,8 @@ package com.wanli.academy.backend.controller;
 
 import com.wanli.academy.backend.base.BaseControllerTest;
 import com.wanli.academy.backend.dto.SubmissionResponse;
+import com.wanli.academy.backend.service.ExportService;
+import com.wanli.academy.backend.service.SubmissionEventStream;
 import com.wanli.academy.backend.service.SubmissionService;
 import com.wanli.academy.backend.service.PermissionService;
 import org.junit.jupiter.api.BeforeEach;
@@ -40,6 +42,12 @@ class SubmissionControllerQueryTest extends BaseControllerTest {
     @MockBean
     private SubmissionService submissionService;
 
+    @MockBean
+    private SubmissionEventStream submissionEventStream;
+
+    @MockBean
+    private ExportService exportService;
+
     @MockBean
     private PermissionService permissionService;
 
@@ -120,6 +128,22 @@ class SubmissionControllerQueryTest extends BaseControllerTest {
         verify(submissionService).getStudentSubmissions();
     }
 
+    @Test
+    @DisplayName("提交记录未变化时返回304且不加载列表")
+    void should_returnNotModified_when_eTagMatches() throws Exception {
+        // Given
+        String eTag = "W/\"abc123\"";
+        when(submissionService.getStudentSubmissionsETag()).thenReturn(eTag);
+
+        // When & Then
+        mockMvc.perform(get("/api/submissions/my-submissions")
+                .header("If-None-Match", eTag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", eTag));
+
+        verify(submissionService, never()).getStudentSubmissions();
+    }
+
     @Test
     @DisplayName("获取作业统计信息成功")
     void should_getAssignmentStatistics_when_requestIsValid() throws Exception {
@@ -3,6 +3,8 @@ package com.wanli.academy.backend.controller;
 import com.wanli.academy.backend.base.BaseControllerTest;
 import com.wanli.academy.backend.dto.SubmissionResponse;
 import com.wanli.academy.backend.controller.SubmissionController.SubmitAssignmentRequest;
+import com.wanli.academy.backend.service.ExportService;
+import com.wanli.academy.backend.service.SubmissionEventStream;
 import com.wanli.academy.backend.service.SubmissionService;
 import com.wanli.academy.backend.service.PermissionService;
 import org.junit.jupiter.api.BeforeEach;
@@ -37,6 +39,12 @@ class SubmissionControllerSubmitTest extends BaseControllerTest {
     @MockBean
     private SubmissionService submissionService;
 
+    @MockBean
+    private SubmissionEventStream submissionEventStream;
+
+    @MockBean
+    private ExportService exportService;
+
     @MockBean
     private PermissionService permissionService;
 
@@ -152,7 +160,7 @@ class SubmissionControllerSubmitTest extends BaseControllerTest {
         updatedResponse.setStatus("SUBMITTED");
         updatedResponse.setSubmittedAt(LocalDateTime.now());
         
-        when(submissionService.updateSubmission(eq(testSubmissionId), eq("更新后的内容"), eq("/path/to/updated/file")))
+        when(submissionService.updateSubmission(eq(testSubmissionId), eq("更新后的内容"), eq("/path/to/updated/file"), isNull()))
             .thenReturn(updatedResponse);
 
         // When & Then
@@ -164,7 +172,7 @@ class SubmissionControllerSubmitTest extends BaseControllerTest {
                 .andExpect(jsonPath("$.content").value("更新后的内容"))
                 .andExpect(jsonPath("$.status").value("SUBMITTED"));
 
-        verify(submissionService).updateSubmission(testSubmissionId, "更新后的内容", "/path/to/updated/file");
+        verify(submissionService).updateSubmission(testSubmissionId, "更新后的内容", "/path/to/updated/file", null);
     }
 
     @Test
@@ -174,7 +182,7 @@ class SubmissionControllerSubmitTest extends BaseControllerTest {
         SubmitAssignmentRequest request = new SubmitAssignmentRequest();
         request.setContent("更新后的内容");
         
-        when(submissionService.updateSubmission(eq(testSubmissionId), eq("更新后的内容"), isNull()))
+        when(submissionService.updateSubmission(eq(testSubmissionId), eq("更新后的内容"), isNull(), isNull()))
             .thenThrow(new IllegalArgumentException("提交记录不存在"));
 
         // When & Then
@@ -183,7 +191,7 @@ class SubmissionControllerSubmitTest extends BaseControllerTest {
                 .content(objectMapper.writeValueAsString(request)))
                 .andExpect(status().isBadRequest());
 
-        verify(submissionService).updateSubmission(testSubmissionId, "更新后的内容", null);
+        verify(submissionService).updateSubmission(testSubmissionId, "更新后的内容", null, null);
     }
 
     @Test
@@ -193,7 +201,7 @@ class SubmissionControllerSubmitTest extends BaseControllerTest {
         SubmitAssignmentRequest request = new SubmitAssignmentRequest();
         request.setContent("更新后的内容");
         
-        when(submissionService.updateSubmission(eq(testSubmissionId), eq("更新后的内容"), isNull()))
+        when(submissionService.updateSubmission(eq(testSubmissionId), eq("更新后的内容"), isNull(), isNull()))
             .thenThrow(new IllegalStateException("已批改的提交无法修改"));
 
         // When & Then
@@ -202,6 +210,6 @@ class SubmissionControllerSubmitTest extends BaseControllerTest {
                 .content(objectMapper.writeValueAsString(request)))
                 .andExpect(status().isBadRequest());
 
-        verify(submissionService).updateSubmission(testSubmissionId, "更新后的内容", null);
+        verify(submissionService).updateSubmission(testSubmissionId, "更新后的内容", null, null);
     }
 }
\ No newline at end of file
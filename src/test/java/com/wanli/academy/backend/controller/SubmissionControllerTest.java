@@ -4,6 +4,8 @@ import com.wanli.academy.backend.base.BaseControllerTest;
 import com.wanli.academy.backend.dto.SubmissionResponse;
 import com.wanli.academy.backend.controller.SubmissionController.GradeSubmissionRequest;
 import com.wanli.academy.backend.controller.SubmissionController.SubmitAssignmentRequest;
+import com.wanli.academy.backend.service.ExportService;
+import com.wanli.academy.backend.service.SubmissionEventStream;
 import com.wanli.academy.backend.service.SubmissionService;
 import com.wanli.academy.backend.service.PermissionService;
 import com.wanli.academy.backend.entity.Submission;
@@ -60,6 +62,12 @@ class SubmissionControllerTest extends BaseControllerTest {
     @MockBean
     private SubmissionService submissionService;
 
+    @MockBean
+    private SubmissionEventStream submissionEventStream;
+
+    @MockBean
+    private ExportService exportService;
+
     @MockBean
     private PermissionService permissionService;
 
@@ -6,10 +6,13 @@ import com.wanli.academy.backend.config.JwtAuthenticationEntryPoint;
 import com.wanli.academy.backend.config.JwtAuthenticationFilter;
 import com.wanli.academy.backend.entity.Role;
 import com.wanli.academy.backend.entity.User;
+import com.wanli.academy.backend.service.ExportService;
+import com.wanli.academy.backend.service.UserQueryService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.annotation.Import;
 import org.springframework.http.MediaType;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
@@ -38,6 +41,12 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 @DisplayName("UserController测试")
 class UserControllerTest extends BaseControllerTest {
 
+    @MockBean
+    private ExportService exportService;
+
+    @MockBean
+    private UserQueryService userQueryService;
+
     private User testUser;
     private Role testRole;
     private UserDetails testUserDetails;
@@ -53,6 +53,12 @@ class AuthServiceTest {
     @Mock
     private Authentication authentication;
 
+    @Mock
+    private UserAvailabilityIndex availabilityIndex;
+
+    @Mock
+    private UserActivityRecorder activityRecorder;
+
     @InjectMocks
     private AuthService authService;
 
@@ -205,7 +211,6 @@ class AuthServiceTest {
                 .thenReturn(authentication);
         when(userRepository.findByUsernameOrEmail(TEST_USERNAME, TEST_USERNAME))
                 .thenReturn(Optional.of(testUser));
-        when(userRepository.save(any(User.class))).thenReturn(testUser);
         when(jwtService.generateTokenFromUsername(TEST_USERNAME)).thenReturn(ACCESS_TOKEN);
         when(jwtService.generateRefreshTokenFromUsername(TEST_USERNAME)).thenReturn(REFRESH_TOKEN);
         when(jwtService.getJwtExpiration()).thenReturn(JWT_EXPIRATION);
@@ -223,7 +228,28 @@ class AuthServiceTest {
 
         verify(authenticationManager).authenticate(any(UsernamePasswordAuthenticationToken.class));
         verify(userRepository).findByUsernameOrEmail(TEST_USERNAME, TEST_USERNAME);
-        verify(userRepository).save(any(User.class));
+        verify(activityRecorder).recordLogin(testUser.getId());
+        verify(userRepository, never()).save(any(User.class));
+    }
+
+    @Test
+    void should_rehashPassword_when_loginWithOutdatedHash() {
+        // Given
+        testUser.setPassword("$2a$10$outdatedHash");
+        when(authenticationManager.authenticate(any(UsernamePasswordAuthenticationToken.class)))
+                .thenReturn(authentication);
+        when(userRepository.findByUsernameOrEmail(TEST_USERNAME, TEST_USERNAME))
+                .thenReturn(Optional.of(testUser));
+        when(passwordEncoder.upgradeEncoding("$2a$10$outdatedHash")).thenReturn(true);
+        when(passwordEncoder.encode(TEST_PASSWORD)).thenReturn("{bcrypt}$2a$12$upgradedHash");
+        when(userRepository.save(any(User.class))).thenReturn(testUser);
+
+        // When
+        authService.login(validLoginRequest);
+
+        // Then
+        assertEquals("{bcrypt}$2a$12$upgradedHash", testUser.getPassword());
+        verify(userRepository).save(testUser);
     }
 
     @Test
@@ -387,6 +413,19 @@ class AuthServiceTest {
         verify(userRepository).existsByUsername(TEST_USERNAME);
     }
 
+    @Test
+    void should_skipDatabase_when_filterSaysUsernameAvailable() {
+        // Given
+        when(availabilityIndex.isUsernameDefinitelyAvailable(TEST_USERNAME)).thenReturn(true);
+
+        // When
+        boolean result = authService.isUsernameAvailable(TEST_USERNAME);
+
+        // Then
+        assertTrue(result);
+        verify(userRepository, never()).existsByUsername(anyString());
+    }
+
     @Test
     void should_returnTrue_when_emailAvailable() {
         // Given
@@ -0,0 +1,165 @@
+package com.wanli.academy.backend.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+/**
+ * CacheInvalidationBus单元测试
+ * 测试通知批次的合并去重、本节点事件过滤、溢出整体清空、本地分发以及空闲连接校验
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("集群缓存失效总线测试")
+class CacheInvalidationBusTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private CacheInvalidationBus.Handler handler;
+
+    @Mock
+    private CacheInvalidationBus.Handler remoteHandler;
+
+    @InjectMocks
+    private CacheInvalidationBus bus;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        ReflectionTestUtils.setField(bus, "objectMapper", objectMapper);
+        ReflectionTestUtils.setField(bus, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.setField(bus, "enabled", false);
+        bus.init();
+        bus.register("users", handler);
+        bus.registerRemote("users", remoteHandler);
+    }
+
+    @Test
+    @DisplayName("同一键的多条通知合并为一次驱逐并保留最大版本")
+    void should_coalesceNotifications_when_sameKeyRepeated() throws Exception {
+        CacheInvalidationBus.Batch batch = bus.new Batch();
+        batch.addAll(new PGNotification[] {
+            notification("other-node", "users", "1", 5),
+            notification("other-node", "users", "1", 9),
+            notification("other-node", "users", "1", 7),
+            notification("other-node", "users", "2", 3)
+        });
+        batch.dispatch();
+
+        verify(handler).evict("users", "1", 9);
+        verify(handler).evict("users", "2", 3);
+        verify(remoteHandler).evict("users", "1", 9);
+        verify(remoteHandler).evict("users", "2", 3);
+        verify(handler, never()).evictAll(anyString());
+        assertEquals(4, meterRegistry.counter("cache.invalidation.received").count());
+    }
+
+    @Test
+    @DisplayName("忽略本节点发出的通知和格式错误的通知")
+    void should_skipOwnAndMalformedNotifications() throws Exception {
+        String nodeId = (String) ReflectionTestUtils.getField(bus, "nodeId");
+        PGNotification malformed = mock(PGNotification.class);
+        when(malformed.getParameter()).thenReturn("not-json");
+
+        CacheInvalidationBus.Batch batch = bus.new Batch();
+        batch.addAll(new PGNotification[] {notification(nodeId, "users", "1", 1), malformed});
+        batch.dispatch();
+
+        verifyNoInteractions(handler, remoteHandler);
+    }
+
+    @Test
+    @DisplayName("单个缓存失效键过多时改为整体清空")
+    void should_evictAll_when_batchOverflows() throws Exception {
+        PGNotification[] notifications = new PGNotification[CacheInvalidationBus.MAX_KEYS_PER_CACHE + 10];
+        for (int i = 0; i < notifications.length; i++) {
+            notifications[i] = notification("other-node", "users", String.valueOf(i), i);
+        }
+
+        CacheInvalidationBus.Batch batch = bus.new Batch();
+        batch.addAll(notifications);
+        batch.dispatch();
+
+        verify(handler).evictAll("users");
+        verify(remoteHandler).evictAll("users");
+        verify(handler, never()).evict(anyString(), anyString(), anyLong());
+    }
+
+    @Test
+    @DisplayName("key为空的通知清空整个缓存")
+    void should_evictAll_when_clearNotificationReceived() throws Exception {
+        CacheInvalidationBus.Batch batch = bus.new Batch();
+        batch.addAll(new PGNotification[] {
+            notification("other-node", "users", "1", 1),
+            notification("other-node", "users", null, 2)
+        });
+        batch.dispatch();
+
+        verify(handler).evictAll("users");
+        verify(handler, never()).evict(anyString(), anyString(), anyLong());
+    }
+
+    @Test
+    @DisplayName("总线禁用且无事务时发布直接调用本地处理器")
+    void should_dispatchLocally_when_publishWithoutTransaction() {
+        bus.publish("users", "42", 1L);
+
+        verify(handler).evict("users", "42", 1L);
+        verifyNoInteractions(remoteHandler, jdbcTemplate);
+        assertEquals(1, meterRegistry.counter("cache.invalidation.published").count());
+    }
+
+    @Test
+    @DisplayName("重连后对全部已注册缓存整体清空")
+    void should_evictAllCaches_when_resync() {
+        bus.resync();
+
+        verify(handler).evictAll("users");
+        verify(remoteHandler).evictAll("users");
+        assertEquals(1, meterRegistry.counter("cache.invalidation.resyncs").count());
+    }
+
+    @Test
+    @DisplayName("空闲时监听连接校验失败则抛出异常，进入重连流程")
+    void should_throwException_when_idleListenerConnectionInvalid() throws Exception {
+        Connection connection = mock(Connection.class);
+        PGConnection pgConnection = mock(PGConnection.class);
+        when(pgConnection.getNotifications(anyInt())).thenReturn(new PGNotification[0]);
+        when(connection.isValid(anyInt())).thenReturn(false);
+        ReflectionTestUtils.setField(bus, "healthCheckMillis", 0L);
+        ReflectionTestUtils.setField(bus, "running", true);
+
+        assertThrows(SQLException.class, () -> bus.receiveLoop(connection, pgConnection));
+        verifyNoInteractions(handler, remoteHandler);
+    }
+
+    private PGNotification notification(String node, String cache, String key, long version) throws Exception {
+        PGNotification notification = mock(PGNotification.class);
+        when(notification.getParameter()).thenReturn(
+            objectMapper.writeValueAsString(new CacheInvalidationBus.Event(node, cache, key, version)));
+        return notification;
+    }
+}
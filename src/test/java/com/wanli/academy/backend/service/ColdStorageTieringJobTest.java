@@ -0,0 +1,132 @@
+package com.wanli.academy.backend.service;
+
+import com.wanli.academy.backend.entity.AssignmentFile;
+import com.wanli.academy.backend.repository.AssignmentFileRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * ColdStorageTieringJob单元测试
+ * 测试冷数据压缩迁移与收益不足时保持原样
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("冷存储分层任务测试")
+class ColdStorageTieringJobTest {
+
+    @Mock
+    private AssignmentFileRepository assignmentFileRepository;
+
+    @Mock
+    private StoragePlacementService storagePlacementService;
+
+    @Mock
+    private AdvisoryLockService advisoryLockService;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @InjectMocks
+    private ColdStorageTieringJob tieringJob;
+
+    @TempDir
+    Path tempDir;
+
+    private SimpleMeterRegistry meterRegistry;
+    private StoragePlacementService.StorageRoot coldRoot;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        ReflectionTestUtils.setField(tieringJob, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.setField(tieringJob, "minAgeDays", 30);
+        ReflectionTestUtils.setField(tieringJob, "minSavingsRatio", 0.10);
+        ReflectionTestUtils.setField(tieringJob, "gzipLevel", 6);
+        ReflectionTestUtils.setField(tieringJob, "batchSize", 10);
+        tieringJob.init();
+
+        coldRoot = new StoragePlacementService.StorageRoot(StoragePlacementService.COLD_ROOT, tempDir.resolve("cold"), 1, false);
+        when(storagePlacementService.getRoot(StoragePlacementService.COLD_ROOT)).thenReturn(coldRoot);
+        when(storagePlacementService.resolve(any(AssignmentFile.class)))
+            .thenAnswer(invocation -> Path.of(invocation.<AssignmentFile>getArgument(0).getFilePath()));
+    }
+
+    @Test
+    @DisplayName("可压缩文件压缩后迁入冷存储层并删除原文件")
+    void should_compressAndMove_when_savingsSufficient() throws Exception {
+        byte[] content = "Essay paragraph. ".repeat(500).getBytes();
+        AssignmentFile file = storedFile("essay.txt", content);
+        when(assignmentFileRepository.findColdTierCandidates(any(), any(), any(UUID.class), anyInt()))
+            .thenReturn(List.of(file));
+        when(assignmentFileRepository.moveToColdTier(eq(file.getId()), eq(file.getFilePath()), eq("cold"),
+                eq("submissions/essay.txt.gz"), anyString(), eq(AssignmentFile.CODEC_GZIP), anyLong()))
+            .thenReturn(1);
+
+        long saved = tieringJob.runTiering();
+
+        Path compressed = coldRoot.resolve("submissions/essay.txt.gz");
+        assertTrue(saved > 0);
+        assertFalse(Files.exists(Path.of(file.getFilePath())));
+        try (InputStream in = new GZIPInputStream(Files.newInputStream(compressed))) {
+            assertArrayEquals(content, in.readAllBytes());
+        }
+        assertEquals(saved, meterRegistry.get("file.tiering.bytes.saved").counter().count());
+    }
+
+    @Test
+    @DisplayName("压缩收益不足时保持原样并标记编码")
+    void should_keepOriginal_when_savingsInsufficient() throws Exception {
+        byte[] content = new byte[4096];
+        new Random(42).nextBytes(content);
+        AssignmentFile file = storedFile("recording.wav", content);
+        when(assignmentFileRepository.findColdTierCandidates(any(), any(), any(UUID.class), anyInt()))
+            .thenReturn(List.of(file));
+
+        long saved = tieringJob.runTiering();
+
+        assertEquals(0, saved);
+        assertTrue(Files.exists(Path.of(file.getFilePath())));
+        assertFalse(Files.exists(coldRoot.resolve("submissions/recording.wav.gz")));
+        verify(assignmentFileRepository).markStorageCodec(file.getId(), AssignmentFile.CODEC_IDENTITY);
+        verify(assignmentFileRepository, never()).moveToColdTier(any(), any(), any(), any(), any(), any(), any());
+    }
+
+    private AssignmentFile storedFile(String name, byte[] content) throws Exception {
+        Path hot = tempDir.resolve("hot").resolve("submissions").resolve(name);
+        Files.createDirectories(hot.getParent());
+        Files.write(hot, content);
+
+        AssignmentFile file = new AssignmentFile();
+        file.setId(UUID.randomUUID());
+        file.setFileName(name);
+        file.setFilePath(hot.toString());
+        file.setStorageRoot("default");
+        file.setStorageKey("submissions/" + name);
+        file.setFileSize((long) content.length);
+        return file;
+    }
+}
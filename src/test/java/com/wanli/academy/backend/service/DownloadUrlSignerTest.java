@@ -0,0 +1,88 @@
+package com.wanli.academy.backend.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * DownloadUrlSigner单元测试
+ * 测试下载链接签名的签发、校验、过期以及签名密钥的派生
+ */
+@DisplayName("下载链接签名测试")
+class DownloadUrlSignerTest {
+
+    private static final UUID FILE_ID = UUID.fromString("550e8400-e29b-41d4-a716-446655440000");
+    private static final Instant NOW = Instant.parse("2024-01-01T00:00:00Z");
+
+    private DownloadUrlSigner signer;
+
+    @BeforeEach
+    void setUp() {
+        signer = new DownloadUrlSigner();
+        ReflectionTestUtils.setField(signer, "signingSecret", "testSigningSecretForDownloadUrls");
+        ReflectionTestUtils.setField(signer, "jwtSecret", "testJwtSecret");
+        ReflectionTestUtils.setField(signer, "urlTtlSeconds", 300L);
+        signer.setClock(Clock.fixed(NOW, ZoneOffset.UTC));
+        signer.init();
+    }
+
+    @Test
+    @DisplayName("未配置专用密钥时从JWT密钥派生子密钥，签名不直接使用JWT密钥")
+    void should_deriveSeparateKey_when_signingSecretMissing() {
+        DownloadUrlSigner derived = new DownloadUrlSigner();
+        ReflectionTestUtils.setField(derived, "signingSecret", "");
+        ReflectionTestUtils.setField(derived, "jwtSecret", "testJwtSecret");
+        ReflectionTestUtils.setField(derived, "urlTtlSeconds", 300L);
+        derived.setClock(Clock.fixed(NOW, ZoneOffset.UTC));
+        derived.init();
+        DownloadUrlSigner direct = new DownloadUrlSigner();
+        ReflectionTestUtils.setField(direct, "signingSecret", "testJwtSecret");
+        ReflectionTestUtils.setField(direct, "urlTtlSeconds", 300L);
+        direct.setClock(Clock.fixed(NOW, ZoneOffset.UTC));
+        direct.init();
+
+        DownloadUrlSigner.SignedDownload signed = derived.sign(FILE_ID, 7L);
+
+        assertTrue(derived.verify(FILE_ID, 7L, signed.getExpiresAt(), signed.getSignature()));
+        assertFalse(direct.verify(FILE_ID, 7L, signed.getExpiresAt(), signed.getSignature()));
+        assertEquals(32, DownloadUrlSigner.deriveKey("testJwtSecret".getBytes()).length);
+    }
+
+    @Test
+    @DisplayName("签发的签名在有效期内校验通过")
+    void should_verify_when_signatureUnchanged() {
+        DownloadUrlSigner.SignedDownload signed = signer.sign(FILE_ID, 7L);
+
+        assertEquals(NOW.getEpochSecond() + 300, signed.getExpiresAt());
+        assertTrue(signer.verify(FILE_ID, 7L, signed.getExpiresAt(), signed.getSignature()));
+    }
+
+    @Test
+    @DisplayName("篡改文件、用户或过期时间后校验失败")
+    void should_reject_when_parametersTampered() {
+        DownloadUrlSigner.SignedDownload signed = signer.sign(FILE_ID, 7L);
+
+        assertFalse(signer.verify(UUID.randomUUID(), 7L, signed.getExpiresAt(), signed.getSignature()));
+        assertFalse(signer.verify(FILE_ID, 8L, signed.getExpiresAt(), signed.getSignature()));
+        assertFalse(signer.verify(FILE_ID, 7L, signed.getExpiresAt() + 3600, signed.getSignature()));
+        assertFalse(signer.verify(FILE_ID, 7L, signed.getExpiresAt(), null));
+    }
+
+    @Test
+    @DisplayName("过期后校验失败")
+    void should_reject_when_expired() {
+        DownloadUrlSigner.SignedDownload signed = signer.sign(FILE_ID, 7L);
+
+        signer.setClock(Clock.fixed(NOW.plusSeconds(301), ZoneOffset.UTC));
+
+        assertFalse(signer.verify(FILE_ID, 7L, signed.getExpiresAt(), signed.getSignature()));
+    }
+}
@@ -0,0 +1,132 @@
+package com.wanli.academy.backend.service;
+
+import com.wanli.academy.backend.entity.AssignmentFile;
+import com.wanli.academy.backend.repository.AssignmentFileRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * ExpiredFileCleanupJob单元测试
+ * 测试分页清理、批量删除和advisory锁互斥
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("过期文件清理任务测试")
+class ExpiredFileCleanupJobTest {
+
+    private static final UUID ASSIGNMENT_ID = UUID.fromString("550e8400-e29b-41d4-a716-446655440000");
+
+    @Mock
+    private AssignmentFileRepository assignmentFileRepository;
+
+    @Mock
+    private StorageQuotaService storageQuotaService;
+
+    @Mock
+    private AdvisoryLockService advisoryLockService;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private StoragePlacementService storagePlacementService;
+
+    @InjectMocks
+    private ExpiredFileCleanupJob cleanupJob;
+
+    @TempDir
+    Path tempDir;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        ReflectionTestUtils.setField(cleanupJob, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.setField(cleanupJob, "retentionDays", 30);
+        ReflectionTestUtils.setField(cleanupJob, "pageSize", 2);
+        ReflectionTestUtils.setField(cleanupJob, "ioThreads", 2);
+        cleanupJob.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        cleanupJob.shutdown();
+    }
+
+    @Test
+    @DisplayName("获得锁后删除过期文件和记录并扣减配额")
+    void should_deleteBlobsAndRows_when_lockAcquired() throws Exception {
+        AssignmentFile first = expiredFile(Files.createFile(tempDir.resolve("a.tmp")), 100L);
+        AssignmentFile second = expiredFile(Files.createFile(tempDir.resolve("b.tmp")), 50L);
+        runTaskWhenLocked();
+        when(storagePlacementService.resolve(any(AssignmentFile.class)))
+            .thenAnswer(invocation -> Path.of(invocation.<AssignmentFile>getArgument(0).getFilePath()));
+        when(assignmentFileRepository.findExpiredPage(eq("TEMP"), any(), any(), any(), anyInt()))
+            .thenReturn(List.of(first, second))
+            .thenReturn(List.of());
+
+        int deleted = cleanupJob.runCleanup();
+
+        assertEquals(2, deleted);
+        assertFalse(Files.exists(Path.of(first.getFilePath())));
+        assertFalse(Files.exists(Path.of(second.getFilePath())));
+        verify(assignmentFileRepository).deleteByIdIn(List.of(first.getId(), second.getId()));
+        verify(storageQuotaService).recordDeletes(1L, ASSIGNMENT_ID, 150L, 2L);
+        assertEquals(2.0, meterRegistry.counter("file.cleanup.deleted").count());
+    }
+
+    @Test
+    @DisplayName("其他节点持有锁时跳过清理")
+    void should_skipCleanup_when_lockHeldElsewhere() {
+        when(advisoryLockService.runExclusively(anyString(), any(Runnable.class))).thenReturn(false);
+
+        int deleted = cleanupJob.runCleanup();
+
+        assertEquals(0, deleted);
+        verifyNoInteractions(assignmentFileRepository);
+    }
+
+    private void runTaskWhenLocked() {
+        when(advisoryLockService.runExclusively(eq("expired-file-cleanup"), any(Runnable.class)))
+            .thenAnswer(invocation -> {
+                invocation.<Runnable>getArgument(1).run();
+                return true;
+            });
+    }
+
+    private AssignmentFile expiredFile(Path path, long size) {
+        AssignmentFile file = new AssignmentFile();
+        file.setId(UUID.randomUUID());
+        file.setAssignmentId(ASSIGNMENT_ID);
+        file.setFileName(path.getFileName().toString());
+        file.setFilePath(path.toString());
+        file.setFileSize(size);
+        file.setFileType("TEMP");
+        file.setUploadedBy(1L);
+        file.setCreatedAt(LocalDateTime.now().minusDays(60));
+        return file;
+    }
+}
@@ -0,0 +1,167 @@
+package com.wanli.academy.backend.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.wanli.academy.backend.exception.ServiceOverloadedException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * ExportService单元测试
+ * 测试CSV/NDJSON逐行写出、CSV公式单元格转义、游标读取设置、教师导出范围以及并发导出上限
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("数据导出测试")
+class ExportServiceTest {
+
+    private static final String[] COLUMNS = {"id", "username", "created_at"};
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private PermissionService permissionService;
+
+    @InjectMocks
+    private ExportService exportService;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(exportService, "objectMapper", new ObjectMapper());
+        ReflectionTestUtils.setField(exportService, "fetchSize", 250);
+        ReflectionTestUtils.setField(exportService, "maxConcurrent", 1);
+        exportService.init();
+    }
+
+    @Test
+    @DisplayName("CSV导出写出BOM、表头并转义单元格")
+    void should_writeCsvRows_when_exportingCsv() throws Exception {
+        givenRows(new Object[]{1L, "alice", Timestamp.valueOf(LocalDateTime.of(2024, 3, 1, 8, 30))},
+                new Object[]{2L, "bob, jr", null});
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        long count = exportService.stream("users", "SELECT ...", new Object[0], COLUMNS, ExportService.Format.CSV, out);
+
+        assertEquals(2, count);
+        assertEquals("\uFEFFid,username,created_at\n1,alice,2024-03-01T08:30\n2,\"bob, jr\",\n",
+                out.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    @DisplayName("CSV导出中以公式字符开头的文本单元格加单引号，数值原样写出")
+    void should_neutralizeFormulaCells_when_exportingCsv() throws Exception {
+        givenRows(new Object[]{-1L, "=HYPERLINK(\"http://evil\",\"x\")", null},
+                new Object[]{2L, "@SUM(A1)", null},
+                new Object[]{3L, "\t+1", null});
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        exportService.stream("users", "SELECT ...", new Object[0], COLUMNS, ExportService.Format.CSV, out);
+
+        assertEquals("\uFEFFid,username,created_at\n-1,\"'=HYPERLINK(\"\"http://evil\"\",\"\"x\"\")\",\n"
+                        + "2,'@SUM(A1),\n3,'\t+1,\n",
+                out.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    @DisplayName("NDJSON导出每行一个JSON对象，并在只读事务中按fetch size读取")
+    void should_writeOneJsonObjectPerLine_when_exportingNdjson() throws Exception {
+        PreparedStatementCreator creator = givenRows(new Object[]{1L, "alice", null}, new Object[]{2L, "bob", null});
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        exportService.stream("users", "SELECT ...", new Object[0], COLUMNS, ExportService.Format.NDJSON, out);
+
+        assertEquals("{\"id\":1,\"username\":\"alice\",\"created_at\":null}\n"
+                        + "{\"id\":2,\"username\":\"bob\",\"created_at\":null}\n",
+                out.toString(StandardCharsets.UTF_8));
+        ArgumentCaptor<TransactionDefinition> definition = ArgumentCaptor.forClass(TransactionDefinition.class);
+        verify(transactionManager).getTransaction(definition.capture());
+        assertTrue(definition.getValue().isReadOnly());
+
+        Connection connection = mock(Connection.class);
+        PreparedStatement statement = mock(PreparedStatement.class);
+        when(connection.prepareStatement(anyString(), eq(ResultSet.TYPE_FORWARD_ONLY), eq(ResultSet.CONCUR_READ_ONLY)))
+                .thenReturn(statement);
+        creator.createPreparedStatement(connection);
+        verify(statement).setFetchSize(250);
+    }
+
+    @Test
+    @DisplayName("教师只导出自己创建的作业的提交")
+    void should_limitToOwnAssignments_when_teacherExportsSubmissions() throws Exception {
+        when(permissionService.isAdmin()).thenReturn(false);
+        when(permissionService.getCurrentUserId()).thenReturn(7L);
+        PreparedStatementCreator creator = givenRows();
+        UUID assignmentId = UUID.randomUUID();
+
+        exportService.exportSubmissions(assignmentId, ExportService.Format.CSV).writeTo(new ByteArrayOutputStream());
+
+        Connection connection = mock(Connection.class);
+        PreparedStatement statement = mock(PreparedStatement.class);
+        ArgumentCaptor<String> sql = ArgumentCaptor.forClass(String.class);
+        when(connection.prepareStatement(sql.capture(), anyInt(), anyInt())).thenReturn(statement);
+        creator.createPreparedStatement(connection);
+        assertTrue(sql.getValue().contains("a.creator_id = ?"));
+        verify(statement).setObject(1, 7L);
+        verify(statement).setObject(2, assignmentId);
+    }
+
+    @Test
+    @DisplayName("同时进行的导出达到上限时返回过载，写出结束后释放许可")
+    void should_rejectExport_when_concurrentLimitReached() throws Exception {
+        givenRows();
+        StreamingResponseBody running = exportService.exportUsers(ExportService.Format.CSV);
+
+        assertThrows(ServiceOverloadedException.class, () -> exportService.exportUsers(ExportService.Format.CSV));
+
+        running.writeTo(new ByteArrayOutputStream());
+        assertNotNull(exportService.exportUsers(ExportService.Format.CSV));
+    }
+
+    /**
+     * 模拟游标依次返回给定的行，返回查询使用的语句创建器
+     */
+    private PreparedStatementCreator givenRows(Object[]... rows) throws Exception {
+        PreparedStatementCreator[] creator = new PreparedStatementCreator[1];
+        doAnswer(invocation -> {
+            creator[0] = invocation.getArgument(0);
+            RowCallbackHandler handler = invocation.getArgument(1);
+            for (Object[] row : rows) {
+                ResultSet rs = mock(ResultSet.class);
+                for (int i = 0; i < row.length; i++) {
+                    when(rs.getObject(i + 1)).thenReturn(row[i]);
+                }
+                handler.processRow(rs);
+            }
+            return null;
+        }).when(jdbcTemplate).query(any(PreparedStatementCreator.class), any(RowCallbackHandler.class));
+        return con -> creator[0].createPreparedStatement(con);
+    }
+}
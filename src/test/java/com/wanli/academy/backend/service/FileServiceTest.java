@@ -14,6 +14,7 @@ import org.junit.jupiter.api.io.TempDir;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.core.io.Resource;
 import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.security.core.Authentication;
@@ -33,6 +34,7 @@ import java.util.UUID;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.Mockito.*;
 
 /**
@@ -56,12 +58,24 @@ class FileServiceTest {
     @Mock
     private UserRepository userRepository;
 
+    @Mock
+    private StorageQuotaService storageQuotaService;
+
+    @Mock
+    private ExpiredFileCleanupJob expiredFileCleanupJob;
+
+    @Mock
+    private StoragePlacementService storagePlacementService;
+
     @Mock
     private SecurityContext securityContext;
 
     @Mock
     private Authentication authentication;
 
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
     @InjectMocks
     private FileService fileService;
 
@@ -92,12 +106,13 @@ class FileServiceTest {
             "Test file content".getBytes()
         );
 
-        // 设置文件服务的上传目录为临时目录
+        // 设置存储根目录为临时目录
+        lenient().when(storagePlacementService.selectRoot(anyLong()))
+            .thenReturn(new StoragePlacementService.StorageRoot("default", tempDir, 1, true));
+        lenient().when(storagePlacementService.resolve(any(AssignmentFile.class)))
+            .thenAnswer(invocation -> Path.of(invocation.<AssignmentFile>getArgument(0).getFilePath()));
+
         try {
-            java.lang.reflect.Field uploadDirField = FileService.class.getDeclaredField("uploadDir");
-            uploadDirField.setAccessible(true);
-            uploadDirField.set(fileService, tempDir.toString());
-            
             // 设置最大文件大小为10MB
             java.lang.reflect.Field maxFileSizeField = FileService.class.getDeclaredField("maxFileSize");
             maxFileSizeField.setAccessible(true);
@@ -150,6 +165,22 @@ class FileServiceTest {
         verify(assignmentFileRepository, times(1)).save(any(AssignmentFile.class));
     }
 
+    @Test
+    @DisplayName("超出存储配额时上传失败且不保存记录")
+    void should_throwException_when_quotaExceeded() {
+        doThrow(new IllegalArgumentException("Storage quota exceeded for user: limit 1MB"))
+            .when(storageQuotaService).checkQuota(any(), any(), anyLong());
+
+        IllegalArgumentException exception = assertThrows(
+            IllegalArgumentException.class,
+            () -> fileService.uploadFile(mockMultipartFile, TEST_HOMEWORK_ID, "ASSIGNMENT_ATTACHMENT")
+        );
+
+        assertTrue(exception.getMessage().contains("quota"));
+        verify(assignmentFileRepository, never()).save(any(AssignmentFile.class));
+        verify(storageQuotaService, never()).recordUpload(any(), any(), anyLong());
+    }
+
     @Test
     @DisplayName("空文件上传失败")
     void should_throwException_when_uploadingEmptyFile() {
@@ -317,6 +348,32 @@ class FileServiceTest {
         verify(assignmentFileRepository, times(1)).findById(fileId);
     }
 
+    @Test
+    @DisplayName("冷存储层的压缩文件按客户端能力返回压缩内容或透明解压")
+    void should_decompressOrEncode_when_fileStoredInColdTier() throws IOException {
+        UUID fileId = testFile.getId();
+        byte[] content = "Cold tier content ".repeat(100).getBytes();
+        Path gzPath = tempDir.resolve("cold.txt.gz");
+        try (java.io.OutputStream out = new java.util.zip.GZIPOutputStream(Files.newOutputStream(gzPath))) {
+            out.write(content);
+        }
+        testFile.setFilePath(gzPath.toString());
+        testFile.setStorageCodec(AssignmentFile.CODEC_GZIP);
+        testFile.setFileSize((long) content.length);
+        when(assignmentFileRepository.findById(fileId)).thenReturn(Optional.of(testFile));
+
+        FileService.FileDownload encoded = fileService.openDownload(fileId, true);
+        assertEquals(AssignmentFile.CODEC_GZIP, encoded.getContentEncoding());
+        assertEquals(Files.size(gzPath), encoded.getResource().contentLength());
+
+        FileService.FileDownload decoded = fileService.openDownload(fileId, false);
+        assertNull(decoded.getContentEncoding());
+        assertEquals(content.length, decoded.getResource().contentLength());
+        try (java.io.InputStream in = decoded.getResource().getInputStream()) {
+            assertArrayEquals(content, in.readAllBytes());
+        }
+    }
+
     @Test
     @DisplayName("下载不存在的文件")
     void should_throwException_when_downloadingNonExistentFile() {
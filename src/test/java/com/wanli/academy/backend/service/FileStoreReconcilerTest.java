@@ -0,0 +1,117 @@
+package com.wanli.academy.backend.service;
+
+import com.wanli.academy.backend.entity.AssignmentFile;
+import com.wanli.academy.backend.repository.AssignmentFileRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * FileStoreReconciler单元测试
+ * 测试孤儿文件与悬空记录的检测和隔离
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("文件存储对账测试")
+class FileStoreReconcilerTest {
+
+    @Mock
+    private AssignmentFileRepository assignmentFileRepository;
+
+    @Mock
+    private AdvisoryLockService advisoryLockService;
+
+    @Mock
+    private StoragePlacementService storagePlacementService;
+
+    @InjectMocks
+    private FileStoreReconciler reconciler;
+
+    @TempDir
+    Path uploadRoot;
+
+    private Path knownBlob;
+    private Path orphanBlob;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        ReflectionTestUtils.setField(reconciler, "batchSize", 10);
+        ReflectionTestUtils.setField(reconciler, "maxFilesPerSecond", 0);
+        ReflectionTestUtils.setField(reconciler, "graceMinutes", 60L);
+
+        Files.createDirectories(uploadRoot.resolve("submissions"));
+        knownBlob = oldFile(uploadRoot.resolve("submissions").resolve("known.pdf"));
+        orphanBlob = oldFile(uploadRoot.resolve("submissions").resolve("orphan.pdf"));
+
+        when(storagePlacementService.getRoots())
+            .thenReturn(List.of(new StoragePlacementService.StorageRoot("default", uploadRoot, 1, true)));
+        when(storagePlacementService.resolve(any(AssignmentFile.class)))
+            .thenAnswer(invocation -> Path.of(invocation.<AssignmentFile>getArgument(0).getFilePath()));
+        when(assignmentFileRepository.findExistingStorageKeys(eq("default"), anyCollection()))
+            .thenReturn(List.of("submissions/known.pdf"));
+        when(assignmentFileRepository.findExistingFilePaths(anyCollection()))
+            .thenReturn(List.of());
+        AssignmentFile dangling = new AssignmentFile();
+        dangling.setId(UUID.randomUUID());
+        dangling.setFilePath(uploadRoot.resolve("submissions").resolve("missing.pdf").toString());
+        dangling.setCreatedAt(LocalDateTime.now().minusDays(2));
+        when(assignmentFileRepository.findPageAfterId(any(UUID.class), anyInt()))
+            .thenReturn(List.of(dangling));
+    }
+
+    @Test
+    @DisplayName("报告模式下只报告孤儿文件和悬空记录")
+    void should_reportOrphansAndMissingBlobs_when_reportMode() {
+        ReflectionTestUtils.setField(reconciler, "mode", FileStoreReconciler.Mode.REPORT);
+
+        FileStoreReconciler.ReconcileReport report = reconciler.reconcile();
+
+        assertEquals(2, report.getBlobsScanned());
+        assertEquals(1, report.getOrphanBlobs());
+        assertEquals(List.of(orphanBlob.toString()), report.getOrphanSamples());
+        assertEquals(1, report.getMissingBlobs());
+        assertTrue(Files.exists(orphanBlob));
+        assertSame(report, reconciler.getLastReport());
+        // 按无符号比较，首页必须从全0 UUID开始
+        verify(assignmentFileRepository).findPageAfterId(eq(new UUID(0L, 0L)), anyInt());
+    }
+
+    @Test
+    @DisplayName("隔离模式下将孤儿文件移入隔离目录")
+    void should_moveOrphanToQuarantine_when_quarantineMode() {
+        ReflectionTestUtils.setField(reconciler, "mode", FileStoreReconciler.Mode.QUARANTINE);
+
+        reconciler.reconcile();
+
+        assertFalse(Files.exists(orphanBlob));
+        assertTrue(Files.exists(uploadRoot.resolve(".quarantine").resolve("submissions").resolve("orphan.pdf")));
+        assertTrue(Files.exists(knownBlob));
+    }
+
+    private Path oldFile(Path path) throws Exception {
+        Files.writeString(path, "content");
+        Files.setLastModifiedTime(path, FileTime.from(Instant.now().minus(1, ChronoUnit.DAYS)));
+        return path;
+    }
+}
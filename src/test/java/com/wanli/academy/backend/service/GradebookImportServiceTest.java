@@ -0,0 +1,135 @@
+package com.wanli.academy.backend.service;
+
+import com.wanli.academy.backend.dto.BulkGradeRequest;
+import com.wanli.academy.backend.dto.BulkGradeResponse;
+import com.wanli.academy.backend.dto.GradebookImportResult;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * GradebookImportService单元测试
+ * 测试按用户名匹配提交、行格式校验、源文件行号、分块处理以及试运行透传
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("成绩表导入测试")
+class GradebookImportServiceTest {
+
+    private static final UUID ASSIGNMENT_ID = UUID.randomUUID();
+    private static final UUID SUBMISSION_ID = UUID.randomUUID();
+    private static final Long TEACHER_ID = 2L;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private SubmissionService submissionService;
+
+    @Mock
+    private PermissionService permissionService;
+
+    @Mock
+    private AdvisoryLockService advisoryLockService;
+
+    @InjectMocks
+    private GradebookImportService importService;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        ReflectionTestUtils.setField(importService, "chunkSize", 2);
+        ReflectionTestUtils.setField(importService, "maxRows", 100);
+        // 每块的用户名查询只有student01有提交
+        ResultSet row = mock(ResultSet.class);
+        lenient().when(row.getString("username")).thenReturn("student01");
+        lenient().when(row.getObject("id", UUID.class)).thenReturn(SUBMISSION_ID);
+        lenient().doAnswer(invocation -> {
+            if (List.of(invocation.getArguments()).contains("student01")) {
+                invocation.<RowCallbackHandler>getArgument(1).processRow(row);
+            }
+            return null;
+        }).when(jdbcTemplate).query(contains("JOIN users u"), any(RowCallbackHandler.class), any(Object[].class));
+    }
+
+    @Test
+    @DisplayName("匹配到提交的行交给批量批改，格式错误和无提交的行记入错误报告")
+    void should_gradeMatchedRowsAndReportErrors() throws Exception {
+        when(submissionService.gradeSubmissions(anyList(), eq(false))).thenReturn(new BulkGradeResponse(
+                List.of(BulkGradeResponse.ItemResult.graded(SUBMISSION_ID, 4L))));
+
+        GradebookImportResult result = importService.importRows(csv(
+                "用户名,分数,反馈\nstudent01,85,\"不错\n继续保持\"\nstudent02,abc,\n\nstudent03,70,\n"),
+                ASSIGNMENT_ID, TEACHER_ID, false);
+
+        assertEquals(3, result.getTotalRows());
+        assertEquals(1, result.getGraded());
+        assertEquals(2, result.getFailed());
+        assertEquals("分数必须是整数", result.getErrors().get(0).getMessage());
+        assertEquals(4, result.getErrors().get(0).getRowNumber());
+        assertEquals("该学生没有提交此作业", result.getErrors().get(1).getMessage());
+        assertEquals(6, result.getErrors().get(1).getRowNumber());
+        assertNotNull(result.getErrorReportUrl());
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<BulkGradeRequest.Item>> items = ArgumentCaptor.forClass(List.class);
+        verify(submissionService).gradeSubmissions(items.capture(), eq(false));
+        assertEquals(SUBMISSION_ID, items.getValue().get(0).getSubmissionId());
+        assertEquals(85, items.getValue().get(0).getScore());
+        assertEquals("不错\n继续保持", items.getValue().get(0).getFeedback());
+        verify(jdbcTemplate).batchUpdate(contains("INSERT INTO gradebook_import_errors"), anyList());
+    }
+
+    @Test
+    @DisplayName("试运行把dryRun传给批量批改，批改失败原因记入错误")
+    void should_passDryRunAndReportGradingFailures() throws Exception {
+        when(submissionService.gradeSubmissions(anyList(), eq(true))).thenReturn(new BulkGradeResponse(
+                List.of(BulkGradeResponse.ItemResult.failed(SUBMISSION_ID, "INVALID_SCORE", "分数必须在0到100之间"))));
+
+        GradebookImportResult result = importService.importRows(csv("username,score\nstudent01,120.0\n"),
+                ASSIGNMENT_ID, TEACHER_ID, true);
+
+        assertTrue(result.isDryRun());
+        assertEquals(0, result.getGraded());
+        assertEquals("分数必须在0到100之间", result.getErrors().get(0).getMessage());
+        verify(submissionService, never()).gradeSubmissions(anyList(), eq(false));
+    }
+
+    @Test
+    @DisplayName("表头缺少分数列时拒绝导入")
+    void should_rejectMissingScoreColumn() {
+        assertThrows(IllegalArgumentException.class,
+                () -> importService.importRows(csv("username,feedback\nstudent01,ok\n"), ASSIGNMENT_ID, TEACHER_ID, false));
+        verifyNoInteractions(submissionService);
+    }
+
+    @Test
+    @DisplayName("错误报告单元格按CSV规则转义，公式字符开头的单元格加单引号")
+    void should_escapeCsvCells() {
+        assertEquals("\"a,b\"", GradebookImportService.csvCell("a,b"));
+        assertEquals("\"say \"\"hi\"\"\"", GradebookImportService.csvCell("say \"hi\""));
+        assertEquals("", GradebookImportService.csvCell(null));
+        assertEquals("'=1+2", GradebookImportService.csvCell("=1+2"));
+        assertEquals("\"'-1,2\"", GradebookImportService.csvCell("-1,2"));
+    }
+
+    private GradebookReader csv(String content) {
+        return new GradebookReader.Csv(new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8)));
+    }
+}
@@ -0,0 +1,109 @@
+package com.wanli.academy.backend.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * GradebookReader单元测试
+ * 测试CSV引号转义与跨行单元格，XLSX共享字符串和空单元格的列对齐，以及两种格式的源文件行号
+ */
+@DisplayName("成绩表读取测试")
+class GradebookReaderTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    @DisplayName("CSV支持BOM、引号转义和单元格内换行")
+    void should_parseQuotedCsvCells() throws IOException {
+        String csv = "\uFEFFusername,score,feedback\r\nstudent01,85,\"好,很好\"\nstudent02,90,\"第一行\n第二行 \"\"引用\"\"\"\n";
+        try (GradebookReader reader = new GradebookReader.Csv(new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)))) {
+            assertEquals(List.of("username", "score", "feedback"), reader.nextRow());
+            assertEquals(List.of("student01", "85", "好,很好"), reader.nextRow());
+            assertEquals(List.of("student02", "90", "第一行\n第二行 \"引用\""), reader.nextRow());
+            assertEquals(3, reader.rowNumber());
+            assertNull(reader.nextRow());
+        }
+    }
+
+    @Test
+    @DisplayName("XLSX读取共享字符串并为缺失的单元格补空")
+    void should_readXlsxSheetWithSharedStrings() throws IOException {
+        Path file = tempDir.resolve("grades.xlsx");
+        try (ZipOutputStream zip = new ZipOutputStream(Files.newOutputStream(file))) {
+            entry(zip, "xl/sharedStrings.xml",
+                    "<sst xmlns=\"http://schemas.openxmlformats.org/spreadsheetml/2006/main\">"
+                            + "<si><t>username</t></si><si><t>score</t></si><si><r><t>stu</t></r><r><t>dent01</t></r></si></sst>");
+            entry(zip, "xl/worksheets/sheet1.xml",
+                    "<worksheet xmlns=\"http://schemas.openxmlformats.org/spreadsheetml/2006/main\"><sheetData>"
+                            + "<row r=\"1\"><c r=\"A1\" t=\"s\"><v>0</v></c><c r=\"B1\" t=\"s\"><v>1</v></c></row>"
+                            + "<row r=\"2\"><c r=\"A2\" t=\"s\"><v>2</v></c><c r=\"C2\"><v>85.0</v></c></row>"
+                            + "</sheetData></worksheet>");
+        }
+
+        try (GradebookReader reader = GradebookReader.open("grades.xlsx", file)) {
+            assertEquals(List.of("username", "score"), reader.nextRow());
+            assertEquals(List.of("student01", "", "85.0"), reader.nextRow());
+            assertEquals(2, reader.rowNumber());
+            assertNull(reader.nextRow());
+        }
+        assertEquals(27, GradebookReader.Xlsx.columnIndex("AB12"));
+    }
+
+    @Test
+    @DisplayName("行号取源文件位置：CSV跨行单元格之后的行、XLSX省略空行之后的行")
+    void should_reportSourceRowNumbers() throws IOException {
+        String csv = "username,feedback\nstudent01,\"第一行\n第二行\"\nstudent02,ok\n";
+        try (GradebookReader reader = new GradebookReader.Csv(new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)))) {
+            reader.nextRow();
+            assertEquals(1, reader.rowNumber());
+            reader.nextRow();
+            assertEquals(2, reader.rowNumber());
+            assertEquals(List.of("student02", "ok"), reader.nextRow());
+            assertEquals(4, reader.rowNumber());
+        }
+
+        Path file = tempDir.resolve("sparse.xlsx");
+        try (ZipOutputStream zip = new ZipOutputStream(Files.newOutputStream(file))) {
+            entry(zip, "xl/worksheets/sheet1.xml",
+                    "<worksheet xmlns=\"http://schemas.openxmlformats.org/spreadsheetml/2006/main\"><sheetData>"
+                            + "<row r=\"1\"><c r=\"A1\" t=\"inlineStr\"><is><t>username</t></is></c></row>"
+                            + "<row r=\"5\"><c r=\"A5\" t=\"inlineStr\"><is><t>student01</t></is></c></row>"
+                            + "<row><c t=\"inlineStr\"><is><t>student02</t></is></c></row>"
+                            + "</sheetData></worksheet>");
+        }
+        try (GradebookReader reader = GradebookReader.open("sparse.xlsx", file)) {
+            reader.nextRow();
+            assertEquals(List.of("student01"), reader.nextRow());
+            assertEquals(5, reader.rowNumber());
+            assertEquals(List.of("student02"), reader.nextRow());
+            assertEquals(6, reader.rowNumber());
+        }
+    }
+
+    @Test
+    @DisplayName("不支持的文件格式抛出异常")
+    void should_rejectUnsupportedFormat() {
+        assertThrows(IllegalArgumentException.class, () -> GradebookReader.open("grades.xls", tempDir.resolve("x")));
+    }
+
+    private void entry(ZipOutputStream zip, String name, String content) throws IOException {
+        zip.putNextEntry(new ZipEntry(name));
+        OutputStream out = zip;
+        out.write(content.getBytes(StandardCharsets.UTF_8));
+        zip.closeEntry();
+    }
+}
@@ -0,0 +1,96 @@
+package com.wanli.academy.backend.service;
+
+import com.wanli.academy.backend.dto.GradebookMatrix;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * GradebookService单元测试
+ * 测试列式单元格编码、键集分页游标以及教师作业范围过滤
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("成绩册矩阵测试")
+class GradebookServiceTest {
+
+    private static final UUID FIRST = UUID.randomUUID();
+    private static final UUID SECOND = UUID.randomUUID();
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private PermissionService permissionService;
+
+    @InjectMocks
+    private GradebookService gradebookService;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(gradebookService, "defaultPageSize", 100);
+        ReflectionTestUtils.setField(gradebookService, "maxPageSize", 500);
+    }
+
+    @Test
+    @DisplayName("单元格按学生和作业下标编码，多出的学生只用于生成下一页游标")
+    void should_encodeCellsAndSetCursor_when_pageIsFull() {
+        GradebookService.MatrixBuilder builder = new GradebookService.MatrixBuilder(2, Map.of(FIRST, 0, SECOND, 1));
+        builder.add(10L, "alice", FIRST, new BigDecimal("90.00"), "GRADED");
+        builder.add(10L, "alice", SECOND, null, "SUBMITTED");
+        builder.add(12L, "bob", SECOND, new BigDecimal("75.50"), "GRADED");
+        builder.add(15L, "carol", FIRST, new BigDecimal("60.00"), "GRADED");
+
+        GradebookMatrix matrix = builder.build(List.of(
+                new GradebookMatrix.AssignmentColumn(FIRST, "作业一", new BigDecimal("100.00"), null),
+                new GradebookMatrix.AssignmentColumn(SECOND, "作业二", new BigDecimal("100.00"), null)));
+
+        assertEquals(List.of(10L, 12L), matrix.getStudentIds());
+        assertEquals(List.of("alice", "bob"), matrix.getStudentUsernames());
+        assertArrayEquals(new int[] {0, 0, 1}, matrix.getStudentIndex());
+        assertArrayEquals(new int[] {0, 1, 1}, matrix.getAssignmentIndex());
+        assertArrayEquals(new BigDecimal[] {new BigDecimal("90.00"), null, new BigDecimal("75.50")}, matrix.getScores());
+        assertEquals(12L, matrix.getNextCursor());
+    }
+
+    @Test
+    @DisplayName("最后一页没有下一页游标")
+    void should_returnNullCursor_when_lastPage() {
+        GradebookService.MatrixBuilder builder = new GradebookService.MatrixBuilder(2, Map.of(FIRST, 0));
+        builder.add(10L, "alice", FIRST, new BigDecimal("90.00"), "GRADED");
+
+        assertNull(builder.build(List.of()).getNextCursor());
+    }
+
+    @Test
+    @DisplayName("教师只查询自己创建的作业，没有作业时不查询提交")
+    @SuppressWarnings("unchecked")
+    void should_scopeToOwnAssignments_when_teacher() {
+        when(permissionService.getCurrentUserId()).thenReturn(2L);
+        when(permissionService.isAdmin()).thenReturn(false);
+        when(jdbcTemplate.query(contains("a.creator_id = ? AND a.course_id = ?"), any(RowMapper.class), eq(2L), eq(7L)))
+                .thenReturn(List.of());
+
+        GradebookMatrix matrix = gradebookService.getGradebook(7L, null, null);
+
+        assertTrue(matrix.getAssignments().isEmpty());
+        assertNull(matrix.getNextCursor());
+        verify(jdbcTemplate, never()).query(anyString(), any(RowCallbackHandler.class), any(Object[].class));
+    }
+}
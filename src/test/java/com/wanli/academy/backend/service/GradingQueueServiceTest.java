@@ -0,0 +1,150 @@
+package com.wanli.academy.backend.service;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * GradingQueueService数据库测试
+ * 在真实PostgreSQL上执行FOR UPDATE SKIP LOCKED领取语句，测试领取顺序与上限、续期、归还、租约到期和批改时的租约复查。
+ * 没有Docker时跳过
+ */
+@Testcontainers(disabledWithoutDocker = true)
+@DisplayName("批改队列测试")
+class GradingQueueServiceTest {
+
+    private static final long TEACHER = 2L;
+    private static final long OTHER_TEACHER = 3L;
+
+    @Container
+    private static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:15-alpine");
+
+    private static JdbcTemplate jdbcTemplate;
+
+    private GradingQueueService service;
+
+    private UUID assignmentId;
+
+    @BeforeAll
+    static void createSchema() {
+        jdbcTemplate = new JdbcTemplate(new DriverManagerDataSource(
+                POSTGRES.getJdbcUrl(), POSTGRES.getUsername(), POSTGRES.getPassword()));
+        jdbcTemplate.execute("CREATE TABLE assignments (id UUID PRIMARY KEY, creator_id BIGINT NOT NULL)");
+        jdbcTemplate.execute("CREATE TABLE submissions (id UUID PRIMARY KEY, assignment_id UUID NOT NULL, "
+                + "status VARCHAR(20) NOT NULL, submitted_at TIMESTAMP NOT NULL, "
+                + "claimed_by BIGINT, claim_expires_at TIMESTAMP)");
+    }
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("DELETE FROM submissions");
+        jdbcTemplate.update("DELETE FROM assignments");
+        assignmentId = UUID.randomUUID();
+        jdbcTemplate.update("INSERT INTO assignments (id, creator_id) VALUES (?, ?)", assignmentId, TEACHER);
+
+        service = new GradingQueueService();
+        ReflectionTestUtils.setField(service, "jdbcTemplate", jdbcTemplate);
+        ReflectionTestUtils.setField(service, "leaseSeconds", 900L);
+        ReflectionTestUtils.setField(service, "maxClaim", 2);
+    }
+
+    @Test
+    @DisplayName("按提交时间领取最早的待批改提交，数量不超过上限")
+    void should_claimOldestSubmissions_upToMaxClaim() {
+        UUID first = submission(30);
+        UUID second = submission(20);
+        submission(10);
+
+        List<UUID> claimed = service.claim(TEACHER, assignmentId, 10);
+
+        assertEquals(2, claimed.size());
+        assertTrue(claimed.containsAll(List.of(first, second)));
+        assertEquals(TEACHER, claimedBy(first));
+    }
+
+    @Test
+    @DisplayName("本人未到期的租约再次领取时续期，其他教师的作业不会被领取")
+    void should_renewOwnClaim_and_ignoreOtherTeachersAssignments() {
+        UUID own = submission(30);
+        jdbcTemplate.update("UPDATE submissions SET claimed_by = ?, claim_expires_at = now() + interval '1 minute' "
+                + "WHERE id = ?", TEACHER, own);
+
+        List<UUID> claimed = service.claim(TEACHER, assignmentId, 1);
+
+        assertEquals(List.of(own), claimed);
+        assertTrue(jdbcTemplate.queryForObject(
+                "SELECT claim_expires_at > now() + interval '10 minutes' FROM submissions WHERE id = ?",
+                Boolean.class, own));
+        assertTrue(service.claim(OTHER_TEACHER, null, 10).isEmpty());
+    }
+
+    @Test
+    @DisplayName("其他人未到期的租约不会被领取，到期后回到队列")
+    void should_reclaimSubmission_when_leaseExpired() {
+        UUID held = submission(30);
+        claimAs(OTHER_TEACHER, held, "now() + interval '1 minute'");
+
+        assertTrue(service.claim(TEACHER, assignmentId, 10).isEmpty());
+        assertTrue(service.isClaimedByOther(held, TEACHER));
+
+        claimAs(OTHER_TEACHER, held, "now() - interval '1 second'");
+
+        assertEquals(List.of(held), service.claim(TEACHER, assignmentId, 10));
+        assertFalse(service.isClaimedByOther(held, TEACHER));
+    }
+
+    @Test
+    @DisplayName("只能归还本人持有的租约")
+    void should_releaseOnlyOwnClaim() {
+        UUID held = submission(30);
+        service.claim(TEACHER, assignmentId, 1);
+
+        assertFalse(service.release(held, OTHER_TEACHER));
+        assertTrue(service.release(held, TEACHER));
+        assertNull(claimedBy(held));
+    }
+
+    @Test
+    @DisplayName("批改时复查租约：他人持有未到期租约时失败，本人持有或已到期时清除")
+    void should_recheckClaim_when_grading() {
+        UUID held = submission(30);
+        claimAs(OTHER_TEACHER, held, "now() + interval '1 minute'");
+
+        assertFalse(service.clearForGrading(held, TEACHER));
+        assertEquals(OTHER_TEACHER, claimedBy(held));
+
+        claimAs(OTHER_TEACHER, held, "now() - interval '1 second'");
+        assertTrue(service.clearForGrading(held, TEACHER));
+        assertNull(claimedBy(held));
+
+        assertTrue(service.clearForGrading(held, TEACHER));
+    }
+
+    private UUID submission(int minutesAgo) {
+        UUID id = UUID.randomUUID();
+        jdbcTemplate.update("INSERT INTO submissions (id, assignment_id, status, submitted_at) "
+                + "VALUES (?, ?, 'SUBMITTED', now() - make_interval(mins => ?))", id, assignmentId, minutesAgo);
+        return id;
+    }
+
+    private void claimAs(long userId, UUID submissionId, String expiresAt) {
+        jdbcTemplate.update("UPDATE submissions SET claimed_by = ?, claim_expires_at = " + expiresAt + " WHERE id = ?",
+                userId, submissionId);
+    }
+
+    private Long claimedBy(UUID submissionId) {
+        return jdbcTemplate.queryForObject("SELECT claimed_by FROM submissions WHERE id = ?", Long.class, submissionId);
+    }
+}
@@ -0,0 +1,108 @@
+package com.wanli.academy.backend.service;
+
+import com.wanli.academy.backend.exception.ServiceOverloadedException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * LoginExecutor单元测试
+ * 测试登录在专用线程中执行、队列满时快速拒绝以及排队超时拒绝
+ */
+@DisplayName("登录执行通道测试")
+class LoginExecutorTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private LoginExecutor loginExecutor;
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    @BeforeEach
+    void setUp() {
+        loginExecutor = new LoginExecutor();
+        ReflectionTestUtils.setField(loginExecutor, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.setField(loginExecutor, "threads", 1);
+        ReflectionTestUtils.setField(loginExecutor, "queueCapacity", 1);
+        ReflectionTestUtils.setField(loginExecutor, "maxQueueWaitMillis", 10000L);
+        ReflectionTestUtils.setField(loginExecutor, "minRetryAfterSeconds", 2L);
+        loginExecutor.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        loginExecutor.shutdown();
+    }
+
+    @Test
+    @DisplayName("登录在登录线程中执行并返回结果")
+    void should_runTaskOnLoginWorker() throws Exception {
+        String thread = loginExecutor.submit(() -> Thread.currentThread().getName()).get(5, TimeUnit.SECONDS);
+
+        assertTrue(thread.startsWith("login-worker-"));
+        assertEquals(1, meterRegistry.get("login.executor.wait").timer().count());
+    }
+
+    @Test
+    @DisplayName("线程和队列都占满时立即以503异常失败并带Retry-After")
+    void should_rejectImmediately_when_queueFull() throws Exception {
+        CompletableFuture<String> running = loginExecutor.submit(this::blockUntilReleased);
+        CompletableFuture<String> queued = loginExecutor.submit(() -> "queued");
+        waitUntilQueued(1);
+
+        CompletableFuture<String> rejected = loginExecutor.submit(() -> "rejected");
+
+        ExecutionException error = assertThrows(ExecutionException.class, () -> rejected.get(1, TimeUnit.SECONDS));
+        ServiceOverloadedException overloaded = assertInstanceOf(ServiceOverloadedException.class, error.getCause());
+        assertTrue(overloaded.getRetryAfterSeconds() >= 2);
+        assertEquals(1.0, meterRegistry.get("login.executor.rejected").counter().count());
+
+        release.countDown();
+        assertEquals("done", running.get(5, TimeUnit.SECONDS));
+        assertEquals("queued", queued.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    @DisplayName("排队超过上限的登录不再执行")
+    void should_rejectTask_when_queuedTooLong() throws Exception {
+        ReflectionTestUtils.setField(loginExecutor, "maxQueueWaitMillis", 0L);
+        loginExecutor.submit(this::blockUntilReleased);
+        boolean[] executed = {false};
+        CompletableFuture<String> queued = loginExecutor.submit(() -> {
+            executed[0] = true;
+            return "queued";
+        });
+        waitUntilQueued(1);
+        Thread.sleep(20);
+
+        release.countDown();
+
+        ExecutionException error = assertThrows(ExecutionException.class, () -> queued.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(ServiceOverloadedException.class, error.getCause());
+        assertFalse(executed[0]);
+    }
+
+    private String blockUntilReleased() {
+        try {
+            release.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return "done";
+    }
+
+    private void waitUntilQueued(int depth) throws InterruptedException {
+        for (int i = 0; i < 100 && meterRegistry.get("login.executor.queue.depth").gauge().value() < depth; i++) {
+            Thread.sleep(10);
+        }
+    }
+}
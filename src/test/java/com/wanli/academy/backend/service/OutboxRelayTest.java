@@ -0,0 +1,141 @@
+package com.wanli.academy.backend.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * OutboxRelay单元测试
+ * 测试偏移量推进、失败退避重试以及退避期内跳过投递
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("outbox投递测试")
+class OutboxRelayTest {
+
+    private static final String SUBSCRIBER = "statistics";
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private AdvisoryLockService advisoryLockService;
+
+    @InjectMocks
+    private OutboxRelay relay;
+
+    private final RecordingSubscriber subscriber = new RecordingSubscriber();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(relay, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(relay, "batchSize", 2);
+        ReflectionTestUtils.setField(relay, "retryBaseMillis", 1000L);
+        ReflectionTestUtils.setField(relay, "retryMaxMillis", 60000L);
+        lenient().when(jdbcTemplate.queryForObject(contains("txid_current_snapshot"), eq(Long.class))).thenReturn(900L);
+    }
+
+    @Test
+    @DisplayName("不满一批时投递后偏移量推进到当前快照位置")
+    void should_advanceToHorizon_when_partialBatchDelivered() {
+        givenOffset(new OutboxRelay.Offset(100, 5, 0, false));
+        givenEvents(event(7, 120));
+
+        boolean more = relay.relayBatch(subscriber);
+
+        assertFalse(more);
+        assertEquals(1, subscriber.batches.size());
+        verify(jdbcTemplate).update(contains("SET last_txid"), eq(900L), eq(0L), eq(SUBSCRIBER));
+    }
+
+    @Test
+    @DisplayName("满批投递后偏移量推进到最后一个事件并继续投递")
+    void should_advanceToLastEvent_when_fullBatchDelivered() {
+        givenOffset(new OutboxRelay.Offset(100, 5, 0, false));
+        givenEvents(event(7, 120), event(6, 121));
+
+        boolean more = relay.relayBatch(subscriber);
+
+        assertTrue(more);
+        verify(jdbcTemplate).update(contains("SET last_txid"), eq(121L), eq(6L), eq(SUBSCRIBER));
+    }
+
+    @Test
+    @DisplayName("订阅者失败时偏移量不前进并按指数退避安排重试")
+    void should_scheduleRetryWithBackoff_when_subscriberFails() {
+        subscriber.failure = new IllegalStateException("index unavailable");
+        givenOffset(new OutboxRelay.Offset(100, 5, 2, false));
+        givenEvents(event(7, 120));
+
+        boolean more = relay.relayBatch(subscriber);
+
+        assertFalse(more);
+        verify(jdbcTemplate).update(contains("SET attempts"), eq(3), eq(4.0), eq("index unavailable"), eq(SUBSCRIBER));
+        verify(jdbcTemplate, never()).update(contains("SET last_txid"), any(), any(), any());
+        assertEquals(60000L, relay.backoffMillis(20));
+    }
+
+    @Test
+    @DisplayName("退避期内不查询也不投递事件")
+    void should_skipDelivery_when_backoffPending() {
+        givenOffset(new OutboxRelay.Offset(100, 5, 1, true));
+
+        boolean more = relay.relayBatch(subscriber);
+
+        assertFalse(more);
+        assertTrue(subscriber.batches.isEmpty());
+        verify(jdbcTemplate, never()).query(anyString(), any(RowMapper.class), any(Object[].class));
+    }
+
+    @SuppressWarnings("unchecked")
+    private void givenOffset(OutboxRelay.Offset offset) {
+        when(jdbcTemplate.queryForObject(contains("FROM outbox_offsets"), any(RowMapper.class), eq(SUBSCRIBER)))
+                .thenReturn(offset);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void givenEvents(OutboxEvent... events) {
+        when(jdbcTemplate.query(contains("FROM outbox_events"), any(RowMapper.class), any(Object[].class)))
+                .thenReturn(List.of(events));
+    }
+
+    private OutboxEvent event(long id, long txid) {
+        return new OutboxEvent(id, txid, SubmissionEvent.GRADED, "submission", "s-" + id, "{}", LocalDateTime.now());
+    }
+
+    /**
+     * 记录收到的批次，可配置为抛出异常
+     */
+    private static class RecordingSubscriber implements DomainEventSubscriber {
+        private final List<List<OutboxEvent>> batches = new ArrayList<>();
+        private RuntimeException failure;
+
+        @Override
+        public String getName() {
+            return SUBSCRIBER;
+        }
+
+        @Override
+        public void handle(List<OutboxEvent> events) {
+            if (failure != null) {
+                throw failure;
+            }
+            batches.add(events);
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.wanli.academy.backend.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * OutboxWriter单元测试
+ * 测试只写入有订阅者的事件类型
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("outbox写入测试")
+class OutboxWriterTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private DomainEventSubscriber subscriber;
+
+    @InjectMocks
+    private OutboxWriter writer;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(writer, "objectMapper", new ObjectMapper().registerModule(new JavaTimeModule()));
+        ReflectionTestUtils.setField(writer, "subscribers", List.of(subscriber));
+        when(subscriber.getEventTypes()).thenReturn(Set.of(SubmissionEvent.GRADED));
+        writer.init();
+    }
+
+    @Test
+    @DisplayName("订阅的事件类型写入outbox")
+    void should_writeEvent_when_typeSubscribed() {
+        writer.onDomainEvent(new SubmissionEvent(SubmissionEvent.GRADED, UUID.randomUUID(), UUID.randomUUID(), 3L, 2L,
+                "GRADED", 90, LocalDateTime.now()));
+
+        verify(jdbcTemplate).update(contains("INSERT INTO outbox_events"), eq(SubmissionEvent.GRADED),
+                eq("submission"), anyString(), anyString());
+    }
+
+    @Test
+    @DisplayName("没有订阅者的事件类型不写入outbox")
+    void should_skipEvent_when_typeNotSubscribed() {
+        writer.onDomainEvent(new AssignmentEvent(AssignmentEvent.PUBLISHED, UUID.randomUUID(), 2L, "作业一",
+                null, LocalDateTime.now()));
+
+        verifyNoInteractions(jdbcTemplate);
+    }
+}
@@ -0,0 +1,105 @@
+package com.wanli.academy.backend.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * RequestCoalescer单元测试
+ * 测试并发相同调用共享一次执行、异常传播与指标
+ */
+@DisplayName("请求合并服务测试")
+class RequestCoalescerTest {
+
+    private RequestCoalescer coalescer;
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        coalescer = new RequestCoalescer();
+        ReflectionTestUtils.setField(coalescer, "meterRegistry", meterRegistry);
+        coalescer.init();
+    }
+
+    @Test
+    @DisplayName("并发的相同调用只执行一次加载")
+    void should_loadOnce_when_concurrentCallsShareKey() throws Exception {
+        int callers = 8;
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(callers);
+        try {
+            List<Future<String>> results = new ArrayList<>();
+            results.add(executor.submit(() -> coalescer.execute("op", "k", () -> {
+                loads.incrementAndGet();
+                loading.countDown();
+                await(release);
+                return "value";
+            })));
+            assertTrue(loading.await(5, TimeUnit.SECONDS));
+            for (int i = 1; i < callers; i++) {
+                results.add(executor.submit(() -> coalescer.execute("op", "k", () -> {
+                    loads.incrementAndGet();
+                    return "other";
+                })));
+            }
+            // 等待其余调用加入进行中的加载
+            while (meterRegistry.counter("request.coalescing.calls", "operation", "op", "result", "coalesced").count() < callers - 1) {
+                Thread.sleep(5);
+            }
+            release.countDown();
+
+            for (Future<String> result : results) {
+                assertEquals("value", result.get(5, TimeUnit.SECONDS));
+            }
+            assertEquals(1, loads.get());
+            assertEquals(1, meterRegistry.counter("request.coalescing.calls", "operation", "op", "result", "executed").count());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("加载完成后的调用重新执行")
+    void should_loadAgain_when_previousFlightCompleted() {
+        AtomicInteger loads = new AtomicInteger();
+
+        coalescer.execute("op", "k", loads::incrementAndGet);
+        coalescer.execute("op", "k", loads::incrementAndGet);
+
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    @DisplayName("加载异常传播给调用方且不残留进行中的记录")
+    void should_propagateException_when_loadFails() {
+        assertThrows(IllegalArgumentException.class, () -> coalescer.execute("op", "k", () -> {
+            throw new IllegalArgumentException("作业不存在");
+        }));
+
+        assertEquals("ok", coalescer.execute("op", "k", () -> "ok"));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.wanli.academy.backend.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.wanli.academy.backend.config.TwoLevelCacheConfig;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * StatisticsEvictionSubscriber单元测试
+ * 测试按outbox事件驱逐作业统计缓存以及事件类型订阅
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("统计缓存驱逐订阅者测试")
+class StatisticsEvictionSubscriberTest {
+
+    private static final UUID FIRST = UUID.fromString("11111111-1111-1111-1111-111111111111");
+    private static final UUID SECOND = UUID.fromString("22222222-2222-2222-2222-222222222222");
+
+    @Mock
+    private CacheManager cacheManager;
+
+    @Mock
+    private Cache assignmentStatistics;
+
+    @Mock
+    private Cache submissionStatistics;
+
+    @InjectMocks
+    private StatisticsEvictionSubscriber subscriber;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(subscriber, "objectMapper", objectMapper);
+    }
+
+    @Test
+    @DisplayName("同一批中每个作业的统计缓存只驱逐一次")
+    void should_evictEachAssignmentOnce_when_batchDelivered() throws Exception {
+        when(cacheManager.getCache(TwoLevelCacheConfig.ASSIGNMENT_STATISTICS)).thenReturn(assignmentStatistics);
+        when(cacheManager.getCache(TwoLevelCacheConfig.SUBMISSION_STATISTICS)).thenReturn(submissionStatistics);
+
+        subscriber.handle(List.of(
+                event(1, SubmissionEvent.CREATED, FIRST),
+                event(2, SubmissionEvent.GRADED, FIRST),
+                event(3, SubmissionEvent.GRADED, SECOND)));
+
+        verify(assignmentStatistics).evict(FIRST);
+        verify(assignmentStatistics).evict(SECOND);
+        verify(submissionStatistics).evict(FIRST);
+        verify(submissionStatistics).evict(SECOND);
+        verify(assignmentStatistics, times(2)).evict(any());
+    }
+
+    @Test
+    @DisplayName("只订阅提交和批改事件")
+    void should_subscribeToSubmissionEvents() {
+        assertEquals(Set.of(SubmissionEvent.CREATED, SubmissionEvent.GRADED), subscriber.getEventTypes());
+        assertEquals(StatisticsEvictionSubscriber.NAME, subscriber.getName());
+    }
+
+    private OutboxEvent event(long id, String type, UUID assignmentId) throws Exception {
+        SubmissionEvent event = new SubmissionEvent(type, UUID.randomUUID(), assignmentId, 3L, 2L, "GRADED", 90,
+                LocalDateTime.now());
+        return new OutboxEvent(id, 100 + id, type, event.aggregateType(), event.aggregateId(),
+                objectMapper.writeValueAsString(event), LocalDateTime.now());
+    }
+}
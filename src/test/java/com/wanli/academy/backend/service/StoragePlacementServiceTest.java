@@ -0,0 +1,106 @@
+package com.wanli.academy.backend.service;
+
+import com.wanli.academy.backend.entity.AssignmentFile;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * StoragePlacementService单元测试
+ * 测试存储根目录配置解析、放置选择和路径解析
+ */
+@DisplayName("存储放置服务测试")
+class StoragePlacementServiceTest {
+
+    @TempDir
+    Path tempDir;
+
+    private StoragePlacementService createService(String rootsConfig) {
+        StoragePlacementService service = new StoragePlacementService();
+        ReflectionTestUtils.setField(service, "uploadDir", tempDir.resolve("uploads").toString());
+        ReflectionTestUtils.setField(service, "rootsConfig", rootsConfig);
+        ReflectionTestUtils.setField(service, "minFreeBytes", 0L);
+        service.init();
+        return service;
+    }
+
+    @Test
+    @DisplayName("未配置多根目录时使用上传目录作为默认根目录")
+    void should_useUploadDir_when_rootsNotConfigured() {
+        StoragePlacementService service = createService("");
+
+        assertEquals(1, service.getRoots().size());
+        StoragePlacementService.StorageRoot root = service.selectRoot(100);
+        assertEquals(StoragePlacementService.DEFAULT_ROOT, root.getName());
+        assertEquals(tempDir.resolve("uploads"), root.getPath());
+    }
+
+    @Test
+    @DisplayName("解析多根目录配置，不参与放置的根目录不会被选中")
+    void should_parseRoots_and_skipNonPlacementRoots() {
+        StoragePlacementService service = createService(
+                "disk1=" + tempDir.resolve("disk1") + ":1, disk2=" + tempDir.resolve("disk2") + ":3");
+        service.register(new StoragePlacementService.StorageRoot("cold", tempDir.resolve("cold"), 1, false));
+
+        assertEquals(4, service.getRoots().size());
+        assertEquals(3, service.getRoot("disk2").getWeight());
+        for (int i = 0; i < 20; i++) {
+            String selected = service.selectRoot(100).getName();
+            assertNotEquals("cold", selected);
+            assertNotEquals(StoragePlacementService.DEFAULT_ROOT, selected);
+        }
+    }
+
+    @Test
+    @DisplayName("配置多根目录后，之前写入default根目录的文件仍可解析")
+    void should_resolveDefaultRoot_when_rootsAddedLater() {
+        StoragePlacementService service = createService("disk1=" + tempDir.resolve("disk1") + ":1");
+
+        AssignmentFile existing = new AssignmentFile();
+        existing.setStorageRoot(StoragePlacementService.DEFAULT_ROOT);
+        existing.setStorageKey("submissions/a.pdf");
+
+        assertEquals(tempDir.resolve("uploads").resolve("submissions/a.pdf"), service.resolve(existing));
+        assertFalse(service.getRoot(StoragePlacementService.DEFAULT_ROOT).isPlacement());
+    }
+
+    @Test
+    @DisplayName("剩余空间不足时拒绝放置")
+    void should_throwException_when_noRootHasSpace() {
+        StoragePlacementService service = createService("");
+        ReflectionTestUtils.setField(service, "minFreeBytes", Long.MAX_VALUE);
+
+        assertThrows(IllegalStateException.class, () -> service.selectRoot(100));
+    }
+
+    @Test
+    @DisplayName("新记录按根目录解析路径，旧记录使用完整路径")
+    void should_resolvePath_forNewAndLegacyRecords() {
+        StoragePlacementService service = createService("disk1=" + tempDir.resolve("disk1") + ":1");
+
+        AssignmentFile placed = new AssignmentFile();
+        placed.setStorageRoot("disk1");
+        placed.setStorageKey("submissions/a.pdf");
+        assertEquals(tempDir.resolve("disk1").resolve("submissions/a.pdf"), service.resolve(placed));
+
+        AssignmentFile legacy = new AssignmentFile();
+        legacy.setFilePath("/legacy/uploads/b.pdf");
+        assertEquals(Path.of("/legacy/uploads/b.pdf"), service.resolve(legacy));
+
+        AssignmentFile unknown = new AssignmentFile();
+        unknown.setStorageRoot("gone");
+        unknown.setStorageKey("c.pdf");
+        assertThrows(IllegalStateException.class, () -> service.resolve(unknown));
+    }
+
+    @Test
+    @DisplayName("根目录配置格式错误时启动失败")
+    void should_throwException_when_rootConfigInvalid() {
+        assertThrows(IllegalArgumentException.class, () -> createService("disk1"));
+    }
+}
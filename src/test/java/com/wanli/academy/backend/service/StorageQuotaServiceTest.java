@@ -0,0 +1,132 @@
+package com.wanli.academy.backend.service;
+
+import com.wanli.academy.backend.entity.StorageUsage;
+import com.wanli.academy.backend.repository.AssignmentFileRepository;
+import com.wanli.academy.backend.repository.StorageUsageRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * StorageQuotaService单元测试
+ * 测试配额检查和计数增量更新
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("存储配额服务测试")
+class StorageQuotaServiceTest {
+
+    private static final UUID ASSIGNMENT_ID = UUID.fromString("550e8400-e29b-41d4-a716-446655440000");
+
+    @Mock
+    private StorageUsageRepository storageUsageRepository;
+
+    @Mock
+    private AssignmentFileRepository assignmentFileRepository;
+
+    @InjectMocks
+    private StorageQuotaService storageQuotaService;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        ReflectionTestUtils.setField(storageQuotaService, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.setField(storageQuotaService, "userMaxBytes", 1000L);
+        ReflectionTestUtils.setField(storageQuotaService, "assignmentMaxBytes", 5000L);
+        ReflectionTestUtils.setField(storageQuotaService, "globalMaxBytes", 0L);
+        ReflectionTestUtils.setField(storageQuotaService, "globalStripes", 4);
+        storageQuotaService.registerMetrics();
+    }
+
+    @Test
+    @DisplayName("未超出配额时检查通过")
+    void should_pass_when_withinQuota() {
+        when(storageUsageRepository.findQuotaRows("1", ASSIGNMENT_ID.toString()))
+            .thenReturn(List.of(usage(StorageUsage.SCOPE_USER, "1", 400L), usage(StorageUsage.SCOPE_ASSIGNMENT, ASSIGNMENT_ID.toString(), 400L)));
+
+        assertDoesNotThrow(() -> storageQuotaService.checkQuota(1L, ASSIGNMENT_ID, 600L));
+    }
+
+    @Test
+    @DisplayName("超出用户配额时拒绝上传并记录指标")
+    void should_reject_when_userQuotaExceeded() {
+        when(storageUsageRepository.findQuotaRows("1", ASSIGNMENT_ID.toString()))
+            .thenReturn(List.of(usage(StorageUsage.SCOPE_USER, "1", 900L)));
+
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+            () -> storageQuotaService.checkQuota(1L, ASSIGNMENT_ID, 200L));
+
+        assertTrue(exception.getMessage().contains("user"));
+        assertEquals(1.0, meterRegistry.counter("file.storage.quota.rejections", "scope", "USER").count());
+    }
+
+    @Test
+    @DisplayName("超出作业配额时拒绝上传")
+    void should_reject_when_assignmentQuotaExceeded() {
+        ReflectionTestUtils.setField(storageQuotaService, "userMaxBytes", 0L);
+        when(storageUsageRepository.findQuotaRows("1", ASSIGNMENT_ID.toString()))
+            .thenReturn(List.of(usage(StorageUsage.SCOPE_ASSIGNMENT, ASSIGNMENT_ID.toString(), 4900L)));
+
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+            () -> storageQuotaService.checkQuota(1L, ASSIGNMENT_ID, 200L));
+
+        assertTrue(exception.getMessage().contains("assignment"));
+    }
+
+    @Test
+    @DisplayName("上传时累加用户、作业和全局计数")
+    void should_incrementAllScopes_when_uploadRecorded() {
+        storageQuotaService.recordUpload(1L, ASSIGNMENT_ID, 300L);
+
+        verify(storageUsageRepository).increment(StorageUsage.SCOPE_USER, "1", 300L, 1L);
+        verify(storageUsageRepository).increment(StorageUsage.SCOPE_ASSIGNMENT, ASSIGNMENT_ID.toString(), 300L, 1L);
+        verify(storageUsageRepository).increment(eq(StorageUsage.SCOPE_GLOBAL), anyString(), eq(300L), eq(1L));
+    }
+
+    @Test
+    @DisplayName("删除无作业文件时只扣减用户和全局计数")
+    void should_decrementUserAndGlobal_when_deleteRecordedWithoutAssignment() {
+        storageQuotaService.recordDelete(1L, null, 300L);
+
+        verify(storageUsageRepository).increment(StorageUsage.SCOPE_USER, "1", -300L, -1L);
+        verify(storageUsageRepository, never()).increment(eq(StorageUsage.SCOPE_ASSIGNMENT), anyString(), anyLong(), anyLong());
+        verify(storageUsageRepository).increment(eq(StorageUsage.SCOPE_GLOBAL), anyString(), eq(-300L), eq(-1L));
+    }
+
+    @Test
+    @DisplayName("刷新指标时汇总全局计数分片")
+    void should_sumGlobalStripes_when_refreshingMetrics() {
+        when(storageUsageRepository.findGlobalRows())
+            .thenReturn(List.of(usage(StorageUsage.SCOPE_GLOBAL, "stripe-0", 100L), usage(StorageUsage.SCOPE_GLOBAL, "stripe-1", 50L)));
+
+        storageQuotaService.refreshMetrics();
+
+        assertEquals(150.0, meterRegistry.get("file.storage.used.bytes").gauge().value());
+        assertEquals(2.0, meterRegistry.get("file.storage.files").gauge().value());
+    }
+
+    private StorageUsage usage(String scope, String key, long bytes) {
+        StorageUsage usage = new StorageUsage();
+        usage.setScope(scope);
+        usage.setScopeKey(key);
+        usage.setUsedBytes(bytes);
+        usage.setFileCount(1L);
+        return usage;
+    }
+}
@@ -0,0 +1,129 @@
+package com.wanli.academy.backend.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Executor;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * SubmissionEventStream单元测试
+ * 测试事件按接收人路由、缓冲区溢出后的重新同步通知以及连接数上限
+ */
+@DisplayName("提交事件推送测试")
+class SubmissionEventStreamTest {
+
+    private static final Long STUDENT_ID = 1L;
+    private static final Long TEACHER_ID = 2L;
+
+    private SubmissionEventStream stream;
+    private final List<Runnable> pendingSends = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        stream = new SubmissionEventStream();
+        ReflectionTestUtils.setField(stream, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(stream, "bufferSize", 3);
+        ReflectionTestUtils.setField(stream, "maxConnectionsPerUser", 2);
+        ReflectionTestUtils.setField(stream, "senderThreads", 1);
+        stream.init();
+        // 手动执行发送任务，模拟发送线程繁忙
+        Executor manual = pendingSends::add;
+        ReflectionTestUtils.setField(stream, "sender", manual);
+    }
+
+    @Test
+    @DisplayName("新提交推送给教师，成绩发布推送给学生")
+    void should_routeEventsToRecipient() {
+        RecordingEmitter studentEmitter = new RecordingEmitter();
+        RecordingEmitter teacherEmitter = new RecordingEmitter();
+        stream.register(STUDENT_ID, studentEmitter);
+        stream.register(TEACHER_ID, teacherEmitter);
+
+        stream.onSubmissionEvent(event(SubmissionEvent.CREATED));
+        stream.onSubmissionEvent(event(SubmissionEvent.GRADED));
+        runPendingSends();
+
+        assertEquals(1, teacherEmitter.sent.size());
+        assertTrue(teacherEmitter.sent.get(0).contains("event:" + SubmissionEvent.CREATED));
+        assertEquals(1, studentEmitter.sent.size());
+        assertTrue(studentEmitter.sent.get(0).contains("event:" + SubmissionEvent.GRADED));
+    }
+
+    @Test
+    @DisplayName("缓冲区溢出时丢弃积压并发送重新同步事件")
+    void should_sendReset_when_bufferOverflows() {
+        RecordingEmitter emitter = new RecordingEmitter();
+        stream.register(STUDENT_ID, emitter);
+
+        for (int i = 0; i < 5; i++) {
+            stream.onSubmissionEvent(event(SubmissionEvent.GRADED));
+        }
+        runPendingSends();
+
+        // 前3个事件填满缓冲区，第4个触发溢出：积压被替换为重新同步事件，之后的事件继续排队
+        assertEquals(3, emitter.sent.size());
+        assertTrue(emitter.sent.get(0).contains("event:" + SubmissionEventStream.RESET_EVENT));
+        assertTrue(emitter.sent.get(1).contains("event:" + SubmissionEvent.GRADED));
+        assertTrue(emitter.sent.get(2).contains("event:" + SubmissionEvent.GRADED));
+    }
+
+    @Test
+    @DisplayName("同一用户连接数超过上限时关闭最早的连接")
+    void should_closeOldestConnection_when_limitExceeded() {
+        RecordingEmitter first = new RecordingEmitter();
+        RecordingEmitter second = new RecordingEmitter();
+        RecordingEmitter third = new RecordingEmitter();
+        stream.register(STUDENT_ID, first);
+        stream.register(STUDENT_ID, second);
+        stream.register(STUDENT_ID, third);
+
+        stream.onSubmissionEvent(event(SubmissionEvent.GRADED));
+        runPendingSends();
+
+        assertTrue(first.completed);
+        assertTrue(first.sent.isEmpty());
+        assertEquals(1, second.sent.size());
+        assertEquals(1, third.sent.size());
+    }
+
+    private void runPendingSends() {
+        while (!pendingSends.isEmpty()) {
+            pendingSends.remove(0).run();
+        }
+    }
+
+    private SubmissionEvent event(String type) {
+        return new SubmissionEvent(type, UUID.randomUUID(), UUID.randomUUID(), STUDENT_ID, TEACHER_ID,
+                "GRADED", 90, LocalDateTime.now());
+    }
+
+    /**
+     * 记录发送内容的发射器
+     */
+    private static class RecordingEmitter extends SseEmitter {
+        private final List<String> sent = new ArrayList<>();
+        private boolean completed;
+
+        @Override
+        public void send(SseEventBuilder builder) {
+            StringBuilder text = new StringBuilder();
+            builder.build().forEach(part -> text.append(part.getData()));
+            sent.add(text.toString());
+        }
+
+        @Override
+        public synchronized void complete() {
+            completed = true;
+        }
+    }
+}
@@ -1,9 +1,12 @@
 package com.wanli.academy.backend.service;
 
+import com.wanli.academy.backend.dto.BulkGradeRequest;
+import com.wanli.academy.backend.dto.BulkGradeResponse;
 import com.wanli.academy.backend.dto.SubmissionResponse;
 import com.wanli.academy.backend.entity.Assignment;
 import com.wanli.academy.backend.entity.Submission;
 import com.wanli.academy.backend.entity.User;
+import com.wanli.academy.backend.exception.VersionConflictException;
 import com.wanli.academy.backend.repository.AssignmentRepository;
 import com.wanli.academy.backend.repository.SubmissionRepository;
 import com.wanli.academy.backend.repository.UserRepository;
@@ -12,16 +15,24 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.cache.support.NoOpCacheManager;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContext;
 import org.springframework.security.core.context.SecurityContextHolder;
 
+import java.sql.ResultSet;
 import java.time.LocalDateTime;
 import java.util.*;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.AdditionalMatchers.and;
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
 
@@ -46,6 +57,18 @@ class SubmissionServiceGradingTest {
     @Mock
     private Authentication authentication;
 
+    @Spy
+    private CacheManager cacheManager = new NoOpCacheManager();
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private GradingQueueService gradingQueueService;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
     @InjectMocks
     private SubmissionService submissionService;
 
@@ -101,6 +124,7 @@ class SubmissionServiceGradingTest {
         lenient().when(authentication.isAuthenticated()).thenReturn(true);
         lenient().when(authentication.getName()).thenReturn(TEACHER_USERNAME);
         lenient().when(userRepository.findByUsername(TEACHER_USERNAME)).thenReturn(Optional.of(teacherUser));
+        lenient().when(gradingQueueService.clearForGrading(any(UUID.class), anyLong())).thenReturn(true);
     }
 
     @Test
@@ -182,6 +206,118 @@ class SubmissionServiceGradingTest {
         assertEquals("分数不能超过满分", exception.getMessage());
     }
 
+    @Test
+    void should_throwException_when_claimedByOtherGrader() {
+        // Given
+        when(submissionRepository.findById(TEST_SUBMISSION_ID)).thenReturn(Optional.of(testSubmission));
+        when(assignmentRepository.findById(TEST_ASSIGNMENT_ID)).thenReturn(Optional.of(testAssignment));
+        when(gradingQueueService.isClaimedByOther(TEST_SUBMISSION_ID, TEACHER_USER_ID)).thenReturn(true);
+
+        // When & Then
+        IllegalStateException exception = assertThrows(IllegalStateException.class,
+            () -> submissionService.gradeSubmission(TEST_SUBMISSION_ID, 85, "Good work!"));
+        assertEquals("该提交正由其他批改人批改", exception.getMessage());
+        verify(submissionRepository, never()).save(any(Submission.class));
+    }
+
+    @Test
+    void should_throwException_when_claimedAfterCheck() {
+        // Given - 检查时未被领取，更新时租约已被其他批改人拿走
+        when(submissionRepository.findById(TEST_SUBMISSION_ID)).thenReturn(Optional.of(testSubmission));
+        when(assignmentRepository.findById(TEST_ASSIGNMENT_ID)).thenReturn(Optional.of(testAssignment));
+        when(gradingQueueService.clearForGrading(TEST_SUBMISSION_ID, TEACHER_USER_ID)).thenReturn(false);
+
+        // When & Then
+        IllegalStateException exception = assertThrows(IllegalStateException.class,
+            () -> submissionService.gradeSubmission(TEST_SUBMISSION_ID, 85, "Good work!"));
+        assertEquals("该提交正由其他批改人批改", exception.getMessage());
+        verify(submissionRepository, never()).save(any(Submission.class));
+        verify(eventPublisher, never()).publishEvent(any());
+    }
+
+    @Test
+    void should_returnClaimedSubmissionsInSubmitOrder_when_claiming() {
+        // Given
+        Submission later = new Submission();
+        later.setId(UUID.randomUUID());
+        later.setAssignmentId(TEST_ASSIGNMENT_ID);
+        later.setStudentId(TEST_USER_ID);
+        later.setStatus("SUBMITTED");
+        later.setSubmittedAt(testSubmission.getSubmittedAt().plusMinutes(5));
+        when(gradingQueueService.claim(TEACHER_USER_ID, TEST_ASSIGNMENT_ID, 10))
+            .thenReturn(List.of(later.getId(), TEST_SUBMISSION_ID));
+        when(submissionRepository.findAllById(anyCollection())).thenReturn(List.of(later, testSubmission));
+
+        // When
+        List<SubmissionResponse> claimed = submissionService.claimSubmissionsToGrade(TEST_ASSIGNMENT_ID, 10);
+
+        // Then
+        assertEquals(List.of(TEST_SUBMISSION_ID, later.getId()),
+            claimed.stream().map(SubmissionResponse::getId).toList());
+    }
+
+    @Test
+    void should_throwConflictWithCurrentState_when_versionIsStale() {
+        // Given
+        testSubmission.setVersion(3L);
+        when(submissionRepository.findById(TEST_SUBMISSION_ID)).thenReturn(Optional.of(testSubmission));
+        when(assignmentRepository.findById(TEST_ASSIGNMENT_ID)).thenReturn(Optional.of(testAssignment));
+
+        // When & Then
+        VersionConflictException exception = assertThrows(VersionConflictException.class,
+            () -> submissionService.gradeSubmission(TEST_SUBMISSION_ID, 85, "Good work!", 2L));
+        SubmissionResponse current = (SubmissionResponse) exception.getCurrent();
+        assertEquals(3L, current.getVersion());
+        assertEquals("SUBMITTED", current.getStatus());
+        verify(submissionRepository, never()).save(any(Submission.class));
+    }
+
+    @Test
+    void should_gradeValidItemsInOneBatch_when_bulkGrading() throws Exception {
+        // Given - 一次查询只返回一份存在的提交
+        ResultSet row = mock(ResultSet.class);
+        when(row.getObject("id", UUID.class)).thenReturn(TEST_SUBMISSION_ID);
+        when(row.getObject("assignment_id", UUID.class)).thenReturn(TEST_ASSIGNMENT_ID);
+        when(row.getLong("student_id")).thenReturn(TEST_USER_ID);
+        when(row.getString("status")).thenReturn("SUBMITTED");
+        when(row.getLong("version")).thenReturn(2L);
+        when(row.getLong("creator_id")).thenReturn(TEACHER_USER_ID);
+        when(row.getInt("max_score")).thenReturn(100);
+        when(row.getBoolean("claimed_by_other")).thenReturn(false);
+        doAnswer(invocation -> {
+            invocation.<RowCallbackHandler>getArgument(1).processRow(row);
+            return null;
+        }).when(jdbcTemplate).query(contains("FROM submissions s JOIN assignments a"), any(RowCallbackHandler.class), any(Object[].class));
+        when(jdbcTemplate.batchUpdate(contains("UPDATE submissions"), anyList())).thenReturn(new int[] {1});
+
+        UUID missingId = UUID.randomUUID();
+        List<BulkGradeRequest.Item> items = List.of(
+            new BulkGradeRequest.Item(TEST_SUBMISSION_ID, 150, "Score too high"),
+            new BulkGradeRequest.Item(missingId, 80, "Missing"),
+            new BulkGradeRequest.Item(TEST_SUBMISSION_ID, 90, "Good work!"));
+
+        // When
+        BulkGradeResponse response = submissionService.gradeSubmissions(items);
+
+        // Then - 超分项被拒绝，重复出现的同一提交只算第一次
+        assertEquals(0, response.getGraded());
+        assertEquals("INVALID_SCORE", response.getResults().get(0).getCode());
+        assertEquals("NOT_FOUND", response.getResults().get(1).getCode());
+        assertEquals("DUPLICATE", response.getResults().get(2).getCode());
+        verify(jdbcTemplate, never()).batchUpdate(anyString(), anyList());
+
+        // When - 修正分数后重新提交
+        response = submissionService.gradeSubmissions(List.of(new BulkGradeRequest.Item(TEST_SUBMISSION_ID, 90, "Good work!")));
+
+        // Then
+        assertEquals(1, response.getGraded());
+        assertEquals(3L, response.getResults().get(0).getVersion());
+        verify(jdbcTemplate).batchUpdate(and(contains("WHERE id = ? AND version = ?"),
+            contains("claimed_by IS NULL OR claimed_by = ?")), anyList());
+        verify(eventPublisher).publishEvent(any(SubmissionEvent.class));
+        verify(submissionRepository, never()).save(any(Submission.class));
+    }
+
     @Test
     void should_allowRegrading_when_alreadyGraded() {
         // Given
@@ -11,7 +11,10 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.support.NoOpCacheManager;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContext;
@@ -45,6 +48,9 @@ class SubmissionServiceStatisticsTest {
     @Mock
     private Authentication authentication;
 
+    @Spy
+    private CacheManager cacheManager = new NoOpCacheManager();
+
     @InjectMocks
     private SubmissionService submissionService;
 
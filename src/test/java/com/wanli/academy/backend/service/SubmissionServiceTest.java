@@ -8,16 +8,22 @@ import com.wanli.academy.backend.entity.User;
 import com.wanli.academy.backend.repository.AssignmentRepository;
 import com.wanli.academy.backend.repository.SubmissionRepository;
 import com.wanli.academy.backend.repository.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.cache.support.NoOpCacheManager;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContext;
 import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
 
 import java.time.LocalDateTime;
 import java.util.*;
@@ -44,6 +50,18 @@ class SubmissionServiceTest {
     @Mock
     private Authentication authentication;
 
+    @Spy
+    private CacheManager cacheManager = new NoOpCacheManager();
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private GradingQueueService gradingQueueService;
+
+    @Spy
+    private RequestCoalescer requestCoalescer = new RequestCoalescer();
+
     @InjectMocks
     private SubmissionService submissionService;
 
@@ -62,6 +80,8 @@ class SubmissionServiceTest {
 
     @BeforeEach
     void setUp() {
+        ReflectionTestUtils.setField(requestCoalescer, "meterRegistry", new SimpleMeterRegistry());
+
         // 设置用户
         testUser = new User();
         testUser.setId(TEST_USER_ID);
@@ -0,0 +1,132 @@
+package com.wanli.academy.backend.service;
+
+import com.wanli.academy.backend.dto.SubmissionResponse;
+import com.wanli.academy.backend.dto.SyncResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * SyncService单元测试
+ * 测试游标解析、首次同步、同页变更合并与分页游标推进
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("增量同步服务测试")
+class SyncServiceTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private PermissionService permissionService;
+
+    @Mock
+    private AssignmentServiceQuery assignmentServiceQuery;
+
+    @Mock
+    private SubmissionService submissionService;
+
+    @InjectMocks
+    private SyncService syncService;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(syncService, "pageSize", 10);
+        lenient().when(permissionService.getCurrentUserId()).thenReturn(7L);
+        lenient().when(jdbcTemplate.queryForObject(contains("txid_current_snapshot"), eq(Long.class))).thenReturn(500L);
+    }
+
+    @Test
+    @DisplayName("游标格式化后可以解析回相同的值，格式错误时抛出异常")
+    void should_roundTripCursor_and_rejectMalformed() {
+        SyncService.Cursor cursor = SyncService.Cursor.parse("1024.57");
+
+        assertEquals(new SyncService.Cursor(1024, 57), cursor);
+        assertEquals("1024.57", cursor.toString());
+        assertThrows(IllegalArgumentException.class, () -> SyncService.Cursor.parse("abc"));
+        assertThrows(IllegalArgumentException.class, () -> SyncService.Cursor.parse("12.x"));
+    }
+
+    @Test
+    @DisplayName("首次同步返回当前位置游标并要求全量拉取")
+    void should_requireReset_when_noCursor() {
+        SyncResponse response = syncService.getChanges(null, null);
+
+        assertTrue(response.isResetRequired());
+        assertEquals("500.0", response.getCursor());
+        verify(jdbcTemplate, never()).query(anyString(), any(RowMapper.class), any(Object[].class));
+    }
+
+    @Test
+    @DisplayName("游标早于已清理位置时要求全量拉取")
+    void should_requireReset_when_cursorPruned() {
+        when(jdbcTemplate.queryForList(contains("sync_horizon"), eq(Long.class))).thenReturn(List.of(200L));
+
+        SyncResponse response = syncService.getChanges("150.3", null);
+
+        assertTrue(response.isResetRequired());
+        assertEquals("500.0", response.getCursor());
+    }
+
+    @Test
+    @DisplayName("同一记录的多次变更只保留最后一次，已不存在的记录作为删除返回")
+    void should_collapseChanges_and_reportVanishedAsDeleted() {
+        UUID graded = UUID.randomUUID();
+        UUID removed = UUID.randomUUID();
+        UUID vanished = UUID.randomUUID();
+        when(jdbcTemplate.queryForList(contains("sync_horizon"), eq(Long.class))).thenReturn(List.of(0L));
+        when(jdbcTemplate.query(anyString(), any(RowMapper.class), any(Object[].class))).thenReturn(List.of(
+            new SyncService.Change(11, 300, SyncService.SUBMISSION, graded, false),
+            new SyncService.Change(12, 301, SyncService.SUBMISSION, removed, false),
+            new SyncService.Change(13, 302, SyncService.SUBMISSION, removed, true)));
+        SubmissionResponse gradedResponse = new SubmissionResponse();
+        gradedResponse.setId(graded);
+        when(submissionService.getSubmissionsByIds(List.of(graded))).thenReturn(List.of(gradedResponse));
+
+        SyncResponse response = syncService.getChanges("100.0", 5);
+
+        assertFalse(response.isHasMore());
+        assertEquals("500.0", response.getCursor());
+        assertEquals(List.of(gradedResponse), response.getSubmissions().getUpserted());
+        assertEquals(List.of(removed), response.getSubmissions().getDeleted());
+        assertTrue(response.getAssignments().getUpserted().isEmpty());
+
+        when(jdbcTemplate.query(anyString(), any(RowMapper.class), any(Object[].class))).thenReturn(List.of(
+            new SyncService.Change(14, 303, SyncService.SUBMISSION, vanished, false)));
+        when(submissionService.getSubmissionsByIds(List.of(vanished))).thenReturn(List.of());
+
+        SyncResponse next = syncService.getChanges("500.0", null);
+
+        assertEquals(List.of(vanished), next.getSubmissions().getDeleted());
+    }
+
+    @Test
+    @DisplayName("变更行数达到页大小时返回最后一行的游标并标记还有更多")
+    void should_returnLastRowCursor_when_pageFull() {
+        when(jdbcTemplate.queryForList(contains("sync_horizon"), eq(Long.class))).thenReturn(List.of(0L));
+        when(jdbcTemplate.query(anyString(), any(RowMapper.class), any(Object[].class))).thenReturn(List.of(
+            new SyncService.Change(1, 120, SyncService.ASSIGNMENT, UUID.randomUUID(), true),
+            new SyncService.Change(2, 120, SyncService.ASSIGNMENT, UUID.randomUUID(), true),
+            new SyncService.Change(4, 121, SyncService.ASSIGNMENT, UUID.randomUUID(), true)));
+
+        SyncResponse response = syncService.getChanges("100.0", 3);
+
+        assertTrue(response.isHasMore());
+        assertEquals("121.4", response.getCursor());
+        assertEquals(3, response.getAssignments().getDeleted().size());
+    }
+}
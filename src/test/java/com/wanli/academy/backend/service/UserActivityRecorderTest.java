@@ -0,0 +1,91 @@
+package com.wanli.academy.backend.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * UserActivityRecorder单元测试
+ * 测试同一用户的活动合并为一条更新、按批次写回以及写入失败后保留重试
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("用户活跃时间延迟写入测试")
+class UserActivityRecorderTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @InjectMocks
+    private UserActivityRecorder recorder;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(recorder, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(recorder, "batchSize", 2);
+        recorder.init();
+    }
+
+    @Test
+    @DisplayName("同一用户多次登录和访问只写一行，登录时间保留")
+    @SuppressWarnings("unchecked")
+    void should_coalesceActivity_when_sameUser() {
+        recorder.recordLogin(1L);
+        recorder.recordSeen(1L);
+        recorder.recordSeen(1L);
+
+        assertEquals(1, recorder.flush());
+
+        ArgumentCaptor<List<Object[]>> args = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate).batchUpdate(anyString(), args.capture());
+        assertEquals(1, args.getValue().size());
+        Object[] row = args.getValue().get(0);
+        assertNotNull(row[0]);
+        assertNotNull(row[1]);
+        assertEquals(1L, row[2]);
+        assertEquals(0, recorder.pendingCount());
+    }
+
+    @Test
+    @DisplayName("按批次大小分批写回，关闭时写出剩余活动")
+    void should_flushInBatches_when_shutdown() {
+        recorder.recordSeen(1L);
+        recorder.recordSeen(2L);
+        recorder.recordLogin(3L);
+
+        recorder.shutdown();
+
+        verify(jdbcTemplate, times(2)).batchUpdate(anyString(), anyList());
+        assertEquals(0, recorder.pendingCount());
+        assertEquals(0, recorder.flush());
+    }
+
+    @Test
+    @DisplayName("写入失败时保留活动，下次写回")
+    void should_keepActivity_when_flushFails() {
+        recorder.recordLogin(1L);
+        when(jdbcTemplate.batchUpdate(anyString(), anyList()))
+                .thenThrow(new DataAccessResourceFailureException("connection refused"))
+                .thenReturn(new int[] {1});
+
+        assertEquals(0, recorder.flush());
+        assertEquals(1, recorder.pendingCount());
+
+        assertEquals(1, recorder.flush());
+        assertEquals(0, recorder.pendingCount());
+    }
+}
@@ -0,0 +1,134 @@
+package com.wanli.academy.backend.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.sql.ResultSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * UserAvailabilityIndex单元测试
+ * 测试布隆过滤器扩容后无漏判、构建前回落数据库、注册和其他节点通知的同步以及总线重连后的后台重建
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("用户名可用性索引测试")
+class UserAvailabilityIndexTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private CacheInvalidationBus invalidationBus;
+
+    @InjectMocks
+    private UserAvailabilityIndex index;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(index, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(index, "enabled", true);
+        ReflectionTestUtils.setField(index, "expectedUsers", 50L);
+        ReflectionTestUtils.setField(index, "falsePositiveRate", 0.01);
+        ReflectionTestUtils.setField(index, "fetchSize", 100);
+    }
+
+    @Test
+    @DisplayName("扩容到多级后已添加的元素都判定为可能存在，误判率接近配置值")
+    void should_haveNoFalseNegatives_when_filterGrows() {
+        ScalableBloomFilter filter = new ScalableBloomFilter(100, 0.01);
+        for (int i = 0; i < 5000; i++) {
+            filter.add("user" + i);
+        }
+
+        assertTrue(filter.stageCount() > 1);
+        for (int i = 0; i < 5000; i++) {
+            assertTrue(filter.mightContain("user" + i));
+        }
+        int falsePositives = 0;
+        for (int i = 0; i < 10000; i++) {
+            if (filter.mightContain("other" + i)) {
+                falsePositives++;
+            }
+        }
+        assertTrue(falsePositives < 300, "false positives: " + falsePositives);
+    }
+
+    @Test
+    @DisplayName("过滤器构建前所有检查都回落到数据库")
+    void should_fallBackToDatabase_when_notBuilt() {
+        assertFalse(index.isUsernameDefinitelyAvailable("alice"));
+        assertFalse(index.isEmailDefinitelyAvailable("alice@example.com"));
+    }
+
+    @Test
+    @DisplayName("构建后已有用户需查库，新用户名直接可用；注册和其他节点的通知都会写入过滤器")
+    void should_answerFromFilter_when_built() throws Exception {
+        givenUsers("alice", "alice@example.com");
+        index.rebuild();
+
+        assertFalse(index.isUsernameDefinitelyAvailable("alice"));
+        assertFalse(index.isEmailDefinitelyAvailable("alice@example.com"));
+        assertTrue(index.isUsernameDefinitelyAvailable("bob"));
+
+        index.recordUser("bob", "bob@example.com");
+        assertFalse(index.isUsernameDefinitelyAvailable("bob"));
+        verify(invalidationBus).publish(eq(UserAvailabilityIndex.CACHE_NAME), eq("username:bob"), anyLong());
+        verify(invalidationBus).publish(eq(UserAvailabilityIndex.CACHE_NAME), eq("email:bob@example.com"), anyLong());
+
+        index.evict(UserAvailabilityIndex.CACHE_NAME, "username:carol", 1L);
+        assertFalse(index.isUsernameDefinitelyAvailable("carol"));
+    }
+
+    @Test
+    @DisplayName("总线重连后立即回落到数据库，并在后台线程重建过滤器")
+    void should_rebuildInBackground_when_busReconnects() throws Exception {
+        givenUsers("alice", "alice@example.com");
+        index.rebuild();
+        ReflectionTestUtils.setField(index, "rebuildJitterMillis", 0L);
+        index.init();
+        CompletableFuture<Thread> rebuiltOn = new CompletableFuture<>();
+        doAnswer(invocation -> {
+            rebuiltOn.complete(Thread.currentThread());
+            return null;
+        }).when(jdbcTemplate).query(any(PreparedStatementCreator.class), any(RowCallbackHandler.class));
+
+        try {
+            index.evictAll(UserAvailabilityIndex.CACHE_NAME);
+
+            assertFalse(index.isUsernameDefinitelyAvailable("bob"));
+            assertNotSame(Thread.currentThread(), rebuiltOn.get(2, TimeUnit.SECONDS));
+        } finally {
+            index.shutdown();
+        }
+    }
+
+    private void givenUsers(String username, String email) throws Exception {
+        ResultSet rs = mock(ResultSet.class);
+        when(rs.getString("username")).thenReturn(username);
+        when(rs.getString("email")).thenReturn(email);
+        doAnswer(invocation -> {
+            RowCallbackHandler handler = invocation.getArgument(1);
+            handler.processRow(rs);
+            return null;
+        }).when(jdbcTemplate).query(any(PreparedStatementCreator.class), any(RowCallbackHandler.class));
+    }
+}
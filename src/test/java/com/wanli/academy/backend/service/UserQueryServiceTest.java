@@ -0,0 +1,96 @@
+package com.wanli.academy.backend.service;
+
+import com.wanli.academy.backend.dto.UserPage;
+import com.wanli.academy.backend.dto.UserResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * UserQueryService单元测试
+ * 测试键集分页游标、过滤条件拼接以及搜索词转义
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("用户管理查询测试")
+class UserQueryServiceTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @InjectMocks
+    private UserQueryService userQueryService;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(userQueryService, "defaultPageSize", 2);
+        ReflectionTestUtils.setField(userQueryService, "maxPageSize", 10);
+    }
+
+    @Test
+    @DisplayName("多取到一行时截断到页大小并返回最后一个用户ID作为游标")
+    void should_returnNextCursor_when_moreUsersExist() {
+        givenUsers(30L, 20L, 10L);
+
+        UserPage page = userQueryService.listUsers(null, null, null, null, null, null, null);
+
+        assertEquals(2, page.getUsers().size());
+        assertEquals(20L, page.getNextCursor());
+    }
+
+    @Test
+    @DisplayName("最后一页不返回游标")
+    void should_returnNoCursor_when_lastPage() {
+        givenUsers(10L);
+
+        UserPage page = userQueryService.listUsers(null, null, null, null, null, 20L, 5);
+
+        assertEquals(1, page.getUsers().size());
+        assertNull(page.getNextCursor());
+    }
+
+    @Test
+    @DisplayName("按搜索词、角色、状态、创建日期和游标组合过滤")
+    void should_applyAllFilters_when_provided() {
+        givenUsers();
+
+        userQueryService.listUsers("Ali_", "student", true, LocalDate.of(2024, 1, 1), LocalDate.of(2024, 1, 31), 500L, 3);
+
+        ArgumentCaptor<String> sql = ArgumentCaptor.forClass(String.class);
+        ArgumentCaptor<Object[]> args = ArgumentCaptor.forClass(Object[].class);
+        verify(jdbcTemplate).query(sql.capture(), any(RowMapper.class), args.capture());
+        assertTrue(sql.getValue().contains("lower(u.username) LIKE ?"));
+        assertTrue(sql.getValue().contains("r.name = ?"));
+        assertTrue(sql.getValue().contains("u.id < ?"));
+        assertArrayEquals(new Object[]{"ali\\_%", "ali\\_%", "ali\\_%", "ali\\_%", "ROLE_STUDENT", true,
+                Timestamp.valueOf("2024-01-01 00:00:00"), Timestamp.valueOf("2024-02-01 00:00:00"), 500L, 4},
+                args.getValue());
+    }
+
+    @SuppressWarnings("unchecked")
+    private void givenUsers(Long... ids) {
+        List<UserResponse> users = new ArrayList<>();
+        for (Long id : ids) {
+            users.add(new UserResponse(id, "user" + id, "user" + id + "@example.com", null, null, null, true,
+                    Set.of("ROLE_STUDENT"), null, null));
+        }
+        when(jdbcTemplate.query(anyString(), any(RowMapper.class), any(Object[].class))).thenReturn(users);
+    }
+}
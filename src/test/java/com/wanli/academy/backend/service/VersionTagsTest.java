@@ -0,0 +1,29 @@
+package com.wanli.academy.backend.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * VersionTags单元测试
+ * 测试ETag只随版本字段变化
+ */
+@DisplayName("版本ETag工具测试")
+class VersionTagsTest {
+
+    private static final LocalDateTime T1 = LocalDateTime.of(2024, 3, 1, 10, 0);
+    private static final LocalDateTime T2 = LocalDateTime.of(2024, 3, 1, 11, 0);
+
+    @Test
+    @DisplayName("相同版本生成相同的弱ETag")
+    void should_generateStableWeakTag_when_versionUnchanged() {
+        String tag = VersionTags.weak(1L, T1);
+
+        assertEquals(tag, VersionTags.weak(1L, T1));
+        assertTrue(tag.startsWith("W/\"") && tag.endsWith("\""));
+        assertNotEquals(tag, VersionTags.weak(1L, T2));
+    }
+}